@@ -0,0 +1,122 @@
+package com.example.xray;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+
+/** Builds ALB request events that look like the traffic behind our load balancer. */
+public final class BenchmarkEvents {
+
+  /** X-Ray trace header as ALB forwards it for a sampled upstream request. */
+  public static final String TRACE_HEADER =
+      "Root=1-67890abc-12345678901234567890abcd;Parent=53995c3f42cd8ad8;Sampled=1";
+
+  /** W3C trace context headers sent by RUM-instrumented browsers. */
+  public static final String TRACEPARENT =
+      "00-67890abc12345678901234567890abcd-53995c3f42cd8ad8-01";
+
+  public static final String TRACESTATE = "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE";
+
+  /** Typical baggage from the AppSync resolver. */
+  public static final String BAGGAGE =
+      "userId=alice,sessionId=0f3c2a9e-5b1d-4c7a-9e8f-1a2b3c4d5e6f,tenant=acme;region=us-east-1";
+
+  /** A tracestate with the 32 list members the W3C allows, each near the 256 character limit. */
+  public static final String PATHOLOGICAL_TRACESTATE = repeat("vendor%d=%s", 32, 240, ',');
+
+  /** Baggage far past the W3C limits: 256 entries of about 100 characters. */
+  public static final String PATHOLOGICAL_BAGGAGE = repeat("key%d=%s;meta=1", 256, 90, ',');
+
+  private BenchmarkEvents() {}
+
+  private static String repeat(String format, int members, int valueLength, char separator) {
+    String value = "v".repeat(valueLength);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < members; i++) {
+      if (i > 0) {
+        builder.append(separator);
+      }
+      builder.append(String.format(format, i, value));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Build a GET /api/hello event with the given number of headers.
+   *
+   * @param headerCount Total number of headers, at least the 12 standard ones
+   * @param multiValue Whether to use the multi-value header representation
+   * @return The event
+   */
+  public static ApplicationLoadBalancerRequestEvent albEvent(int headerCount, boolean multiValue) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("accept", "application/json");
+    headers.put("accept-encoding", "gzip, deflate, br");
+    headers.put("accept-language", "en-US,en;q=0.9");
+    headers.put("host", "api.example.com");
+    headers.put("user-agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36");
+    headers.put("x-amzn-trace-id", TRACE_HEADER);
+    headers.put("x-forwarded-for", "203.0.113.10, 10.0.1.15");
+    headers.put("x-forwarded-port", "443");
+    headers.put("x-forwarded-proto", "https");
+    headers.put("origin", "https://app.example.com");
+    headers.put("referer", "https://app.example.com/");
+    headers.put("cookie", "session=0123456789abcdef0123456789abcdef");
+    for (int i = headers.size(); i < headerCount; i++) {
+      headers.put("x-custom-header-" + i, "value-" + i);
+    }
+    return toEvent(headers, multiValue);
+  }
+
+  /**
+   * Build a GET /api/hello event carrying X-Ray, W3C trace context and baggage headers.
+   *
+   * @param multiValue Whether to use the multi-value header representation
+   * @return The event
+   */
+  public static ApplicationLoadBalancerRequestEvent tracedEvent(boolean multiValue) {
+    return tracedEvent(multiValue, TRACESTATE, BAGGAGE);
+  }
+
+  /**
+   * Build a GET /api/hello event carrying X-Ray and W3C trace context headers with the given
+   * tracestate and baggage, such as {@link #PATHOLOGICAL_TRACESTATE} and {@link
+   * #PATHOLOGICAL_BAGGAGE}.
+   *
+   * @param multiValue Whether to use the multi-value header representation
+   * @param traceState The tracestate header
+   * @param baggage The baggage header
+   * @return The event
+   */
+  public static ApplicationLoadBalancerRequestEvent tracedEvent(
+      boolean multiValue, String traceState, String baggage) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("accept", "application/json");
+    headers.put("host", "api.example.com");
+    headers.put("x-amzn-trace-id", TRACE_HEADER);
+    headers.put("traceparent", TRACEPARENT);
+    headers.put("tracestate", traceState);
+    headers.put("baggage", baggage);
+    headers.put("x-forwarded-for", "203.0.113.10, 10.0.1.15");
+    headers.put("x-forwarded-proto", "https");
+    return toEvent(headers, multiValue);
+  }
+
+  private static ApplicationLoadBalancerRequestEvent toEvent(
+      Map<String, String> headers, boolean multiValue) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod("GET");
+    event.setPath("/api/hello");
+    if (multiValue) {
+      Map<String, List<String>> multiHeaders = new HashMap<>();
+      headers.forEach((name, value) -> multiHeaders.put(name, Collections.singletonList(value)));
+      event.setMultiValueHeaders(multiHeaders);
+    } else {
+      event.setHeaders(headers);
+    }
+    return event;
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.xray;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/** Fixed Lambda {@link Context} for benchmarks, matching the values the tests mock. */
+public final class BenchmarkLambdaContext implements Context {
+
+  @Override
+  public String getAwsRequestId() {
+    return "8f5f6b5a-1c3e-4d8f-9c1a-2b3c4d5e6f70";
+  }
+
+  @Override
+  public String getLogGroupName() {
+    return "/aws/lambda/x-ray-backend";
+  }
+
+  @Override
+  public String getLogStreamName() {
+    return "2026/01/01/[$LATEST]0123456789abcdef";
+  }
+
+  @Override
+  public String getFunctionName() {
+    return "x-ray-backend";
+  }
+
+  @Override
+  public String getFunctionVersion() {
+    return "$LATEST";
+  }
+
+  @Override
+  public String getInvokedFunctionArn() {
+    return "arn:aws:lambda:us-east-1:123456789012:function:x-ray-backend";
+  }
+
+  @Override
+  public CognitoIdentity getIdentity() {
+    return null;
+  }
+
+  @Override
+  public ClientContext getClientContext() {
+    return null;
+  }
+
+  @Override
+  public int getRemainingTimeInMillis() {
+    return 30000;
+  }
+
+  @Override
+  public int getMemoryLimitInMB() {
+    return 1024;
+  }
+
+  @Override
+  public LambdaLogger getLogger() {
+    return null;
+  }
+}
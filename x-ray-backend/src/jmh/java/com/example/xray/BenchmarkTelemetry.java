@@ -0,0 +1,183 @@
+package com.example.xray;
+
+import java.time.Duration;
+
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.contrib.awsxray.propagator.AwsXrayPropagator;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+import com.example.xray.batch.BatchProcessor;
+import com.example.xray.budget.RequestBudgeter;
+import com.example.xray.cache.ResponseCache;
+import com.example.xray.compression.ResponseCompressor;
+import com.example.xray.concurrency.InFlightLimiter;
+import com.example.xray.flush.FlushMode;
+import com.example.xray.flush.PendingSpanTracker;
+import com.example.xray.flush.SpanFlushStrategyProducer;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.logging.LogPipeline;
+import com.example.xray.metrics.PhaseMetrics;
+import com.example.xray.propagation.BoundedPropagator;
+import com.example.xray.route.RouteTable;
+import com.example.xray.startup.StartupTimeline;
+import com.example.xray.trace.SpanCoalescer;
+
+/**
+ * OpenTelemetry wiring for benchmarks that mirrors {@code application.properties}: always-on
+ * sampling and the {@code xray,tracecontext,baggage} propagators, with spans exported to an
+ * in-memory exporter instead of the ADOT collector.
+ */
+public final class BenchmarkTelemetry {
+
+  /** The propagators configured by {@code quarkus.otel.propagators}. */
+  public static final TextMapPropagator PROPAGATOR =
+      TextMapPropagator.composite(
+          AwsXrayPropagator.getInstance(),
+          W3CTraceContextPropagator.getInstance(),
+          W3CBaggagePropagator.getInstance());
+
+  /**
+   * Creates the propagator the handler extracts with, bounded as {@code xray.propagation.*}
+   * defaults it.
+   *
+   * @return The propagator
+   */
+  public static BoundedPropagator boundedPropagator() {
+    return BoundedPropagator.create(PROPAGATOR, 64, 8192, 512);
+  }
+
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private final PendingSpanTracker tracker = new PendingSpanTracker();
+  private final OpenTelemetrySdk sdk;
+  private final BatchProcessor batchProcessor;
+  private int opsSinceReset;
+
+  /** Creates the SDK with a synchronous in-memory exporter. */
+  public BenchmarkTelemetry() {
+    this(Sampler.alwaysOn());
+  }
+
+  /**
+   * Creates the SDK with a synchronous in-memory exporter and the given sampler.
+   *
+   * @param sampler The sampler, such as a parent-based one to honour unsampled trace headers
+   */
+  public BenchmarkTelemetry(Sampler sampler) {
+    SdkTracerProvider tracerProvider =
+        SdkTracerProvider.builder()
+            .setSampler(sampler)
+            .addSpanProcessor(tracker)
+            .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+            .build();
+    sdk =
+        OpenTelemetrySdk.builder()
+            .setTracerProvider(tracerProvider)
+            .setPropagators(ContextPropagators.create(PROPAGATOR))
+            .build();
+    batchProcessor = new BatchProcessor(sdk.getTracer("x-ray-backend"), 100, 25);
+  }
+
+  /**
+   * Gets the SDK.
+   *
+   * @return The OpenTelemetry SDK
+   */
+  public OpenTelemetrySdk sdk() {
+    return sdk;
+  }
+
+  /**
+   * Gets the exporter holding every finished span.
+   *
+   * @return The in-memory exporter
+   */
+  public InMemorySpanExporter exporter() {
+    return exporter;
+  }
+
+  /**
+   * Clear the exporter every 4096 benchmark operations, so long iterations do not turn into a
+   * heap-growth benchmark. Call once per benchmark operation.
+   */
+  public void trimExporter() {
+    if (++opsSinceReset == 4096) {
+      exporter.reset();
+      opsSinceReset = 0;
+    }
+  }
+
+  /**
+   * Build a handler wired the way CDI wires it, using the synchronous flush mode and the
+   * application's routes.
+   *
+   * @return The handler
+   */
+  public AlbLambdaHandler newHandler() {
+    return newHandler(FlushMode.SYNC);
+  }
+
+  /**
+   * Build a handler wired the way CDI wires it, using the given flush mode and the application's
+   * routes, without the response cache or compression.
+   *
+   * @param flushMode The span flush mode
+   * @return The handler
+   */
+  public AlbLambdaHandler newHandler(FlushMode flushMode) {
+    return newHandler(flushMode, ResponseCache.disabled());
+  }
+
+  /**
+   * Build a handler wired the way CDI wires it, using the given flush mode, response cache and the
+   * application's routes, without compression.
+   *
+   * @param flushMode The span flush mode
+   * @param responseCache The response cache, shared by the handler and the hello route
+   * @return The handler
+   */
+  public AlbLambdaHandler newHandler(FlushMode flushMode, ResponseCache responseCache) {
+    AlbLambdaHandler handler = new AlbLambdaHandler();
+    handler.propagator = boundedPropagator();
+    handler.tracer = sdk.getTracer("x-ray-backend");
+    HelloRoutes helloRoutes = new HelloRoutes();
+    helloRoutes.spanCoalescer =
+        SpanCoalescer.create(
+            handler.tracer,
+            SpanCoalescer.lightweightNames(HelloRoutes.class),
+            Duration.ofMillis(1));
+    helloRoutes.responseCache = responseCache;
+    helloRoutes.batchProcessor = batchProcessor;
+    handler.routes = RouteTable.builder().addAnnotated(helloRoutes, HelloRoutes.class).build();
+    handler.headerMode = HeaderMode.AUTO;
+    handler.phaseMetrics = PhaseMetrics.disabled();
+    handler.startupTimeline = StartupTimeline.disabled();
+    handler.inFlightLimiter = InFlightLimiter.unlimited();
+    handler.logPipeline = LogPipeline.disabled();
+    handler.responseCache = responseCache;
+    handler.responseCompressor = ResponseCompressor.disabled();
+    handler.requestBudgeter =
+        RequestBudgeter.create(Duration.ofMillis(250), Duration.ofMillis(500));
+    handler.flushStrategy =
+        SpanFlushStrategyProducer.create(
+            flushMode,
+            sdk.getSdkTracerProvider()::forceFlush,
+            tracker,
+            Duration.ofSeconds(10),
+            512,
+            Duration.ofSeconds(5));
+    return handler;
+  }
+
+  /** Shut the SDK down at the end of a trial. */
+  public void close() {
+    batchProcessor.close();
+    sdk.close();
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.xray;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbResponses;
+
+/**
+ * Measures {@link AlbLambdaHandler#handleRequest} end to end, and response building on its own,
+ * with spans exported synchronously to an in-memory exporter. Logging below WARN is disabled by
+ * {@code src/jmh/resources/logging.properties}, so log formatting is not part of the numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandlerInvocationBenchmark {
+
+  private static final String HELLO_BODY =
+      "{\"message\":\"Hello World\",\"timestamp\":\"2026-01-28T12:34:56.789Z\"}";
+
+  private BenchmarkTelemetry telemetry;
+  private AlbLambdaHandler handler;
+  private Context context;
+  private ApplicationLoadBalancerRequestEvent helloEvent;
+  private ApplicationLoadBalancerRequestEvent notFoundEvent;
+
+  @Setup
+  public void setUp() {
+    telemetry = new BenchmarkTelemetry();
+    handler = telemetry.newHandler();
+    context = new BenchmarkLambdaContext();
+    helloEvent = BenchmarkEvents.albEvent(30, false);
+    notFoundEvent = BenchmarkEvents.albEvent(30, false);
+    notFoundEvent.setPath("/unknown/path");
+  }
+
+  @TearDown
+  public void tearDown() {
+    telemetry.close();
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent hello() {
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(helloEvent, context);
+    telemetry.trimExporter();
+    return response;
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent notFound() {
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(notFoundEvent, context);
+    telemetry.trimExporter();
+    return response;
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent createResponse() {
+    return AlbResponses.json(200, HELLO_BODY);
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.xray;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+import org.jboss.logmanager.LogContext;
+import org.jboss.logmanager.Logger;
+import org.jboss.logmanager.formatters.JsonFormatter;
+import org.jboss.logmanager.handlers.OutputStreamHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.logging.AsyncLogHandler;
+import com.example.xray.logging.JsonLogFormatter;
+import com.example.xray.logging.LogPipeline;
+
+/**
+ * Measures {@link AlbLambdaHandler#handleRequest} with the application's INFO logging on, for
+ * sampled and unsampled traces. {@code sync-json} formats every line as JSON on the request thread,
+ * the way the Quarkus console handler does; {@code async} hands lines to {@link AsyncLogHandler}
+ * and waits for them at the end of the invocation, as in Lambda; {@code async-sampled} also holds
+ * back the lines of unsampled invocations for one summary line. Lines go to a null stream, so only
+ * the logging cost on the request path is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingPipelineBenchmark {
+
+  @Param({"sync-json", "async", "async-sampled"})
+  public String pipeline;
+
+  @Param({"true", "false"})
+  public boolean traceSampled;
+
+  private BenchmarkTelemetry telemetry;
+  private AlbLambdaHandler handler;
+  private Context context;
+  private ApplicationLoadBalancerRequestEvent helloEvent;
+  private LogPipeline logPipeline;
+  private Handler syncHandler;
+  private Handler[] rootHandlers;
+  private Level appLevel;
+
+  @Setup
+  public void setUp() {
+    telemetry = new BenchmarkTelemetry(Sampler.parentBased(Sampler.alwaysOn()));
+    handler = telemetry.newHandler();
+    context = new BenchmarkLambdaContext();
+    helloEvent = BenchmarkEvents.albEvent(30, false);
+    if (!traceSampled) {
+      helloEvent
+          .getHeaders()
+          .put("x-amzn-trace-id", BenchmarkEvents.TRACE_HEADER.replace("Sampled=1", "Sampled=0"));
+    }
+
+    // logging.properties keeps benchmarks at WARN; this one measures the application's INFO lines
+    LogContext logContext = LogContext.getLogContext();
+    Logger appLogger = logContext.getLogger("com.example.xray");
+    appLevel = appLogger.getLevel();
+    appLogger.setLevel(Level.INFO);
+    Logger root = logContext.getLogger("");
+    rootHandlers = root.clearHandlers();
+
+    PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+    if ("sync-json".equals(pipeline)) {
+      JsonFormatter formatter = new JsonFormatter();
+      formatter.setMetaData(Map.of("service.name", "x-ray-backend", "service.version", "1.0.0"));
+      OutputStreamHandler console = new OutputStreamHandler(out, formatter);
+      console.setAutoFlush(true);
+      syncHandler = console;
+      root.addHandler(syncHandler);
+      logPipeline = LogPipeline.disabled();
+    } else {
+      AsyncLogHandler asyncHandler =
+          new AsyncLogHandler(4096, new JsonLogFormatter("x-ray-backend", "1.0.0"), out::println);
+      logPipeline =
+          LogPipeline.create(
+              asyncHandler, "async-sampled".equals(pipeline), 64, true, Duration.ofSeconds(1));
+      logPipeline.install();
+    }
+    handler.logPipeline = logPipeline;
+  }
+
+  @TearDown
+  public void tearDown() {
+    logPipeline.close();
+    LogContext logContext = LogContext.getLogContext();
+    Logger root = logContext.getLogger("");
+    if (syncHandler != null) {
+      root.removeHandler(syncHandler);
+    }
+    for (Handler previous : rootHandlers) {
+      root.addHandler(previous);
+    }
+    logContext.getLogger("com.example.xray").setLevel(appLevel);
+    telemetry.close();
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent hello() {
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(helloEvent, context);
+    telemetry.trimExporter();
+    return response;
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.xray;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.opentelemetry.contrib.awsxray.propagator.AwsXrayPropagator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.example.xray.http.AlbRequestHeaders;
+
+/**
+ * Measures trace context extraction from an ALB request for each configured propagator on its own,
+ * for the composite they make, and for the {@code bounded} propagator the handler uses around that
+ * composite. {@code realistic} headers are what our clients send; {@code pathological} ones carry
+ * a tracestate at the W3C maximum and baggage several times past it. {@code extractAndRead} also
+ * reads one baggage entry, which is when the bounded propagator parses, and {@code
+ * extractAndInject} writes the context back out as for a downstream call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PropagationBenchmark {
+
+  private static final TextMapSetter<Map<String, String>> SETTER = Map::put;
+
+  @Param({"xray", "tracecontext", "baggage", "composite", "bounded"})
+  String propagator;
+
+  @Param({"realistic", "pathological"})
+  String headers;
+
+  private TextMapPropagator textMapPropagator;
+  private ApplicationLoadBalancerRequestEvent event;
+
+  @Setup
+  public void setUp() {
+    textMapPropagator =
+        switch (propagator) {
+          case "xray" -> AwsXrayPropagator.getInstance();
+          case "tracecontext" -> W3CTraceContextPropagator.getInstance();
+          case "baggage" -> W3CBaggagePropagator.getInstance();
+          case "bounded" -> BenchmarkTelemetry.boundedPropagator();
+          default -> BenchmarkTelemetry.PROPAGATOR;
+        };
+    event =
+        "pathological".equals(headers)
+            ? BenchmarkEvents.tracedEvent(
+                false,
+                BenchmarkEvents.PATHOLOGICAL_TRACESTATE,
+                BenchmarkEvents.PATHOLOGICAL_BAGGAGE)
+            : BenchmarkEvents.tracedEvent(false);
+  }
+
+  @Benchmark
+  public Context extract() {
+    return textMapPropagator.extract(
+        Context.root(), AlbRequestHeaders.of(event), AlbRequestHeaders.GETTER);
+  }
+
+  @Benchmark
+  public String extractAndRead() {
+    return Baggage.fromContext(extract()).getEntryValue("tenant");
+  }
+
+  @Benchmark
+  public Map<String, String> extractAndInject() {
+    Map<String, String> outgoing = new HashMap<>();
+    textMapPropagator.inject(extract(), outgoing, SETTER);
+    return outgoing;
+  }
+}
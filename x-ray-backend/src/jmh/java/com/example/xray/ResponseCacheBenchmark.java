@@ -0,0 +1,82 @@
+package com.example.xray;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.cache.ResponseCache;
+import com.example.xray.flush.FlushMode;
+
+/**
+ * Measures {@link AlbLambdaHandler#handleRequest} for {@code GET /api/hello} with the response
+ * cache off and on: a plain browser request, a conditional one that revalidates with {@code
+ * If-None-Match}, and an ALB health check. With the cache on, hits skip the hello route and its
+ * child span, and conditional requests also skip the body. The freshness window is an hour, so
+ * nearly every operation lands in the same window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseCacheBenchmark {
+
+  @Param({"off", "on"})
+  public String cache;
+
+  @Param({"browser", "conditional", "health-check"})
+  public String request;
+
+  private BenchmarkTelemetry telemetry;
+  private AlbLambdaHandler handler;
+  private Context context;
+  private ApplicationLoadBalancerRequestEvent event;
+
+  @Setup
+  public void setUp() {
+    telemetry = new BenchmarkTelemetry();
+    ResponseCache responseCache =
+        "on".equals(cache)
+            ? ResponseCache.create(Duration.ofHours(1), 1024)
+            : ResponseCache.disabled();
+    handler = telemetry.newHandler(FlushMode.SYNC, responseCache);
+    context = new BenchmarkLambdaContext();
+    event = BenchmarkEvents.albEvent(30, false);
+    Map<String, String> headers = event.getHeaders();
+    switch (request) {
+      case "conditional" -> {
+        // Revalidate with the ETag of the current response, as a browser or CloudFront would
+        String etag = handler.handleRequest(event, context).getHeaders().get(ResponseCache.ETAG);
+        headers.put(ResponseCache.IF_NONE_MATCH, etag != null ? etag : "\"none\"");
+      }
+      case "health-check" -> {
+        headers.put("user-agent", "ELB-HealthChecker/2.0");
+        headers.remove("x-amzn-trace-id");
+      }
+      default -> {}
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    telemetry.close();
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent hello() {
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+    telemetry.trimExporter();
+    return response;
+  }
+}
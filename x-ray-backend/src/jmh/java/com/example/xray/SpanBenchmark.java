@@ -0,0 +1,149 @@
+package com.example.xray;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.route.RouteTable;
+import com.example.xray.trace.SpanAttributes;
+import com.example.xray.trace.SpanCoalescer;
+import com.example.xray.trace.SpanTemplate;
+
+/**
+ * Measures creating the request span under an extracted parent and setting the attributes {@code
+ * AlbLambdaHandler} records, then ending it into the in-memory exporter. {@code requestSpan} sets
+ * every attribute by name, creating an {@code AttributeKey} per call; {@code requestSpanTemplate}
+ * starts the span from a prebuilt {@link SpanTemplate} and sets the per-request values with the
+ * typed keys in {@link SpanAttributes}, as the handler does. Compare their allocation with the
+ * GC profiler.
+ *
+ * <p>{@code requestWithChildOperation} and {@code requestWithCoalescedOperation} run the hello
+ * route's operation under a request span, as a child span and as an event on the request span
+ * through {@link SpanCoalescer}, and export the result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpanBenchmark {
+
+  private BenchmarkTelemetry telemetry;
+  private Tracer tracer;
+  private Context parent;
+  private SpanTemplate template;
+  private SpanTemplate operation;
+  private SpanCoalescer childSpans;
+  private SpanCoalescer coalescing;
+
+  @Setup
+  public void setUp() {
+    telemetry = new BenchmarkTelemetry();
+    tracer = telemetry.sdk().getTracer("x-ray-backend");
+    parent =
+        BenchmarkTelemetry.PROPAGATOR.extract(
+            Context.root(),
+            AlbRequestHeaders.of(BenchmarkEvents.tracedEvent(false)),
+            AlbRequestHeaders.GETTER);
+    template =
+        SpanTemplate.of(
+            "GET /api/hello",
+            SpanKind.SERVER,
+            Attributes.of(
+                RouteTable.HTTP_ROUTE,
+                "/api/hello",
+                RouteTable.CODE_NAMESPACE,
+                HelloRoutes.class.getName(),
+                RouteTable.CODE_FUNCTION,
+                "hello"));
+    operation = SpanTemplate.internal("hello-operation", Attributes.empty());
+    childSpans = SpanCoalescer.disabled(tracer);
+    coalescing = SpanCoalescer.create(tracer, List.of(operation.name()), Duration.ofMillis(1));
+  }
+
+  @TearDown
+  public void tearDown() {
+    telemetry.close();
+  }
+
+  @Benchmark
+  public Span requestSpan() {
+    Span span =
+        tracer
+            .spanBuilder("GET /api/hello")
+            .setParent(parent)
+            .setSpanKind(SpanKind.SERVER)
+            .setAttribute("http.route", "/api/hello")
+            .setAttribute("code.namespace", HelloRoutes.class.getName())
+            .setAttribute("code.function", "hello")
+            .startSpan();
+    span.setAttribute("http.method", "GET");
+    span.setAttribute("http.url", "/api/hello");
+    span.setAttribute("http.target", "/api/hello");
+    span.setAttribute("aws.lambda.request_id", "8f5f6b5a-1c3e-4d8f-9c1a-2b3c4d5e6f70");
+    span.setAttribute("aws.lambda.function_name", "x-ray-backend");
+    span.setAttribute("xray.trace_id", BenchmarkEvents.TRACE_HEADER);
+    span.setAttribute("http.status_code", 200);
+    span.setStatus(StatusCode.OK);
+    span.end();
+    telemetry.trimExporter();
+    return span;
+  }
+
+  @Benchmark
+  public Span requestSpanTemplate() {
+    Span span =
+        template
+            .spanBuilder(tracer)
+            .setParent(parent)
+            .setAttribute(SpanAttributes.HTTP_METHOD, "GET")
+            .setAttribute(SpanAttributes.HTTP_TARGET, "/api/hello")
+            .startSpan();
+    span.setAttribute(SpanAttributes.HTTP_URL, "/api/hello");
+    span.setAttribute(
+        SpanAttributes.AWS_LAMBDA_REQUEST_ID, "8f5f6b5a-1c3e-4d8f-9c1a-2b3c4d5e6f70");
+    span.setAttribute(SpanAttributes.AWS_LAMBDA_FUNCTION_NAME, "x-ray-backend");
+    span.setAttribute(SpanAttributes.XRAY_TRACE_ID, BenchmarkEvents.TRACE_HEADER);
+    span.setAttribute(SpanAttributes.HTTP_STATUS_CODE, 200);
+    span.setStatus(StatusCode.OK);
+    span.end();
+    telemetry.trimExporter();
+    return span;
+  }
+
+  @Benchmark
+  public Span requestWithChildOperation() {
+    return requestWithOperation(childSpans);
+  }
+
+  @Benchmark
+  public Span requestWithCoalescedOperation() {
+    return requestWithOperation(coalescing);
+  }
+
+  private Span requestWithOperation(SpanCoalescer coalescer) {
+    Span span = template.spanBuilder(tracer).setParent(parent).startSpan();
+    try (io.opentelemetry.context.Scope scope = span.makeCurrent();
+        SpanCoalescer.Operation hello = coalescer.start(operation)) {
+      span.setAttribute(SpanAttributes.HTTP_STATUS_CODE, 200);
+    }
+    span.end();
+    telemetry.trimExporter();
+    return span;
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.xray;
+
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+
+import org.jboss.logmanager.MDC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the MDC updates one request makes (request span, then a nested child span of the same
+ * trace) using the original {@code String.format} based bridge against {@link XRayLoggingContext}.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class XRayLoggingContextBenchmark {
+
+  private final SpanContext requestSpan =
+      SpanContext.create(
+          "67890abc12345678901234567890abcd",
+          "1234567890abcdef",
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+
+  private final SpanContext childSpan =
+      SpanContext.create(
+          requestSpan.getTraceId(),
+          "fedcba0987654321",
+          TraceFlags.getSampled(),
+          TraceState.getDefault());
+
+  @TearDown
+  public void tearDown() {
+    XRayLoggingContext.clearTraceContextFromMDC();
+  }
+
+  @Benchmark
+  public void legacyBridge() {
+    legacyAddTraceContextToMDC(requestSpan);
+    legacyAddTraceContextToMDC(childSpan);
+    XRayLoggingContext.clearTraceContextFromMDC();
+  }
+
+  @Benchmark
+  public void cachedBridge() {
+    XRayLoggingContext.addTraceContextToMDC(requestSpan);
+    try (XRayLoggingContext.MdcScope scope = XRayLoggingContext.push(childSpan)) {
+      // Child span work happens here
+    }
+    XRayLoggingContext.clearTraceContextFromMDC();
+  }
+
+  /** The MDC update {@code XRayLoggingContext} performed before the cached bridge. */
+  private static void legacyAddTraceContextToMDC(SpanContext spanContext) {
+    if (spanContext.isValid()) {
+      String otelTraceId = spanContext.getTraceId();
+      MDC.put(XRayLoggingContext.TRACE_ID_KEY, otelTraceId);
+      MDC.put(XRayLoggingContext.SPAN_ID_KEY, spanContext.getSpanId());
+      if (otelTraceId.length() == 32) {
+        String timestamp = otelTraceId.substring(0, 8);
+        String traceIdPart = otelTraceId.substring(8);
+        MDC.put(
+            XRayLoggingContext.XRAY_TRACE_ID_KEY, String.format("1-%s-%s", timestamp, traceIdPart));
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.xray.compression;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports the response body size before and after compression as secondary results of {@link
+ * ResponseCompressionBenchmark}, so the bytes saved sit next to the time in the JMH results. The
+ * sizes are averaged over iterations, where {@code @AuxCounters} events would be summed. Other
+ * benchmarks record no size and get no results from it.
+ */
+public final class CompressedSizeProfiler implements InternalProfiler {
+
+  private static volatile long bodyBytes = -1;
+  private static volatile long sentBytes;
+
+  /**
+   * Record the sizes of the body the running benchmark compresses.
+   *
+   * @param body Characters of the uncompressed body
+   * @param sent Characters of the body as sent to the ALB, base64 included
+   */
+  static void record(long body, long sent) {
+    sentBytes = sent;
+    bodyBytes = body;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Response body size before and after compression";
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {}
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    long body = bodyBytes;
+    if (body < 0) {
+      return List.of();
+    }
+    return List.of(
+        new ScalarResult("body.bytes", body, "B", AggregationPolicy.AVG),
+        new ScalarResult("body.sent.bytes", sentBytes, "B", AggregationPolicy.AVG));
+  }
+}
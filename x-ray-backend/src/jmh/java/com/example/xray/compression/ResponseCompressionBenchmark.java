@@ -0,0 +1,95 @@
+package com.example.xray.compression;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Measures {@link ResponseCompressor#compress} on JSON bodies of 1 KB, 64 KB and 900 KB (just under
+ * the ALB's 1 MB Lambda response limit) for each coding and level, to weigh the CPU time against
+ * the bytes saved. The body sizes before and after, base64 included, are reported next to the time
+ * by the {@link CompressedSizeProfiler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseCompressionBenchmark {
+
+  private static final ResponseTemplate OK = ResponseTemplate.json(200);
+
+  @Param({"1024", "65536", "921600"})
+  public int size;
+
+  @Param({"identity", "gzip", "deflate"})
+  public String encoding;
+
+  @Param({"1", "6"})
+  public int level;
+
+  private ResponseCompressor compressor;
+  private AlbRequestHeaders headers;
+  private String body;
+
+  @Setup
+  public void setUp() {
+    compressor =
+        ResponseCompressor.create(
+            EnumSet.of(ContentEncoding.GZIP, ContentEncoding.DEFLATE), 1024, level, 4);
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod("GET");
+    event.setPath("/api/items");
+    event.setHeaders(Map.of("accept-encoding", encoding));
+    headers = AlbRequestHeaders.of(event);
+    body = items(size);
+    CompressedSizeProfiler.record(body.length(), compress().getBody().length());
+  }
+
+  @TearDown
+  public void tearDown() {
+    compressor.close();
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent compress() {
+    return compressor.compress(OK.create(body, HeaderMode.SINGLE), headers);
+  }
+
+  /** A JSON array of item objects, as a list endpoint would return, of about the given length. */
+  private static String items(int length) {
+    JsonBuffer out = JsonBuffer.create();
+    out.raw('[');
+    for (int i = 0; out.length() < length - 160; i++) {
+      if (i > 0) {
+        out.raw(',');
+      }
+      out.raw("{\"id\":")
+          .number(i)
+          .raw(",\"name\":")
+          .string("item-" + Integer.toHexString(i * 31))
+          .raw(",\"price\":")
+          .number((i * 7919L) % 100000)
+          .raw(",\"tags\":[\"catalog\",\"featured\"],\"available\":")
+          .bool(i % 3 != 0)
+          .raw('}');
+    }
+    out.raw(']');
+    return out.chars().toString();
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.xray.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.example.xray.BenchmarkEvents;
+
+/**
+ * Compares the header lookups made for one request (X-Ray, W3C trace context and baggage
+ * propagators plus the handler's own trace header read) using the old linear case-insensitive scan
+ * against {@link AlbRequestHeaders}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeaderLookupBenchmark {
+
+  /** Keys requested per invocation with {@code xray,tracecontext,baggage} propagators. */
+  private static final String[] LOOKUPS = {
+    "X-Amzn-Trace-Id", "traceparent", "tracestate", "baggage", "X-Amzn-Trace-Id"
+  };
+
+  @Param({"30", "60"})
+  int headerCount;
+
+  @Param({"single", "multi"})
+  String albMode;
+
+  private ApplicationLoadBalancerRequestEvent event;
+
+  @Setup
+  public void setUp() {
+    event = BenchmarkEvents.albEvent(headerCount, "multi".equals(albMode));
+  }
+
+  @Benchmark
+  public void linearScan(Blackhole blackhole) {
+    for (String key : LOOKUPS) {
+      blackhole.consume(linearLookup(event, key));
+    }
+  }
+
+  @Benchmark
+  public void headerView(Blackhole blackhole) {
+    AlbRequestHeaders headers = AlbRequestHeaders.of(event);
+    for (String key : LOOKUPS) {
+      blackhole.consume(headers.get(key));
+    }
+  }
+
+  /** The lookup {@code AlbLambdaHandler} used before {@link AlbRequestHeaders} existed. */
+  private static String linearLookup(ApplicationLoadBalancerRequestEvent carrier, String key) {
+    Map<String, String> headers = carrier.getHeaders();
+    if (headers != null) {
+      for (Map.Entry<String, String> entry : headers.entrySet()) {
+        if (entry.getKey().equalsIgnoreCase(key)) {
+          return entry.getValue();
+        }
+      }
+    }
+    Map<String, List<String>> multiHeaders = carrier.getMultiValueHeaders();
+    if (multiHeaders != null) {
+      for (Map.Entry<String, List<String>> entry : multiHeaders.entrySet()) {
+        if (entry.getKey().equalsIgnoreCase(key)) {
+          List<String> values = entry.getValue();
+          return (values != null && !values.isEmpty()) ? values.get(0) : null;
+        }
+      }
+    }
+    return null;
+  }
+}
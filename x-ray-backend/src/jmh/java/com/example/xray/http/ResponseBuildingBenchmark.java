@@ -0,0 +1,67 @@
+package com.example.xray.http;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.json.JsonBuffer;
+import com.example.xray.model.HelloResponse;
+import com.example.xray.model.HelloResponseJsonWriter;
+
+/**
+ * Compares building the hello response the old way (String.format body, fresh header maps) with the
+ * generated writer and shared templates, and the constant 404 fast path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseBuildingBenchmark {
+
+  private HelloResponse hello;
+
+  @Setup
+  public void setUp() {
+    hello = new HelloResponse("Hello World");
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent formatAndHashMaps() {
+    String body =
+        String.format(
+            "{\"message\":\"%s\",\"timestamp\":\"%s\"}", hello.getMessage(), hello.getTimestamp());
+    ApplicationLoadBalancerResponseEvent response = new ApplicationLoadBalancerResponseEvent();
+    response.setStatusCode(200);
+    response.setStatusDescription("200 OK");
+    response.setBody(body);
+    response.setIsBase64Encoded(false);
+    Map<String, String> singleHeaders = new HashMap<>();
+    singleHeaders.put("Content-Type", "application/json");
+    response.setHeaders(singleHeaders);
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("Content-Type", Collections.singletonList("application/json"));
+    response.setMultiValueHeaders(multiHeaders);
+    return response;
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent writerAndTemplate() {
+    return ResponseTemplate.json(200)
+        .create(JsonBuffer.write(hello, HelloResponseJsonWriter.INSTANCE));
+  }
+
+  @Benchmark
+  public ApplicationLoadBalancerResponseEvent constantNotFound() {
+    return AlbResponses.NOT_FOUND.create();
+  }
+}
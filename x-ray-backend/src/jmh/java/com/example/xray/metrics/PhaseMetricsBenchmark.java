@@ -0,0 +1,61 @@
+package com.example.xray.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures recording into {@link PhaseMetrics}: one histogram value, and everything the handler
+ * records per invocation (route lookup, seven phases and the invocation count). Emission is pushed
+ * out past the run, so the numbers are the request-path cost only; the GC profiler should report
+ * no allocation. The {@code contended} variant records from four threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PhaseMetricsBenchmark {
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private PhaseMetrics metrics;
+  private LatencyHistogram histogram;
+  private String route;
+  private long value;
+
+  @Setup
+  public void setUp() {
+    metrics = new PhaseMetrics(true, "bench", 0, Duration.ofDays(1), line -> {}, System::nanoTime);
+    histogram = new LatencyHistogram();
+    route = "GET /api/hello";
+  }
+
+  @Benchmark
+  public void recordValue() {
+    value = (value + 7919) & 0xFFFFF;
+    histogram.record(value);
+  }
+
+  @Benchmark
+  public void recordInvocation() {
+    value = (value + 7919) & 0xFFFFF;
+    PhaseMetrics.RouteLatency latency = metrics.route(route);
+    for (Phase phase : PHASES) {
+      latency.record(phase, value);
+    }
+    metrics.invocationCompleted();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void recordInvocationContended() {
+    recordInvocation();
+  }
+}
@@ -0,0 +1,71 @@
+package com.example.xray.route;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link RouteTable} dispatch with 1 and with 100 routes, against the if/else chain of
+ * {@code equals} checks it replaced. {@code /api/hello} is registered last, so the chain has to
+ * test every other route first; half of the other routes take a path parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouteTableBenchmark {
+
+  @Param({"1", "100"})
+  int routeCount;
+
+  private RouteTable table;
+  private List<String> chain;
+  private String helloPath;
+  private String unknownPath;
+
+  @Setup
+  public void setUp() {
+    RouteTable.Builder builder = RouteTable.builder();
+    chain = new ArrayList<>();
+    RouteHandler handler = request -> null;
+    for (int i = 1; i < routeCount; i++) {
+      String template = i % 2 == 0 ? "/api/resource" + i + "/{id}" : "/api/resource" + i;
+      builder.add(HttpMethod.GET, template, handler);
+      chain.add(template);
+    }
+    builder.add(HttpMethod.GET, "/api/hello", handler);
+    chain.add("/api/hello");
+    table = builder.build();
+    // Not interned, so equals() cannot short-circuit on identity
+    helloPath = new String("/api/hello");
+    unknownPath = new String("/api/unknown/path");
+  }
+
+  @Benchmark
+  public RouteMatch staticRoute() {
+    return table.match("GET", helloPath);
+  }
+
+  @Benchmark
+  public RouteMatch notFound() {
+    return table.match("GET", unknownPath);
+  }
+
+  @Benchmark
+  public String ifElseChain() {
+    for (String template : chain) {
+      if (template.equals(helloPath)) {
+        return template;
+      }
+    }
+    return null;
+  }
+}
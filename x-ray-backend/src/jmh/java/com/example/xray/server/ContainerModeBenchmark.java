@@ -0,0 +1,99 @@
+package com.example.xray.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.AlbLambdaHandler;
+import com.example.xray.BenchmarkEvents;
+import com.example.xray.BenchmarkLambdaContext;
+import com.example.xray.BenchmarkTelemetry;
+import com.example.xray.flush.FlushMode;
+
+/**
+ * Load test of the container mode against the Lambda invocation path, reporting throughput and the
+ * latency distribution (p99 from the sample-time mode). {@code lambdaInvocation} runs one
+ * invocation at a time with a synchronous span flush, which is what one Lambda environment does;
+ * {@code containerRequest} drives {@link AlbHttpServer} over loopback HTTP from 32 client threads
+ * with batch export, so it includes the HTTP parsing and socket cost the Lambda path leaves to the
+ * runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContainerModeBenchmark {
+
+  private BenchmarkTelemetry lambdaTelemetry;
+  private BenchmarkTelemetry containerTelemetry;
+  private AlbLambdaHandler lambdaHandler;
+  private AlbHttpServer server;
+  private HttpClient client;
+  private HttpRequest helloRequest;
+  private Context context;
+  private ApplicationLoadBalancerRequestEvent helloEvent;
+
+  @Setup
+  public void setUp() throws IOException {
+    lambdaTelemetry = new BenchmarkTelemetry();
+    lambdaHandler = lambdaTelemetry.newHandler(FlushMode.SYNC);
+    context = new BenchmarkLambdaContext();
+    helloEvent = BenchmarkEvents.albEvent(30, false);
+
+    containerTelemetry = new BenchmarkTelemetry();
+    server =
+        AlbHttpServer.start(
+            containerTelemetry.newHandler(FlushMode.BATCH),
+            new InetSocketAddress("127.0.0.1", 0),
+            "x-ray-backend");
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    helloRequest =
+        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/api/hello"))
+            .header("X-Amzn-Trace-Id", BenchmarkEvents.TRACE_HEADER)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+    lambdaTelemetry.close();
+    containerTelemetry.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public ApplicationLoadBalancerResponseEvent lambdaInvocation() {
+    ApplicationLoadBalancerResponseEvent response =
+        lambdaHandler.handleRequest(helloEvent, context);
+    lambdaTelemetry.trimExporter();
+    return response;
+  }
+
+  @Benchmark
+  @Threads(32)
+  public int containerRequest() throws IOException, InterruptedException {
+    int status = client.send(helloRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    synchronized (containerTelemetry) {
+      containerTelemetry.trimExporter();
+    }
+    return status;
+  }
+}
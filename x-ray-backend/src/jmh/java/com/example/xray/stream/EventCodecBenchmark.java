@@ -0,0 +1,101 @@
+package com.example.xray.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Compares reading an ALB event and writing the response through Jackson databind, configured as
+ * the Quarkus Lambda runtime configures it, with {@link AlbEventReader} and {@link
+ * AlbResponseWriter}. The event is the recorded request in {@code events/alb-request.json} with its
+ * body padded to the payload size. Each operation reads what the handler reads: method, path and
+ * the trace header.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventCodecBenchmark {
+
+  private static final String HELLO_BODY =
+      "{\"message\":\"Hello World\",\"timestamp\":\"2026-01-28T12:34:56.789Z\"}";
+
+  @Param({"1024", "65536", "1048576"})
+  int payloadBytes;
+
+  private byte[] payload;
+  private ObjectReader eventReader;
+  private ObjectWriter responseWriter;
+  private ApplicationLoadBalancerResponseEvent response;
+  private final ByteArrayOutputStream sink = new ByteArrayOutputStream(4096);
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper mapper =
+        new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    eventReader = mapper.readerFor(ApplicationLoadBalancerRequestEvent.class);
+    responseWriter = mapper.writerFor(ApplicationLoadBalancerResponseEvent.class);
+
+    ObjectNode event;
+    try (InputStream in = getClass().getResourceAsStream("/events/alb-request.json")) {
+      event = (ObjectNode) mapper.readTree(in);
+    }
+    int overhead = mapper.writeValueAsBytes(event).length;
+    event.put("body", "x".repeat(Math.max(0, payloadBytes - overhead)));
+    payload = mapper.writeValueAsBytes(event);
+    response = ResponseTemplate.json(200).create(HELLO_BODY, HeaderMode.SINGLE);
+  }
+
+  @Benchmark
+  public int databind(Blackhole blackhole) throws IOException {
+    ApplicationLoadBalancerRequestEvent event =
+        eventReader.readValue(new ByteArrayInputStream(payload));
+    consume(event, blackhole);
+    sink.reset();
+    responseWriter.writeValue(sink, response);
+    return sink.size();
+  }
+
+  @Benchmark
+  public int streaming(Blackhole blackhole) throws IOException {
+    ApplicationLoadBalancerRequestEvent event =
+        AlbEventReader.read(new ByteArrayInputStream(payload));
+    consume(event, blackhole);
+    sink.reset();
+    AlbResponseWriter.write(response, sink);
+    return sink.size();
+  }
+
+  private static void consume(ApplicationLoadBalancerRequestEvent event, Blackhole blackhole) {
+    blackhole.consume(event.getHttpMethod());
+    blackhole.consume(event.getPath());
+    blackhole.consume(AlbRequestHeaders.of(event).get(AlbRequestHeaders.X_AMZN_TRACE_ID));
+  }
+}
@@ -1,39 +1,67 @@
 package com.example.xray;
 
-import java.time.Instant;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
-import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.trace.Span;
-import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
-import io.opentelemetry.context.propagation.TextMapGetter;
-import io.opentelemetry.context.propagation.TextMapPropagator;
-import io.opentelemetry.sdk.OpenTelemetrySdk;
-import io.opentelemetry.sdk.trace.SdkTracerProvider;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.budget.RequestBudget;
+import com.example.xray.budget.RequestBudgeter;
+import com.example.xray.cache.ResponseCache;
+import com.example.xray.compression.ResponseCompressor;
+import com.example.xray.concurrency.InFlightLimiter;
+import com.example.xray.flush.SpanFlushStrategy;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.AlbResponses;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.logging.InvocationLog;
+import com.example.xray.logging.LogPipeline;
+import com.example.xray.metrics.Phase;
+import com.example.xray.metrics.PhaseMetrics;
+import com.example.xray.propagation.BoundedPropagator;
+import com.example.xray.route.RouteBinding;
+import com.example.xray.route.RouteMatch;
+import com.example.xray.route.RouteRequest;
+import com.example.xray.route.RouteTable;
+import com.example.xray.startup.StartupTimeline;
+import com.example.xray.trace.SpanAttributes;
 
 /**
  * ALB Lambda handler with proper X-Ray trace context propagation. This is a Quarkus CDI managed
  * bean that properly bootstraps OpenTelemetry. Extracts the incoming X-Amzn-Trace-Id header from
  * the ALB request and creates child spans linked to the parent trace.
+ *
+ * <p>Invocations may run concurrently (Lambda multi-concurrency, container mode). Each one keeps
+ * its trace and logging state in its own OpenTelemetry {@link Context}, flushes are shared through
+ * the flush strategy, and {@code xray.concurrency.max-in-flight} caps how many run at once.
+ *
+ * <p>An invocation's log lines are held back until its span's sampling decision is known. Sampled
+ * and failed invocations write them all; the rest get one summary line from the {@link
+ * LogPipeline}.
+ *
+ * <p>GET and HEAD requests to {@code Cached} routes are answered from the {@link ResponseCache}
+ * while its freshness window lasts, with a 304 when {@code If-None-Match} names the ETag. Route
+ * responses large enough to be worth it are compressed in the coding negotiated from {@code
+ * Accept-Encoding} by the {@link ResponseCompressor}.
+ *
+ * <p>Each invocation gets a {@link RequestBudget} from the Lambda remaining time, stored in its
+ * context, so the flush and log waits shrink to fit it; invocations starting with less than the
+ * floor are answered 503 before any work.
+ *
+ * <p>Trace context is extracted by the {@link BoundedPropagator}, which caps the baggage and
+ * tracestate a request can carry and leaves the baggage unparsed until something reads it.
  */
 @Named("alb")
 @ApplicationScoped
@@ -45,209 +73,249 @@ public class AlbLambdaHandler
 
   @Inject Tracer tracer;
 
-  @Inject OpenTelemetry openTelemetry;
+  @Inject BoundedPropagator propagator;
 
-  /** TextMapGetter implementation for extracting trace context from ALB request headers. */
-  private static final TextMapGetter<ApplicationLoadBalancerRequestEvent> ALB_HEADER_GETTER =
-      new TextMapGetter<>() {
-        @Override
-        public Iterable<String> keys(ApplicationLoadBalancerRequestEvent carrier) {
-          Map<String, String> headers = carrier.getHeaders();
-          return headers != null ? headers.keySet() : Collections.emptySet();
-        }
+  @Inject SpanFlushStrategy flushStrategy;
 
-        @Override
-        public String get(ApplicationLoadBalancerRequestEvent carrier, String key) {
-          if (carrier == null) {
-            return null;
-          }
-          // Check single-value headers first
-          Map<String, String> headers = carrier.getHeaders();
-          if (headers != null) {
-            // Case-insensitive header lookup
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-              if (entry.getKey().equalsIgnoreCase(key)) {
-                return entry.getValue();
-              }
-            }
-          }
-          // Check multi-value headers
-          Map<String, List<String>> multiHeaders = carrier.getMultiValueHeaders();
-          if (multiHeaders != null) {
-            for (Map.Entry<String, List<String>> entry : multiHeaders.entrySet()) {
-              if (entry.getKey().equalsIgnoreCase(key)) {
-                List<String> values = entry.getValue();
-                return (values != null && !values.isEmpty()) ? values.get(0) : null;
-              }
-            }
-          }
-          return null;
-        }
-      };
+  @Inject RouteTable routes;
+
+  @Inject PhaseMetrics phaseMetrics;
+
+  @Inject StartupTimeline startupTimeline;
+
+  @Inject InFlightLimiter inFlightLimiter;
+
+  @Inject LogPipeline logPipeline;
+
+  @Inject ResponseCache responseCache;
+
+  @Inject ResponseCompressor responseCompressor;
+
+  @Inject RequestBudgeter requestBudgeter;
+
+  @ConfigProperty(name = "xray.alb.header-mode", defaultValue = "auto")
+  HeaderMode headerMode;
 
   @Override
   public ApplicationLoadBalancerResponseEvent handleRequest(
       ApplicationLoadBalancerRequestEvent event,
       com.amazonaws.services.lambda.runtime.Context context) {
+    long start = System.nanoTime();
+    RequestBudget budget = requestBudgeter.begin(context, start);
+    if (!requestBudgeter.admit(budget)) {
+      logger.warn(
+          "Shedding request with {} ms of budget left, under the {} ms floor: path={}, shed={}",
+          budget.remainingMillis(),
+          requestBudgeter.minRemainingMillis(),
+          event.getPath(),
+          requestBudgeter.shed());
+      return AlbResponses.SERVICE_UNAVAILABLE.create(headerMode.resolve(event));
+    }
+    if (!inFlightLimiter.tryAcquire()) {
+      logger.warn(
+          "Rejecting request over the in-flight limit of {}: path={}, rejected={}",
+          inFlightLimiter.maxInFlight(),
+          event.getPath(),
+          inFlightLimiter.rejected());
+      return AlbResponses.SERVICE_UNAVAILABLE.create(headerMode.resolve(event));
+    }
+    // Everything this invocation logs goes through its log state, from the first line on, and
+    // every wait it makes fits its budget
+    InvocationLog invocationLog = logPipeline.begin();
+    try (Scope logScope = Context.current().with(invocationLog).with(budget).makeCurrent()) {
+      return invoke(event, context, invocationLog, start);
+    } finally {
+      requestBudgeter.invocationEnded(budget);
+      inFlightLimiter.release();
+    }
+  }
 
-    // Add X-Ray trace context to MDC for log correlation
-    XRayLoggingContext.addTraceContextToMDC();
+  private ApplicationLoadBalancerResponseEvent invoke(
+      ApplicationLoadBalancerRequestEvent event,
+      com.amazonaws.services.lambda.runtime.Context context,
+      InvocationLog invocationLog,
+      long start) {
+
+    // Phase timings are kept in locals and recorded once the route is known. Settle any span
+    // flush deferred by the previous invocation, within this one's budget
+    long phaseStart = System.nanoTime();
+    flushStrategy.beforeInvocation();
+    long flushNanos = System.nanoTime() - phaseStart;
+
+    // Index the request headers once for trace extraction and logging
+    phaseStart = System.nanoTime();
+    AlbRequestHeaders headers = AlbRequestHeaders.of(event);
+    String incomingTraceId = headers.get(AlbRequestHeaders.X_AMZN_TRACE_ID);
+    long headersNanos = System.nanoTime() - phaseStart;
 
     // Log the incoming trace header for debugging
-    String incomingTraceId = getHeaderValue(event, "X-Amzn-Trace-Id");
     logger.info(
         "Received request: method={}, path={}, traceId={}",
         event.getHttpMethod(),
         event.getPath(),
         incomingTraceId);
 
-    // Get propagator from OpenTelemetry instance
-    TextMapPropagator propagator = openTelemetry.getPropagators().getTextMapPropagator();
-
-    // Extract trace context from incoming request headers
-    Context extractedContext = propagator.extract(Context.current(), event, ALB_HEADER_GETTER);
+    // Extract trace context from incoming request headers; baggage is parsed only if read
+    phaseStart = System.nanoTime();
+    Context extractedContext =
+        propagator.extract(Context.current(), headers, AlbRequestHeaders.GETTER);
+    long propagationNanos = System.nanoTime() - phaseStart;
     logger.info(
         "Extracted context: isValid={}",
         Span.fromContext(extractedContext).getSpanContext().isValid());
 
-    // Start a span as a child of the extracted context
+    // Answer in the header representation the target group reads
+    phaseStart = System.nanoTime();
+    HeaderMode responseHeaderMode = headerMode.resolve(event);
+
+    // Resolve the route first so the span starts with the route's precomputed name and attributes
+    RouteMatch match = routes.match(event.getHttpMethod(), event.getPath());
+    long routingNanos = System.nanoTime() - phaseStart;
+
+    // Start a span as a child of the extracted context, from the route's span template with its
+    // name and attributes built with the table. Method and target go on the builder so the
+    // sampler can match them against its rules.
     Span span =
-        tracer
-            .spanBuilder("alb-request-handler")
+        match
+            .spanTemplate()
+            .spanBuilder(tracer)
             .setParent(extractedContext)
-            .setSpanKind(SpanKind.SERVER)
+            .setAttribute(SpanAttributes.HTTP_METHOD, event.getHttpMethod())
+            .setAttribute(SpanAttributes.HTTP_TARGET, event.getPath())
             .startSpan();
 
+    // Unsampled spans are never exported, so skip the attribute and flush work for them, and
+    // keep their log lines back
+    boolean sampled = span.isRecording();
+    invocationLog.sampled(sampled);
+
     logger.info(
-        "Created span with traceId={}, spanId={}",
+        "Created span with traceId={}, spanId={}, sampled={}",
         span.getSpanContext().getTraceId(),
-        span.getSpanContext().getSpanId());
-
-    ApplicationLoadBalancerResponseEvent response;
-
-    // Make this span the current span
-    try (Scope scope = span.makeCurrent()) {
-      span.setAttribute("http.method", event.getHttpMethod());
-      span.setAttribute("http.url", event.getPath());
-      span.setAttribute("http.target", event.getPath());
-      span.setAttribute("aws.lambda.request_id", context.getAwsRequestId());
-      span.setAttribute("aws.lambda.function_name", context.getFunctionName());
-
-      if (incomingTraceId != null) {
-        span.setAttribute("xray.trace_id", incomingTraceId);
+        span.getSpanContext().getSpanId(),
+        sampled);
+
+    ApplicationLoadBalancerResponseEvent response = null;
+    long handlerNanos = 0;
+    long logDrainNanos = 0;
+
+    // The invocation's state lives in its own context, so concurrent invocations never share it.
+    // The MDC gets this invocation's IDs for log correlation and the thread's previous values back
+    // at the end, instead of being cleared under whatever else runs on the thread.
+    Context invocationContext =
+        extractedContext.with(span).with(new InvocationContext(context.getAwsRequestId()));
+    phaseStart = System.nanoTime();
+    XRayLoggingContext.MdcScope mdcScope = XRayLoggingContext.push(invocationContext);
+    long mdcNanos = System.nanoTime() - phaseStart;
+
+    try (Scope scope = invocationContext.makeCurrent()) {
+      if (sampled) {
+        span.setAttribute(SpanAttributes.HTTP_URL, event.getPath());
+        span.setAttribute(SpanAttributes.AWS_LAMBDA_REQUEST_ID, context.getAwsRequestId());
+        span.setAttribute(SpanAttributes.AWS_LAMBDA_FUNCTION_NAME, context.getFunctionName());
+
+        if (incomingTraceId != null) {
+          span.setAttribute(SpanAttributes.XRAY_TRACE_ID, incomingTraceId);
+        }
       }
 
-      // Route based on path
-      if ("/api/hello".equals(event.getPath()) && "GET".equals(event.getHttpMethod())) {
-        response = handleHello();
-        span.setAttribute("http.status_code", response.getStatusCode());
-        span.setStatus(StatusCode.OK);
-      } else if ("/api/hello".equals(event.getPath())) {
-        // Health check path
-        response = handleHello();
-        span.setAttribute("http.status_code", response.getStatusCode());
-        span.setStatus(StatusCode.OK);
+      phaseStart = System.nanoTime();
+      if (match.found()) {
+        RouteBinding binding = match.binding();
+        // Cacheable GETs in a fresh window, and conditional ones with a matching ETag, are
+        // answered without calling the route, so they create no child spans and log nothing
+        long nowMillis = System.currentTimeMillis();
+        boolean cacheable = responseCache.cacheable(binding, event.getHttpMethod());
+        ResponseCache.Entry cached =
+            cacheable ? responseCache.lookup(binding, headers, nowMillis) : null;
+        boolean hit = cached != null;
+        if (!hit) {
+          RouteRequest request =
+              new RouteRequest(event, context, headers, match, responseHeaderMode);
+          response = responseHeaderMode.apply(binding.handler().handle(request));
+          if (cacheable) {
+            cached = responseCache.store(binding, headers, response, nowMillis);
+          }
+        }
+        // Cached bodies keep their compressed variants; others are compressed per response
+        if (cached != null) {
+          response = responseCache.respond(cached, headers, responseHeaderMode, nowMillis);
+        } else {
+          response = responseCompressor.compress(response, headers);
+        }
+        handlerNanos = System.nanoTime() - phaseStart;
+        if (sampled && cacheable) {
+          span.setAttribute(ResponseCache.CACHE_RESULT, hit ? "hit" : "miss");
+        }
+        if (sampled) {
+          span.setAttribute(SpanAttributes.HTTP_STATUS_CODE, response.getStatusCode());
+          span.setStatus(StatusCode.OK);
+        }
       } else {
-        span.setAttribute("http.status_code", 404);
-        span.setStatus(StatusCode.ERROR, "Not Found");
-        response = createResponse(404, "{\"message\":\"Not Found\"}");
+        // 404 or 405, built with the route table
+        response = match.errorResponse(responseHeaderMode);
+        handlerNanos = System.nanoTime() - phaseStart;
+        if (sampled) {
+          span.setAttribute(SpanAttributes.HTTP_STATUS_CODE, response.getStatusCode());
+          span.setStatus(StatusCode.ERROR, response.getStatusDescription());
+        }
       }
 
     } catch (Exception e) {
       logger.error("Error processing request", e);
       span.recordException(e);
       span.setStatus(StatusCode.ERROR, e.getMessage());
-      response = createResponse(500, "{\"message\":\"Internal Server Error\"}");
+      response = AlbResponses.INTERNAL_SERVER_ERROR.create(responseHeaderMode);
     } finally {
       span.end();
-      logger.info("Span ended, flushing traces...");
-      forceFlushSpans();
-      // Clean up MDC to prevent context leakage
-      XRayLoggingContext.clearTraceContextFromMDC();
+      // The first invocation also ends the startup spans, which need the same flush
+      boolean startupReported = startupTimeline.invocationEnded(start);
+      if (sampled || startupReported) {
+        logger.info("Span ended, flushing traces...");
+        phaseStart = System.nanoTime();
+        forceFlushSpans();
+        flushNanos += System.nanoTime() - phaseStart;
+      }
+      logPipeline.invocationEnded(
+          invocationLog,
+          event.getHttpMethod(),
+          event.getPath(),
+          response != null ? response.getStatusCode() : 500,
+          start);
+      // Restore the thread's MDC values from before this invocation
+      phaseStart = System.nanoTime();
+      mdcScope.close();
+      mdcNanos += System.nanoTime() - phaseStart;
+      // Write out this invocation's log lines before Lambda can freeze the environment
+      phaseStart = System.nanoTime();
+      logPipeline.drain();
+      logDrainNanos = System.nanoTime() - phaseStart;
     }
 
+    PhaseMetrics.RouteLatency latency = phaseMetrics.route(match.spanName());
+    latency.record(Phase.HEADERS, headersNanos);
+    latency.record(Phase.PROPAGATION, propagationNanos);
+    latency.record(Phase.ROUTING, routingNanos);
+    latency.record(Phase.HANDLER, handlerNanos);
+    latency.record(Phase.FLUSH, flushNanos);
+    latency.record(Phase.MDC, mdcNanos);
+    latency.record(Phase.LOG_DRAIN, logDrainNanos);
+    latency.record(Phase.TOTAL, System.nanoTime() - start);
+    phaseMetrics.invocationCompleted();
+
     return response;
   }
 
-  /** Force flush all spans to ensure they are exported before Lambda freezes. */
+  /**
+   * Flush, or schedule a flush of, the spans recorded for this invocation so they are exported
+   * before Lambda freezes. How much of the export happens here depends on {@code xray.flush.mode}.
+   */
   private void forceFlushSpans() {
     try {
-      if (openTelemetry instanceof OpenTelemetrySdk) {
-        OpenTelemetrySdk sdk = (OpenTelemetrySdk) openTelemetry;
-        SdkTracerProvider tracerProvider = sdk.getSdkTracerProvider();
-        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
-        logger.info("Successfully flushed OpenTelemetry spans");
-      } else {
-        logger.warn(
-            "OpenTelemetry instance is not SDK type: {}, cannot force flush",
-            openTelemetry.getClass().getName());
-      }
+      flushStrategy.afterInvocation();
+      logger.debug("Span flush ({}): {}", flushStrategy.mode(), flushStrategy.metrics());
     } catch (Exception e) {
       logger.error("Failed to force flush OpenTelemetry spans", e);
     }
   }
-
-  private ApplicationLoadBalancerResponseEvent handleHello() {
-    Span span = tracer.spanBuilder("hello-operation").setSpanKind(SpanKind.INTERNAL).startSpan();
-
-    try (Scope scope = span.makeCurrent()) {
-      // Update MDC with the new span context
-      XRayLoggingContext.addTraceContextToMDC();
-      logger.info("Processing hello request");
-
-      span.setAttribute("service.operation", "hello");
-      span.setAttribute("custom.greeting", "Hello World");
-
-      String timestamp = Instant.now().toString();
-      String body = String.format("{\"message\":\"Hello World\",\"timestamp\":\"%s\"}", timestamp);
-
-      logger.info("Returning hello response at {}", timestamp);
-
-      return createResponse(200, body);
-
-    } finally {
-      span.end();
-    }
-  }
-
-  private ApplicationLoadBalancerResponseEvent createResponse(int statusCode, String body) {
-    ApplicationLoadBalancerResponseEvent response = new ApplicationLoadBalancerResponseEvent();
-    response.setStatusCode(statusCode);
-    response.setStatusDescription(getStatusDescription(statusCode));
-    response.setBody(body);
-    response.setIsBase64Encoded(false);
-
-    // Set single-value headers (required by ALB)
-    Map<String, String> singleHeaders = new HashMap<>();
-    singleHeaders.put("Content-Type", "application/json");
-    response.setHeaders(singleHeaders);
-
-    // Also set multi-value headers for compatibility
-    Map<String, List<String>> multiHeaders = new HashMap<>();
-    multiHeaders.put("Content-Type", Collections.singletonList("application/json"));
-    response.setMultiValueHeaders(multiHeaders);
-
-    return response;
-  }
-
-  private String getStatusDescription(int statusCode) {
-    return switch (statusCode) {
-      case 200 -> "200 OK";
-      case 404 -> "404 Not Found";
-      case 500 -> "500 Internal Server Error";
-      default -> statusCode + " Unknown";
-    };
-  }
-
-  private String getHeaderValue(ApplicationLoadBalancerRequestEvent event, String headerName) {
-    Map<String, String> headers = event.getHeaders();
-    if (headers != null) {
-      for (Map.Entry<String, String> entry : headers.entrySet()) {
-        if (entry.getKey().equalsIgnoreCase(headerName)) {
-          return entry.getValue();
-        }
-      }
-    }
-    return null;
-  }
 }
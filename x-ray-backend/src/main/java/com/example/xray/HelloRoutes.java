@@ -0,0 +1,170 @@
+package com.example.xray;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.batch.BatchProcessor;
+import com.example.xray.batch.BatchRequestException;
+import com.example.xray.batch.BatchRequestReader;
+import com.example.xray.batch.BatchResult;
+import com.example.xray.cache.ResponseCache;
+import com.example.xray.http.ResponseTemplate;
+import com.example.xray.json.JsonBuffer;
+import com.example.xray.model.HelloBatchJsonWriter;
+import com.example.xray.model.HelloResponse;
+import com.example.xray.model.HelloResponseJsonWriter;
+import com.example.xray.route.Cached;
+import com.example.xray.route.HttpMethod;
+import com.example.xray.route.Route;
+import com.example.xray.route.RouteRequest;
+import com.example.xray.route.Routes;
+import com.example.xray.trace.Lightweight;
+import com.example.xray.trace.SpanAttributes;
+import com.example.xray.trace.SpanCoalescer;
+import com.example.xray.trace.SpanTemplate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/** Routes for the hello endpoint. */
+@ApplicationScoped
+public class HelloRoutes implements Routes {
+
+  private static final Logger logger = LoggerFactory.getLogger(HelloRoutes.class);
+
+  private static final ResponseTemplate OK = ResponseTemplate.json(200);
+
+  private static final ResponseTemplate MULTI_STATUS = ResponseTemplate.json(207);
+
+  @Lightweight
+  private static final SpanTemplate HELLO_SPAN =
+      SpanTemplate.internal(
+          "hello-operation",
+          Attributes.of(
+              SpanAttributes.SERVICE_OPERATION,
+              "hello",
+              AttributeKey.stringKey("custom.greeting"),
+              "Hello World"));
+
+  private static final SpanTemplate BATCH_CHUNK_SPAN =
+      SpanTemplate.internal(
+          "hello-batch-chunk", Attributes.of(SpanAttributes.SERVICE_OPERATION, "hello-batch"));
+
+  /** Longest name a batch item may carry. */
+  static final int MAX_NAME_LENGTH = 64;
+
+  @Inject SpanCoalescer spanCoalescer;
+
+  @Inject ResponseCache responseCache;
+
+  @Inject BatchProcessor batchProcessor;
+
+  /**
+   * Return a Hello World message with the current timestamp, truncated to the response cache's
+   * freshness window so every response in a window is the same. Answers every method, since the
+   * ALB health check uses this path too; health checks skip the operation and logging. The
+   * operation is {@link Lightweight}, so while coalescing is on it is an event on the request span
+   * rather than a {@code hello-operation} child span.
+   *
+   * @param request The matched request
+   * @return The hello response
+   */
+  @Route(path = "/api/hello")
+  @Cached
+  ApplicationLoadBalancerResponseEvent hello(RouteRequest request) {
+    if (request.healthCheck()) {
+      String body = JsonBuffer.write(helloResponse(), HelloResponseJsonWriter.INSTANCE);
+      return OK.create(body, request.headerMode());
+    }
+
+    try (SpanCoalescer.Operation operation = spanCoalescer.start(HELLO_SPAN)) {
+      logger.info("Processing hello request");
+
+      HelloResponse hello = helloResponse();
+      String body = JsonBuffer.write(hello, HelloResponseJsonWriter.INSTANCE);
+
+      logger.info("Returning hello response at {}", hello.getTimestamp());
+
+      return OK.create(body, request.headerMode());
+    }
+  }
+
+  /**
+   * Greet every item of a JSON array such as {@code [{"name":"Ada"},{"name":"Linus"}]}, so a page
+   * needing many greetings makes one invocation instead of one each. Items are processed in
+   * parallel chunks with one child span per chunk. The response holds a {@link HelloResponse} or
+   * an {@code {"error":"..."}} object per item, in request order, with status 207 if any item
+   * failed.
+   *
+   * @param request The matched request
+   * @return The batch response, or 400 or 413 if the body cannot be processed at all
+   */
+  @Route(path = "/api/hello/batch", methods = HttpMethod.POST)
+  ApplicationLoadBalancerResponseEvent helloBatch(RouteRequest request) {
+    List<String> names;
+    try {
+      names =
+          BatchRequestReader.read(request.event(), batchProcessor.maxItems(), HelloRoutes::name);
+    } catch (BatchRequestException e) {
+      logger.info("Rejected hello batch: {}", e.getMessage());
+      String body = JsonBuffer.write(e.getMessage(), HelloRoutes::writeMessage);
+      return ResponseTemplate.json(e.statusCode()).create(body, request.headerMode());
+    }
+
+    logger.info("Processing hello batch of {} items", names.size());
+    Instant now = Instant.now();
+    List<BatchResult<HelloResponse>> results =
+        batchProcessor.process(BATCH_CHUNK_SPAN, names, name -> greet(name, now));
+
+    boolean failed = results.stream().anyMatch(result -> !result.succeeded());
+    String body = JsonBuffer.write(results, HelloBatchJsonWriter.INSTANCE);
+    return (failed ? MULTI_STATUS : OK).create(body, request.headerMode());
+  }
+
+  /** Reads the {@code name} string of a batch item, or null if the item has none. */
+  private static String name(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    String name = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("name".equals(field) && value == JsonToken.VALUE_STRING) {
+        name = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return name;
+  }
+
+  private static HelloResponse greet(String name, Instant now) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Item needs a non-empty \"name\" string");
+    }
+    if (name.length() > MAX_NAME_LENGTH) {
+      throw new IllegalArgumentException("Name is longer than " + MAX_NAME_LENGTH + " characters");
+    }
+    return new HelloResponse("Hello " + name, now);
+  }
+
+  private static void writeMessage(String message, JsonBuffer out) {
+    out.raw("{\"message\":").string(message).raw('}');
+  }
+
+  private HelloResponse helloResponse() {
+    return new HelloResponse("Hello World", responseCache.truncate(Instant.now()));
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.xray;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+
+/**
+ * Per-invocation state carried in the OpenTelemetry {@link Context} next to the invocation's span.
+ * Several invocations can run at once in one environment (Lambda multi-concurrency, container
+ * mode), so nothing about an invocation is kept in static or thread state: code that needs the
+ * request ID, including code handed to another thread with {@link XRayLoggingContext#wrap}, reads
+ * it from the context it runs in.
+ */
+public final class InvocationContext implements ImplicitContextKeyed {
+
+  private static final ContextKey<InvocationContext> KEY = ContextKey.named("xray-invocation");
+
+  private final String requestId;
+
+  /**
+   * Creates the invocation state.
+   *
+   * @param requestId The Lambda request ID, or the generated ID of a container-mode request
+   */
+  public InvocationContext(String requestId) {
+    this.requestId = requestId;
+  }
+
+  /**
+   * Gets the invocation state stored in a context.
+   *
+   * @param context The context
+   * @return The invocation state, or null if the context does not belong to an invocation
+   */
+  public static InvocationContext fromContext(Context context) {
+    return context.get(KEY);
+  }
+
+  /**
+   * Gets the invocation state of the current context.
+   *
+   * @return The invocation state, or null outside an invocation
+   */
+  public static InvocationContext current() {
+    return fromContext(Context.current());
+  }
+
+  /**
+   * Gets the request ID.
+   *
+   * @return The request ID
+   */
+  public String requestId() {
+    return requestId;
+  }
+
+  @Override
+  public Context storeInContext(Context context) {
+    return context.with(KEY, this);
+  }
+}
@@ -2,12 +2,25 @@ package com.example.xray;
 
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
 
 import org.jboss.logmanager.MDC;
 
 /**
  * Utility class for adding X-Ray trace context to logging MDC. This ensures that logs include the
  * X-Ray trace ID in the correct format for correlation in the X-Ray console.
+ *
+ * <p>The X-Ray form of a trace ID is written from the span context's hex characters into a reused
+ * per-thread buffer and cached for the trace, so nested spans of the same trace only replace {@code
+ * span_id} in the MDC. Use {@link #push()} around child spans to restore the parent span's values
+ * when the child ends.
+ *
+ * <p>The MDC is per thread while an invocation's trace state lives in its OpenTelemetry {@link
+ * Context}. Invocations install their context with {@link #push(Context)} and restore what the
+ * thread had before when they end, instead of clearing the keys, so concurrent invocations and
+ * nested work never remove each other's values. Tasks handed to another thread are wrapped with
+ * {@link #wrap(Runnable)} to take the context and its MDC values along.
  */
 public final class XRayLoggingContext {
 
@@ -24,40 +37,208 @@ public final class XRayLoggingContext {
   /** MDC key for OpenTelemetry span ID */
   public static final String SPAN_ID_KEY = "span_id";
 
+  /** MDC key for the Lambda request ID of the invocation */
+  public static final String REQUEST_ID_KEY = "aws_request_id";
+
+  /** Length of an X-Ray trace ID: {@code 1-} + 8 hex timestamp + {@code -} + 24 hex id. */
+  private static final int XRAY_TRACE_ID_LENGTH = 35;
+
+  private static final ThreadLocal<TraceIdCache> CACHE = ThreadLocal.withInitial(TraceIdCache::new);
+
   /**
    * Add X-Ray trace context to MDC from the current OpenTelemetry span. This method extracts the
    * trace ID from the current span and converts it to X-Ray format (1-{timestamp}-{trace-id}).
    */
   public static void addTraceContextToMDC() {
-    Span currentSpan = Span.current();
-    SpanContext spanContext = currentSpan.getSpanContext();
+    addTraceContextToMDC(Span.current().getSpanContext());
+  }
 
-    if (spanContext.isValid()) {
-      String otelTraceId = spanContext.getTraceId();
-      String otelSpanId = spanContext.getSpanId();
+  /**
+   * Add X-Ray trace context to MDC from the given span context. Invalid contexts are ignored.
+   *
+   * @param spanContext The span context to log under
+   */
+  public static void addTraceContextToMDC(SpanContext spanContext) {
+    if (!spanContext.isValid()) {
+      return;
+    }
+    String otelTraceId = spanContext.getTraceId();
+    String xrayTraceId = CACHE.get().xrayTraceId(otelTraceId);
 
-      // Add OpenTelemetry trace/span IDs
+    // Trace-level keys only change when the trace does; compare by identity to skip the puts
+    if (xrayTraceId == null) {
       MDC.put(TRACE_ID_KEY, otelTraceId);
-      MDC.put(SPAN_ID_KEY, otelSpanId);
-
-      // Convert to X-Ray format: 1-{timestamp}-{trace-id}
-      // OpenTelemetry trace ID is 32 hex chars
-      // X-Ray format splits it: first 8 chars = timestamp, remaining 24 = trace ID
-      if (otelTraceId.length() == 32) {
-        String timestamp = otelTraceId.substring(0, 8);
-        String traceIdPart = otelTraceId.substring(8);
-        String xrayTraceId = String.format("1-%s-%s", timestamp, traceIdPart);
-        MDC.put(XRAY_TRACE_ID_KEY, xrayTraceId);
-      }
+    } else if (MDC.get(XRAY_TRACE_ID_KEY) != xrayTraceId) {
+      MDC.put(TRACE_ID_KEY, otelTraceId);
+      MDC.put(XRAY_TRACE_ID_KEY, xrayTraceId);
+    }
+    MDC.put(SPAN_ID_KEY, spanContext.getSpanId());
+  }
+
+  /**
+   * Put the current span's trace context into MDC and return a scope that restores the previous
+   * values when closed. Use it in try-with-resources next to {@code span.makeCurrent()} so the
+   * parent span's IDs are back in the MDC once a child span ends.
+   *
+   * @return A scope that restores the previous MDC values
+   */
+  public static MdcScope push() {
+    return push(Span.current().getSpanContext());
+  }
+
+  /**
+   * Put the given span context into MDC and return a scope that restores the previous values when
+   * closed.
+   *
+   * @param spanContext The span context to log under
+   * @return A scope that restores the previous MDC values
+   */
+  public static MdcScope push(SpanContext spanContext) {
+    MdcScope scope =
+        new MdcScope(MDC.get(TRACE_ID_KEY), MDC.get(SPAN_ID_KEY), MDC.get(XRAY_TRACE_ID_KEY));
+    addTraceContextToMDC(spanContext);
+    return scope;
+  }
+
+  /**
+   * Put an invocation's context into MDC: the span's trace context and, when the context carries
+   * an {@link InvocationContext}, its request ID. Unlike {@link #push(SpanContext)} an invalid span
+   * removes the trace keys, so an invocation never logs under the IDs the thread had before it.
+   *
+   * @param context The invocation's context
+   * @return A scope that restores the previous MDC values
+   */
+  public static MdcScope push(Context context) {
+    InvocationContext invocation = InvocationContext.fromContext(context);
+    if (invocation == null) {
+      return push(Span.fromContext(context).getSpanContext());
+    }
+    MdcScope scope =
+        new MdcScope(
+            MDC.get(TRACE_ID_KEY),
+            MDC.get(SPAN_ID_KEY),
+            MDC.get(XRAY_TRACE_ID_KEY),
+            MDC.get(REQUEST_ID_KEY));
+    SpanContext spanContext = Span.fromContext(context).getSpanContext();
+    if (spanContext.isValid()) {
+      addTraceContextToMDC(spanContext);
+    } else {
+      clearTraceContextFromMDC();
     }
+    restore(REQUEST_ID_KEY, invocation.requestId());
+    return scope;
+  }
+
+  /**
+   * Wrap a task so it runs in the current context, with that context's MDC values, on whichever
+   * thread runs it. The thread's own context and MDC values are restored afterwards.
+   *
+   * @param task The task
+   * @return The wrapped task
+   */
+  public static Runnable wrap(Runnable task) {
+    Context context = Context.current();
+    return () -> {
+      try (Scope scope = context.makeCurrent();
+          MdcScope mdcScope = push(context)) {
+        task.run();
+      }
+    };
   }
 
   /**
-   * Remove trace context from MDC. Should be called in finally blocks to prevent context leakage.
+   * Remove trace context from MDC. Only for threads that run nothing but the code being cleaned
+   * up; invocations restore the previous values with {@link #push(Context)} instead.
    */
   public static void clearTraceContextFromMDC() {
     MDC.remove(XRAY_TRACE_ID_KEY);
     MDC.remove(TRACE_ID_KEY);
     MDC.remove(SPAN_ID_KEY);
   }
+
+  /**
+   * Convert an OpenTelemetry trace ID to X-Ray format. The first 8 hex chars are the epoch-seconds
+   * timestamp and the remaining 24 the unique part: {@code 1-{timestamp}-{id}}.
+   *
+   * @param otelTraceId A 32 character hex trace ID
+   * @return The X-Ray trace ID, or null if the ID is not 32 characters long
+   */
+  public static String toXRayTraceId(String otelTraceId) {
+    return CACHE.get().xrayTraceId(otelTraceId);
+  }
+
+  private static void restore(String key, String value) {
+    if (value == null) {
+      MDC.remove(key);
+    } else {
+      MDC.put(key, value);
+    }
+  }
+
+  /** Restores the MDC keys captured by {@link #push()}. */
+  public static final class MdcScope implements AutoCloseable {
+    private final String traceId;
+    private final String spanId;
+    private final String xrayTraceId;
+    private final boolean restoreRequestId;
+    private final String requestId;
+
+    private MdcScope(String traceId, String spanId, String xrayTraceId) {
+      this(traceId, spanId, xrayTraceId, false, null);
+    }
+
+    private MdcScope(String traceId, String spanId, String xrayTraceId, String requestId) {
+      this(traceId, spanId, xrayTraceId, true, requestId);
+    }
+
+    private MdcScope(
+        String traceId,
+        String spanId,
+        String xrayTraceId,
+        boolean restoreRequestId,
+        String requestId) {
+      this.traceId = traceId;
+      this.spanId = spanId;
+      this.xrayTraceId = xrayTraceId;
+      this.restoreRequestId = restoreRequestId;
+      this.requestId = requestId;
+    }
+
+    @Override
+    public void close() {
+      restore(TRACE_ID_KEY, traceId);
+      restore(SPAN_ID_KEY, spanId);
+      restore(XRAY_TRACE_ID_KEY, xrayTraceId);
+      if (restoreRequestId) {
+        restore(REQUEST_ID_KEY, requestId);
+      }
+    }
+  }
+
+  /** Per-thread format buffer plus the last trace ID converted on this thread. */
+  private static final class TraceIdCache {
+    private final char[] buffer = new char[XRAY_TRACE_ID_LENGTH];
+    private String otelTraceId;
+    private String xrayTraceId;
+
+    private TraceIdCache() {
+      buffer[0] = '1';
+      buffer[1] = '-';
+      buffer[10] = '-';
+    }
+
+    String xrayTraceId(String traceId) {
+      if (traceId == otelTraceId || traceId.equals(otelTraceId)) {
+        return xrayTraceId;
+      }
+      if (traceId.length() != 32) {
+        return null;
+      }
+      traceId.getChars(0, 8, buffer, 2);
+      traceId.getChars(8, 32, buffer, 11);
+      otelTraceId = traceId;
+      xrayTraceId = new String(buffer);
+      return xrayTraceId;
+    }
+  }
 }
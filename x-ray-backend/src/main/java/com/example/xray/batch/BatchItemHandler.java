@@ -0,0 +1,21 @@
+package com.example.xray.batch;
+
+/**
+ * Processes one batch item.
+ *
+ * @param <I> The item type
+ * @param <O> The result type
+ */
+@FunctionalInterface
+public interface BatchItemHandler<I, O> {
+
+  /**
+   * Process an item.
+   *
+   * @param item The item
+   * @return The item's result
+   * @throws IllegalArgumentException if the item is invalid; the message is returned to the caller
+   * @throws Exception if the item fails for another reason; the caller gets a generic error
+   */
+  O handle(I item) throws Exception;
+}
@@ -0,0 +1,25 @@
+package com.example.xray.batch;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Reads one item of a batch request body with the streaming parser.
+ *
+ * @param <I> The item type
+ */
+@FunctionalInterface
+public interface BatchItemReader<I> {
+
+  /**
+   * Read the value the parser is positioned on, consuming all of it (for objects and arrays, up
+   * to and including the closing token). Values of the wrong shape should be returned as an item
+   * the handler rejects, so they fail alone rather than failing the batch.
+   *
+   * @param parser The parser, positioned on the item's first token
+   * @return The item
+   * @throws IOException if the JSON is malformed
+   */
+  I read(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,180 @@
+package com.example.xray.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.XRayLoggingContext;
+import com.example.xray.budget.RequestBudget;
+import com.example.xray.trace.SpanTemplate;
+
+/**
+ * Processes the items of a batch request in chunks, in parallel on virtual threads. Each chunk gets
+ * one child span rather than one span per item, so a batch costs a handful of spans however many
+ * items it carries. The first chunk runs on the calling thread; the others are handed to the
+ * executor with the caller's context and MDC values. Items fail alone: a failed item becomes a
+ * {@link BatchResult#failure} and the rest of the batch goes on. Items not started before the
+ * invocation's {@link RequestBudget} runs out fail without being processed, so a slow batch
+ * returns what it has instead of running into the function timeout.
+ */
+public final class BatchProcessor implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchProcessor.class);
+
+  /** Span attribute with the chunk's position in the batch. */
+  public static final AttributeKey<Long> CHUNK_INDEX =
+      AttributeKey.longKey("xray.batch.chunk.index");
+
+  /** Span attribute with the number of items in the chunk. */
+  public static final AttributeKey<Long> CHUNK_SIZE = AttributeKey.longKey("xray.batch.chunk.size");
+
+  /** Span attribute with the number of items in the chunk that failed. */
+  public static final AttributeKey<Long> CHUNK_FAILED =
+      AttributeKey.longKey("xray.batch.chunk.failed");
+
+  private static final String GENERIC_ERROR = "Item could not be processed";
+
+  private static final String DEADLINE_ERROR = "Item not processed before the request deadline";
+
+  private final Tracer tracer;
+  private final int maxItems;
+  private final int chunkSize;
+  private final ExecutorService executor;
+
+  /**
+   * Creates a BatchProcessor.
+   *
+   * @param tracer Tracer for the chunk spans
+   * @param maxItems Most items a batch may hold
+   * @param chunkSize Items processed per chunk, and per span
+   */
+  public BatchProcessor(Tracer tracer, int maxItems, int chunkSize) {
+    if (maxItems < 1 || chunkSize < 1) {
+      throw new IllegalArgumentException("maxItems and chunkSize must be at least 1");
+    }
+    this.tracer = tracer;
+    this.maxItems = maxItems;
+    this.chunkSize = chunkSize;
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Gets the most items a batch may hold. Pass it to {@link BatchRequestReader#read}.
+   *
+   * @return The item cap
+   */
+  public int maxItems() {
+    return maxItems;
+  }
+
+  /**
+   * Process a batch.
+   *
+   * @param spanTemplate Template of the chunk spans
+   * @param items The items
+   * @param handler Processes each item
+   * @param <I> The item type
+   * @param <O> The result type
+   * @return One result per item, in item order
+   */
+  public <I, O> List<BatchResult<O>> process(
+      SpanTemplate spanTemplate, List<I> items, BatchItemHandler<I, O> handler) {
+    @SuppressWarnings("unchecked")
+    BatchResult<O>[] results = new BatchResult[items.size()];
+    int chunks = (items.size() + chunkSize - 1) / chunkSize;
+    List<Future<?>> futures = new ArrayList<>(Math.max(0, chunks - 1));
+    for (int chunk = 1; chunk < chunks; chunk++) {
+      int index = chunk;
+      futures.add(
+          executor.submit(
+              XRayLoggingContext.wrap(
+                  () -> runChunk(spanTemplate, index, items, handler, results))));
+    }
+    if (chunks > 0) {
+      runChunk(spanTemplate, 0, items, handler, results);
+    }
+    for (Future<?> future : futures) {
+      join(future);
+    }
+    return Arrays.asList(results);
+  }
+
+  private <I, O> void runChunk(
+      SpanTemplate spanTemplate,
+      int chunk,
+      List<I> items,
+      BatchItemHandler<I, O> handler,
+      BatchResult<O>[] results) {
+    int from = chunk * chunkSize;
+    int to = Math.min(items.size(), from + chunkSize);
+    Span span =
+        spanTemplate
+            .spanBuilder(tracer)
+            .setAttribute(CHUNK_INDEX, (long) chunk)
+            .setAttribute(CHUNK_SIZE, (long) (to - from))
+            .startSpan();
+    int failed = 0;
+    RequestBudget budget = RequestBudget.current();
+    try (Scope scope = span.makeCurrent();
+        XRayLoggingContext.MdcScope mdcScope = XRayLoggingContext.push(span.getSpanContext())) {
+      for (int i = from; i < to; i++) {
+        results[i] =
+            budget.exhausted()
+                ? BatchResult.failure(DEADLINE_ERROR)
+                : handle(handler, items.get(i), i);
+        if (!results[i].succeeded()) {
+          failed++;
+        }
+      }
+    } finally {
+      span.setAttribute(CHUNK_FAILED, failed);
+      if (failed == to - from) {
+        span.setStatus(StatusCode.ERROR, "Every item in the chunk failed");
+      }
+      span.end();
+    }
+  }
+
+  private static <I, O> BatchResult<O> handle(BatchItemHandler<I, O> handler, I item, int index) {
+    try {
+      return BatchResult.success(handler.handle(item));
+    } catch (IllegalArgumentException e) {
+      return BatchResult.failure(e.getMessage());
+    } catch (Exception e) {
+      logger.warn("Batch item {} failed", index, e);
+      return BatchResult.failure(GENERIC_ERROR);
+    }
+  }
+
+  private static void join(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new IllegalStateException("Interrupted waiting for a batch chunk", e);
+    } catch (ExecutionException e) {
+      // runChunk catches item failures, so only errors reach here
+      throw new IllegalStateException("Batch chunk failed", e.getCause());
+    }
+  }
+
+  /** Stop the executor, waiting for running chunks. */
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
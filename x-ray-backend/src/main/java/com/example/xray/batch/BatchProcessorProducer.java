@@ -0,0 +1,31 @@
+package com.example.xray.batch;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.api.trace.Tracer;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/** CDI producer for the {@link BatchProcessor} configured by {@code xray.batch.*}. */
+@ApplicationScoped
+public class BatchProcessorProducer {
+
+  @ConfigProperty(name = "xray.batch.max-items", defaultValue = "100")
+  int maxItems;
+
+  @ConfigProperty(name = "xray.batch.chunk-size", defaultValue = "25")
+  int chunkSize;
+
+  @Produces
+  @Singleton
+  BatchProcessor batchProcessor(Tracer tracer) {
+    return new BatchProcessor(tracer, maxItems, chunkSize);
+  }
+
+  void close(@Disposes BatchProcessor processor) {
+    processor.close();
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.xray.batch;
+
+/** A batch request that cannot be processed at all, with the status to answer it with. */
+public final class BatchRequestException extends Exception {
+
+  private final int statusCode;
+
+  /**
+   * Creates a BatchRequestException.
+   *
+   * @param statusCode HTTP status code, such as 400 or 413
+   * @param message Why the request was rejected, safe to return to the caller
+   */
+  public BatchRequestException(int statusCode, String message) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Gets the status code to answer with.
+   *
+   * @return The HTTP status code
+   */
+  public int statusCode() {
+    return statusCode;
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.xray.batch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads the JSON array of a batch request body with a streaming parser, one item at a time, so no
+ * tree is built for the body. Bodies the ALB base64 encoded are decoded first. Reading stops as
+ * soon as the item cap is passed.
+ */
+public final class BatchRequestReader {
+
+  private static final JsonFactory JSON = JsonFactory.builder().build();
+
+  private BatchRequestReader() {}
+
+  /**
+   * Read the items of a batch request.
+   *
+   * @param event The ALB request event
+   * @param maxItems Most items accepted
+   * @param reader Reads each item
+   * @param <I> The item type
+   * @return The items, in request order
+   * @throws BatchRequestException with 400 if the body is not a JSON array, or 413 if it has more
+   *     than {@code maxItems} items
+   */
+  public static <I> List<I> read(
+      ApplicationLoadBalancerRequestEvent event, int maxItems, BatchItemReader<I> reader)
+      throws BatchRequestException {
+    byte[] json = body(event);
+    try (JsonParser parser = JSON.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new BatchRequestException(400, "Request body must be a JSON array");
+      }
+      List<I> items = new ArrayList<>();
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new BatchRequestException(400, "Request body ends inside the array");
+        }
+        if (items.size() == maxItems) {
+          throw new BatchRequestException(413, "A batch holds at most " + maxItems + " items");
+        }
+        items.add(reader.read(parser));
+      }
+      return items;
+    } catch (JsonProcessingException e) {
+      throw new BatchRequestException(400, "Malformed JSON: " + e.getOriginalMessage());
+    } catch (IOException e) {
+      throw new BatchRequestException(400, "Unreadable request body");
+    }
+  }
+
+  private static byte[] body(ApplicationLoadBalancerRequestEvent event)
+      throws BatchRequestException {
+    String body = event.getBody();
+    if (body == null || body.isEmpty()) {
+      throw new BatchRequestException(400, "Request body must be a JSON array");
+    }
+    if (!event.getIsBase64Encoded()) {
+      return body.getBytes(StandardCharsets.UTF_8);
+    }
+    try {
+      return Base64.getDecoder().decode(body);
+    } catch (IllegalArgumentException e) {
+      throw new BatchRequestException(400, "Request body is not valid base64");
+    }
+  }
+}
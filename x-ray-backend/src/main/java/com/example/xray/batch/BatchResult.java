@@ -0,0 +1,66 @@
+package com.example.xray.batch;
+
+/**
+ * Outcome of one batch item: its value, or the reason it failed.
+ *
+ * @param <T> The value type
+ */
+public final class BatchResult<T> {
+
+  private final T value;
+  private final String error;
+
+  private BatchResult(T value, String error) {
+    this.value = value;
+    this.error = error;
+  }
+
+  /**
+   * Create a successful result.
+   *
+   * @param value The item's value
+   * @param <T> The value type
+   * @return The result
+   */
+  public static <T> BatchResult<T> success(T value) {
+    return new BatchResult<>(value, null);
+  }
+
+  /**
+   * Create a failed result.
+   *
+   * @param error Why the item failed, safe to return to the caller
+   * @param <T> The value type
+   * @return The result
+   */
+  public static <T> BatchResult<T> failure(String error) {
+    return new BatchResult<>(null, error);
+  }
+
+  /**
+   * Whether the item succeeded.
+   *
+   * @return True if {@link #value()} is set
+   */
+  public boolean succeeded() {
+    return error == null;
+  }
+
+  /**
+   * Gets the item's value.
+   *
+   * @return The value, or null if the item failed
+   */
+  public T value() {
+    return value;
+  }
+
+  /**
+   * Gets why the item failed.
+   *
+   * @return The error, or null if the item succeeded
+   */
+  public String error() {
+    return error;
+  }
+}
@@ -0,0 +1,122 @@
+package com.example.xray.budget;
+
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+
+/**
+ * The time an invocation may still spend before it must have returned its response, carried in
+ * the invocation's OpenTelemetry {@link Context}. Code that waits, such as the span flush and the
+ * log drain, passes its own timeout through {@link #limit(long)} so the wait shrinks to what is
+ * left; optional work checks {@link #exhausted()} and skips itself. Outside an invocation, and for
+ * requests without a deadline, the budget is unbounded.
+ */
+public final class RequestBudget implements ImplicitContextKeyed {
+
+  private static final ContextKey<RequestBudget> KEY = ContextKey.named("xray-request-budget");
+
+  private static final RequestBudget UNBOUNDED = new RequestBudget(false, 0, null);
+
+  private final boolean bounded;
+  private final long deadlineNanos;
+  private final RequestBudgeter budgeter;
+
+  private RequestBudget(boolean bounded, long deadlineNanos, RequestBudgeter budgeter) {
+    this.bounded = bounded;
+    this.deadlineNanos = deadlineNanos;
+    this.budgeter = budgeter;
+  }
+
+  /**
+   * Gets the budget of requests without a deadline.
+   *
+   * @return The unbounded budget
+   */
+  public static RequestBudget unbounded() {
+    return UNBOUNDED;
+  }
+
+  static RequestBudget until(long deadlineNanos, RequestBudgeter budgeter) {
+    return new RequestBudget(true, deadlineNanos, budgeter);
+  }
+
+  /**
+   * Gets the budget stored in a context.
+   *
+   * @param context The context
+   * @return The budget, or the unbounded budget if the context has none
+   */
+  public static RequestBudget fromContext(Context context) {
+    RequestBudget budget = context.get(KEY);
+    return budget != null ? budget : UNBOUNDED;
+  }
+
+  /**
+   * Gets the budget of the current context.
+   *
+   * @return The budget, or the unbounded budget outside an invocation
+   */
+  public static RequestBudget current() {
+    return fromContext(Context.current());
+  }
+
+  /**
+   * Whether the invocation has a deadline.
+   *
+   * @return False for the unbounded budget
+   */
+  public boolean bounded() {
+    return bounded;
+  }
+
+  /**
+   * Gets the time left before the deadline.
+   *
+   * @return Nanoseconds left, 0 once the deadline has passed, or {@link Long#MAX_VALUE} if
+   *     unbounded
+   */
+  public long remainingNanos() {
+    return bounded ? Math.max(0, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+  }
+
+  /**
+   * Gets the time left before the deadline, in milliseconds.
+   *
+   * @return Milliseconds left, 0 once the deadline has passed, or {@link Long#MAX_VALUE} if
+   *     unbounded
+   */
+  public long remainingMillis() {
+    return bounded ? TimeUnit.NANOSECONDS.toMillis(remainingNanos()) : Long.MAX_VALUE;
+  }
+
+  /**
+   * Whether the deadline has passed.
+   *
+   * @return True if no time is left
+   */
+  public boolean exhausted() {
+    return bounded && deadlineNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Fit a wait into the budget. Waits cut short are counted by the {@link RequestBudgeter}.
+   *
+   * @param timeoutNanos The longest the caller would wait with time to spare
+   * @return The smaller of the timeout and the time left
+   */
+  public long limit(long timeoutNanos) {
+    long remaining = remainingNanos();
+    if (remaining >= timeoutNanos) {
+      return timeoutNanos;
+    }
+    budgeter.waitShortened();
+    return remaining;
+  }
+
+  @Override
+  public Context storeInContext(Context context) {
+    return context.with(KEY, this);
+  }
+}
@@ -0,0 +1,135 @@
+package com.example.xray.budget;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/**
+ * Gives each invocation a {@link RequestBudget} from the time Lambda reports is left, minus a
+ * reserve for returning the response, and sheds invocations whose budget is already below the
+ * floor: answering 503 straight away lets the load balancer retry elsewhere, where running into
+ * the function timeout would get the caller a 502. Counts shed invocations, waits cut short to fit
+ * a budget, and invocations that used up their budget.
+ */
+public final class RequestBudgeter {
+
+  private final boolean enabled;
+  private final long reserveNanos;
+  private final long minRemainingNanos;
+  private final AtomicLong shed = new AtomicLong();
+  private final AtomicLong waitsShortened = new AtomicLong();
+  private final AtomicLong exhausted = new AtomicLong();
+
+  private RequestBudgeter(boolean enabled, Duration reserve, Duration minRemaining) {
+    this.enabled = enabled;
+    this.reserveNanos = reserve.toNanos();
+    this.minRemainingNanos = minRemaining.toNanos();
+  }
+
+  /**
+   * Create a budgeter that gives every invocation the unbounded budget and sheds nothing.
+   *
+   * @return A disabled budgeter
+   */
+  public static RequestBudgeter disabled() {
+    return new RequestBudgeter(false, Duration.ZERO, Duration.ZERO);
+  }
+
+  /**
+   * Create a budgeter.
+   *
+   * @param reserve Time kept back from the remaining time for returning the response
+   * @param minRemaining Smallest budget an invocation may start with; below it, it is shed
+   * @return The budgeter
+   */
+  public static RequestBudgeter create(Duration reserve, Duration minRemaining) {
+    return new RequestBudgeter(true, reserve, minRemaining);
+  }
+
+  /**
+   * Compute an invocation's budget. Contexts reporting {@link Integer#MAX_VALUE} remaining
+   * milliseconds, like the container mode's, have no deadline.
+   *
+   * @param context The Lambda context
+   * @param startNanos {@link System#nanoTime()} when the invocation started
+   * @return The invocation's budget; store it in the invocation's context
+   */
+  public RequestBudget begin(Context context, long startNanos) {
+    if (!enabled) {
+      return RequestBudget.unbounded();
+    }
+    int remainingMillis = context.getRemainingTimeInMillis();
+    if (remainingMillis == Integer.MAX_VALUE) {
+      return RequestBudget.unbounded();
+    }
+    long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+    return RequestBudget.until(startNanos + remainingNanos - reserveNanos, this);
+  }
+
+  /**
+   * Decide whether an invocation has enough budget to start. Refused invocations are counted.
+   *
+   * @param budget The invocation's budget
+   * @return True if the invocation should run, false if it should be answered with 503
+   */
+  public boolean admit(RequestBudget budget) {
+    if (budget.remainingNanos() >= minRemainingNanos) {
+      return true;
+    }
+    shed.incrementAndGet();
+    return false;
+  }
+
+  /**
+   * Record the end of an invocation, counting it if its budget ran out before it finished.
+   *
+   * @param budget The invocation's budget
+   */
+  public void invocationEnded(RequestBudget budget) {
+    if (budget.exhausted()) {
+      exhausted.incrementAndGet();
+    }
+  }
+
+  void waitShortened() {
+    waitsShortened.incrementAndGet();
+  }
+
+  /**
+   * Gets the smallest budget an invocation may start with.
+   *
+   * @return The floor in milliseconds
+   */
+  public long minRemainingMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(minRemainingNanos);
+  }
+
+  /**
+   * Gets the number of invocations shed for starting with too little budget.
+   *
+   * @return The shed count
+   */
+  public long shed() {
+    return shed.get();
+  }
+
+  /**
+   * Gets the number of waits, such as span flushes and log drains, cut short to fit a budget.
+   *
+   * @return The shortened wait count
+   */
+  public long waitsShortened() {
+    return waitsShortened.get();
+  }
+
+  /**
+   * Gets the number of invocations that used up their budget before finishing.
+   *
+   * @return The exhausted count
+   */
+  public long exhausted() {
+    return exhausted.get();
+  }
+}
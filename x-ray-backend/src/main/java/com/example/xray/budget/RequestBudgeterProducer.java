@@ -0,0 +1,40 @@
+package com.example.xray.budget;
+
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** CDI producer for the {@link RequestBudgeter} configured by {@code xray.budget.*}. */
+@ApplicationScoped
+public class RequestBudgeterProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(RequestBudgeterProducer.class);
+
+  @ConfigProperty(name = "xray.budget.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.budget.reserve", defaultValue = "250ms")
+  Duration reserve;
+
+  @ConfigProperty(name = "xray.budget.min-remaining", defaultValue = "500ms")
+  Duration minRemaining;
+
+  @Produces
+  @Singleton
+  RequestBudgeter requestBudgeter() {
+    if (!enabled) {
+      return RequestBudgeter.disabled();
+    }
+    logger.info(
+        "Budgeting invocations to the Lambda deadline less {} ms, shedding below {} ms",
+        reserve.toMillis(),
+        minRemaining.toMillis());
+    return RequestBudgeter.create(reserve, minRemaining);
+  }
+}
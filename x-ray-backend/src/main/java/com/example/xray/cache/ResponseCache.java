@@ -0,0 +1,513 @@
+package com.example.xray.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.opentelemetry.api.common.AttributeKey;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.compression.ContentEncoding;
+import com.example.xray.compression.ResponseCompressor;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.AlbResponses;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+import com.example.xray.route.Cached;
+import com.example.xray.route.HttpMethod;
+import com.example.xray.route.RouteBinding;
+
+/**
+ * Cache of the GET and HEAD responses of {@link Cached} routes, keyed on the route (or the path,
+ * for routes with parameters) and the values of the route's vary headers.
+ *
+ * <p>Time is cut into freshness windows aligned to the epoch. A response is kept until the end of
+ * the window it was built in, and {@code Cache-Control: max-age} counts down to the same instant,
+ * so the ALB, CloudFront and every instance of the function agree on when it changes. Routes that
+ * build their body from {@link #truncate(Instant)} rather than the exact time produce the same
+ * body, and so the same strong ETag, on every instance within a window; a request whose {@code
+ * If-None-Match} names it gets a 304 without the route being called.
+ *
+ * <p>Entries also keep a compressed variant per content coding, built on first request, so a
+ * cached body is compressed once per window rather than once per response.
+ */
+public final class ResponseCache {
+
+  /** Span attribute recording whether the response came from the cache. */
+  public static final AttributeKey<String> CACHE_RESULT = AttributeKey.stringKey("xray.cache");
+
+  /** ETag header name. */
+  public static final String ETAG = "ETag";
+
+  /** Cache-Control header name. */
+  public static final String CACHE_CONTROL = "Cache-Control";
+
+  /** Vary header name. */
+  public static final String VARY = "Vary";
+
+  /** If-None-Match header name, lowercase. */
+  public static final String IF_NONE_MATCH = "if-none-match";
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  private final long windowMillis;
+  private final int maxEntries;
+  private final ResponseCompressor compressor;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder notModified = new LongAdder();
+
+  private ResponseCache(long windowMillis, int maxEntries, ResponseCompressor compressor) {
+    this.windowMillis = windowMillis;
+    this.maxEntries = maxEntries;
+    this.compressor = compressor;
+  }
+
+  /**
+   * Create a cache that stores nothing and leaves responses and timestamps unchanged.
+   *
+   * @return A disabled cache
+   */
+  public static ResponseCache disabled() {
+    return new ResponseCache(0, 0, ResponseCompressor.disabled());
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param freshness Length of a freshness window, in whole seconds
+   * @param maxEntries Most responses kept at once; responses past it are answered but not kept
+   * @return The cache
+   * @throws IllegalArgumentException if the window is shorter than a second
+   */
+  public static ResponseCache create(Duration freshness, int maxEntries) {
+    return create(freshness, maxEntries, ResponseCompressor.disabled());
+  }
+
+  /**
+   * Create a cache that also keeps the compressed variants of its responses, each built the first
+   * time a request negotiates its coding.
+   *
+   * @param freshness Length of a freshness window, in whole seconds
+   * @param maxEntries Most responses kept at once; responses past it are answered but not kept
+   * @param compressor Negotiates and compresses the variants
+   * @return The cache
+   * @throws IllegalArgumentException if the window is shorter than a second
+   */
+  public static ResponseCache create(
+      Duration freshness, int maxEntries, ResponseCompressor compressor) {
+    if (freshness.toSeconds() < 1) {
+      throw new IllegalArgumentException("Freshness window must be at least 1s: " + freshness);
+    }
+    return new ResponseCache(freshness.toSeconds() * 1000, Math.max(1, maxEntries), compressor);
+  }
+
+  /**
+   * Whether the cache stores responses.
+   *
+   * @return False for a {@link #disabled()} cache
+   */
+  public boolean enabled() {
+    return windowMillis > 0;
+  }
+
+  /**
+   * Round an instant down to the start of its freshness window. Cached routes use it for any time
+   * they put in the body.
+   *
+   * @param instant The instant, normally now
+   * @return The start of the window, or the instant itself if the cache is disabled
+   */
+  public Instant truncate(Instant instant) {
+    if (!enabled()) {
+      return instant;
+    }
+    long millis = instant.toEpochMilli();
+    return Instant.ofEpochMilli(millis - Math.floorMod(millis, windowMillis));
+  }
+
+  /**
+   * Whether a request's response may come from, and go into, the cache.
+   *
+   * @param binding The matched route
+   * @param method The request method
+   * @return True for GET and HEAD requests to a cacheable route
+   */
+  public boolean cacheable(RouteBinding binding, String method) {
+    if (!enabled() || !binding.cacheable()) {
+      return false;
+    }
+    HttpMethod httpMethod = HttpMethod.of(method);
+    return httpMethod == HttpMethod.GET || httpMethod == HttpMethod.HEAD;
+  }
+
+  /**
+   * Look up the fresh response for a {@link #cacheable} request.
+   *
+   * @param binding The matched route
+   * @param headers The request headers
+   * @param nowMillis The current time in epoch milliseconds
+   * @return The entry, or null on a miss
+   */
+  public Entry lookup(RouteBinding binding, AlbRequestHeaders headers, long nowMillis) {
+    Entry entry = entries.get(key(binding, headers));
+    if (entry != null && nowMillis < entry.expiresMillis) {
+      hits.increment();
+      return entry;
+    }
+    misses.increment();
+    return null;
+  }
+
+  /**
+   * Keep a route's response for the rest of the current freshness window.
+   *
+   * @param binding The matched route
+   * @param headers The request headers
+   * @param response The route's response
+   * @param nowMillis The current time in epoch milliseconds
+   * @return The entry to answer from, or null if the response cannot be cached (not a 200, no
+   *     body, or base64 encoded)
+   */
+  public Entry store(
+      RouteBinding binding,
+      AlbRequestHeaders headers,
+      ApplicationLoadBalancerResponseEvent response,
+      long nowMillis) {
+    if (response == null
+        || response.getStatusCode() != 200
+        || response.getBody() == null
+        || Boolean.TRUE.equals(response.getIsBase64Encoded())) {
+      return null;
+    }
+    long expiresMillis = nowMillis - Math.floorMod(nowMillis, windowMillis) + windowMillis;
+    Entry entry =
+        new Entry(
+            response.getBody(),
+            headersOf(response),
+            binding.cacheVary(),
+            compressor.compressible(response.getBody()),
+            expiresMillis,
+            (int) (windowMillis / 1000));
+    String key = key(binding, headers);
+    if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+      entries.values().removeIf(expired -> expired.expiresMillis <= nowMillis);
+      if (entries.size() >= maxEntries) {
+        return entry;
+      }
+    }
+    entries.put(key, entry);
+    return entry;
+  }
+
+  /**
+   * Create the response for an entry in the coding negotiated for the request: a 304 if the
+   * request's {@code If-None-Match} names that variant's ETag, the cached 200 otherwise. Both carry
+   * the ETag and the time left in the window as {@code max-age}.
+   *
+   * @param entry The entry from {@link #lookup} or {@link #store}
+   * @param headers The request headers
+   * @param mode The resolved header mode
+   * @param nowMillis The current time in epoch milliseconds
+   * @return The response event
+   */
+  public ApplicationLoadBalancerResponseEvent respond(
+      Entry entry, AlbRequestHeaders headers, HeaderMode mode, long nowMillis) {
+    ContentEncoding encoding =
+        entry.compressible ? compressor.negotiate(headers) : ContentEncoding.IDENTITY;
+    Variant variant = entry.variant(encoding, compressor);
+    int maxAge = (int) Math.max(0, (entry.expiresMillis - nowMillis) / 1000);
+    if (matches(headers.get(IF_NONE_MATCH), variant.etag)) {
+      notModified.increment();
+      return variant.notModified(maxAge).create("", mode);
+    }
+    ApplicationLoadBalancerResponseEvent response = variant.ok(maxAge).create(variant.body, mode);
+    if (variant.base64) {
+      response.setIsBase64Encoded(true);
+    }
+    return response;
+  }
+
+  /**
+   * Gets the number of lookups answered from the cache.
+   *
+   * @return The hit count
+   */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of lookups that had to call the route.
+   *
+   * @return The miss count
+   */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of 304 responses.
+   *
+   * @return The not-modified count
+   */
+  public long notModified() {
+    return notModified.sum();
+  }
+
+  /**
+   * Gets the number of entries kept, fresh or not.
+   *
+   * @return The entry count
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Whether an {@code If-None-Match} value names an ETag, using the weak comparison the header
+   * calls for.
+   *
+   * @param ifNoneMatch The header value, or null
+   * @param etag The quoted ETag
+   * @return True if the value is {@code *} or lists the ETag
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compute the strong ETag of a body: the first 128 bits of its SHA-256, quoted.
+   *
+   * @param body The response body
+   * @return The ETag
+   */
+  static String etag(String body) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+      return '"' + HEX.formatHex(digest, 0, 16) + '"';
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String key(RouteBinding binding, AlbRequestHeaders headers) {
+    // Routes with parameters answer differently per path; static routes share one key
+    String base = binding.paramNames().isEmpty() ? binding.template() : headers.event().getPath();
+    List<String> vary = binding.cacheVary();
+    if (vary.isEmpty()) {
+      return base;
+    }
+    StringBuilder key = new StringBuilder(base);
+    for (String name : vary) {
+      String value = headers.get(name);
+      key.append('\n').append(value != null ? value : "");
+    }
+    return key.toString();
+  }
+
+  private static Map<String, String> headersOf(ApplicationLoadBalancerResponseEvent response) {
+    if (response.getHeaders() != null) {
+      return response.getHeaders();
+    }
+    Map<String, String> headers = new LinkedHashMap<>();
+    if (response.getMultiValueHeaders() != null) {
+      response
+          .getMultiValueHeaders()
+          .forEach(
+              (name, values) -> {
+                if (values != null && !values.isEmpty()) {
+                  headers.put(name, values.get(values.size() - 1));
+                }
+              });
+    }
+    return headers;
+  }
+
+  /** One cached response, with its variants for each content coding. */
+  public static final class Entry {
+
+    private static final int ENCODINGS = ContentEncoding.values().length;
+
+    private final String body;
+    private final String etag;
+    private final long expiresMillis;
+    private final boolean compressible;
+    private final String contentType;
+    private final Map<String, String> headers;
+    private final String vary;
+    private final int windowSeconds;
+    private final Variant[] variants = new Variant[ENCODINGS];
+
+    Entry(
+        String body,
+        Map<String, String> headers,
+        List<String> vary,
+        boolean compressible,
+        long expiresMillis,
+        int windowSeconds) {
+      this.body = body;
+      this.etag = etag(body);
+      this.expiresMillis = expiresMillis;
+      this.compressible = compressible;
+      this.windowSeconds = windowSeconds;
+      String type = AlbResponses.APPLICATION_JSON;
+      Map<String, String> others = new LinkedHashMap<>();
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        if (AlbResponses.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+          type = header.getValue();
+        } else if (!VARY.equalsIgnoreCase(header.getKey())) {
+          others.put(header.getKey(), header.getValue());
+        }
+      }
+      this.contentType = type;
+      this.headers = others;
+      List<String> varyNames = new ArrayList<>(vary != null ? vary : List.of());
+      if (compressible) {
+        varyNames.add(ResponseCompressor.VARY_ACCEPT_ENCODING);
+      }
+      this.vary = varyNames.isEmpty() ? null : String.join(", ", varyNames);
+      variants[ContentEncoding.IDENTITY.ordinal()] = newVariant(body, false, etag, null);
+    }
+
+    /**
+     * Gets the body.
+     *
+     * @return The cached body, uncompressed
+     */
+    public String body() {
+      return body;
+    }
+
+    /**
+     * Gets the ETag of the uncompressed body.
+     *
+     * @return The quoted strong ETag
+     */
+    public String etag() {
+      return etag;
+    }
+
+    /**
+     * Gets the end of the entry's freshness window.
+     *
+     * @return The expiry time in epoch milliseconds
+     */
+    public long expiresMillis() {
+      return expiresMillis;
+    }
+
+    /**
+     * Get the variant for a coding, compressing the body the first time it is asked for. A
+     * racing thread at worst compresses it twice. Bodies that do not get smaller share the
+     * uncompressed variant.
+     */
+    Variant variant(ContentEncoding encoding, ResponseCompressor compressor) {
+      Variant variant = variants[encoding.ordinal()];
+      if (variant == null) {
+        String encoded = compressor.encode(body, encoding);
+        variant =
+            encoded == null
+                ? variants[ContentEncoding.IDENTITY.ordinal()]
+                : newVariant(encoded, true, variantEtag(encoding), encoding.token());
+        variants[encoding.ordinal()] = variant;
+      }
+      return variant;
+    }
+
+    /** Compressed bytes differ from the plain ones, so each variant has its own strong ETag. */
+    private String variantEtag(ContentEncoding encoding) {
+      return etag.substring(0, etag.length() - 1) + '-' + encoding.token() + '"';
+    }
+
+    private Variant newVariant(
+        String variantBody, boolean base64, String variantEtag, String contentEncoding) {
+      ResponseTemplate ok = ResponseTemplate.of(200, contentType);
+      for (Map.Entry<String, String> header : headers.entrySet()) {
+        ok = ok.withHeader(header.getKey(), header.getValue());
+      }
+      ResponseTemplate notModified = ResponseTemplate.of(304, contentType);
+      if (contentEncoding != null) {
+        ok = ok.withHeader(ResponseCompressor.CONTENT_ENCODING, contentEncoding);
+      }
+      ok = ok.withHeader(ETAG, variantEtag);
+      notModified = notModified.withHeader(ETAG, variantEtag);
+      if (vary != null) {
+        ok = ok.withHeader(VARY, vary);
+        notModified = notModified.withHeader(VARY, vary);
+      }
+      return new Variant(variantBody, base64, variantEtag, ok, notModified, windowSeconds);
+    }
+  }
+
+  /** One coding of a cached response, with its templates for each remaining max-age. */
+  static final class Variant {
+
+    private final String body;
+    private final boolean base64;
+    private final String etag;
+    private final ResponseTemplate ok;
+    private final ResponseTemplate notModified;
+    private final ResponseTemplate[] okByMaxAge;
+    private final ResponseTemplate[] notModifiedByMaxAge;
+
+    Variant(
+        String body,
+        boolean base64,
+        String etag,
+        ResponseTemplate ok,
+        ResponseTemplate notModified,
+        int windowSeconds) {
+      this.body = body;
+      this.base64 = base64;
+      this.etag = etag;
+      this.ok = ok;
+      this.notModified = notModified;
+      this.okByMaxAge = new ResponseTemplate[windowSeconds + 1];
+      this.notModifiedByMaxAge = new ResponseTemplate[windowSeconds + 1];
+    }
+
+    ResponseTemplate ok(int maxAge) {
+      return template(okByMaxAge, ok, maxAge);
+    }
+
+    ResponseTemplate notModified(int maxAge) {
+      return template(notModifiedByMaxAge, notModified, maxAge);
+    }
+
+    /** Templates are built on first use; a racing thread at worst builds an equal one. */
+    private static ResponseTemplate template(
+        ResponseTemplate[] byMaxAge, ResponseTemplate base, int maxAge) {
+      int index = Math.min(maxAge, byMaxAge.length - 1);
+      ResponseTemplate template = byMaxAge[index];
+      if (template == null) {
+        template = base.withHeader(CACHE_CONTROL, "public, max-age=" + index);
+        byMaxAge[index] = template;
+      }
+      return template;
+    }
+  }
+}
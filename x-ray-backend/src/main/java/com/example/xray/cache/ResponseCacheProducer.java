@@ -0,0 +1,42 @@
+package com.example.xray.cache;
+
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.compression.ResponseCompressor;
+
+/** CDI producer for the {@link ResponseCache} configured by {@code xray.cache.*}. */
+@ApplicationScoped
+public class ResponseCacheProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseCacheProducer.class);
+
+  @ConfigProperty(name = "xray.cache.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.cache.freshness", defaultValue = "5s")
+  Duration freshness;
+
+  @ConfigProperty(name = "xray.cache.max-entries", defaultValue = "1024")
+  int maxEntries;
+
+  @Produces
+  @Singleton
+  ResponseCache responseCache(ResponseCompressor compressor) {
+    if (!enabled) {
+      return ResponseCache.disabled();
+    }
+    logger.info(
+        "Caching cacheable route responses for {}s windows, at most {} entries",
+        freshness.toSeconds(),
+        maxEntries);
+    return ResponseCache.create(freshness, maxEntries, compressor);
+  }
+}
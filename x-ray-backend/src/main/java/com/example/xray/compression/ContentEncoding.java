@@ -0,0 +1,123 @@
+package com.example.xray.compression;
+
+import java.util.Locale;
+import java.util.Set;
+
+/** Content codings the service can send, in order of preference when a client accepts several. */
+public enum ContentEncoding {
+
+  /** No compression. */
+  IDENTITY("identity"),
+
+  /** gzip (RFC 1952). */
+  GZIP("gzip"),
+
+  /** deflate, which HTTP defines as the zlib format (RFC 1950). */
+  DEFLATE("deflate");
+
+  private static final ContentEncoding[] VALUES = values();
+
+  private final String token;
+
+  ContentEncoding(String token) {
+    this.token = token;
+  }
+
+  /**
+   * Gets the token used in {@code Accept-Encoding} and {@code Content-Encoding}.
+   *
+   * @return The coding token, such as {@code gzip}
+   */
+  public String token() {
+    return token;
+  }
+
+  /**
+   * Resolve a coding token.
+   *
+   * @param token Token in any case, such as {@code gzip}
+   * @return The coding
+   * @throws IllegalArgumentException if the coding is not supported
+   */
+  public static ContentEncoding of(String token) {
+    String lower = token.trim().toLowerCase(Locale.ROOT);
+    for (ContentEncoding encoding : VALUES) {
+      if (encoding.token.equals(lower)) {
+        return encoding;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported content encoding: " + token);
+  }
+
+  /**
+   * Pick the coding for a response from the request's {@code Accept-Encoding}. The coding with the
+   * highest q-value among the enabled ones wins, with ties going to the earlier constant, unless
+   * the client ranks identity higher; {@code *} stands for every coding not listed, and {@code q=0}
+   * rules a coding out.
+   *
+   * @param acceptEncoding The header value, or null
+   * @param enabled The codings the server may use
+   * @return The chosen coding, or {@link #IDENTITY} if none is acceptable
+   */
+  public static ContentEncoding negotiate(String acceptEncoding, Set<ContentEncoding> enabled) {
+    if (acceptEncoding == null || acceptEncoding.isEmpty() || enabled.isEmpty()) {
+      return IDENTITY;
+    }
+    double[] quality = new double[VALUES.length];
+    boolean[] listed = new boolean[VALUES.length];
+    double wildcard = -1;
+    int length = acceptEncoding.length();
+    int start = 0;
+    while (start < length) {
+      int end = acceptEncoding.indexOf(',', start);
+      if (end < 0) {
+        end = length;
+      }
+      int semicolon = acceptEncoding.indexOf(';', start);
+      int tokenEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+      String token = acceptEncoding.substring(start, tokenEnd).trim();
+      double q = tokenEnd < end ? quality(acceptEncoding.substring(tokenEnd + 1, end)) : 1;
+      if (token.equals("*")) {
+        wildcard = q;
+      } else {
+        for (ContentEncoding encoding : VALUES) {
+          if (encoding.token.equalsIgnoreCase(token)) {
+            quality[encoding.ordinal()] = q;
+            listed[encoding.ordinal()] = true;
+          }
+        }
+      }
+      start = end + 1;
+    }
+    ContentEncoding best = IDENTITY;
+    double bestQuality = 0;
+    for (ContentEncoding encoding : VALUES) {
+      if (encoding == IDENTITY || !enabled.contains(encoding)) {
+        continue;
+      }
+      double q = listed[encoding.ordinal()] ? quality[encoding.ordinal()] : Math.max(0, wildcard);
+      if (q > bestQuality) {
+        best = encoding;
+        bestQuality = q;
+      }
+    }
+    // Identity is always the fallback; it only beats an accepted coding the client ranks lower
+    double identity = listed[IDENTITY.ordinal()] ? quality[IDENTITY.ordinal()] : 0;
+    return identity > bestQuality ? IDENTITY : best;
+  }
+
+  /** Parse the {@code q=} parameter of one entry; malformed values count as 0. */
+  private static double quality(String parameters) {
+    for (String parameter : parameters.split(";")) {
+      String trimmed = parameter.trim();
+      if (trimmed.length() > 2 && (trimmed.startsWith("q=") || trimmed.startsWith("Q="))) {
+        try {
+          return Double.parseDouble(trimmed.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.xray.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of {@link Deflater}s with one format and level. A deflater holds about 256 KB of
+ * native zlib state, so they are reset and reused rather than created per response; a per-thread
+ * deflater would pin that memory to every virtual thread in container mode. When the pool is empty
+ * a new deflater is created, and one returned to a full pool is ended.
+ */
+final class DeflaterPool {
+
+  private final int level;
+  private final boolean nowrap;
+  private final ArrayBlockingQueue<Deflater> idle;
+
+  /**
+   * Creates an empty pool.
+   *
+   * @param level Compression level, 1 to 9
+   * @param nowrap Whether to leave out the zlib header and trailer, as gzip needs
+   * @param capacity Most idle deflaters kept
+   */
+  DeflaterPool(int level, boolean nowrap, int capacity) {
+    this.level = level;
+    this.nowrap = nowrap;
+    this.idle = new ArrayBlockingQueue<>(capacity);
+  }
+
+  Deflater borrow() {
+    Deflater deflater = idle.poll();
+    return deflater != null ? deflater : new Deflater(level, nowrap);
+  }
+
+  void release(Deflater deflater) {
+    deflater.reset();
+    if (!idle.offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  /** End every idle deflater. */
+  void close() {
+    Deflater deflater;
+    while ((deflater = idle.poll()) != null) {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,343 @@
+package com.example.xray.compression;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbRequestHeaders;
+
+/**
+ * Compresses response bodies with the coding negotiated from {@code Accept-Encoding}, for the ALB
+ * to pass through base64 decoded. Bodies shorter than the minimum size, already encoded or base64
+ * bodies, and bodies that do not get smaller are sent as they are. Deflaters come from a bounded
+ * pool per coding.
+ *
+ * <p>Brotli is not offered: the JDK has no encoder for it and the available Java encoders wrap the
+ * native library.
+ */
+public final class ResponseCompressor {
+
+  /** Content-Encoding header name. */
+  public static final String CONTENT_ENCODING = "Content-Encoding";
+
+  /** Accept-Encoding header name, lowercase. */
+  public static final String ACCEPT_ENCODING = "accept-encoding";
+
+  /** Vary value of responses whose coding was negotiated. */
+  public static final String VARY_ACCEPT_ENCODING = "Accept-Encoding";
+
+  private static final String VARY = "Vary";
+
+  /** gzip member header: magic, deflate, no flags, no mtime, no extra flags, unknown OS. */
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private static final int GZIP_TRAILER_LENGTH = 8;
+
+  private final Set<ContentEncoding> encodings;
+  private final int minSize;
+  private final DeflaterPool gzip;
+  private final DeflaterPool deflate;
+  private final LongAdder compressed = new LongAdder();
+  private final LongAdder bytesIn = new LongAdder();
+  private final LongAdder bytesOut = new LongAdder();
+
+  private ResponseCompressor(Set<ContentEncoding> encodings, int minSize, int level, int poolSize) {
+    this.encodings = encodings;
+    this.minSize = minSize;
+    this.gzip = new DeflaterPool(level, true, poolSize);
+    this.deflate = new DeflaterPool(level, false, poolSize);
+  }
+
+  /**
+   * Create a compressor that leaves every response as it is.
+   *
+   * @return A disabled compressor
+   */
+  public static ResponseCompressor disabled() {
+    return new ResponseCompressor(EnumSet.noneOf(ContentEncoding.class), Integer.MAX_VALUE, 1, 1);
+  }
+
+  /**
+   * Create a compressor.
+   *
+   * @param encodings The codings to offer; {@link ContentEncoding#IDENTITY} is ignored
+   * @param minSize Shortest body, in characters, worth compressing
+   * @param level Deflate level, 1 (fastest) to 9 (smallest)
+   * @param poolSize Most idle deflaters kept per coding
+   * @return The compressor
+   * @throws IllegalArgumentException if the level is out of range
+   */
+  public static ResponseCompressor create(
+      Set<ContentEncoding> encodings, int minSize, int level, int poolSize) {
+    if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Compression level must be 1 to 9: " + level);
+    }
+    EnumSet<ContentEncoding> offered = EnumSet.noneOf(ContentEncoding.class);
+    offered.addAll(encodings);
+    offered.remove(ContentEncoding.IDENTITY);
+    return new ResponseCompressor(offered, Math.max(0, minSize), level, Math.max(1, poolSize));
+  }
+
+  /**
+   * Whether any coding is offered.
+   *
+   * @return False for a {@link #disabled()} compressor
+   */
+  public boolean enabled() {
+    return !encodings.isEmpty();
+  }
+
+  /**
+   * Whether a body is long enough to be compressed, so its response varies on {@code
+   * Accept-Encoding}.
+   *
+   * @param body The body
+   * @return True if the compressor is enabled and the body reaches the minimum size
+   */
+  public boolean compressible(String body) {
+    return enabled() && body != null && body.length() >= minSize;
+  }
+
+  /**
+   * Pick the coding for a request.
+   *
+   * @param headers The request headers
+   * @return The coding, or {@link ContentEncoding#IDENTITY} if the client accepts none offered
+   */
+  public ContentEncoding negotiate(AlbRequestHeaders headers) {
+    if (!enabled()) {
+      return ContentEncoding.IDENTITY;
+    }
+    return ContentEncoding.negotiate(headers.get(ACCEPT_ENCODING), encodings);
+  }
+
+  /**
+   * Compress a body.
+   *
+   * @param body The body bytes
+   * @param encoding {@link ContentEncoding#GZIP} or {@link ContentEncoding#DEFLATE}
+   * @return The compressed bytes
+   * @throws IllegalArgumentException for {@link ContentEncoding#IDENTITY}
+   */
+  public byte[] compress(byte[] body, ContentEncoding encoding) {
+    return switch (encoding) {
+      case GZIP -> gzip(body);
+      case DEFLATE -> deflate(deflate, body, 0, 0);
+      case IDENTITY -> throw new IllegalArgumentException("Identity is not a compression");
+    };
+  }
+
+  /**
+   * Compress a body and encode it as base64 for the ALB, if that makes it smaller.
+   *
+   * @param body The body
+   * @param encoding The coding
+   * @return The base64 text, or null if the encoded body would not be shorter than the original
+   */
+  public String encode(String body, ContentEncoding encoding) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    byte[] compressedBytes = compress(bytes, encoding);
+    // The ALB receives base64, so that is the size to compare
+    int encodedLength = (compressedBytes.length + 2) / 3 * 4;
+    if (encodedLength >= bytes.length) {
+      return null;
+    }
+    compressed.increment();
+    bytesIn.add(bytes.length);
+    bytesOut.add(compressedBytes.length);
+    ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(compressedBytes));
+    return new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Compress a response for the request's negotiated coding. The response keeps its header
+   * representation; a compressed one gets {@code Content-Encoding}, and any compressible one gets
+   * {@code Vary: Accept-Encoding}.
+   *
+   * @param response The response; its header maps are replaced, not modified
+   * @param headers The request headers
+   * @return The same response
+   */
+  public ApplicationLoadBalancerResponseEvent compress(
+      ApplicationLoadBalancerResponseEvent response, AlbRequestHeaders headers) {
+    String body = response.getBody();
+    if (!compressible(body)
+        || Boolean.TRUE.equals(response.getIsBase64Encoded())
+        || hasHeader(response, CONTENT_ENCODING)) {
+      return response;
+    }
+    ContentEncoding encoding = negotiate(headers);
+    String encoded = encoding == ContentEncoding.IDENTITY ? null : encode(body, encoding);
+    Map<String, String> extra = new LinkedHashMap<>();
+    if (encoded != null) {
+      extra.put(CONTENT_ENCODING, encoding.token());
+    }
+    extra.put(VARY, vary(response));
+    if (encoded != null) {
+      response.setBody(encoded);
+      response.setIsBase64Encoded(true);
+    }
+    withHeaders(response, extra);
+    return response;
+  }
+
+  /**
+   * Gets the number of bodies compressed.
+   *
+   * @return The compressed count
+   */
+  public long compressed() {
+    return compressed.sum();
+  }
+
+  /**
+   * Gets the uncompressed size of the bodies compressed.
+   *
+   * @return The byte count before compression
+   */
+  public long bytesIn() {
+    return bytesIn.sum();
+  }
+
+  /**
+   * Gets the compressed size of the bodies compressed, before base64.
+   *
+   * @return The byte count after compression
+   */
+  public long bytesOut() {
+    return bytesOut.sum();
+  }
+
+  /** End the pooled deflaters. */
+  public void close() {
+    gzip.close();
+    deflate.close();
+  }
+
+  private byte[] gzip(byte[] body) {
+    byte[] out = deflate(gzip, body, GZIP_HEADER.length, GZIP_TRAILER_LENGTH);
+    System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    int trailer = out.length - GZIP_TRAILER_LENGTH;
+    writeIntLe(out, trailer, (int) crc.getValue());
+    writeIntLe(out, trailer + 4, body.length);
+    return out;
+  }
+
+  /**
+   * Deflate a body into an array with room for a header before and a trailer after the data.
+   *
+   * @return An array of exactly {@code header + deflated + trailer} bytes
+   */
+  private static byte[] deflate(DeflaterPool pool, byte[] body, int header, int trailer) {
+    Deflater deflater = pool.borrow();
+    try {
+      deflater.setInput(body);
+      deflater.finish();
+      byte[] out = new byte[header + Math.max(64, body.length / 4) + trailer];
+      int position = header;
+      while (!deflater.finished()) {
+        if (position == out.length - trailer) {
+          out = Arrays.copyOf(out, out.length * 2);
+        }
+        position += deflater.deflate(out, position, out.length - trailer - position);
+      }
+      return out.length == position + trailer ? out : Arrays.copyOf(out, position + trailer);
+    } finally {
+      pool.release(deflater);
+    }
+  }
+
+  private static void writeIntLe(byte[] out, int offset, int value) {
+    out[offset] = (byte) value;
+    out[offset + 1] = (byte) (value >>> 8);
+    out[offset + 2] = (byte) (value >>> 16);
+    out[offset + 3] = (byte) (value >>> 24);
+  }
+
+  private static boolean hasHeader(ApplicationLoadBalancerResponseEvent response, String name) {
+    return value(response, name) != null;
+  }
+
+  /** The response's Vary value with Accept-Encoding added. */
+  private static String vary(ApplicationLoadBalancerResponseEvent response) {
+    String vary = value(response, VARY);
+    if (vary == null || vary.isEmpty()) {
+      return VARY_ACCEPT_ENCODING;
+    }
+    return vary.toLowerCase(Locale.ROOT).contains("accept-encoding")
+        ? vary
+        : vary + ", " + VARY_ACCEPT_ENCODING;
+  }
+
+  private static String value(ApplicationLoadBalancerResponseEvent response, String name) {
+    if (response.getHeaders() != null) {
+      for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+        if (header.getKey().equalsIgnoreCase(name)) {
+          return header.getValue();
+        }
+      }
+    }
+    if (response.getMultiValueHeaders() != null) {
+      for (Map.Entry<String, List<String>> header : response.getMultiValueHeaders().entrySet()) {
+        List<String> values = header.getValue();
+        if (header.getKey().equalsIgnoreCase(name) && values != null && !values.isEmpty()) {
+          return values.get(values.size() - 1);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Copy the response's header maps with the extra headers set, replacing any of the same name. */
+  private static void withHeaders(
+      ApplicationLoadBalancerResponseEvent response, Map<String, String> extra) {
+    if (response.getHeaders() != null) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      response
+          .getHeaders()
+          .forEach(
+              (name, value) -> {
+                if (!containsIgnoreCase(extra, name)) {
+                  headers.put(name, value);
+                }
+              });
+      headers.putAll(extra);
+      response.setHeaders(headers);
+    }
+    if (response.getMultiValueHeaders() != null) {
+      Map<String, List<String>> headers = new LinkedHashMap<>();
+      response
+          .getMultiValueHeaders()
+          .forEach(
+              (name, values) -> {
+                if (!containsIgnoreCase(extra, name)) {
+                  headers.put(name, values);
+                }
+              });
+      extra.forEach((name, value) -> headers.put(name, List.of(value)));
+      response.setMultiValueHeaders(headers);
+    }
+  }
+
+  private static boolean containsIgnoreCase(Map<String, String> headers, String name) {
+    for (String key : headers.keySet()) {
+      if (key.equalsIgnoreCase(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
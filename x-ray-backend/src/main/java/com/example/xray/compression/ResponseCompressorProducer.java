@@ -0,0 +1,58 @@
+package com.example.xray.compression;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** CDI producer for the {@link ResponseCompressor} configured by {@code xray.compression.*}. */
+@ApplicationScoped
+public class ResponseCompressorProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseCompressorProducer.class);
+
+  @ConfigProperty(name = "xray.compression.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.compression.encodings", defaultValue = "gzip,deflate")
+  List<String> encodings;
+
+  @ConfigProperty(name = "xray.compression.min-size", defaultValue = "1024")
+  int minSize;
+
+  @ConfigProperty(name = "xray.compression.level", defaultValue = "6")
+  int level;
+
+  @ConfigProperty(name = "xray.compression.pool-size", defaultValue = "16")
+  int poolSize;
+
+  @Produces
+  @Singleton
+  ResponseCompressor responseCompressor() {
+    if (!enabled) {
+      return ResponseCompressor.disabled();
+    }
+    Set<ContentEncoding> offered = EnumSet.noneOf(ContentEncoding.class);
+    for (String encoding : encodings) {
+      offered.add(ContentEncoding.of(encoding));
+    }
+    logger.info(
+        "Compressing response bodies of {} characters or more with {} at level {}",
+        minSize,
+        offered,
+        level);
+    return ResponseCompressor.create(offered, minSize, level, poolSize);
+  }
+
+  void close(@Disposes ResponseCompressor compressor) {
+    compressor.close();
+  }
+}
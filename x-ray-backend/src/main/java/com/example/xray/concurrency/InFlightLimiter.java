@@ -0,0 +1,105 @@
+package com.example.xray.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of invocations the handler runs at once. Admission never blocks: an invocation
+ * over the limit is rejected straight away so the caller can answer 503 and the load balancer can
+ * retry elsewhere, instead of queueing work that would only miss its deadline.
+ */
+public final class InFlightLimiter {
+
+  private final int maxInFlight;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peak = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+
+  private InFlightLimiter(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Create a limiter that admits every invocation and keeps no counts.
+   *
+   * @return An unlimited limiter
+   */
+  public static InFlightLimiter unlimited() {
+    return new InFlightLimiter(0);
+  }
+
+  /**
+   * Create a limiter.
+   *
+   * @param maxInFlight Most invocations to run at once, or 0 or less for no limit
+   * @return The limiter
+   */
+  public static InFlightLimiter of(int maxInFlight) {
+    return new InFlightLimiter(Math.max(maxInFlight, 0));
+  }
+
+  /**
+   * Admit an invocation if the limit allows it. Every admitted invocation must call {@link
+   * #release()} when it ends.
+   *
+   * @return Whether the invocation was admitted
+   */
+  public boolean tryAcquire() {
+    if (maxInFlight == 0) {
+      return true;
+    }
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= maxInFlight) {
+        rejected.incrementAndGet();
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    peak.accumulateAndGet(current + 1, Math::max);
+    return true;
+  }
+
+  /** End an invocation admitted by {@link #tryAcquire()}. */
+  public void release() {
+    if (maxInFlight != 0) {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  /**
+   * Gets the limit.
+   *
+   * @return The most invocations run at once, or 0 for no limit
+   */
+  public int maxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * Gets the number of invocations running now. Always 0 without a limit.
+   *
+   * @return The in-flight count
+   */
+  public int inFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Gets the highest number of invocations that have run at once. Always 0 without a limit.
+   *
+   * @return The peak in-flight count
+   */
+  public int peak() {
+    return peak.get();
+  }
+
+  /**
+   * Gets the number of invocations rejected for being over the limit.
+   *
+   * @return The rejected count
+   */
+  public long rejected() {
+    return rejected.get();
+  }
+}
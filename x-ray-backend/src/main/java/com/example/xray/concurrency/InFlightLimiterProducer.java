@@ -0,0 +1,29 @@
+package com.example.xray.concurrency;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** CDI producer for the {@link InFlightLimiter} configured by {@code xray.concurrency.*}. */
+@ApplicationScoped
+public class InFlightLimiterProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(InFlightLimiterProducer.class);
+
+  @ConfigProperty(name = "xray.concurrency.max-in-flight", defaultValue = "0")
+  int maxInFlight;
+
+  @Produces
+  @Singleton
+  InFlightLimiter inFlightLimiter() {
+    if (maxInFlight <= 0) {
+      return InFlightLimiter.unlimited();
+    }
+    logger.info("Running at most {} invocations at once", maxInFlight);
+    return InFlightLimiter.of(maxInFlight);
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.xray.export;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Exporter that can replace the exporter it delegates to. After a checkpoint restore the sockets
+ * and pooled connections of an exporter created before the checkpoint point at a network that no
+ * longer exists, so {@link #reset()} builds a new exporter from the factory and shuts the old one
+ * down.
+ */
+final class ResettableSpanExporter implements SpanExporter {
+
+  /** Creates the delegate exporter. */
+  @FunctionalInterface
+  interface Factory {
+    SpanExporter create() throws IOException;
+  }
+
+  private final Factory factory;
+  private volatile SpanExporter delegate;
+
+  ResettableSpanExporter(Factory factory) throws IOException {
+    this.factory = factory;
+    this.delegate = factory.create();
+  }
+
+  /**
+   * Replace the delegate with a newly created exporter.
+   *
+   * @throws IOException if the new exporter cannot be created; the old one stays in place
+   */
+  void reset() throws IOException {
+    SpanExporter previous = delegate;
+    delegate = factory.create();
+    previous.shutdown();
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    return delegate.export(spans);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  @Override
+  public String toString() {
+    return "ResettableSpanExporter{" + delegate + "}";
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.xray.export;
+
+import java.util.Locale;
+
+/** Selectable span exporters, configured through {@code xray.traces.exporter}. */
+public enum TracesExporter {
+
+  /** Export through the Quarkus OTLP exporter to the ADOT collector (the original behavior). */
+  OTLP,
+
+  /**
+   * Encode spans as X-Ray segment documents in process and send them over UDP to the X-Ray daemon,
+   * bypassing the collector.
+   */
+  XRAY_UDP;
+
+  /**
+   * Parse a configuration value such as {@code otlp} or {@code xray-udp}.
+   *
+   * @param value The configured value
+   * @return The matching exporter
+   * @throws IllegalArgumentException if the value does not name an exporter
+   */
+  public static TracesExporter fromConfig(String value) {
+    return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+  }
+}
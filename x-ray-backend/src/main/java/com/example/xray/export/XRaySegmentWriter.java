@@ -0,0 +1,196 @@
+package com.example.xray.export;
+
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import com.example.xray.XRayLoggingContext;
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Writes spans as X-Ray segment documents. Server spans and spans with a remote or missing parent
+ * become segments named after the service; everything else is a subsegment named after the span.
+ * HTTP attributes map onto the segment's {@code http} block and fault flags, and the remaining
+ * attributes are kept as metadata. Not thread safe; each exporter owns one.
+ */
+final class XRaySegmentWriter {
+
+  private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+  private static final AttributeKey<String> HTTP_METHOD = AttributeKey.stringKey("http.method");
+  private static final AttributeKey<String> HTTP_URL = AttributeKey.stringKey("http.url");
+  private static final AttributeKey<Long> HTTP_STATUS_CODE =
+      AttributeKey.longKey("http.status_code");
+
+  private static final long NANOS_PER_MICRO = 1_000;
+  private static final long MICROS_PER_SECOND = 1_000_000;
+
+  private boolean firstMetadata;
+
+  /**
+   * Check whether a span is written as a segment rather than a subsegment.
+   *
+   * @param span The span
+   * @return Whether the span starts a segment
+   */
+  static boolean isSegment(SpanData span) {
+    SpanContext parent = span.getParentSpanContext();
+    return span.getKind() == SpanKind.SERVER || !parent.isValid() || parent.isRemote();
+  }
+
+  /**
+   * Write a top-level document: a segment, or an independent subsegment that names its trace and
+   * parent so the daemon can attach it to a segment sent earlier.
+   *
+   * @param span The span
+   * @param children Children of each span ID to nest as subsegments, or null to write none
+   * @param out The buffer to append to
+   */
+  void writeDocument(SpanData span, Map<String, List<SpanData>> children, JsonBuffer out) {
+    boolean segment = isSegment(span);
+    out.raw("{\"name\":").string(name(span, segment));
+    out.raw(",\"id\":").string(span.getSpanId());
+    out.raw(",\"trace_id\":").string(XRayLoggingContext.toXRayTraceId(span.getTraceId()));
+    SpanContext parent = span.getParentSpanContext();
+    if (parent.isValid()) {
+      out.raw(",\"parent_id\":").string(parent.getSpanId());
+    }
+    if (!segment) {
+      out.raw(",\"type\":\"subsegment\"");
+    }
+    writeBody(span, children, out);
+  }
+
+  private void writeNested(SpanData span, Map<String, List<SpanData>> children, JsonBuffer out) {
+    out.raw("{\"name\":").string(span.getName());
+    out.raw(",\"id\":").string(span.getSpanId());
+    writeBody(span, children, out);
+  }
+
+  private void writeBody(SpanData span, Map<String, List<SpanData>> children, JsonBuffer out) {
+    out.raw(",\"start_time\":");
+    time(out, span.getStartEpochNanos());
+    out.raw(",\"end_time\":");
+    time(out, span.getEndEpochNanos());
+
+    if (span.getKind() == SpanKind.CLIENT || span.getKind() == SpanKind.PRODUCER) {
+      out.raw(",\"namespace\":\"remote\"");
+    }
+
+    Attributes attributes = span.getAttributes();
+    String method = attributes.get(HTTP_METHOD);
+    String url = attributes.get(HTTP_URL);
+    Long status = attributes.get(HTTP_STATUS_CODE);
+    if (method != null || url != null || status != null) {
+      out.raw(",\"http\":{\"request\":{");
+      if (method != null) {
+        out.raw("\"method\":").string(method);
+      }
+      if (url != null) {
+        out.raw(method != null ? ",\"url\":" : "\"url\":").string(url);
+      }
+      out.raw('}');
+      if (status != null) {
+        out.raw(",\"response\":{\"status\":").number(status).raw('}');
+      }
+      out.raw('}');
+    }
+
+    if (status != null && status >= 500) {
+      out.raw(",\"fault\":true");
+    } else if (status != null && status == 429) {
+      out.raw(",\"error\":true,\"throttle\":true");
+    } else if (status != null && status >= 400) {
+      out.raw(",\"error\":true");
+    } else if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+      out.raw(",\"fault\":true");
+    }
+
+    writeMetadata(attributes, out);
+
+    List<SpanData> nested = children == null ? null : children.get(span.getSpanId());
+    if (nested != null && !nested.isEmpty()) {
+      out.raw(",\"subsegments\":[");
+      for (int i = 0; i < nested.size(); i++) {
+        if (i > 0) {
+          out.raw(',');
+        }
+        writeNested(nested.get(i), children, out);
+      }
+      out.raw(']');
+    }
+    out.raw('}');
+  }
+
+  private void writeMetadata(Attributes attributes, JsonBuffer out) {
+    int start = out.length();
+    out.raw(",\"metadata\":{\"default\":{");
+    firstMetadata = true;
+    attributes.forEach(
+        (key, value) -> {
+          if (key.equals(HTTP_METHOD) || key.equals(HTTP_URL) || key.equals(HTTP_STATUS_CODE)) {
+            return;
+          }
+          if (!firstMetadata) {
+            out.raw(',');
+          }
+          firstMetadata = false;
+          out.string(key.getKey()).raw(':');
+          value(out, value);
+        });
+    if (firstMetadata) {
+      out.truncate(start);
+    } else {
+      out.raw("}}");
+    }
+  }
+
+  private static void value(JsonBuffer out, Object value) {
+    if (value instanceof String s) {
+      out.string(s);
+    } else if (value instanceof Boolean b) {
+      out.bool(b);
+    } else if (value instanceof Long l) {
+      out.number(l);
+    } else if (value instanceof Double d) {
+      out.number(d);
+    } else if (value instanceof List<?> list) {
+      out.raw('[');
+      for (int i = 0; i < list.size(); i++) {
+        if (i > 0) {
+          out.raw(',');
+        }
+        value(out, list.get(i));
+      }
+      out.raw(']');
+    } else {
+      out.string(String.valueOf(value));
+    }
+  }
+
+  private static String name(SpanData span, boolean segment) {
+    if (segment) {
+      String service = span.getResource().getAttribute(SERVICE_NAME);
+      if (service != null && !service.isEmpty()) {
+        return service;
+      }
+    }
+    return span.getName();
+  }
+
+  /** Write epoch nanoseconds as X-Ray's fractional epoch seconds with microsecond precision. */
+  private static void time(JsonBuffer out, long epochNanos) {
+    long micros = epochNanos / NANOS_PER_MICRO;
+    long fraction = micros % MICROS_PER_SECOND;
+    out.number(micros / MICROS_PER_SECOND).raw('.');
+    for (long scale = MICROS_PER_SECOND / 10; scale > 1 && fraction < scale; scale /= 10) {
+      out.raw('0');
+    }
+    out.number(fraction);
+  }
+}
@@ -0,0 +1,127 @@
+package com.example.xray.export;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.quarkus.arc.Unremovable;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.spill.SpanSpill;
+import com.example.xray.startup.CheckpointRestored;
+
+/**
+ * CDI producer for the span processor behind {@code xray.traces.exporter}. Quarkus registers every
+ * {@link SpanProcessor} bean with the tracer provider, so the batch processor produced here exports
+ * next to whatever {@code quarkus.otel.traces.exporter} configures, and the flush strategies flush
+ * both. It is needed for {@code xray-udp}, and for {@code otlp} when the span spill is enabled,
+ * because the spill has to wrap the exporter; otherwise the produced processor does nothing. When
+ * it does export, startup fails unless {@code quarkus.otel.traces.exporter} is {@code none}, so no
+ * span is exported twice. The exporter is rebuilt after a checkpoint restore so no socket from
+ * before the checkpoint is reused.
+ */
+@ApplicationScoped
+public class XRaySpanProcessorProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(XRaySpanProcessorProducer.class);
+
+  @Inject SpanSpill spill;
+
+  @ConfigProperty(name = "xray.traces.exporter", defaultValue = "otlp")
+  String exporter;
+
+  @ConfigProperty(name = "xray.traces.daemon-address", defaultValue = "127.0.0.1:2000")
+  String daemonAddress;
+
+  @ConfigProperty(name = "quarkus.otel.traces.exporter", defaultValue = "cdi")
+  String quarkusExporter;
+
+  @ConfigProperty(
+      name = "quarkus.otel.exporter.otlp.endpoint",
+      defaultValue = "http://localhost:4317")
+  String otlpEndpoint;
+
+  @ConfigProperty(name = "quarkus.otel.exporter.otlp.timeout", defaultValue = "10s")
+  Duration otlpTimeout;
+
+  @ConfigProperty(name = "quarkus.otel.bsp.schedule.delay", defaultValue = "5s")
+  Duration scheduleDelay;
+
+  @ConfigProperty(name = "quarkus.otel.bsp.max.export.batch.size", defaultValue = "512")
+  int maxExportBatchSize;
+
+  private volatile ResettableSpanExporter spanExporter;
+
+  @Produces
+  @Singleton
+  @Unremovable
+  SpanProcessor xrayDaemonSpanProcessor() throws IOException {
+    if (TracesExporter.fromConfig(exporter) == TracesExporter.XRAY_UDP) {
+      requireQuarkusExporterOff("xray.traces.exporter=xray-udp");
+      logger.info("Exporting spans as X-Ray segments over UDP to {}", daemonAddress);
+      // The address is parsed again on every reset, so a restored snapshot resolves it afresh
+      spanExporter =
+          new ResettableSpanExporter(
+              () ->
+                  new XRayUdpSpanExporter(
+                      XRayUdpSpanExporter.parseAddress(daemonAddress),
+                      XRayUdpSpanExporter.DEFAULT_MAX_DATAGRAM_BYTES));
+    } else if (spill.enabled()) {
+      requireQuarkusExporterOff("xray.spill.enabled=true");
+      logger.info("Exporting spans over OTLP to {} with span spill", otlpEndpoint);
+      spanExporter =
+          new ResettableSpanExporter(
+              () ->
+                  OtlpGrpcSpanExporter.builder()
+                      .setEndpoint(otlpEndpoint)
+                      .setTimeout(otlpTimeout)
+                      .build());
+    } else {
+      return SpanProcessor.composite();
+    }
+    return BatchSpanProcessor.builder(spill.wrap(spanExporter))
+        .setScheduleDelay(scheduleDelay)
+        .setMaxExportBatchSize(maxExportBatchSize)
+        .build();
+  }
+
+  void onRestore(@Observes CheckpointRestored event) {
+    ResettableSpanExporter current = spanExporter;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.reset();
+      logger.info("Reopened span exporter connections after restore");
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to reopen span exporter after restore, keeping the old one", e);
+    }
+  }
+
+  /**
+   * Fail startup when the Quarkus exporter still runs next to the processor produced here, since
+   * every span would then be exported by both.
+   *
+   * @param setting The setting that made this producer export spans
+   */
+  private void requireQuarkusExporterOff(String setting) {
+    if (!"none".equalsIgnoreCase(quarkusExporter.trim())) {
+      throw new IllegalStateException(
+          setting
+              + " exports spans through its own span processor, but quarkus.otel.traces.exporter="
+              + quarkusExporter
+              + " exports them as well; set quarkus.otel.traces.exporter=none");
+    }
+  }
+}
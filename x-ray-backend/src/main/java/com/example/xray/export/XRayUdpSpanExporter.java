@@ -0,0 +1,206 @@
+package com.example.xray.export;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Span exporter that sends spans straight to the X-Ray daemon as segment documents over UDP,
+ * replacing the OTLP/gRPC hop through the ADOT collector. Each datagram carries the daemon's
+ * {@code {"format":"json","version":1}} header and one document. Children exported in the same
+ * batch are nested in their parent's document as subsegments; when a document would not fit in a
+ * datagram, the parent is sent on its own and each child subtree follows as an independent
+ * subsegment. The JSON buffer, byte buffer and encoder are reused across exports.
+ */
+public final class XRayUdpSpanExporter implements SpanExporter {
+
+  private static final Logger logger = LoggerFactory.getLogger(XRayUdpSpanExporter.class);
+
+  /** Largest datagram the X-Ray daemon reads. */
+  public static final int DEFAULT_MAX_DATAGRAM_BYTES = 64 * 1024;
+
+  private static final String HEADER = "{\"format\":\"json\",\"version\":1}\n";
+
+  private final DatagramChannel channel;
+  private final InetSocketAddress daemon;
+  private final ByteBuffer datagram;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private final JsonBuffer json = JsonBuffer.create();
+  private final XRaySegmentWriter writer = new XRaySegmentWriter();
+  private final LongAdder datagramsSent = new LongAdder();
+  private final LongAdder spansDropped = new LongAdder();
+  private volatile boolean shutdown;
+
+  /**
+   * Creates an exporter sending to the given daemon address.
+   *
+   * @param daemon The daemon's UDP address
+   * @param maxDatagramBytes The largest datagram to send
+   * @throws IOException if the UDP channel cannot be opened
+   */
+  public XRayUdpSpanExporter(InetSocketAddress daemon, int maxDatagramBytes) throws IOException {
+    this.daemon = daemon;
+    this.datagram = ByteBuffer.allocateDirect(maxDatagramBytes);
+    this.channel = DatagramChannel.open();
+  }
+
+  /**
+   * Parse a daemon address. Accepts {@code host:port} as well as the X-Ray SDK form {@code
+   * tcp:host:port udp:host:port} used by {@code AWS_XRAY_DAEMON_ADDRESS}, in which case the UDP
+   * address is used.
+   *
+   * @param value The configured address
+   * @return The socket address
+   * @throws IllegalArgumentException if the value has no port
+   */
+  public static InetSocketAddress parseAddress(String value) {
+    String address = value.trim();
+    for (String part : address.split("\\s+")) {
+      if (part.startsWith("udp:")) {
+        address = part.substring("udp:".length());
+      }
+    }
+    int colon = address.lastIndexOf(':');
+    if (colon <= 0) {
+      throw new IllegalArgumentException("X-Ray daemon address must be host:port: " + value);
+    }
+    return new InetSocketAddress(
+        address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+  }
+
+  @Override
+  public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+    if (shutdown) {
+      return CompletableResultCode.ofFailure();
+    }
+
+    // Group the batch by parent so each local root goes out with its children nested
+    Map<String, SpanData> byId = new HashMap<>(spans.size() * 2);
+    for (SpanData span : spans) {
+      byId.put(span.getSpanId(), span);
+    }
+    Map<String, List<SpanData>> children = new HashMap<>();
+    List<SpanData> roots = new ArrayList<>();
+    for (SpanData span : spans) {
+      SpanContext parent = span.getParentSpanContext();
+      SpanData parentSpan = byId.get(parent.getSpanId());
+      if (!XRaySegmentWriter.isSegment(span)
+          && parentSpan != null
+          && parentSpan.getTraceId().equals(span.getTraceId())) {
+        children.computeIfAbsent(parent.getSpanId(), id -> new ArrayList<>()).add(span);
+      } else {
+        roots.add(span);
+      }
+    }
+
+    try {
+      for (SpanData root : roots) {
+        sendTree(root, children);
+      }
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      logger.error("Failed to send segments to the X-Ray daemon at {}", daemon, e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  /** Send a span with its subtree nested, or split it up when it does not fit in one datagram. */
+  private void sendTree(SpanData span, Map<String, List<SpanData>> children) throws IOException {
+    List<SpanData> nested = children.get(span.getSpanId());
+    if (nested != null && send(span, children)) {
+      return;
+    }
+    if (!send(span, null)) {
+      spansDropped.increment();
+      logger.warn(
+          "Dropping span {} ({}): segment document exceeds {} bytes",
+          span.getSpanId(),
+          span.getName(),
+          datagram.capacity());
+    }
+    if (nested != null) {
+      for (SpanData child : nested) {
+        sendTree(child, children);
+      }
+    }
+  }
+
+  /**
+   * Encode one document into the datagram buffer and send it.
+   *
+   * @return false if the document does not fit in a datagram
+   */
+  private boolean send(SpanData span, Map<String, List<SpanData>> children) throws IOException {
+    json.truncate(0);
+    json.raw(HEADER);
+    writer.writeDocument(span, children, json);
+
+    datagram.clear();
+    encoder.reset();
+    CoderResult result = encoder.encode(CharBuffer.wrap(json.chars()), datagram, true);
+    if (result.isOverflow() || encoder.flush(datagram).isOverflow()) {
+      return false;
+    }
+    datagram.flip();
+    channel.send(datagram, daemon);
+    datagramsSent.increment();
+    return true;
+  }
+
+  /**
+   * Gets the number of datagrams sent to the daemon.
+   *
+   * @return The datagram count
+   */
+  public long getDatagramsSent() {
+    return datagramsSent.sum();
+  }
+
+  /**
+   * Gets the number of spans dropped because their document alone exceeded the datagram size.
+   *
+   * @return The dropped span count
+   */
+  public long getSpansDropped() {
+    return spansDropped.sum();
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    // Datagrams are sent synchronously by export
+    return CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public synchronized CompletableResultCode shutdown() {
+    shutdown = true;
+    try {
+      channel.close();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      logger.warn("Failed to close the X-Ray daemon channel", e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+}
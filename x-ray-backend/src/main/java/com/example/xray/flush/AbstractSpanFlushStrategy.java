@@ -0,0 +1,148 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.budget.RequestBudget;
+
+/**
+ * Shared plumbing for the flush strategies: starting a flush against the tracer provider, waiting
+ * for it with a timeout, and recording the outcome in {@link FlushMetrics}.
+ */
+abstract class AbstractSpanFlushStrategy implements SpanFlushStrategy {
+
+  private static final Logger logger = LoggerFactory.getLogger(AbstractSpanFlushStrategy.class);
+
+  private final Supplier<CompletableResultCode> flusher;
+  private final PendingSpanTracker tracker;
+  private final long timeoutNanos;
+  private final Runnable onDeadlineMissed;
+  private final FlushMetrics metrics = new FlushMetrics();
+  private final AtomicReference<InFlightFlush> deferred = new AtomicReference<>();
+
+  /**
+   * Creates the strategy.
+   *
+   * @param flusher Starts a flush, normally {@code SdkTracerProvider::forceFlush}
+   * @param tracker Tracks spans ended since the last flush
+   * @param timeout Longest time the request path may wait for a flush
+   * @param onDeadlineMissed Called when a flush does not complete within the timeout
+   */
+  AbstractSpanFlushStrategy(
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed) {
+    this.flusher = flusher;
+    this.tracker = tracker;
+    this.timeoutNanos = timeout.toNanos();
+    this.onDeadlineMissed = onDeadlineMissed;
+  }
+
+  @Override
+  public FlushMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets the pending span tracker.
+   *
+   * @return The tracker
+   */
+  PendingSpanTracker tracker() {
+    return tracker;
+  }
+
+  /**
+   * Start a flush of everything pending. The outcome is recorded when the flush completes, or as
+   * dropped if {@link #await} gives up on it first.
+   *
+   * @return The running flush
+   */
+  InFlightFlush startFlush() {
+    InFlightFlush flush = new InFlightFlush(tracker.drain());
+    flush.result = flusher.get();
+    flush.result.whenComplete(() -> flush.settle(flush.result.isSuccess()));
+    return flush;
+  }
+
+  /**
+   * Wait for a flush for at most the configured timeout, or what is left of the current
+   * invocation's {@link RequestBudget} if that is less. A flush that misses it is handed to the
+   * deadline hook, which spills the spans still being exported when a spill store is configured.
+   *
+   * @param flush The flush to wait for
+   */
+  void await(InFlightFlush flush) {
+    long waitNanos = RequestBudget.current().limit(timeoutNanos);
+    flush.result.join(waitNanos, TimeUnit.NANOSECONDS);
+    if (!flush.result.isDone()) {
+      flush.settle(false);
+      onDeadlineMissed.run();
+      logger.warn(
+          "Span flush did not complete within {} ms, {} spans may be lost",
+          TimeUnit.NANOSECONDS.toMillis(waitNanos),
+          flush.pendingSpans);
+    } else if (!flush.result.isSuccess()) {
+      logger.error("Span flush failed, {} spans may be lost", flush.pendingSpans);
+    }
+  }
+
+  /** Start a flush that is settled later by {@link #settleDeferred()}. */
+  void startDeferred() {
+    InFlightFlush previous = deferred.getAndSet(startFlush());
+    if (previous != null) {
+      await(previous);
+    }
+  }
+
+  /**
+   * Wait for the flush started by {@link #startDeferred()}, if any.
+   *
+   * @return Whether there was a deferred flush to settle
+   */
+  boolean settleDeferred() {
+    InFlightFlush flush = deferred.getAndSet(null);
+    if (flush == null) {
+      return false;
+    }
+    await(flush);
+    return true;
+  }
+
+  /**
+   * Check whether the deferred flush is still running.
+   *
+   * @return Whether a deferred flush is in progress
+   */
+  boolean deferredInProgress() {
+    InFlightFlush flush = deferred.get();
+    return flush != null && !flush.result.isDone();
+  }
+
+  /** A flush that has been started but whose outcome may not be recorded yet. */
+  final class InFlightFlush {
+    private final long pendingSpans;
+    private final long startNanos = System.nanoTime();
+    private final AtomicBoolean settled = new AtomicBoolean();
+    private CompletableResultCode result;
+
+    private InFlightFlush(long pendingSpans) {
+      this.pendingSpans = pendingSpans;
+    }
+
+    private void settle(boolean success) {
+      if (settled.compareAndSet(false, true)) {
+        metrics.record(System.nanoTime() - startNanos, success, pendingSpans);
+      }
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Starts the flush when the invocation ends and returns the response straight away. The batch
+ * processor's worker thread carries on exporting until the environment is frozen and resumes when
+ * it thaws, and the next invocation waits for that flush (bounded by the timeout) before it starts
+ * recording new spans. Latency measured for a deferred flush therefore includes any time spent
+ * frozen between invocations.
+ */
+final class AfterResponseFlushStrategy extends AbstractSpanFlushStrategy {
+
+  AfterResponseFlushStrategy(
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed) {
+    super(flusher, tracker, timeout, onDeadlineMissed);
+  }
+
+  @Override
+  public FlushMode mode() {
+    return FlushMode.AFTER_RESPONSE;
+  }
+
+  @Override
+  public void beforeInvocation() {
+    settleDeferred();
+  }
+
+  @Override
+  public void afterInvocation() {
+    startDeferred();
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Leaves every export to the batch span processor, so no request waits on or triggers a flush.
+ * Requests share nothing through this strategy, which keeps it off the contended path when many
+ * requests run at once.
+ */
+final class BatchExportFlushStrategy extends AbstractSpanFlushStrategy {
+
+  BatchExportFlushStrategy(
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed) {
+    super(flusher, tracker, timeout, onDeadlineMissed);
+  }
+
+  @Override
+  public FlushMode mode() {
+    return FlushMode.BATCH;
+  }
+
+  @Override
+  public void beforeInvocation() {
+    // The batch processor exports on its own schedule
+  }
+
+  @Override
+  public void afterInvocation() {
+    // The batch processor exports on its own schedule
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Leaves spans with the batch processor and only forces a flush once enough spans are pending or
+ * the oldest of them is older than the staleness bound. Thresholds are checked when an invocation
+ * starts, so spans left behind by a frozen environment ride along with the next request, and again
+ * when it ends. Forced flushes never block the response; they are settled on the next check.
+ */
+final class BoundedStalenessFlushStrategy extends AbstractSpanFlushStrategy {
+
+  private final long maxPendingSpans;
+  private final long maxStalenessNanos;
+
+  BoundedStalenessFlushStrategy(
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed,
+      long maxPendingSpans,
+      Duration maxStaleness) {
+    super(flusher, tracker, timeout, onDeadlineMissed);
+    this.maxPendingSpans = maxPendingSpans;
+    this.maxStalenessNanos = maxStaleness.toNanos();
+  }
+
+  @Override
+  public FlushMode mode() {
+    return FlushMode.BOUNDED_STALENESS;
+  }
+
+  @Override
+  public void beforeInvocation() {
+    settleDeferred();
+    flushIfThresholdReached();
+  }
+
+  @Override
+  public void afterInvocation() {
+    if (!deferredInProgress()) {
+      flushIfThresholdReached();
+    }
+  }
+
+  private void flushIfThresholdReached() {
+    PendingSpanTracker tracker = tracker();
+    if (tracker.pending() >= maxPendingSpans
+        || (tracker.pending() > 0
+            && tracker.oldestAgeNanos(System.nanoTime()) >= maxStalenessNanos)) {
+      startDeferred();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.xray.flush;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/**
+ * Merges concurrent flush requests into as few tracer provider flushes as possible. A flush of the
+ * tracer provider exports every span ended so far, whichever invocation ended it, so concurrent
+ * invocations do not each need their own.
+ *
+ * <p>The first request starts a flush. Requests that arrive while it runs cannot share it, because
+ * their spans may have ended after it started, so they all share the single flush that starts as
+ * soon as the running one completes. At most one flush runs and one waits at any time, however
+ * many invocations ask.
+ */
+final class FlushCoordinator implements Supplier<CompletableResultCode> {
+
+  private final Supplier<CompletableResultCode> flusher;
+  private final Object lock = new Object();
+  private final AtomicLong requested = new AtomicLong();
+  private final AtomicLong started = new AtomicLong();
+
+  // Guarded by lock
+  private CompletableResultCode running;
+  private CompletableResultCode next;
+
+  /**
+   * Creates the coordinator.
+   *
+   * @param flusher Starts a flush, normally {@code SdkTracerProvider::forceFlush}
+   */
+  FlushCoordinator(Supplier<CompletableResultCode> flusher) {
+    this.flusher = flusher;
+  }
+
+  /**
+   * Request a flush covering every span ended before this call.
+   *
+   * @return A result that completes when such a flush has completed
+   */
+  @Override
+  public CompletableResultCode get() {
+    requested.incrementAndGet();
+    CompletableResultCode result;
+    boolean start;
+    synchronized (lock) {
+      start = running == null;
+      if (start) {
+        running = new CompletableResultCode();
+        result = running;
+      } else {
+        if (next == null) {
+          next = new CompletableResultCode();
+        }
+        result = next;
+      }
+    }
+    if (start) {
+      run(result);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of flushes requested.
+   *
+   * @return The request count
+   */
+  long requested() {
+    return requested.get();
+  }
+
+  /**
+   * Gets the number of tracer provider flushes started for those requests.
+   *
+   * @return The flush count
+   */
+  long started() {
+    return started.get();
+  }
+
+  private void run(CompletableResultCode target) {
+    started.incrementAndGet();
+    CompletableResultCode flush;
+    try {
+      flush = flusher.get();
+    } catch (RuntimeException e) {
+      flush = CompletableResultCode.ofFailure();
+    }
+    CompletableResultCode completed = flush;
+    completed.whenComplete(
+        () -> {
+          CompletableResultCode following;
+          synchronized (lock) {
+            following = next;
+            next = null;
+            running = following;
+          }
+          if (completed.isSuccess()) {
+            target.succeed();
+          } else {
+            target.fail();
+          }
+          if (following != null) {
+            run(following);
+          }
+        });
+  }
+}
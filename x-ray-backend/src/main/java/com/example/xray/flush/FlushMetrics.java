@@ -0,0 +1,108 @@
+package com.example.xray.flush;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for span flushing. Metrics export is disabled for this service, so the values are
+ * exposed through getters and logged by the handler instead.
+ */
+public final class FlushMetrics {
+
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder failedFlushes = new LongAdder();
+  private final LongAdder spansDropped = new LongAdder();
+  private final LongAdder totalLatencyNanos = new LongAdder();
+  private final AtomicLong maxLatencyNanos = new AtomicLong();
+  private final AtomicLong lastLatencyNanos = new AtomicLong();
+
+  /**
+   * Record a completed (or abandoned) flush.
+   *
+   * @param latencyNanos Time from starting the flush until it completed or was given up on
+   * @param success Whether the flush completed successfully within its timeout
+   * @param pendingSpans Number of spans the flush was responsible for
+   */
+  void record(long latencyNanos, boolean success, long pendingSpans) {
+    flushes.increment();
+    totalLatencyNanos.add(latencyNanos);
+    lastLatencyNanos.set(latencyNanos);
+    maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    if (!success) {
+      failedFlushes.increment();
+      spansDropped.add(pendingSpans);
+    }
+  }
+
+  /**
+   * Gets the number of flushes performed.
+   *
+   * @return The flush count
+   */
+  public long getFlushes() {
+    return flushes.sum();
+  }
+
+  /**
+   * Gets the number of flushes that failed or timed out.
+   *
+   * @return The failed flush count
+   */
+  public long getFailedFlushes() {
+    return failedFlushes.sum();
+  }
+
+  /**
+   * Gets the number of spans whose flush failed or timed out.
+   *
+   * @return The dropped span count
+   */
+  public long getSpansDropped() {
+    return spansDropped.sum();
+  }
+
+  /**
+   * Gets the duration of the most recent flush.
+   *
+   * @return The last flush latency in milliseconds
+   */
+  public double getLastLatencyMillis() {
+    return toMillis(lastLatencyNanos.get());
+  }
+
+  /**
+   * Gets the longest flush seen so far.
+   *
+   * @return The maximum flush latency in milliseconds
+   */
+  public double getMaxLatencyMillis() {
+    return toMillis(maxLatencyNanos.get());
+  }
+
+  /**
+   * Gets the mean flush duration.
+   *
+   * @return The mean flush latency in milliseconds, or 0 if nothing has been flushed
+   */
+  public double getMeanLatencyMillis() {
+    long count = flushes.sum();
+    return count == 0 ? 0 : toMillis(totalLatencyNanos.sum()) / count;
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "flushes=%d, failed=%d, spansDropped=%d, lastMs=%.2f, meanMs=%.2f, maxMs=%.2f",
+        getFlushes(),
+        getFailedFlushes(),
+        getSpansDropped(),
+        getLastLatencyMillis(),
+        getMeanLatencyMillis(),
+        getMaxLatencyMillis());
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.xray.flush;
+
+import java.util.Locale;
+
+/** Selectable span flush modes, configured through {@code xray.flush.mode}. */
+public enum FlushMode {
+
+  /** Block the response until the tracer provider has flushed (the original behavior). */
+  SYNC,
+
+  /**
+   * Start the flush when the invocation ends but return the response without waiting for it. The
+   * pending flush is settled at the start of the next invocation.
+   */
+  AFTER_RESPONSE,
+
+  /**
+   * Leave spans to the batch processor and only force a flush when the number of pending spans or
+   * the age of the oldest pending span crosses a threshold.
+   */
+  BOUNDED_STALENESS,
+
+  /**
+   * Never force a flush; spans leave on the batch processor's own schedule. For long-running
+   * processes such as the container mode, where nothing freezes the process between requests.
+   */
+  BATCH;
+
+  /**
+   * Parse a configuration value such as {@code sync}, {@code after-response}, {@code
+   * bounded-staleness} or {@code batch}.
+   *
+   * @param value The configured value
+   * @return The matching flush mode
+   * @throws IllegalArgumentException if the value does not name a mode
+   */
+  public static FlushMode fromConfig(String value) {
+    return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.xray.flush;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Span processor that counts spans ended since the last flush. Quarkus registers every {@link
+ * SpanProcessor} bean with the tracer provider, so this sees the same spans the batch processor
+ * queues for export. Flush strategies use it to size their thresholds and to report dropped spans.
+ */
+@ApplicationScoped
+public class PendingSpanTracker implements SpanProcessor {
+
+  private static final long NONE = Long.MIN_VALUE;
+
+  @ConfigProperty(name = "xray.flush.mode", defaultValue = "sync")
+  String flushMode;
+
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicLong oldestEndNanos = new AtomicLong(NONE);
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {
+    // Only ended spans are queued for export
+  }
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    if (!span.getSpanContext().isSampled()) {
+      return;
+    }
+    pending.incrementAndGet();
+    oldestEndNanos.compareAndSet(NONE, System.nanoTime());
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    // Batch mode never drains the count, so leave the shared counters off the span path there
+    return flushMode == null || FlushMode.fromConfig(flushMode) != FlushMode.BATCH;
+  }
+
+  /**
+   * Gets the number of spans ended since the last call to {@link #drain()}.
+   *
+   * @return The pending span count
+   */
+  public long pending() {
+    return pending.get();
+  }
+
+  /**
+   * Gets how long the oldest pending span has been waiting for export.
+   *
+   * @param nowNanos The current {@link System#nanoTime()} value
+   * @return The age in nanoseconds, or 0 if nothing is pending
+   */
+  public long oldestAgeNanos(long nowNanos) {
+    long oldest = oldestEndNanos.get();
+    return oldest == NONE ? 0 : nowNanos - oldest;
+  }
+
+  /**
+   * Reset the tracker because a flush has been started for everything pending.
+   *
+   * @return The number of spans that were pending
+   */
+  public long drain() {
+    oldestEndNanos.set(NONE);
+    return pending.getAndSet(0);
+  }
+}
@@ -0,0 +1,29 @@
+package com.example.xray.flush;
+
+/**
+ * Decides when spans recorded during a Lambda invocation are pushed to the collector. The handler
+ * calls {@link #beforeInvocation()} when a request arrives and {@link #afterInvocation()} once the
+ * request span has ended, and each mode decides how much of the flush happens on the request path.
+ */
+public interface SpanFlushStrategy {
+
+  /**
+   * Gets the mode this strategy implements.
+   *
+   * @return The flush mode
+   */
+  FlushMode mode();
+
+  /** Settle any flush deferred by a previous invocation. Called before the request is handled. */
+  void beforeInvocation();
+
+  /** Flush, or schedule a flush of, the spans recorded so far. Called after the span has ended. */
+  void afterInvocation();
+
+  /**
+   * Gets the flush counters for this strategy.
+   *
+   * @return The flush metrics
+   */
+  FlushMetrics metrics();
+}
@@ -0,0 +1,123 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.spill.SpanSpill;
+
+/** CDI producer that builds the {@link SpanFlushStrategy} selected by {@code xray.flush.mode}. */
+@ApplicationScoped
+public class SpanFlushStrategyProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpanFlushStrategyProducer.class);
+
+  @Inject OpenTelemetry openTelemetry;
+
+  @Inject PendingSpanTracker tracker;
+
+  @Inject SpanSpill spill;
+
+  @ConfigProperty(name = "xray.flush.mode", defaultValue = "sync")
+  String mode;
+
+  @ConfigProperty(name = "xray.flush.timeout", defaultValue = "10s")
+  Duration timeout;
+
+  @ConfigProperty(name = "xray.flush.max-pending-spans", defaultValue = "512")
+  long maxPendingSpans;
+
+  @ConfigProperty(name = "xray.flush.max-staleness", defaultValue = "5s")
+  Duration maxStaleness;
+
+  @Produces
+  @Singleton
+  SpanFlushStrategy spanFlushStrategy() {
+    FlushMode flushMode = FlushMode.fromConfig(mode);
+    logger.info("Using span flush mode {} with timeout {}", flushMode, timeout);
+    return create(
+        flushMode,
+        tracerProviderFlusher(),
+        tracker,
+        timeout,
+        spill::spillInFlight,
+        maxPendingSpans,
+        maxStaleness);
+  }
+
+  /**
+   * Build a flush strategy for the given mode that does nothing when a flush misses its deadline.
+   *
+   * @param mode The flush mode
+   * @param flusher Starts a flush of the tracer provider
+   * @param tracker Tracks spans ended since the last flush
+   * @param timeout Longest time the request path may wait for a flush
+   * @param maxPendingSpans Pending span count that forces a flush in bounded-staleness mode
+   * @param maxStaleness Pending span age that forces a flush in bounded-staleness mode
+   * @return The flush strategy
+   */
+  public static SpanFlushStrategy create(
+      FlushMode mode,
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      long maxPendingSpans,
+      Duration maxStaleness) {
+    return create(mode, flusher, tracker, timeout, () -> {}, maxPendingSpans, maxStaleness);
+  }
+
+  /**
+   * Build a flush strategy for the given mode. Flush requests from concurrent invocations go
+   * through a {@link FlushCoordinator}, so they share tracer provider flushes.
+   *
+   * @param mode The flush mode
+   * @param flusher Starts a flush of the tracer provider
+   * @param tracker Tracks spans ended since the last flush
+   * @param timeout Longest time the request path may wait for a flush
+   * @param onDeadlineMissed Called when a flush does not complete within the timeout
+   * @param maxPendingSpans Pending span count that forces a flush in bounded-staleness mode
+   * @param maxStaleness Pending span age that forces a flush in bounded-staleness mode
+   * @return The flush strategy
+   */
+  public static SpanFlushStrategy create(
+      FlushMode mode,
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed,
+      long maxPendingSpans,
+      Duration maxStaleness) {
+    Supplier<CompletableResultCode> coordinated = new FlushCoordinator(flusher);
+    return switch (mode) {
+      case SYNC -> new SynchronousFlushStrategy(coordinated, tracker, timeout, onDeadlineMissed);
+      case AFTER_RESPONSE ->
+          new AfterResponseFlushStrategy(coordinated, tracker, timeout, onDeadlineMissed);
+      case BOUNDED_STALENESS ->
+          new BoundedStalenessFlushStrategy(
+              coordinated, tracker, timeout, onDeadlineMissed, maxPendingSpans, maxStaleness);
+      case BATCH -> new BatchExportFlushStrategy(coordinated, tracker, timeout, onDeadlineMissed);
+    };
+  }
+
+  private Supplier<CompletableResultCode> tracerProviderFlusher() {
+    if (openTelemetry instanceof OpenTelemetrySdk sdk) {
+      return sdk.getSdkTracerProvider()::forceFlush;
+    }
+    logger.warn(
+        "OpenTelemetry instance is not SDK type: {}, spans will not be force flushed",
+        openTelemetry.getClass().getName());
+    return CompletableResultCode::ofSuccess;
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.xray.flush;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+/** Flushes at the end of every invocation and waits for the export before responding. */
+final class SynchronousFlushStrategy extends AbstractSpanFlushStrategy {
+
+  SynchronousFlushStrategy(
+      Supplier<CompletableResultCode> flusher,
+      PendingSpanTracker tracker,
+      Duration timeout,
+      Runnable onDeadlineMissed) {
+    super(flusher, tracker, timeout, onDeadlineMissed);
+  }
+
+  @Override
+  public FlushMode mode() {
+    return FlushMode.SYNC;
+  }
+
+  @Override
+  public void beforeInvocation() {
+    // Nothing is ever deferred
+  }
+
+  @Override
+  public void afterInvocation() {
+    await(startFlush());
+  }
+}
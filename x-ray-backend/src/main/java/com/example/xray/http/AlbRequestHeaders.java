@@ -0,0 +1,245 @@
+package com.example.xray.http;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.opentelemetry.context.propagation.TextMapGetter;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+
+/**
+ * Case-insensitive view of the headers of one ALB request. ALB delivers headers either as
+ * single-value {@code headers} or as {@code multiValueHeaders}, depending on the target group
+ * setting, and lowercases header names in both. On the first lookup the view checks that the event
+ * has that shape and from then on answers lookups with a single probe of the event's own map, with
+ * no copying and no {@code equalsIgnoreCase} scans. Events with mixed-case names or with both
+ * representations populated (hand-built test events, for example) are merged once into a lowercase
+ * index instead. Create one view per event and share it between trace extraction, logging and
+ * routing.
+ */
+public final class AlbRequestHeaders {
+
+  /** X-Ray trace header name, lowercase. */
+  public static final String X_AMZN_TRACE_ID = "x-amzn-trace-id";
+
+  /** User-Agent header name, lowercase. */
+  public static final String USER_AGENT = "user-agent";
+
+  /** User-Agent prefix of ALB target group health checks, such as {@code ELB-HealthChecker/2.0}. */
+  public static final String HEALTH_CHECKER = "ELB-HealthChecker";
+
+  /** {@link TextMapGetter} for extracting trace context from the view. */
+  public static final TextMapGetter<AlbRequestHeaders> GETTER =
+      new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(AlbRequestHeaders carrier) {
+          return carrier.names();
+        }
+
+        @Override
+        public String get(AlbRequestHeaders carrier, String key) {
+          return carrier == null ? null : carrier.get(key);
+        }
+      };
+
+  /** Lowercase forms of the header names code asks for, such as X-Amzn-Trace-Id. */
+  private static final Map<String, String> LOWERCASE_NAMES = new ConcurrentHashMap<>();
+
+  private static final int MAX_CACHED_NAMES = 256;
+
+  private enum Layout {
+    UNINDEXED,
+    EMPTY,
+    SINGLE,
+    MULTI,
+    MERGED
+  }
+
+  private final ApplicationLoadBalancerRequestEvent event;
+  private Layout layout = Layout.UNINDEXED;
+  private Map<String, String> merged;
+  private Map<String, List<String>> mergedAll;
+
+  private AlbRequestHeaders(ApplicationLoadBalancerRequestEvent event) {
+    this.event = event;
+  }
+
+  /**
+   * Create a view over the headers of an ALB request. Nothing is inspected until the first lookup.
+   *
+   * @param event The ALB request event
+   * @return The header view
+   */
+  public static AlbRequestHeaders of(ApplicationLoadBalancerRequestEvent event) {
+    return new AlbRequestHeaders(event);
+  }
+
+  /**
+   * Get the first value of a header.
+   *
+   * @param name Header name in any case
+   * @return The header value, or null if the header is absent
+   */
+  public String get(String name) {
+    String key = normalize(name);
+    return switch (layout()) {
+      case SINGLE -> event.getHeaders().get(key);
+      case MULTI -> first(event.getMultiValueHeaders().get(key));
+      case MERGED -> merged.get(key);
+      default -> null;
+    };
+  }
+
+  /**
+   * Get every value of a header. Single-value mode yields at most one value.
+   *
+   * @param name Header name in any case
+   * @return The header values, empty if the header is absent
+   */
+  public List<String> getAll(String name) {
+    String key = normalize(name);
+    List<String> values =
+        switch (layout()) {
+          case SINGLE -> {
+            String value = event.getHeaders().get(key);
+            yield value != null ? Collections.singletonList(value) : null;
+          }
+          case MULTI -> event.getMultiValueHeaders().get(key);
+          case MERGED -> {
+            if (mergedAll == null) {
+              mergedAll = indexAll();
+            }
+            yield mergedAll.get(key);
+          }
+          default -> null;
+        };
+    return values != null ? values : Collections.emptyList();
+  }
+
+  /**
+   * Gets the lowercase names of all headers on the request.
+   *
+   * @return The header names
+   */
+  public Set<String> names() {
+    return switch (layout()) {
+      case SINGLE -> event.getHeaders().keySet();
+      case MULTI -> event.getMultiValueHeaders().keySet();
+      case MERGED -> merged.keySet();
+      default -> Collections.emptySet();
+    };
+  }
+
+  /**
+   * Whether the request is an ALB target group health check.
+   *
+   * @return True if the User-Agent is the ALB health checker's
+   */
+  public boolean healthCheck() {
+    String userAgent = get(USER_AGENT);
+    return userAgent != null && userAgent.startsWith(HEALTH_CHECKER);
+  }
+
+  /**
+   * Gets the underlying ALB request event.
+   *
+   * @return The event
+   */
+  public ApplicationLoadBalancerRequestEvent event() {
+    return event;
+  }
+
+  private Layout layout() {
+    if (layout == Layout.UNINDEXED) {
+      layout = detectLayout();
+    }
+    return layout;
+  }
+
+  private Layout detectLayout() {
+    Map<String, String> headers = event.getHeaders();
+    Map<String, List<String>> multiHeaders = event.getMultiValueHeaders();
+    boolean hasSingle = headers != null && !headers.isEmpty();
+    boolean hasMulti = multiHeaders != null && !multiHeaders.isEmpty();
+    if (hasSingle && !hasMulti && lowercase(headers.keySet())) {
+      return Layout.SINGLE;
+    }
+    if (hasMulti && !hasSingle && lowercase(multiHeaders.keySet())) {
+      return Layout.MULTI;
+    }
+    if (!hasSingle && !hasMulti) {
+      return Layout.EMPTY;
+    }
+    merged = indexFirst(headers, multiHeaders);
+    return Layout.MERGED;
+  }
+
+  private static String normalize(String name) {
+    String cached = LOWERCASE_NAMES.get(name);
+    if (cached != null) {
+      return cached;
+    }
+    String lower = name.toLowerCase(Locale.ROOT);
+    if (LOWERCASE_NAMES.size() < MAX_CACHED_NAMES) {
+      LOWERCASE_NAMES.put(name, lower);
+    }
+    return lower;
+  }
+
+  private static boolean lowercase(Set<String> names) {
+    for (String name : names) {
+      for (int i = 0, n = name.length(); i < n; i++) {
+        char c = name.charAt(i);
+        if (c >= 'A' && c <= 'Z' || c > 0x7F) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static String first(List<String> values) {
+    return values != null && !values.isEmpty() ? values.get(0) : null;
+  }
+
+  /** Single-value headers take precedence when a name appears in both representations. */
+  private static Map<String, String> indexFirst(
+      Map<String, String> headers, Map<String, List<String>> multiHeaders) {
+    int size =
+        (headers != null ? headers.size() : 0) + (multiHeaders != null ? multiHeaders.size() : 0);
+    Map<String, String> index = HashMap.newHashMap(size);
+    if (multiHeaders != null) {
+      for (Map.Entry<String, List<String>> entry : multiHeaders.entrySet()) {
+        String value = first(entry.getValue());
+        if (value != null) {
+          index.putIfAbsent(entry.getKey().toLowerCase(Locale.ROOT), value);
+        }
+      }
+    }
+    if (headers != null) {
+      for (Map.Entry<String, String> entry : headers.entrySet()) {
+        index.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+      }
+    }
+    return index;
+  }
+
+  private Map<String, List<String>> indexAll() {
+    Map<String, List<String>> multiHeaders = event.getMultiValueHeaders();
+    Map<String, List<String>> index = HashMap.newHashMap(merged.size());
+    if (multiHeaders != null) {
+      for (Map.Entry<String, List<String>> entry : multiHeaders.entrySet()) {
+        if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+          index.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+      }
+    }
+    merged.forEach((name, value) -> index.putIfAbsent(name, Collections.singletonList(value)));
+    return index;
+  }
+}
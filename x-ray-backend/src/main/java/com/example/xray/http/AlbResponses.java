@@ -0,0 +1,62 @@
+package com.example.xray.http;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/** Builds ALB response events for the handler and the route methods. */
+public final class AlbResponses {
+
+  /** Content-Type header name. */
+  public static final String CONTENT_TYPE = "Content-Type";
+
+  /** Content type of every body the service returns. */
+  public static final String APPLICATION_JSON = "application/json";
+
+  /** Response for requests that match no route. */
+  public static final ConstantResponse NOT_FOUND =
+      ResponseTemplate.json(404).withBody("{\"message\":\"Not Found\"}");
+
+  /** Response for requests that fail with an exception. */
+  public static final ConstantResponse INTERNAL_SERVER_ERROR =
+      ResponseTemplate.json(500).withBody("{\"message\":\"Internal Server Error\"}");
+
+  /** Response for requests rejected because the handler is at its in-flight limit. */
+  public static final ConstantResponse SERVICE_UNAVAILABLE =
+      ResponseTemplate.json(503)
+          .withHeader("Retry-After", "1")
+          .withBody("{\"message\":\"Service Unavailable\"}");
+
+  private AlbResponses() {}
+
+  /**
+   * Create a JSON response. Headers and status description come from the shared {@link
+   * ResponseTemplate} for the status code.
+   *
+   * @param statusCode HTTP status code
+   * @param body JSON body
+   * @return The response event
+   */
+  public static ApplicationLoadBalancerResponseEvent json(int statusCode, String body) {
+    return ResponseTemplate.json(statusCode).create(body);
+  }
+
+  /**
+   * Get the ALB status description for a status code, such as {@code 404 Not Found}.
+   *
+   * @param statusCode HTTP status code
+   * @return The status description
+   */
+  public static String statusDescription(int statusCode) {
+    return switch (statusCode) {
+      case 200 -> "200 OK";
+      case 207 -> "207 Multi-Status";
+      case 304 -> "304 Not Modified";
+      case 400 -> "400 Bad Request";
+      case 404 -> "404 Not Found";
+      case 405 -> "405 Method Not Allowed";
+      case 413 -> "413 Payload Too Large";
+      case 500 -> "500 Internal Server Error";
+      case 503 -> "503 Service Unavailable";
+      default -> statusCode + " Unknown";
+    };
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.xray.http;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/** A {@link ResponseTemplate} with a fixed body, for payloads such as the 404 and 500 errors. */
+public final class ConstantResponse {
+
+  private final ResponseTemplate template;
+  private final String body;
+
+  ConstantResponse(ResponseTemplate template, String body) {
+    this.template = template;
+    this.body = body;
+  }
+
+  /**
+   * Create the response. Only the event is allocated; status, headers and body are shared.
+   *
+   * @return The response event
+   */
+  public ApplicationLoadBalancerResponseEvent create() {
+    return template.create(body);
+  }
+
+  /**
+   * Create the response with only the header representation the ALB target group reads.
+   *
+   * @param mode The resolved header mode
+   * @return The response event
+   */
+  public ApplicationLoadBalancerResponseEvent create(HeaderMode mode) {
+    return template.create(body, mode);
+  }
+
+  /**
+   * Gets the template.
+   *
+   * @return The response template
+   */
+  public ResponseTemplate template() {
+    return template;
+  }
+
+  /**
+   * Gets the body.
+   *
+   * @return The response body
+   */
+  public String body() {
+    return body;
+  }
+}
@@ -0,0 +1,97 @@
+package com.example.xray.http;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/**
+ * Which response header representation to send. ALB reads {@code multiValueHeaders} when
+ * multi-value headers are enabled on the target group and {@code headers} otherwise, and sends
+ * requests in the same form, so the mode can be read off the request. Configured through {@code
+ * xray.alb.header-mode}.
+ */
+public enum HeaderMode {
+
+  /** Follow the request: multi-value if it carries {@code multiValueHeaders}, else single. */
+  AUTO,
+
+  /** Send only {@code headers}. */
+  SINGLE,
+
+  /** Send only {@code multiValueHeaders}. */
+  MULTI,
+
+  /** Send both representations (the original behavior). */
+  BOTH;
+
+  /**
+   * Resolve the mode for one request.
+   *
+   * @param event The ALB request event
+   * @return This mode, or for {@link #AUTO} the mode detected from the event
+   */
+  public HeaderMode resolve(ApplicationLoadBalancerRequestEvent event) {
+    return this == AUTO ? detect(event) : this;
+  }
+
+  /**
+   * Detect the target group's mode from a request. Events that carry both representations or
+   * neither (hand-built events, for example) resolve to {@link #BOTH}.
+   *
+   * @param event The ALB request event
+   * @return {@link #SINGLE}, {@link #MULTI} or {@link #BOTH}
+   */
+  public static HeaderMode detect(ApplicationLoadBalancerRequestEvent event) {
+    boolean single = event.getHeaders() != null;
+    boolean multi = event.getMultiValueHeaders() != null;
+    if (single == multi) {
+      return BOTH;
+    }
+    return multi ? MULTI : SINGLE;
+  }
+
+  /**
+   * Make a response carry exactly the representation this mode sends, dropping the other and
+   * converting when a route only filled the other one. Responses built from a {@link
+   * ResponseTemplate} for this mode pass through unchanged.
+   *
+   * @param response The response to adjust
+   * @return The same response
+   */
+  public ApplicationLoadBalancerResponseEvent apply(ApplicationLoadBalancerResponseEvent response) {
+    Map<String, String> headers = response.getHeaders();
+    Map<String, List<String>> multiValueHeaders = response.getMultiValueHeaders();
+    if (this != MULTI && headers == null && multiValueHeaders != null) {
+      response.setHeaders(toSingle(multiValueHeaders));
+    }
+    if (this != SINGLE && multiValueHeaders == null && headers != null) {
+      response.setMultiValueHeaders(toMulti(headers));
+    }
+    if (this == SINGLE) {
+      response.setMultiValueHeaders(null);
+    } else if (this == MULTI) {
+      response.setHeaders(null);
+    }
+    return response;
+  }
+
+  private static Map<String, String> toSingle(Map<String, List<String>> multiValueHeaders) {
+    Map<String, String> single = new LinkedHashMap<>();
+    multiValueHeaders.forEach(
+        (name, values) -> {
+          if (values != null && !values.isEmpty()) {
+            single.put(name, values.get(values.size() - 1));
+          }
+        });
+    return single;
+  }
+
+  private static Map<String, List<String>> toMulti(Map<String, String> headers) {
+    Map<String, List<String>> multi = new LinkedHashMap<>();
+    headers.forEach((name, value) -> multi.put(name, List.of(value)));
+    return multi;
+  }
+}
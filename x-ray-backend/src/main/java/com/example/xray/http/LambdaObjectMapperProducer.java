@@ -0,0 +1,26 @@
+package com.example.xray.http;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.quarkus.arc.Unremovable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Provides the {@link ObjectMapper} that the Quarkus Lambda runtime copies to read events and write
+ * responses. Null properties are left out, so a response carrying only the header representation
+ * selected by {@link HeaderMode} does not serialize the other one as {@code null}.
+ */
+@ApplicationScoped
+public class LambdaObjectMapperProducer {
+
+  @Produces
+  @Singleton
+  @Unremovable
+  ObjectMapper objectMapper() {
+    return new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+  }
+}
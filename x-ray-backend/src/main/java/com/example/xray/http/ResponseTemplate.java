@@ -0,0 +1,159 @@
+package com.example.xray.http;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/**
+ * Immutable status line and headers for a response. The header maps and the status description are
+ * built once and shared by every response created from the template, so creating a response only
+ * allocates the event itself.
+ */
+public final class ResponseTemplate {
+
+  /** Status codes with a JSON template built at class initialization. */
+  private static final int[] COMMON_STATUS_CODES = {200, 304, 400, 404, 405, 500, 503};
+
+  /** JSON templates indexed by status code, so the lookup neither hashes nor boxes. */
+  private static final ResponseTemplate[] JSON_TEMPLATES = new ResponseTemplate[600];
+
+  static {
+    for (int statusCode : COMMON_STATUS_CODES) {
+      JSON_TEMPLATES[statusCode] = of(statusCode, AlbResponses.APPLICATION_JSON);
+    }
+  }
+
+  private final int statusCode;
+  private final String statusDescription;
+  private final Map<String, String> headers;
+  private final Map<String, List<String>> multiValueHeaders;
+
+  private ResponseTemplate(int statusCode, Map<String, String> headers) {
+    this.statusCode = statusCode;
+    this.statusDescription = AlbResponses.statusDescription(statusCode);
+    this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+    Map<String, List<String>> multiValue = new LinkedHashMap<>();
+    headers.forEach((name, value) -> multiValue.put(name, List.of(value)));
+    this.multiValueHeaders = Collections.unmodifiableMap(multiValue);
+  }
+
+  /**
+   * Get the shared JSON template for a status code.
+   *
+   * @param statusCode HTTP status code
+   * @return The template; shared for common status codes, newly built otherwise
+   */
+  public static ResponseTemplate json(int statusCode) {
+    ResponseTemplate template =
+        statusCode >= 0 && statusCode < JSON_TEMPLATES.length ? JSON_TEMPLATES[statusCode] : null;
+    return template != null ? template : of(statusCode, AlbResponses.APPLICATION_JSON);
+  }
+
+  /**
+   * Build a template for a status code and content type. Keep the result in a constant; building it
+   * is not cheap.
+   *
+   * @param statusCode HTTP status code
+   * @param contentType Content-Type header value
+   * @return The template
+   */
+  public static ResponseTemplate of(int statusCode, String contentType) {
+    return new ResponseTemplate(statusCode, Map.of(AlbResponses.CONTENT_TYPE, contentType));
+  }
+
+  /**
+   * Build a copy of this template with one more header.
+   *
+   * @param name Header name
+   * @param value Header value
+   * @return The new template
+   */
+  public ResponseTemplate withHeader(String name, String value) {
+    Map<String, String> extended = new LinkedHashMap<>(headers);
+    extended.put(name, value);
+    return new ResponseTemplate(statusCode, extended);
+  }
+
+  /**
+   * Bind a body that never changes, such as an error payload, to this template.
+   *
+   * @param body The response body
+   * @return The constant response
+   */
+  public ConstantResponse withBody(String body) {
+    return new ConstantResponse(this, body);
+  }
+
+  /**
+   * Create a response with this status and both header representations.
+   *
+   * @param body The response body
+   * @return The response event
+   */
+  public ApplicationLoadBalancerResponseEvent create(String body) {
+    return create(body, HeaderMode.BOTH);
+  }
+
+  /**
+   * Create a response with this status, carrying only the header representation the ALB target
+   * group reads.
+   *
+   * @param body The response body
+   * @param mode The resolved header mode; {@link HeaderMode#AUTO} is treated as {@link
+   *     HeaderMode#BOTH}
+   * @return The response event
+   */
+  public ApplicationLoadBalancerResponseEvent create(String body, HeaderMode mode) {
+    ApplicationLoadBalancerResponseEvent response = new ApplicationLoadBalancerResponseEvent();
+    response.setStatusCode(statusCode);
+    response.setStatusDescription(statusDescription);
+    response.setBody(body);
+    response.setIsBase64Encoded(false);
+    if (mode != HeaderMode.MULTI) {
+      response.setHeaders(headers);
+    }
+    if (mode != HeaderMode.SINGLE) {
+      response.setMultiValueHeaders(multiValueHeaders);
+    }
+    return response;
+  }
+
+  /**
+   * Gets the status code.
+   *
+   * @return The status code
+   */
+  public int statusCode() {
+    return statusCode;
+  }
+
+  /**
+   * Gets the status description.
+   *
+   * @return The status description, such as {@code 200 OK}
+   */
+  public String statusDescription() {
+    return statusDescription;
+  }
+
+  /**
+   * Gets the single-value headers.
+   *
+   * @return The immutable header map
+   */
+  public Map<String, String> headers() {
+    return headers;
+  }
+
+  /**
+   * Gets the multi-value headers.
+   *
+   * @return The immutable header map
+   */
+  public Map<String, List<String>> multiValueHeaders() {
+    return multiValueHeaders;
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.xray.json;
+
+/**
+ * Character buffer that {@link JsonWriter}s append to. {@link #write} uses a per-thread buffer
+ * reused across requests, so serializing a model allocates only the resulting string. Writers that
+ * own a thread of their own, such as the span exporter, keep a buffer from {@link #create()} and
+ * read the characters back without building a string.
+ */
+public final class JsonBuffer {
+
+  private static final ThreadLocal<JsonBuffer> BUFFERS = ThreadLocal.withInitial(JsonBuffer::new);
+
+  /** Buffers that grew past this size for one large body are replaced rather than retained. */
+  private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private StringBuilder chars = new StringBuilder(INITIAL_CAPACITY);
+
+  private JsonBuffer() {}
+
+  /**
+   * Create a buffer that is not tied to the calling thread. The caller owns it and must not share
+   * it between threads.
+   *
+   * @return An empty buffer
+   */
+  public static JsonBuffer create() {
+    return new JsonBuffer();
+  }
+
+  /**
+   * Serialize a value with the calling thread's buffer.
+   *
+   * @param value The value to write
+   * @param writer The writer for the value's type
+   * @param <T> The value type
+   * @return The JSON text
+   */
+  public static <T> String write(T value, JsonWriter<T> writer) {
+    JsonBuffer buffer = BUFFERS.get();
+    buffer.chars.setLength(0);
+    if (value == null) {
+      buffer.chars.append("null");
+    } else {
+      writer.write(value, buffer);
+    }
+    String json = buffer.chars.toString();
+    if (buffer.chars.capacity() > MAX_RETAINED_CAPACITY) {
+      buffer.chars = new StringBuilder(INITIAL_CAPACITY);
+    }
+    return json;
+  }
+
+  /**
+   * Gets the characters written so far. The sequence is a view that changes as the buffer does.
+   *
+   * @return The buffered characters
+   */
+  public CharSequence chars() {
+    return chars;
+  }
+
+  /**
+   * Gets the number of characters written so far.
+   *
+   * @return The length
+   */
+  public int length() {
+    return chars.length();
+  }
+
+  /**
+   * Discard everything written after the given length, or everything when it is 0.
+   *
+   * @param length The length to cut back to
+   */
+  public void truncate(int length) {
+    chars.setLength(length);
+  }
+
+  /**
+   * Append text that is already valid JSON, such as a generated {@code {"name":} fragment.
+   *
+   * @param json The JSON fragment
+   * @return This buffer
+   */
+  public JsonBuffer raw(String json) {
+    chars.append(json);
+    return this;
+  }
+
+  /**
+   * Append a structural character such as a brace.
+   *
+   * @param c The character
+   * @return This buffer
+   */
+  public JsonBuffer raw(char c) {
+    chars.append(c);
+    return this;
+  }
+
+  /**
+   * Append a string value, quoted and escaped.
+   *
+   * @param value The value, or null for {@code null}
+   * @return This buffer
+   */
+  public JsonBuffer string(String value) {
+    if (value == null) {
+      chars.append("null");
+      return this;
+    }
+    chars.append('"');
+    int length = value.length();
+    int run = 0;
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      chars.append(value, run, i);
+      switch (c) {
+        case '"' -> chars.append("\\\"");
+        case '\\' -> chars.append("\\\\");
+        case '\n' -> chars.append("\\n");
+        case '\r' -> chars.append("\\r");
+        case '\t' -> chars.append("\\t");
+        default -> chars.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+      }
+      run = i + 1;
+    }
+    chars.append(value, run, length).append('"');
+    return this;
+  }
+
+  /**
+   * Append a number value.
+   *
+   * @param value The value
+   * @return This buffer
+   */
+  public JsonBuffer number(long value) {
+    chars.append(value);
+    return this;
+  }
+
+  /**
+   * Append a floating point value. JSON has no representation for NaN or infinities, so those are
+   * written as {@code null}.
+   *
+   * @param value The value
+   * @return This buffer
+   */
+  public JsonBuffer number(double value) {
+    if (Double.isFinite(value)) {
+      chars.append(value);
+    } else {
+      chars.append("null");
+    }
+    return this;
+  }
+
+  /**
+   * Append a boolean value.
+   *
+   * @param value The value
+   * @return This buffer
+   */
+  public JsonBuffer bool(boolean value) {
+    chars.append(value);
+    return this;
+  }
+}
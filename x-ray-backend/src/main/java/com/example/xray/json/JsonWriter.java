@@ -0,0 +1,19 @@
+package com.example.xray.json;
+
+/**
+ * Writes one model type as JSON without reflection. Implementations emit field names as constant
+ * fragments and read fields through getters, in the shape a code generator would produce.
+ *
+ * @param <T> The model type
+ */
+@FunctionalInterface
+public interface JsonWriter<T> {
+
+  /**
+   * Write a value.
+   *
+   * @param value The value, never null
+   * @param out The buffer to append to
+   */
+  void write(T value, JsonBuffer out);
+}
@@ -0,0 +1,180 @@
+package com.example.xray.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import io.opentelemetry.context.Context;
+
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.ExtLogRecord;
+
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Log handler that moves JSON formatting and writing off the logging thread. The logging thread
+ * copies the MDC into the record and puts the record in a {@link LogRingBuffer}; a single writer
+ * thread takes records in order, formats them with {@link JsonLogFormatter} and writes the lines.
+ * Records of an invocation that is still waiting for its sampling decision are held by its {@link
+ * InvocationLog} instead.
+ *
+ * <p>If the ring buffer is full the logging thread formats and writes the record itself, so
+ * nothing is dropped and a burst only costs what synchronous logging would. Lambda freezes the
+ * environment once the handler returns, so {@link #drain} lets the handler wait for the lines it
+ * logged.
+ *
+ * <p>Message parameters are formatted on the writer thread, so they must not change after the
+ * logging call; the application only logs strings and numbers.
+ */
+public final class AsyncLogHandler extends ExtHandler {
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long DRAIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+  private final LogRingBuffer ring;
+  private final JsonLogFormatter formatter;
+  private final Consumer<String> sink;
+  private final Thread writer;
+  private final Object writeLock = new Object();
+  private final AtomicLong overflowed = new AtomicLong();
+  private volatile long written;
+  private volatile boolean idle;
+  private volatile boolean running = true;
+
+  /**
+   * Creates the handler and starts its writer thread.
+   *
+   * @param capacity Ring buffer capacity, rounded up to a power of two
+   * @param formatter Formats each record as a JSON line
+   * @param sink Writes a formatted line, normally {@code System.out::println}
+   */
+  public AsyncLogHandler(int capacity, JsonLogFormatter formatter, Consumer<String> sink) {
+    this.ring = new LogRingBuffer(capacity);
+    this.formatter = formatter;
+    this.sink = sink;
+    setFormatter(formatter);
+    this.writer = new Thread(this::writeLoop, "xray-log-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  protected void doPublish(ExtLogRecord record) {
+    // The MDC belongs to the logging thread, so take it along before the record changes threads
+    record.copyMdc();
+    InvocationLog invocation = InvocationLog.fromContext(Context.current());
+    if (invocation != null && invocation.hold(record)) {
+      return;
+    }
+    enqueue(record);
+  }
+
+  /**
+   * Queue a record for the writer thread, or write it on the calling thread if the ring is full.
+   *
+   * @param record The record, with its MDC already copied
+   */
+  void enqueue(ExtLogRecord record) {
+    if (!ring.offer(record)) {
+      overflowed.incrementAndGet();
+      write(record);
+      return;
+    }
+    if (idle) {
+      LockSupport.unpark(writer);
+    }
+  }
+
+  /**
+   * Wait until every record queued before this call has been written.
+   *
+   * @param timeoutNanos Longest time to wait
+   * @return Whether the queued records were all written in time
+   */
+  public boolean drain(long timeoutNanos) {
+    long target = ring.offered();
+    if (written >= target) {
+      return true;
+    }
+    LockSupport.unpark(writer);
+    long deadline = System.nanoTime() + timeoutNanos;
+    while (written < target) {
+      if (System.nanoTime() - deadline >= 0 || !writer.isAlive()) {
+        return false;
+      }
+      LockSupport.parkNanos(DRAIN_PARK_NANOS);
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of records written by the logging thread because the ring buffer was full.
+   *
+   * @return The overflow count
+   */
+  public long overflowed() {
+    return overflowed.get();
+  }
+
+  /**
+   * Gets the number of records the writer thread has written.
+   *
+   * @return The written count
+   */
+  public long written() {
+    return written;
+  }
+
+  @Override
+  public void flush() {
+    drain(TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    // Anything the writer did not get to is written here rather than lost
+    ExtLogRecord record;
+    while (!writer.isAlive() && (record = ring.poll()) != null) {
+      write(record);
+    }
+    super.close();
+  }
+
+  private void writeLoop() {
+    while (running || ring.hasReady()) {
+      ExtLogRecord record = ring.poll();
+      if (record != null) {
+        write(record);
+        written = ring.taken();
+        continue;
+      }
+      idle = true;
+      // Check again after announcing the park, so a record offered in between is not missed
+      if (!ring.hasReady() && running) {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
+      idle = false;
+    }
+  }
+
+  private void write(ExtLogRecord record) {
+    String line;
+    try {
+      line = JsonBuffer.write(record, formatter);
+    } catch (RuntimeException e) {
+      reportError("Failed to format log record", e, 0);
+      return;
+    }
+    synchronized (writeLock) {
+      sink.accept(line);
+    }
+  }
+}
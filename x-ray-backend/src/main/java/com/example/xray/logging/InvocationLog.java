@@ -0,0 +1,139 @@
+package com.example.xray.logging;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+
+import org.jboss.logmanager.ExtLogRecord;
+
+/**
+ * Log sampling state of one invocation, carried in its OpenTelemetry {@link Context}. Records are
+ * held back until the invocation's trace sampling decision is known. A sampled trace gets all of
+ * them, and so does an invocation that logs a warning or an error, or ends with a 5xx status. For
+ * the rest the held records are dropped and {@link LogPipeline} writes one summary line instead.
+ *
+ * <p>At most {@code maxBuffered} records are held; past that the oldest are dropped, so a failing
+ * invocation keeps the lines closest to the failure.
+ */
+public final class InvocationLog implements ImplicitContextKeyed {
+
+  private static final ContextKey<InvocationLog> KEY = ContextKey.named("xray-invocation-log");
+
+  /** Shared state for invocations whose records are never held back. */
+  static final InvocationLog PASS_THROUGH = new InvocationLog(record -> {}, 0, State.KEEP);
+
+  private enum State {
+    /** Sampling decision not known yet, or trace not sampled: hold records. */
+    HOLD,
+    /** Write every record. */
+    KEEP,
+    /** Invocation ended with its records dropped; later records are written. */
+    SUMMARIZED
+  }
+
+  private final Consumer<ExtLogRecord> sink;
+  private final int maxBuffered;
+  private final ArrayDeque<ExtLogRecord> held;
+  private State state;
+  private int suppressed;
+
+  private InvocationLog(Consumer<ExtLogRecord> sink, int maxBuffered, State state) {
+    this.sink = sink;
+    this.maxBuffered = maxBuffered;
+    this.held = state == State.HOLD ? new ArrayDeque<>(Math.min(maxBuffered, 16)) : null;
+    this.state = state;
+  }
+
+  /**
+   * Create the state for a new invocation, holding its records.
+   *
+   * @param sink Receives the records once they are kept
+   * @param maxBuffered Most records to hold
+   * @return The invocation's log state
+   */
+  static InvocationLog hold(Consumer<ExtLogRecord> sink, int maxBuffered) {
+    return new InvocationLog(sink, Math.max(maxBuffered, 1), State.HOLD);
+  }
+
+  /**
+   * Gets the log state stored in a context.
+   *
+   * @param context The context
+   * @return The log state, or null outside an invocation
+   */
+  public static InvocationLog fromContext(Context context) {
+    return context.get(KEY);
+  }
+
+  @Override
+  public Context storeInContext(Context context) {
+    return context.with(KEY, this);
+  }
+
+  /**
+   * Apply the invocation's trace sampling decision. A sampled trace writes the held records and
+   * everything after them.
+   *
+   * @param sampled Whether the invocation's span is sampled
+   */
+  public synchronized void sampled(boolean sampled) {
+    if (sampled && state == State.HOLD) {
+      keep();
+    }
+  }
+
+  /**
+   * Hold a record if the invocation's logs are still undecided.
+   *
+   * @param record The record, with its MDC already copied
+   * @return True if the record was held, false if the caller should write it now
+   */
+  synchronized boolean hold(ExtLogRecord record) {
+    if (state != State.HOLD) {
+      return false;
+    }
+    if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+      // A warning or error keeps the whole invocation, written in order before this record
+      keep();
+      return false;
+    }
+    if (held.size() == maxBuffered) {
+      held.pollFirst();
+      suppressed++;
+    }
+    held.addLast(record);
+    return true;
+  }
+
+  /**
+   * End the invocation. A failed invocation writes its held records; otherwise they are dropped.
+   *
+   * @param failed Whether the invocation failed
+   * @return The number of records dropped, or -1 if the invocation's records were kept
+   */
+  synchronized int end(boolean failed) {
+    if (state != State.HOLD) {
+      return -1;
+    }
+    if (failed) {
+      keep();
+      return -1;
+    }
+    int dropped = suppressed + held.size();
+    held.clear();
+    state = State.SUMMARIZED;
+    return dropped;
+  }
+
+  private void keep() {
+    state = State.KEEP;
+    ExtLogRecord record;
+    while ((record = held.pollFirst()) != null) {
+      sink.accept(record);
+    }
+  }
+}
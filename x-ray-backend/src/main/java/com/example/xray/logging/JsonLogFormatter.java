@@ -0,0 +1,77 @@
+package com.example.xray.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import org.jboss.logmanager.ExtFormatter;
+import org.jboss.logmanager.ExtLogRecord;
+
+import com.example.xray.json.JsonBuffer;
+import com.example.xray.json.JsonWriter;
+
+/**
+ * Formats log records as one JSON object per line with the field names {@code
+ * quarkus-logging-json} uses, so CloudWatch Logs Insights queries keep working. The {@code
+ * service.name} and {@code service.version} fields are the same on every line, so they are encoded
+ * once when the formatter is created and appended as a ready-made fragment. Exceptions are written
+ * as a {@code stackTrace} string.
+ */
+public final class JsonLogFormatter extends ExtFormatter implements JsonWriter<ExtLogRecord> {
+
+  private static final DateTimeFormatter TIMESTAMP =
+      DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneId.systemDefault());
+
+  private final String staticFields;
+
+  /**
+   * Creates the formatter.
+   *
+   * @param serviceName Value of the {@code service.name} field
+   * @param serviceVersion Value of the {@code service.version} field
+   */
+  public JsonLogFormatter(String serviceName, String serviceVersion) {
+    JsonBuffer fields = JsonBuffer.create();
+    fields.raw(",\"service.name\":").string(serviceName);
+    fields.raw(",\"service.version\":").string(serviceVersion);
+    this.staticFields = fields.chars().toString();
+  }
+
+  @Override
+  public String format(ExtLogRecord record) {
+    return JsonBuffer.write(record, this) + '\n';
+  }
+
+  @Override
+  public void write(ExtLogRecord record, JsonBuffer out) {
+    out.raw("{\"timestamp\":").string(TIMESTAMP.format(record.getInstant()));
+    out.raw(",\"sequence\":").number(record.getSequenceNumber());
+    out.raw(",\"loggerClassName\":").string(record.getLoggerClassName());
+    out.raw(",\"loggerName\":").string(record.getLoggerName());
+    out.raw(",\"level\":").string(record.getLevel().getName());
+    out.raw(",\"message\":").string(record.getFormattedMessage());
+    out.raw(",\"threadName\":").string(record.getThreadName());
+    out.raw(",\"threadId\":").number(record.getLongThreadID());
+    out.raw(",\"mdc\":{");
+    boolean first = true;
+    for (Map.Entry<String, String> entry : record.getMdcCopy().entrySet()) {
+      if (!first) {
+        out.raw(',');
+      }
+      first = false;
+      out.string(entry.getKey()).raw(':').string(entry.getValue());
+    }
+    out.raw("},\"ndc\":").string(record.getNdc());
+    out.raw(",\"hostName\":").string(record.getHostName());
+    out.raw(",\"processName\":").string(record.getProcessName());
+    out.raw(",\"processId\":").number(record.getProcessId());
+    if (record.getThrown() != null) {
+      StringWriter stackTrace = new StringWriter();
+      record.getThrown().printStackTrace(new PrintWriter(stackTrace));
+      out.raw(",\"stackTrace\":").string(stackTrace.toString());
+    }
+    out.raw(staticFields).raw('}');
+  }
+}
@@ -0,0 +1,160 @@
+package com.example.xray.logging;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+
+import org.jboss.logmanager.LogContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.budget.RequestBudget;
+
+/**
+ * The application's log pipeline: an {@link AsyncLogHandler} in place of the console handler on
+ * the root logger, plus per-invocation log sampling tied to span sampling through {@link
+ * InvocationLog}. The handler calls {@link #begin()} when an invocation starts, {@link
+ * #invocationEnded} once its response is known, and {@link #drain()} before returning.
+ */
+public final class LogPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogPipeline.class);
+
+  private final AsyncLogHandler handler;
+  private final boolean sampling;
+  private final int maxBuffered;
+  private final boolean drainEachInvocation;
+  private final long drainTimeoutNanos;
+  private Handler[] replaced;
+
+  private LogPipeline(
+      AsyncLogHandler handler,
+      boolean sampling,
+      int maxBuffered,
+      boolean drainEachInvocation,
+      Duration drainTimeout) {
+    this.handler = handler;
+    this.sampling = sampling;
+    this.maxBuffered = maxBuffered;
+    this.drainEachInvocation = drainEachInvocation;
+    this.drainTimeoutNanos = drainTimeout.toNanos();
+  }
+
+  /**
+   * Create a pipeline that leaves logging to the Quarkus handlers and samples nothing.
+   *
+   * @return A disabled pipeline
+   */
+  public static LogPipeline disabled() {
+    return new LogPipeline(null, false, 0, false, Duration.ZERO);
+  }
+
+  /**
+   * Create a pipeline around an asynchronous handler. It takes effect once {@link #install()}ed.
+   *
+   * @param handler The asynchronous handler
+   * @param sampling Whether to hold back the logs of invocations whose trace is not sampled
+   * @param maxBuffered Most records held back per invocation
+   * @param drainEachInvocation Whether {@link #drain()} waits for the handler's queue; needed when
+   *     the environment can freeze after each invocation, as in Lambda
+   * @param drainTimeout Longest time {@link #drain()} waits
+   * @return The pipeline
+   */
+  public static LogPipeline create(
+      AsyncLogHandler handler,
+      boolean sampling,
+      int maxBuffered,
+      boolean drainEachInvocation,
+      Duration drainTimeout) {
+    return new LogPipeline(handler, sampling, maxBuffered, drainEachInvocation, drainTimeout);
+  }
+
+  /**
+   * Gets the asynchronous handler.
+   *
+   * @return The handler, or null if the pipeline is disabled
+   */
+  public AsyncLogHandler handler() {
+    return handler;
+  }
+
+  /** Replace the root logger's handlers with the asynchronous handler. */
+  public synchronized void install() {
+    if (handler == null || replaced != null) {
+      return;
+    }
+    org.jboss.logmanager.Logger root = LogContext.getLogContext().getLogger("");
+    replaced = root.clearHandlers();
+    root.addHandler(handler);
+    logger.debug("Installed asynchronous log handler, replacing {} handlers", replaced.length);
+  }
+
+  /** Put the replaced root handlers back and write out everything queued. */
+  public synchronized void close() {
+    if (handler == null) {
+      return;
+    }
+    if (replaced != null) {
+      org.jboss.logmanager.Logger root = LogContext.getLogContext().getLogger("");
+      root.removeHandler(handler);
+      for (Handler previous : replaced) {
+        root.addHandler(previous);
+      }
+      replaced = null;
+    }
+    handler.close();
+  }
+
+  /**
+   * Start an invocation's log state. Store it in the invocation's context before it logs anything.
+   *
+   * @return The invocation's log state
+   */
+  public InvocationLog begin() {
+    if (!sampling) {
+      return InvocationLog.PASS_THROUGH;
+    }
+    return InvocationLog.hold(handler::enqueue, maxBuffered);
+  }
+
+  /**
+   * End an invocation's log state. An invocation whose logs were held back and that did not fail
+   * gets one summary line in their place. Call while the invocation's MDC values are still set.
+   *
+   * @param log The invocation's log state
+   * @param method HTTP method
+   * @param path Request path
+   * @param statusCode Response status code
+   * @param startNanos {@link System#nanoTime()} at the start of the invocation
+   */
+  public void invocationEnded(
+      InvocationLog log, String method, String path, int statusCode, long startNanos) {
+    int dropped = log.end(statusCode >= 500);
+    if (dropped >= 0) {
+      logger.info(
+          "Request completed: method={}, path={}, status={}, durationUs={}, suppressedLines={}",
+          method,
+          path,
+          statusCode,
+          TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos),
+          dropped);
+    }
+  }
+
+  /**
+   * Wait for the lines logged so far to be written, if the pipeline drains each invocation. The
+   * wait fits what is left of the current invocation's {@link RequestBudget}; lines not written by
+   * then are written when the environment next runs.
+   */
+  public void drain() {
+    if (!drainEachInvocation) {
+      return;
+    }
+    long timeoutNanos = RequestBudget.current().limit(drainTimeoutNanos);
+    if (!handler.drain(timeoutNanos)) {
+      logger.warn(
+          "Log lines not written within {} ms of the invocation ending",
+          TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.xray.logging;
+
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.quarkus.runtime.StartupEvent;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CDI producer for the {@link LogPipeline} configured by {@code xray.logging.*}, installed on the
+ * root logger at startup so the Lambda init phase pays for it.
+ */
+@ApplicationScoped
+public class LogPipelineProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogPipelineProducer.class);
+
+  @ConfigProperty(name = "xray.logging.async.enabled", defaultValue = "true")
+  boolean asyncEnabled;
+
+  @ConfigProperty(name = "xray.logging.async.buffer-size", defaultValue = "4096")
+  int bufferSize;
+
+  @ConfigProperty(name = "xray.logging.async.drain-each-invocation", defaultValue = "true")
+  boolean drainEachInvocation;
+
+  @ConfigProperty(name = "xray.logging.async.drain-timeout", defaultValue = "500ms")
+  Duration drainTimeout;
+
+  @ConfigProperty(name = "xray.logging.sampling.enabled", defaultValue = "true")
+  boolean samplingEnabled;
+
+  @ConfigProperty(name = "xray.logging.sampling.max-buffered", defaultValue = "64")
+  int maxBuffered;
+
+  @ConfigProperty(name = "xray.logging.service-name", defaultValue = "x-ray-backend")
+  String serviceName;
+
+  @ConfigProperty(name = "xray.logging.service-version", defaultValue = "1.0.0")
+  String serviceVersion;
+
+  @Produces
+  @Singleton
+  LogPipeline logPipeline() {
+    if (!asyncEnabled) {
+      return LogPipeline.disabled();
+    }
+    AsyncLogHandler handler =
+        new AsyncLogHandler(
+            bufferSize, new JsonLogFormatter(serviceName, serviceVersion), System.out::println);
+    return LogPipeline.create(
+        handler, samplingEnabled, maxBuffered, drainEachInvocation, drainTimeout);
+  }
+
+  void onStart(@Observes StartupEvent event, LogPipeline pipeline) {
+    pipeline.install();
+    if (pipeline.handler() != null) {
+      logger.info(
+          "Asynchronous JSON logging with a {} record buffer, log sampling {}",
+          bufferSize,
+          samplingEnabled ? "on" : "off");
+    }
+  }
+
+  void close(@Disposes LogPipeline pipeline) {
+    pipeline.close();
+  }
+}
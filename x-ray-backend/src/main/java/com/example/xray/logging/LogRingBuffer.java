@@ -0,0 +1,118 @@
+package com.example.xray.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jboss.logmanager.ExtLogRecord;
+
+/**
+ * Bounded lock-free queue of log records with many producers and a single consumer. Each slot has
+ * a sequence number: a producer claims a position with one CAS on the tail, stores the record and
+ * publishes it by advancing the slot's sequence, and the consumer takes records in order by
+ * checking that sequence. Neither side blocks, and a full buffer is reported to the producer
+ * instead of waiting for space.
+ */
+final class LogRingBuffer {
+
+  private final ExtLogRecord[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head;
+
+  /**
+   * Creates the buffer.
+   *
+   * @param capacity Requested capacity, rounded up to a power of two
+   */
+  LogRingBuffer(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    slots = new ExtLogRecord[size];
+    sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    mask = size - 1;
+  }
+
+  /**
+   * Add a record. Safe to call from any thread.
+   *
+   * @param record The record
+   * @return False if the buffer is full
+   */
+  boolean offer(ExtLogRecord record) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          slots[index] = record;
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Take the oldest record. Only the consumer thread may call this.
+   *
+   * @return The record, or null if none is ready
+   */
+  ExtLogRecord poll() {
+    long position = head;
+    int index = (int) (position & mask);
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    ExtLogRecord record = slots[index];
+    slots[index] = null;
+    sequences.set(index, position + slots.length);
+    head = position + 1;
+    return record;
+  }
+
+  /**
+   * Check whether a record is ready for the consumer.
+   *
+   * @return Whether {@link #poll()} would return a record
+   */
+  boolean hasReady() {
+    long position = head;
+    return sequences.get((int) (position & mask)) == position + 1;
+  }
+
+  /**
+   * Gets the number of records ever added.
+   *
+   * @return The count of successful offers, including those not yet published
+   */
+  long offered() {
+    return tail.get();
+  }
+
+  /**
+   * Gets the number of records ever taken.
+   *
+   * @return The count of records polled
+   */
+  long taken() {
+    return head;
+  }
+
+  /**
+   * Gets the capacity.
+   *
+   * @return The number of slots
+   */
+  int capacity() {
+    return slots.length;
+  }
+}
@@ -0,0 +1,120 @@
+package com.example.xray.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram. Values up to 127 ns have a
+ * bucket each; above that every power of two is split into 64 buckets, so a recorded value is off
+ * by at most 1/64 (about 1.6%) of itself. Recording is one array increment plus a max update, with
+ * no allocation. {@link #drain} takes the counts recorded since the previous drain, so each
+ * emitted window stands on its own.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** Values are clamped to 2^36 ns (about 68 seconds), longer than any invocation runs. */
+  private static final int MAX_VALUE_BITS = 36;
+
+  private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+  /** Number of buckets needed to reach {@link #MAX_VALUE}. */
+  static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record one value.
+   *
+   * @param nanos The latency in nanoseconds; negative values count as 0
+   */
+  public void record(long nanos) {
+    long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+    counts.incrementAndGet(index(value));
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Move the counts recorded since the last drain into a snapshot and reset them. Values recorded
+   * while draining land in this snapshot or the next one; none are lost or counted twice.
+   *
+   * @param into Snapshot to overwrite
+   */
+  public void drain(Snapshot into) {
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long count = counts.getAndSet(i, 0);
+      into.counts[i] = count;
+      total += count;
+    }
+    into.total = total;
+    into.max = max.getAndSet(0);
+  }
+
+  static int index(long value) {
+    int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  /** Highest value that falls in a bucket, which is what percentiles report. */
+  static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    long lowest = (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /** Counts taken from a histogram by {@link #drain}, reusable across drains. */
+  public static final class Snapshot {
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long total;
+    private long max;
+
+    /**
+     * Gets the number of values in the snapshot.
+     *
+     * @return The count
+     */
+    public long count() {
+      return total;
+    }
+
+    /**
+     * Gets the largest value in the snapshot, exactly.
+     *
+     * @return The maximum in nanoseconds, or 0 if the snapshot is empty
+     */
+    public long max() {
+      return max;
+    }
+
+    /**
+     * Gets the value below which the given fraction of values fall.
+     *
+     * @param percentile The percentile, 0 to 100
+     * @return The value in nanoseconds, never above {@link #max()}, or 0 if the snapshot is empty
+     */
+    public long percentile(double percentile) {
+      if (total == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
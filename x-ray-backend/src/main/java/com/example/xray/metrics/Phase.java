@@ -0,0 +1,36 @@
+package com.example.xray.metrics;
+
+/** The parts of {@code AlbLambdaHandler.handleRequest} whose latency is recorded. */
+public enum Phase {
+  /** Indexing the request headers and reading the trace header. */
+  HEADERS("headers"),
+  /** Extracting the trace context with the configured propagators. */
+  PROPAGATION("propagation"),
+  /** Resolving the header mode and looking the request up in the route table. */
+  ROUTING("routing"),
+  /** The route handler, or building the 404 or 405 response. */
+  HANDLER("handler"),
+  /** Settling the previous flush and flushing this invocation's spans. */
+  FLUSH("flush"),
+  /** Putting the trace context into MDC and clearing it again. */
+  MDC("mdc"),
+  /** Waiting for the asynchronous log writer to write out this invocation's lines. */
+  LOG_DRAIN("log_drain"),
+  /** The whole invocation. */
+  TOTAL("total");
+
+  private final String metricName;
+
+  Phase(String metricName) {
+    this.metricName = metricName;
+  }
+
+  /**
+   * Gets the prefix used for this phase's metric names.
+   *
+   * @return The metric name prefix, such as {@code handler}
+   */
+  public String metricName() {
+    return metricName;
+  }
+}
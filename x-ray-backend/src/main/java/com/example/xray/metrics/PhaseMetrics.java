@@ -0,0 +1,251 @@
+package com.example.xray.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Per-route latency histograms for each {@link Phase} of an invocation, emitted as CloudWatch
+ * Embedded Metric Format (EMF) lines. OpenTelemetry metrics export is off for this service, and EMF
+ * needs no collector: CloudWatch Logs turns each line into p50, p90, p99 and max metrics for the
+ * route, with the route as the dimension.
+ *
+ * <p>Recording is allocation-free. After every {@code emitEvery} invocations, or the first
+ * invocation once {@code window} has passed since the last emission, the histograms are drained
+ * and one line per route is written. Lambda freezes the environment between invocations, so the
+ * window is checked when an invocation completes rather than on a timer.
+ */
+public final class PhaseMetrics {
+
+  private static final Logger logger = LoggerFactory.getLogger(PhaseMetrics.class);
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private static final String[] STATISTICS = {"p50", "p90", "p99", "max"};
+  private static final double[] PERCENTILES = {50, 90, 99};
+
+  /** Recorder handed out when metrics are disabled. */
+  private static final RouteLatency NOOP = new RouteLatency(null);
+
+  private final boolean enabled;
+  private final String namespace;
+  private final long emitEvery;
+  private final long windowNanos;
+  private final Consumer<String> sink;
+  private final LongSupplier nanoClock;
+  private final Map<String, RouteLatency> routes = new ConcurrentHashMap<>();
+  private final AtomicLong invocations = new AtomicLong();
+  private final AtomicBoolean emitting = new AtomicBoolean();
+  private final LatencyHistogram.Snapshot[] snapshots =
+      new LatencyHistogram.Snapshot[PHASES.length];
+  private final JsonBuffer line = JsonBuffer.create();
+  private volatile long lastEmitNanos;
+
+  PhaseMetrics(
+      boolean enabled,
+      String namespace,
+      long emitEvery,
+      Duration window,
+      Consumer<String> sink,
+      LongSupplier nanoClock) {
+    this.enabled = enabled;
+    this.namespace = namespace;
+    this.emitEvery = emitEvery;
+    this.windowNanos = window.toNanos();
+    this.sink = sink;
+    this.nanoClock = nanoClock;
+    this.lastEmitNanos = nanoClock.getAsLong();
+    for (int i = 0; i < snapshots.length; i++) {
+      snapshots[i] = new LatencyHistogram.Snapshot();
+    }
+  }
+
+  /**
+   * Create metrics that record nothing.
+   *
+   * @return Disabled metrics
+   */
+  public static PhaseMetrics disabled() {
+    return new PhaseMetrics(false, "", 0, Duration.ZERO, line -> {}, System::nanoTime);
+  }
+
+  /**
+   * Create metrics that write EMF lines to standard output, which Lambda sends to CloudWatch Logs.
+   * The lines bypass the JSON log formatter, which would wrap them in a log record CloudWatch does
+   * not read as EMF.
+   *
+   * @param namespace CloudWatch metric namespace
+   * @param emitEvery Emit after this many invocations; 0 to emit on the window only
+   * @param window Emit on the first invocation this long after the last emission
+   * @return The metrics
+   */
+  public static PhaseMetrics create(String namespace, long emitEvery, Duration window) {
+    return new PhaseMetrics(
+        true, namespace, emitEvery, window, System.out::println, System::nanoTime);
+  }
+
+  /**
+   * Whether anything is recorded.
+   *
+   * @return False for {@link #disabled()} metrics
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  /**
+   * Get the recorder for a route. Pass a string the route table computed once, such as the span
+   * name, so the lookup neither allocates nor grows the route set per request.
+   *
+   * @param route The route name
+   * @return The route's recorder
+   */
+  public RouteLatency route(String route) {
+    if (!enabled) {
+      return NOOP;
+    }
+    RouteLatency latency = routes.get(route);
+    return latency != null ? latency : routes.computeIfAbsent(route, RouteLatency::new);
+  }
+
+  /**
+   * Count a completed invocation, and emit if this one ends the current window. Call after the
+   * invocation's phases were recorded.
+   */
+  public void invocationCompleted() {
+    if (!enabled) {
+      return;
+    }
+    long count = invocations.incrementAndGet();
+    if ((emitEvery > 0 && count % emitEvery == 0)
+        || nanoClock.getAsLong() - lastEmitNanos >= windowNanos) {
+      emit();
+    }
+  }
+
+  /**
+   * Drain every route's histograms and write one EMF line per route that recorded anything. Skips
+   * the emission if another thread is already emitting.
+   */
+  public void emit() {
+    if (!enabled || !emitting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      lastEmitNanos = nanoClock.getAsLong();
+      long timestamp = System.currentTimeMillis();
+      for (RouteLatency latency : routes.values()) {
+        long recorded = 0;
+        for (Phase phase : PHASES) {
+          LatencyHistogram.Snapshot snapshot = snapshots[phase.ordinal()];
+          latency.histograms[phase.ordinal()].drain(snapshot);
+          recorded += snapshot.count();
+        }
+        if (recorded > 0) {
+          sink.accept(writeLine(latency.route, timestamp));
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Failed to emit phase latency metrics", e);
+    } finally {
+      emitting.set(false);
+    }
+  }
+
+  /**
+   * Drain every route's histograms without emitting, so recordings made while priming before a
+   * checkpoint do not show up as traffic.
+   */
+  public void discard() {
+    if (!enabled || !emitting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      for (RouteLatency latency : routes.values()) {
+        for (Phase phase : PHASES) {
+          latency.histograms[phase.ordinal()].drain(snapshots[phase.ordinal()]);
+        }
+      }
+      invocations.set(0);
+      lastEmitNanos = nanoClock.getAsLong();
+    } finally {
+      emitting.set(false);
+    }
+  }
+
+  private String writeLine(String route, long timestamp) {
+    line.truncate(0);
+    line.raw("{\"_aws\":{\"Timestamp\":").number(timestamp);
+    line.raw(",\"CloudWatchMetrics\":[{\"Namespace\":").string(namespace);
+    line.raw(",\"Dimensions\":[[\"Route\"]],\"Metrics\":[");
+    line.raw("{\"Name\":\"invocations\",\"Unit\":\"Count\"}");
+    for (Phase phase : PHASES) {
+      if (snapshots[phase.ordinal()].count() == 0) {
+        continue;
+      }
+      for (String statistic : STATISTICS) {
+        line.raw(",{\"Name\":").string(phase.metricName() + "." + statistic);
+        line.raw(",\"Unit\":\"Microseconds\"}");
+      }
+    }
+    line.raw("]}]},\"Route\":").string(route);
+    line.raw(",\"invocations\":").number(snapshots[Phase.TOTAL.ordinal()].count());
+    for (Phase phase : PHASES) {
+      LatencyHistogram.Snapshot snapshot = snapshots[phase.ordinal()];
+      if (snapshot.count() == 0) {
+        continue;
+      }
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        line.raw(',').string(phase.metricName() + "." + STATISTICS[i]);
+        line.raw(':').number(micros(snapshot.percentile(PERCENTILES[i])));
+      }
+      line.raw(',').string(phase.metricName() + ".max");
+      line.raw(':').number(micros(snapshot.max()));
+    }
+    line.raw('}');
+    return line.chars().toString();
+  }
+
+  private static double micros(long nanos) {
+    return nanos / 1000.0;
+  }
+
+  /** Histograms for one route, one per {@link Phase}. */
+  public static final class RouteLatency {
+    private final String route;
+    private final LatencyHistogram[] histograms;
+
+    private RouteLatency(String route) {
+      this.route = route;
+      if (route == null) {
+        histograms = null;
+      } else {
+        histograms = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < histograms.length; i++) {
+          histograms[i] = new LatencyHistogram();
+        }
+      }
+    }
+
+    /**
+     * Record the time one phase took.
+     *
+     * @param phase The phase
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(Phase phase, long nanos) {
+      if (histograms != null) {
+        histograms[phase.ordinal()].record(nanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.xray.metrics;
+
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** CDI producer for the {@link PhaseMetrics} configured by {@code xray.metrics.*}. */
+@ApplicationScoped
+public class PhaseMetricsProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(PhaseMetricsProducer.class);
+
+  @ConfigProperty(name = "xray.metrics.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.metrics.namespace", defaultValue = "x-ray-backend")
+  String namespace;
+
+  @ConfigProperty(name = "xray.metrics.emit-every", defaultValue = "100")
+  long emitEvery;
+
+  @ConfigProperty(name = "xray.metrics.window", defaultValue = "60s")
+  Duration window;
+
+  @Produces
+  @Singleton
+  PhaseMetrics phaseMetrics() {
+    if (!enabled) {
+      return PhaseMetrics.disabled();
+    }
+    logger.info(
+        "Emitting phase latency metrics to namespace {} every {} invocations or {}",
+        namespace,
+        emitEvery,
+        window);
+    return PhaseMetrics.create(namespace, emitEvery, window);
+  }
+
+  void close(@Disposes PhaseMetrics metrics) {
+    metrics.emit();
+  }
+}
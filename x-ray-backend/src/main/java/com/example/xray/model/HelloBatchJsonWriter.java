@@ -0,0 +1,37 @@
+package com.example.xray.model;
+
+import java.util.List;
+
+import com.example.xray.batch.BatchResult;
+import com.example.xray.json.JsonBuffer;
+import com.example.xray.json.JsonWriter;
+
+/**
+ * {@link JsonWriter} for the results of a hello batch: an array with a {@link HelloResponse} for
+ * each item that succeeded and an {@code {"error":"..."}} object for each item that failed, in
+ * request order.
+ */
+public final class HelloBatchJsonWriter implements JsonWriter<List<BatchResult<HelloResponse>>> {
+
+  /** Shared, stateless instance. */
+  public static final HelloBatchJsonWriter INSTANCE = new HelloBatchJsonWriter();
+
+  private HelloBatchJsonWriter() {}
+
+  @Override
+  public void write(List<BatchResult<HelloResponse>> value, JsonBuffer out) {
+    out.raw('[');
+    for (int i = 0; i < value.size(); i++) {
+      if (i > 0) {
+        out.raw(',');
+      }
+      BatchResult<HelloResponse> result = value.get(i);
+      if (result.succeeded()) {
+        HelloResponseJsonWriter.INSTANCE.write(result.value(), out);
+      } else {
+        out.raw("{\"error\":").string(result.error()).raw('}');
+      }
+    }
+    out.raw(']');
+  }
+}
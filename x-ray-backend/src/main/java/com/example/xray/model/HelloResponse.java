@@ -21,6 +21,17 @@ public class HelloResponse {
     this.timestamp = Instant.now().toString();
   }
 
+  /**
+   * Creates a HelloResponse with the specified message and timestamp.
+   *
+   * @param message The message to include in the response
+   * @param timestamp The time to report
+   */
+  public HelloResponse(String message, Instant timestamp) {
+    this.message = message;
+    this.timestamp = timestamp.toString();
+  }
+
   /**
    * Gets the message.
    *
@@ -0,0 +1,22 @@
+package com.example.xray.model;
+
+import com.example.xray.json.JsonBuffer;
+import com.example.xray.json.JsonWriter;
+
+/** {@link JsonWriter} for {@link HelloResponse}, matching its Jackson serialization. */
+public final class HelloResponseJsonWriter implements JsonWriter<HelloResponse> {
+
+  /** Shared, stateless instance. */
+  public static final HelloResponseJsonWriter INSTANCE = new HelloResponseJsonWriter();
+
+  private HelloResponseJsonWriter() {}
+
+  @Override
+  public void write(HelloResponse value, JsonBuffer out) {
+    out.raw("{\"message\":")
+        .string(value.getMessage())
+        .raw(",\"timestamp\":")
+        .string(value.getTimestamp())
+        .raw('}');
+  }
+}
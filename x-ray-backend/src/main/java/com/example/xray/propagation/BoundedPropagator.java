@@ -0,0 +1,252 @@
+package com.example.xray.propagation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TextMapPropagator} around the configured propagators that bounds what a request can
+ * make the handler parse and carry. The {@code baggage} header is cut to whole entries within an
+ * entry count and byte size and kept as {@link LazyBaggage}, parsed only when something reads it;
+ * the {@code tracestate} header is cut to whole list members within a byte size. Baggage that
+ * reaches {@link #inject} unchanged is written back as the bounded header rather than serialized
+ * again.
+ *
+ * <p>The configured propagators still extract everything else, including the X-Ray lineage, which
+ * becomes the base the lazy baggage adds its entries to.
+ */
+public final class BoundedPropagator implements TextMapPropagator {
+
+  private static final Logger logger = LoggerFactory.getLogger(BoundedPropagator.class);
+
+  static final String BAGGAGE = "baggage";
+  static final String TRACESTATE = "tracestate";
+
+  private final TextMapPropagator delegate;
+  private final boolean bounded;
+  private final int maxBaggageEntries;
+  private final int maxBaggageBytes;
+  private final int maxTraceStateBytes;
+  private final List<String> fields;
+  private final Runnable countParse;
+  private final AtomicLong baggageParsed = new AtomicLong();
+  private final AtomicLong baggageTruncated = new AtomicLong();
+  private final AtomicLong baggageEntriesDropped = new AtomicLong();
+  private final AtomicLong traceStateTruncated = new AtomicLong();
+  private final AtomicLong baggageReused = new AtomicLong();
+
+  private BoundedPropagator(
+      TextMapPropagator delegate,
+      boolean bounded,
+      int maxBaggageEntries,
+      int maxBaggageBytes,
+      int maxTraceStateBytes) {
+    this.delegate = delegate;
+    this.bounded = bounded;
+    this.maxBaggageEntries = maxBaggageEntries;
+    this.maxBaggageBytes = maxBaggageBytes;
+    this.maxTraceStateBytes = maxTraceStateBytes;
+    List<String> allFields = new ArrayList<>(delegate.fields());
+    if (bounded && !allFields.contains(BAGGAGE)) {
+      allFields.add(BAGGAGE);
+    }
+    this.fields = List.copyOf(allFields);
+    this.countParse = baggageParsed::incrementAndGet;
+  }
+
+  /**
+   * Create a propagator that leaves every header to the configured propagators.
+   *
+   * @param delegate The configured propagators
+   * @return A pass-through propagator
+   */
+  public static BoundedPropagator passThrough(TextMapPropagator delegate) {
+    return new BoundedPropagator(delegate, false, 0, 0, 0);
+  }
+
+  /**
+   * Create a bounded propagator. The configured propagators do not see the {@code baggage} header;
+   * this propagator extracts it instead.
+   *
+   * @param delegate The configured propagators
+   * @param maxBaggageEntries Most baggage entries kept; later ones are dropped
+   * @param maxBaggageBytes Most characters of baggage header kept, in whole entries
+   * @param maxTraceStateBytes Most characters of tracestate header kept, in whole list members
+   * @return The propagator
+   */
+  public static BoundedPropagator create(
+      TextMapPropagator delegate,
+      int maxBaggageEntries,
+      int maxBaggageBytes,
+      int maxTraceStateBytes) {
+    return new BoundedPropagator(
+        delegate, true, maxBaggageEntries, maxBaggageBytes, maxTraceStateBytes);
+  }
+
+  @Override
+  public Collection<String> fields() {
+    return fields;
+  }
+
+  @Override
+  public <C> Context extract(Context context, C carrier, TextMapGetter<C> getter) {
+    if (!bounded) {
+      return delegate.extract(context, carrier, getter);
+    }
+    Context extracted = delegate.extract(context, carrier, new BoundedGetter<>(getter));
+    String header = getter.get(carrier, BAGGAGE);
+    if (header == null || header.isBlank()) {
+      return extracted;
+    }
+    String kept = boundBaggage(header);
+    if (kept.isEmpty()) {
+      return extracted;
+    }
+    return extracted.with(new LazyBaggage(Baggage.fromContext(extracted), kept, countParse));
+  }
+
+  @Override
+  public <C> void inject(Context context, C carrier, TextMapSetter<C> setter) {
+    if (bounded
+        && Baggage.fromContext(context) instanceof LazyBaggage baggage
+        && baggage.headerOnly()) {
+      // Baggage is immutable, so the extracted instance still in the context is unchanged
+      delegate.inject(context.with(Baggage.empty()), carrier, setter);
+      setter.set(carrier, BAGGAGE, baggage.header());
+      baggageReused.incrementAndGet();
+      return;
+    }
+    delegate.inject(context, carrier, setter);
+  }
+
+  private String boundBaggage(String header) {
+    int end = 0;
+    int entries = 0;
+    int dropped = 0;
+    int from = 0;
+    int length = header.length();
+    while (from < length) {
+      int comma = header.indexOf(',', from);
+      int next = comma < 0 ? length : comma;
+      if (!isBlank(header, from, next)) {
+        if (dropped == 0 && entries < maxBaggageEntries && next <= maxBaggageBytes) {
+          entries++;
+          end = next;
+        } else {
+          dropped++;
+        }
+      }
+      from = next + 1;
+    }
+    if (dropped == 0) {
+      return header;
+    }
+    baggageTruncated.incrementAndGet();
+    baggageEntriesDropped.addAndGet(dropped);
+    logger.debug(
+        "Dropped {} baggage entries over {} entries or {} bytes, kept {}",
+        dropped,
+        maxBaggageEntries,
+        maxBaggageBytes,
+        entries);
+    return header.substring(0, end);
+  }
+
+  private static boolean isBlank(String header, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (!Character.isWhitespace(header.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String boundTraceState(String header) {
+    if (header == null || header.length() <= maxTraceStateBytes) {
+      return header;
+    }
+    traceStateTruncated.incrementAndGet();
+    int end = header.lastIndexOf(',', maxTraceStateBytes);
+    logger.debug("Cut a tracestate header of {} bytes to {}", header.length(), Math.max(end, 0));
+    return end > 0 ? header.substring(0, end) : null;
+  }
+
+  /**
+   * Gets the number of baggage headers parsed, which is at most the number extracted.
+   *
+   * @return The parse count
+   */
+  public long baggageParsed() {
+    return baggageParsed.get();
+  }
+
+  /**
+   * Gets the number of baggage headers cut to the entry or byte limit.
+   *
+   * @return The truncated header count
+   */
+  public long baggageTruncated() {
+    return baggageTruncated.get();
+  }
+
+  /**
+   * Gets the number of baggage entries dropped by the entry or byte limit.
+   *
+   * @return The dropped entry count
+   */
+  public long baggageEntriesDropped() {
+    return baggageEntriesDropped.get();
+  }
+
+  /**
+   * Gets the number of tracestate headers cut to the byte limit.
+   *
+   * @return The truncated header count
+   */
+  public long traceStateTruncated() {
+    return traceStateTruncated.get();
+  }
+
+  /**
+   * Gets the number of baggage headers injected as extracted, without serializing them again.
+   *
+   * @return The reused header count
+   */
+  public long baggageReused() {
+    return baggageReused.get();
+  }
+
+  /** Hides the baggage header from the configured propagators and bounds the tracestate header. */
+  private final class BoundedGetter<C> implements TextMapGetter<C> {
+
+    private final TextMapGetter<C> getter;
+
+    BoundedGetter(TextMapGetter<C> getter) {
+      this.getter = getter;
+    }
+
+    @Override
+    public Iterable<String> keys(C carrier) {
+      return getter.keys(carrier);
+    }
+
+    @Override
+    public String get(C carrier, String key) {
+      if (BAGGAGE.equals(key)) {
+        return null;
+      }
+      String value = getter.get(carrier, key);
+      return TRACESTATE.equals(key) ? boundTraceState(value) : value;
+    }
+  }
+}
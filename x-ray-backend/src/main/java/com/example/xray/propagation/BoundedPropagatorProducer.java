@@ -0,0 +1,54 @@
+package com.example.xray.propagation;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CDI producer for the {@link BoundedPropagator} configured by {@code xray.propagation.*}, around
+ * the propagators configured by {@code quarkus.otel.propagators}.
+ */
+@ApplicationScoped
+public class BoundedPropagatorProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(BoundedPropagatorProducer.class);
+
+  @Inject OpenTelemetry openTelemetry;
+
+  @ConfigProperty(name = "xray.propagation.bounded.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.propagation.baggage.max-entries", defaultValue = "64")
+  int maxBaggageEntries;
+
+  @ConfigProperty(name = "xray.propagation.baggage.max-bytes", defaultValue = "8192")
+  int maxBaggageBytes;
+
+  @ConfigProperty(name = "xray.propagation.tracestate.max-bytes", defaultValue = "512")
+  int maxTraceStateBytes;
+
+  @Produces
+  @Singleton
+  BoundedPropagator boundedPropagator() {
+    TextMapPropagator configured = openTelemetry.getPropagators().getTextMapPropagator();
+    if (!enabled) {
+      return BoundedPropagator.passThrough(configured);
+    }
+    logger.info(
+        "Bounding baggage to {} entries and {} bytes, parsed on first read, and tracestate to {}"
+            + " bytes",
+        maxBaggageEntries,
+        maxBaggageBytes,
+        maxTraceStateBytes);
+    return BoundedPropagator.create(
+        configured, maxBaggageEntries, maxBaggageBytes, maxTraceStateBytes);
+  }
+}
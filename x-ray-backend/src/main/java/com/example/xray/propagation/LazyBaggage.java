@@ -0,0 +1,172 @@
+package com.example.xray.propagation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.baggage.BaggageBuilder;
+import io.opentelemetry.api.baggage.BaggageEntry;
+import io.opentelemetry.api.baggage.BaggageEntryMetadata;
+
+/**
+ * Baggage extracted from a {@code baggage} header but not parsed until something reads it. Most
+ * requests never read their baggage, so most never pay for parsing it. The header it holds has
+ * already been cut to the {@link BoundedPropagator}'s limits; while the baggage is not replaced,
+ * injecting it writes that header back as it came.
+ */
+final class LazyBaggage implements Baggage {
+
+  private final Baggage base;
+  private final String header;
+  private final Runnable onParse;
+  private volatile Baggage parsed;
+
+  /**
+   * Creates the baggage.
+   *
+   * @param base Baggage already in the context, such as the X-Ray lineage, kept under the header's
+   *     entries
+   * @param header The bounded {@code baggage} header
+   * @param onParse Called the first time the header is parsed
+   */
+  LazyBaggage(Baggage base, String header, Runnable onParse) {
+    this.base = base;
+    this.header = header;
+    this.onParse = onParse;
+  }
+
+  /**
+   * Gets the bounded header, for writing back unchanged.
+   *
+   * @return The header
+   */
+  String header() {
+    return header;
+  }
+
+  /**
+   * Whether injecting this baggage may write {@link #header()} as it is, which holds when nothing
+   * but the header contributed entries.
+   *
+   * @return True if the header alone describes the baggage
+   */
+  boolean headerOnly() {
+    return base.isEmpty();
+  }
+
+  /**
+   * Whether the header has been parsed.
+   *
+   * @return True once an entry has been read
+   */
+  boolean isParsed() {
+    return parsed != null;
+  }
+
+  @Override
+  public int size() {
+    return parsed().size();
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super String, ? super BaggageEntry> consumer) {
+    parsed().forEach(consumer);
+  }
+
+  @Override
+  public Map<String, BaggageEntry> asMap() {
+    return parsed().asMap();
+  }
+
+  @Override
+  public String getEntryValue(String entryKey) {
+    return parsed().getEntryValue(entryKey);
+  }
+
+  @Override
+  public BaggageBuilder toBuilder() {
+    return parsed().toBuilder();
+  }
+
+  private Baggage parsed() {
+    Baggage result = parsed;
+    if (result == null) {
+      // Racing readers may both parse; they build equal baggage
+      result = parse(base, header);
+      parsed = result;
+      onParse.run();
+    }
+    return result;
+  }
+
+  /**
+   * Parse a W3C {@code baggage} header on top of existing baggage. Members that are not {@code
+   * key=value} are skipped, as are values with invalid percent-encoding.
+   *
+   * @param base Existing baggage
+   * @param header The header
+   * @return The baggage
+   */
+  static Baggage parse(Baggage base, String header) {
+    BaggageBuilder builder = base.toBuilder();
+    int from = 0;
+    int length = header.length();
+    while (from <= length) {
+      int comma = header.indexOf(',', from);
+      int end = comma < 0 ? length : comma;
+      int equals = header.indexOf('=', from);
+      if (equals > from && equals < end) {
+        String key = header.substring(from, equals).trim();
+        int semicolon = header.indexOf(';', equals);
+        int valueEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+        String value = decode(header.substring(equals + 1, valueEnd).trim());
+        if (!key.isEmpty() && value != null) {
+          if (valueEnd < end) {
+            String metadata = header.substring(valueEnd + 1, end).trim();
+            builder.put(key, value, BaggageEntryMetadata.create(metadata));
+          } else {
+            builder.put(key, value);
+          }
+        }
+      }
+      if (comma < 0) {
+        break;
+      }
+      from = comma + 1;
+    }
+    return builder.build();
+  }
+
+  /**
+   * Decode percent-encoded UTF-8.
+   *
+   * @param value The encoded value
+   * @return The decoded value, or null if the encoding is invalid
+   */
+  private static String decode(String value) {
+    if (value.indexOf('%') < 0) {
+      return value;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c != '%') {
+        bytes.write(c);
+        continue;
+      }
+      if (i + 2 >= value.length()) {
+        return null;
+      }
+      int high = Character.digit(value.charAt(i + 1), 16);
+      int low = Character.digit(value.charAt(i + 2), 16);
+      if (high < 0 || low < 0) {
+        return null;
+      }
+      bytes.write((high << 4) | low);
+      i += 2;
+    }
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.xray.route;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Route} method whose GET and HEAD responses may be served from the response cache
+ * for the rest of the freshness window ({@code xray.cache.freshness}). The method must return the
+ * same body for every request in a window that agrees on the {@link #vary()} headers.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+
+  /**
+   * Gets the request headers that select a different response, sent back in {@code Vary}.
+   *
+   * @return The header names, or an empty array if every request gets the same response
+   */
+  String[] vary() default {};
+}
@@ -0,0 +1,35 @@
+package com.example.xray.route;
+
+/** HTTP methods the router dispatches on. Anything else maps to {@link #OTHER}. */
+public enum HttpMethod {
+  GET,
+  HEAD,
+  POST,
+  PUT,
+  DELETE,
+  PATCH,
+  OPTIONS,
+  OTHER;
+
+  /**
+   * Resolve a request method without allocating.
+   *
+   * @param method Method from the ALB event, in upper case as ALB sends it
+   * @return The matching method, or {@link #OTHER} for unknown or null methods
+   */
+  public static HttpMethod of(String method) {
+    if (method == null) {
+      return OTHER;
+    }
+    return switch (method) {
+      case "GET" -> GET;
+      case "HEAD" -> HEAD;
+      case "POST" -> POST;
+      case "PUT" -> PUT;
+      case "DELETE" -> DELETE;
+      case "PATCH" -> PATCH;
+      case "OPTIONS" -> OPTIONS;
+      default -> OTHER;
+    };
+  }
+}
@@ -0,0 +1,41 @@
+package com.example.xray.route;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link Routes} bean as the handler for a path. The method returns an {@code
+ * ApplicationLoadBalancerResponseEvent} and takes either no arguments or a {@link RouteRequest}.
+ *
+ * <p>Path segments written as {@code {name}} match any single segment and are available from {@link
+ * RouteRequest#pathParam(String)}. Static segments take precedence over parameters.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Route {
+
+  /**
+   * Gets the path template, such as {@code /api/items/{id}}.
+   *
+   * @return The path template
+   */
+  String path();
+
+  /**
+   * Gets the methods this route answers. Other methods on the same path get a 405 response.
+   *
+   * @return The methods, or an empty array to answer every method
+   */
+  HttpMethod[] methods() default {};
+
+  /**
+   * Gets the name of the request span.
+   *
+   * @return The span name, or an empty string for {@code "<METHOD> <path>"}
+   */
+  String spanName() default "";
+}
@@ -0,0 +1,135 @@
+package com.example.xray.route;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+
+import com.example.xray.trace.SpanTemplate;
+
+/**
+ * One compiled route: its template, handler, and the request span template for each method, with
+ * the span name and attributes computed when the table was built.
+ */
+public final class RouteBinding {
+
+  private static final HttpMethod[] METHODS = HttpMethod.values();
+
+  private final String template;
+  private final RouteHandler handler;
+  private final List<String> paramNames;
+  private final Attributes attributes;
+  private final List<String> cacheVary;
+  private final SpanTemplate[] spanTemplates = new SpanTemplate[METHODS.length];
+  private final RouteMatch[] staticMatches;
+
+  RouteBinding(
+      String template,
+      RouteHandler handler,
+      List<String> paramNames,
+      String spanName,
+      Attributes attributes,
+      List<String> cacheVary) {
+    this.template = template;
+    this.handler = handler;
+    this.paramNames = List.copyOf(paramNames);
+    this.attributes = attributes;
+    this.cacheVary = cacheVary == null ? null : List.copyOf(cacheVary);
+    for (HttpMethod method : METHODS) {
+      String name =
+          spanName != null && !spanName.isEmpty()
+              ? spanName
+              : (method == HttpMethod.OTHER ? "HTTP" : method.name()) + " " + template;
+      spanTemplates[method.ordinal()] = SpanTemplate.of(name, SpanKind.SERVER, attributes);
+    }
+    // Routes without parameters match with the same result every time
+    if (paramNames.isEmpty()) {
+      staticMatches = new RouteMatch[METHODS.length];
+      for (HttpMethod method : METHODS) {
+        staticMatches[method.ordinal()] = RouteMatch.found(this, method, null);
+      }
+    } else {
+      staticMatches = null;
+    }
+  }
+
+  /**
+   * Gets the path template.
+   *
+   * @return The template, such as {@code /api/items/{id}}
+   */
+  public String template() {
+    return template;
+  }
+
+  /**
+   * Gets the handler.
+   *
+   * @return The route handler
+   */
+  public RouteHandler handler() {
+    return handler;
+  }
+
+  /**
+   * Gets the path parameter names, in path order.
+   *
+   * @return The parameter names
+   */
+  public List<String> paramNames() {
+    return paramNames;
+  }
+
+  /**
+   * Gets the attributes recorded on the request span.
+   *
+   * @return The span attributes
+   */
+  public Attributes attributes() {
+    return attributes;
+  }
+
+  /**
+   * Whether the route's GET and HEAD responses may be cached.
+   *
+   * @return True for routes added with cache vary headers, such as {@link Cached} methods
+   */
+  public boolean cacheable() {
+    return cacheVary != null;
+  }
+
+  /**
+   * Gets the request headers that select a different cached response.
+   *
+   * @return The header names, or null if the route is not cacheable
+   */
+  public List<String> cacheVary() {
+    return cacheVary;
+  }
+
+  /**
+   * Gets the request span name for a method.
+   *
+   * @param method The request method
+   * @return The span name
+   */
+  public String spanName(HttpMethod method) {
+    return spanTemplates[method.ordinal()].name();
+  }
+
+  /**
+   * Gets the request span template for a method.
+   *
+   * @param method The request method
+   * @return The span template, with the span name and the route's attributes
+   */
+  public SpanTemplate spanTemplate(HttpMethod method) {
+    return spanTemplates[method.ordinal()];
+  }
+
+  RouteMatch match(HttpMethod method, String[] paramValues) {
+    return staticMatches != null
+        ? staticMatches[method.ordinal()]
+        : RouteMatch.found(this, method, paramValues);
+  }
+}
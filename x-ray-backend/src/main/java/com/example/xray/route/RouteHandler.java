@@ -0,0 +1,17 @@
+package com.example.xray.route;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/** Handles the requests matched by one route. */
+@FunctionalInterface
+public interface RouteHandler {
+
+  /**
+   * Handle a matched request.
+   *
+   * @param request The request and its path parameters
+   * @return The response
+   * @throws Exception if the request fails; the handler answers with a 500
+   */
+  ApplicationLoadBalancerResponseEvent handle(RouteRequest request) throws Exception;
+}
@@ -0,0 +1,132 @@
+package com.example.xray.route;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbResponses;
+import com.example.xray.http.ConstantResponse;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+import com.example.xray.trace.SpanTemplate;
+
+/**
+ * Result of looking a request up in the {@link RouteTable}: either a route with its path
+ * parameters, or a 404 or 405 whose response parts were built with the table.
+ */
+public final class RouteMatch {
+
+  /** 405 body; the Allow header varies by path. */
+  private static final String METHOD_NOT_ALLOWED_BODY = "{\"message\":\"Method Not Allowed\"}";
+
+  private final RouteBinding binding;
+  private final SpanTemplate spanTemplate;
+  private final String[] paramValues;
+  private final ConstantResponse errorResponse;
+
+  private RouteMatch(
+      RouteBinding binding,
+      SpanTemplate spanTemplate,
+      String[] paramValues,
+      ConstantResponse errorResponse) {
+    this.binding = binding;
+    this.spanTemplate = spanTemplate;
+    this.paramValues = paramValues;
+    this.errorResponse = errorResponse;
+  }
+
+  static RouteMatch found(RouteBinding binding, HttpMethod method, String[] paramValues) {
+    return new RouteMatch(binding, binding.spanTemplate(method), paramValues, null);
+  }
+
+  static RouteMatch notFound(HttpMethod method) {
+    return new RouteMatch(null, unmatchedSpanTemplate(method), null, AlbResponses.NOT_FOUND);
+  }
+
+  static RouteMatch methodNotAllowed(HttpMethod method, ConstantResponse response) {
+    return new RouteMatch(null, unmatchedSpanTemplate(method), null, response);
+  }
+
+  static ConstantResponse methodNotAllowedResponse(String allow) {
+    return ResponseTemplate.json(405).withHeader("Allow", allow).withBody(METHOD_NOT_ALLOWED_BODY);
+  }
+
+  /**
+   * Whether the request matched a route.
+   *
+   * @return True if {@link #binding()} is set, false for a 404 or 405
+   */
+  public boolean found() {
+    return binding != null;
+  }
+
+  /**
+   * Gets the matched route.
+   *
+   * @return The route, or null for a 404 or 405
+   */
+  public RouteBinding binding() {
+    return binding;
+  }
+
+  /**
+   * Gets the request span template, with the span name and the attributes to record on it.
+   *
+   * @return The span template
+   */
+  public SpanTemplate spanTemplate() {
+    return spanTemplate;
+  }
+
+  /**
+   * Gets the request span name.
+   *
+   * @return The span name
+   */
+  public String spanName() {
+    return spanTemplate.name();
+  }
+
+  /**
+   * Gets the attributes to record on the request span.
+   *
+   * @return The span attributes
+   */
+  public Attributes attributes() {
+    return spanTemplate.attributes();
+  }
+
+  /**
+   * Gets a path parameter.
+   *
+   * @param name Parameter name from the route template
+   * @return The raw path segment, or null if the route has no such parameter
+   */
+  public String pathParam(String name) {
+    if (paramValues == null) {
+      return null;
+    }
+    int index = binding.paramNames().indexOf(name);
+    return index < 0 ? null : paramValues[index];
+  }
+
+  /**
+   * Create the response for a request that did not match a route. Status, headers and body are
+   * shared; only the event itself is allocated.
+   *
+   * @param headerMode The header representation the response should carry
+   * @return The 404 or 405 response
+   * @throws IllegalStateException if the request matched a route
+   */
+  public ApplicationLoadBalancerResponseEvent errorResponse(HeaderMode headerMode) {
+    if (found()) {
+      throw new IllegalStateException("Request matched route " + binding.template());
+    }
+    return errorResponse.create(headerMode);
+  }
+
+  private static SpanTemplate unmatchedSpanTemplate(HttpMethod method) {
+    String name = method == HttpMethod.OTHER ? "HTTP" : method.name();
+    return SpanTemplate.of(name, SpanKind.SERVER, Attributes.empty());
+  }
+}
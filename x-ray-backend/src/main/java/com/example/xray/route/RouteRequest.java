@@ -0,0 +1,95 @@
+package com.example.xray.route;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.HeaderMode;
+
+/** A request matched to a route, as passed to {@link RouteHandler}. */
+public final class RouteRequest {
+
+  private final ApplicationLoadBalancerRequestEvent event;
+  private final Context context;
+  private final AlbRequestHeaders headers;
+  private final RouteMatch match;
+  private final HeaderMode headerMode;
+
+  /**
+   * Creates a RouteRequest.
+   *
+   * @param event The ALB request event
+   * @param context The Lambda context
+   * @param headers The header view of the event
+   * @param match The route match for the event
+   * @param headerMode The header representation the response should carry
+   */
+  public RouteRequest(
+      ApplicationLoadBalancerRequestEvent event,
+      Context context,
+      AlbRequestHeaders headers,
+      RouteMatch match,
+      HeaderMode headerMode) {
+    this.event = event;
+    this.context = context;
+    this.headers = headers;
+    this.match = match;
+    this.headerMode = headerMode;
+  }
+
+  /**
+   * Gets the ALB request event.
+   *
+   * @return The event
+   */
+  public ApplicationLoadBalancerRequestEvent event() {
+    return event;
+  }
+
+  /**
+   * Gets the Lambda context.
+   *
+   * @return The context
+   */
+  public Context context() {
+    return context;
+  }
+
+  /**
+   * Gets the request headers.
+   *
+   * @return The header view
+   */
+  public AlbRequestHeaders headers() {
+    return headers;
+  }
+
+  /**
+   * Gets the header representation the ALB target group reads. Pass it to {@link
+   * com.example.xray.http.ResponseTemplate#create(String, HeaderMode)}.
+   *
+   * @return The resolved header mode
+   */
+  public HeaderMode headerMode() {
+    return headerMode;
+  }
+
+  /**
+   * Whether the request is an ALB target group health check. Routes can skip their tracing and
+   * logging detail for these.
+   *
+   * @return True for health checks
+   */
+  public boolean healthCheck() {
+    return headers != null && headers.healthCheck();
+  }
+
+  /**
+   * Gets a path parameter.
+   *
+   * @param name Parameter name from the route template
+   * @return The raw path segment, or null if the route has no such parameter
+   */
+  public String pathParam(String name) {
+    return match.pathParam(name);
+  }
+}
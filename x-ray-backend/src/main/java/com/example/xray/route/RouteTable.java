@@ -0,0 +1,412 @@
+package com.example.xray.route;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.ConstantResponse;
+
+/**
+ * Immutable path trie that maps a request method and path to a {@link RouteBinding}. The trie is
+ * built once, so a lookup costs one hash probe per path segment plus an array index for the method,
+ * however many routes are registered. Lookups of routes without path parameters do not allocate;
+ * 404 and 405 results are shared instances built with the table.
+ */
+public final class RouteTable {
+
+  /** Span attribute holding the matched route template. */
+  public static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+
+  /** Span attribute holding the class of an annotated route method. */
+  public static final AttributeKey<String> CODE_NAMESPACE =
+      AttributeKey.stringKey("code.namespace");
+
+  /** Span attribute holding the name of an annotated route method. */
+  public static final AttributeKey<String> CODE_FUNCTION = AttributeKey.stringKey("code.function");
+
+  private static final HttpMethod[] METHODS = HttpMethod.values();
+
+  private final Node root;
+  private final int size;
+  private final int maxParams;
+  private final RouteMatch[] notFound = new RouteMatch[METHODS.length];
+
+  private RouteTable(Node root, int size, int maxParams) {
+    this.root = root;
+    this.size = size;
+    this.maxParams = maxParams;
+    for (HttpMethod method : METHODS) {
+      notFound[method.ordinal()] = RouteMatch.notFound(method);
+    }
+  }
+
+  /**
+   * Create a builder.
+   *
+   * @return A new, empty builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the number of routes.
+   *
+   * @return The route count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Look up a request.
+   *
+   * @param method Request method
+   * @param path Request path; empty segments are ignored
+   * @return The match, or a 404 or 405 result
+   */
+  public RouteMatch match(String method, String path) {
+    HttpMethod httpMethod = HttpMethod.of(method);
+    Node node = root;
+    String[] paramValues = null;
+    int paramCount = 0;
+    int length = path == null ? 0 : path.length();
+    int start = 0;
+    while (true) {
+      while (start < length && path.charAt(start) == '/') {
+        start++;
+      }
+      if (start >= length) {
+        break;
+      }
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = length;
+      }
+      Node next = node.staticChild(path, start, end);
+      if (next == null && node.paramChild != null) {
+        // Static segments win and there is no backtracking, so every value collected on the way
+        // down belongs to the route that is finally matched
+        if (paramValues == null) {
+          paramValues = new String[maxParams];
+        }
+        paramValues[paramCount++] = path.substring(start, end);
+        next = node.paramChild;
+      }
+      if (next == null) {
+        return notFound[httpMethod.ordinal()];
+      }
+      node = next;
+      start = end;
+    }
+    RouteBinding binding = node.byMethod[httpMethod.ordinal()];
+    if (binding == null) {
+      binding = node.anyMethod;
+    }
+    if (binding != null) {
+      if (paramValues != null && paramCount < paramValues.length) {
+        paramValues = Arrays.copyOf(paramValues, paramCount);
+      }
+      return binding.match(httpMethod, paramValues);
+    }
+    return node.methodNotAllowed != null
+        ? node.methodNotAllowed[httpMethod.ordinal()]
+        : notFound[httpMethod.ordinal()];
+  }
+
+  /** Collects routes and compiles them into a {@link RouteTable}. */
+  public static final class Builder {
+
+    private final Node root = new Node();
+    private int size;
+    private int maxParams;
+
+    private Builder() {}
+
+    /**
+     * Add a route for a single method.
+     *
+     * @param method The method
+     * @param template Path template, such as {@code /api/items/{id}}
+     * @param handler The handler
+     * @return This builder
+     */
+    public Builder add(HttpMethod method, String template, RouteHandler handler) {
+      return add(List.of(method), template, null, Attributes.empty(), handler);
+    }
+
+    /**
+     * Add a route.
+     *
+     * @param methods The methods, or an empty collection to answer every method
+     * @param template Path template, such as {@code /api/items/{id}}
+     * @param spanName Request span name, or null or empty for {@code "<METHOD> <template>"}
+     * @param attributes Extra attributes for the request span; {@code http.route} is always added
+     * @param handler The handler
+     * @return This builder
+     * @throws IllegalArgumentException if the template is invalid or the route is already taken
+     */
+    public Builder add(
+        Collection<HttpMethod> methods,
+        String template,
+        String spanName,
+        Attributes attributes,
+        RouteHandler handler) {
+      return add(methods, template, spanName, attributes, null, handler);
+    }
+
+    /**
+     * Add a route, optionally marked cacheable.
+     *
+     * @param methods The methods, or an empty collection to answer every method
+     * @param template Path template, such as {@code /api/items/{id}}
+     * @param spanName Request span name, or null or empty for {@code "<METHOD> <template>"}
+     * @param attributes Extra attributes for the request span; {@code http.route} is always added
+     * @param cacheVary Request headers that select a different cached response, or null if the
+     *     route's responses must not be cached
+     * @param handler The handler
+     * @return This builder
+     * @throws IllegalArgumentException if the template is invalid or the route is already taken
+     */
+    public Builder add(
+        Collection<HttpMethod> methods,
+        String template,
+        String spanName,
+        Attributes attributes,
+        List<String> cacheVary,
+        RouteHandler handler) {
+      Node node = root;
+      List<String> paramNames = new ArrayList<>();
+      for (String segment : template.split("/")) {
+        if (segment.isEmpty()) {
+          continue;
+        }
+        if (segment.startsWith("{") && segment.endsWith("}")) {
+          String name = segment.substring(1, segment.length() - 1);
+          if (name.isEmpty() || paramNames.contains(name)) {
+            throw new IllegalArgumentException(
+                "Invalid path parameter '" + segment + "' in " + template);
+          }
+          if (node.paramChild == null) {
+            node.paramChild = new Node();
+            node.paramName = name;
+          } else if (!node.paramName.equals(name)) {
+            throw new IllegalArgumentException(
+                "Path parameter {"
+                    + name
+                    + "} in "
+                    + template
+                    + " conflicts with {"
+                    + node.paramName
+                    + "}");
+          }
+          paramNames.add(name);
+          node = node.paramChild;
+        } else {
+          node = node.statics.computeIfAbsent(segment, key -> new Node());
+        }
+      }
+
+      RouteBinding binding =
+          new RouteBinding(
+              template,
+              handler,
+              paramNames,
+              spanName,
+              attributes.toBuilder().put(HTTP_ROUTE, template).build(),
+              cacheVary);
+      if (methods.isEmpty()) {
+        if (node.anyMethod != null) {
+          throw new IllegalArgumentException("Duplicate route for any method " + template);
+        }
+        node.anyMethod = binding;
+      } else {
+        for (HttpMethod method : methods) {
+          if (method == HttpMethod.OTHER) {
+            throw new IllegalArgumentException("Routes cannot be bound to OTHER: " + template);
+          }
+          if (node.byMethod[method.ordinal()] != null) {
+            throw new IllegalArgumentException("Duplicate route " + method + " " + template);
+          }
+          node.byMethod[method.ordinal()] = binding;
+        }
+      }
+      size++;
+      maxParams = Math.max(maxParams, paramNames.size());
+      return this;
+    }
+
+    /**
+     * Add every {@link Route} method declared by a bean class. Methods also marked {@link Cached}
+     * become cacheable routes.
+     *
+     * @param bean The bean instance, or a CDI client proxy for it
+     * @param beanClass The class declaring the {@link Route} methods
+     * @return This builder
+     * @throws IllegalArgumentException if a route method has an unsupported signature
+     */
+    public Builder addAnnotated(Object bean, Class<?> beanClass) {
+      for (Method method : beanClass.getDeclaredMethods()) {
+        Route route = method.getAnnotation(Route.class);
+        if (route == null) {
+          continue;
+        }
+        Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+        methods.addAll(Arrays.asList(route.methods()));
+        Cached cached = method.getAnnotation(Cached.class);
+        add(
+            methods,
+            route.path(),
+            route.spanName(),
+            Attributes.of(CODE_NAMESPACE, beanClass.getName(), CODE_FUNCTION, method.getName()),
+            cached == null ? null : Arrays.asList(cached.vary()),
+            toHandler(bean, method));
+      }
+      return this;
+    }
+
+    /**
+     * Compile the routes.
+     *
+     * @return The route table
+     */
+    public RouteTable build() {
+      root.freeze();
+      return new RouteTable(root, size, maxParams);
+    }
+
+    private static RouteHandler toHandler(Object bean, Method method) {
+      if (!ApplicationLoadBalancerResponseEvent.class.equals(method.getReturnType())
+          || method.getParameterCount() > 1
+          || (method.getParameterCount() == 1
+              && !RouteRequest.class.equals(method.getParameterTypes()[0]))) {
+        throw new IllegalArgumentException(
+            "@Route method must return ApplicationLoadBalancerResponseEvent and take no"
+                + " arguments or a RouteRequest: "
+                + method);
+      }
+      MethodHandle target;
+      try {
+        method.setAccessible(true);
+        target = MethodHandles.lookup().unreflect(method);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new IllegalArgumentException("Cannot access @Route method " + method, e);
+      }
+      if (!Modifier.isStatic(method.getModifiers())) {
+        target = target.bindTo(bean);
+      }
+      if (method.getParameterCount() == 0) {
+        target = MethodHandles.dropArguments(target, 0, RouteRequest.class);
+      }
+      MethodHandle invoker =
+          target.asType(
+              MethodType.methodType(
+                  ApplicationLoadBalancerResponseEvent.class, RouteRequest.class));
+      return request -> {
+        try {
+          return (ApplicationLoadBalancerResponseEvent) invoker.invokeExact(request);
+        } catch (Exception | Error e) {
+          throw e;
+        } catch (Throwable t) {
+          throw new IllegalStateException(t);
+        }
+      };
+    }
+  }
+
+  /**
+   * A trie node. Static children live in an open-addressing table keyed by the segment hash, so a
+   * child is found by hashing the segment in place, without cutting it out of the path.
+   */
+  static final class Node {
+
+    final Map<String, Node> statics = new LinkedHashMap<>();
+    final RouteBinding[] byMethod = new RouteBinding[METHODS.length];
+    RouteBinding anyMethod;
+    Node paramChild;
+    String paramName;
+    RouteMatch[] methodNotAllowed;
+    private String[] keys = new String[0];
+    private Node[] children = new Node[0];
+    private int mask = -1;
+
+    Node staticChild(String path, int start, int end) {
+      if (mask < 0) {
+        return null;
+      }
+      int length = end - start;
+      int index = spread(hash(path, start, end)) & mask;
+      String key;
+      while ((key = keys[index]) != null) {
+        if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+          return children[index];
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    void freeze() {
+      if (!statics.isEmpty()) {
+        int capacity = Integer.highestOneBit(statics.size() * 2 - 1) << 1;
+        keys = new String[capacity];
+        children = new Node[capacity];
+        mask = capacity - 1;
+        for (Map.Entry<String, Node> entry : statics.entrySet()) {
+          String key = entry.getKey();
+          int index = spread(key.hashCode()) & mask;
+          while (keys[index] != null) {
+            index = (index + 1) & mask;
+          }
+          keys[index] = key;
+          children[index] = entry.getValue();
+          entry.getValue().freeze();
+        }
+      }
+      if (paramChild != null) {
+        paramChild.freeze();
+      }
+      if (anyMethod == null && Arrays.stream(byMethod).anyMatch(binding -> binding != null)) {
+        StringJoiner allow = new StringJoiner(", ");
+        for (HttpMethod method : METHODS) {
+          if (byMethod[method.ordinal()] != null) {
+            allow.add(method.name());
+          }
+        }
+        ConstantResponse response = RouteMatch.methodNotAllowedResponse(allow.toString());
+        methodNotAllowed = new RouteMatch[METHODS.length];
+        for (HttpMethod method : METHODS) {
+          methodNotAllowed[method.ordinal()] = RouteMatch.methodNotAllowed(method, response);
+        }
+      }
+    }
+
+    /** Same value as {@link String#hashCode()} of the substring. */
+    private static int hash(String path, int start, int end) {
+      int h = 0;
+      for (int i = start; i < end; i++) {
+        h = 31 * h + path.charAt(i);
+      }
+      return h;
+    }
+
+    private static int spread(int h) {
+      return h ^ (h >>> 16);
+    }
+  }
+}
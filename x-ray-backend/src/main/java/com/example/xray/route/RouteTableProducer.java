@@ -0,0 +1,38 @@
+package com.example.xray.route;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.quarkus.runtime.Startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CDI producer that compiles the {@link Route} methods of every {@link Routes} bean into the {@link
+ * RouteTable}. The table is built during startup, before the first invocation.
+ */
+@ApplicationScoped
+public class RouteTableProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(RouteTableProducer.class);
+
+  @Inject @Any Instance<Routes> routes;
+
+  @Produces
+  @Singleton
+  @Startup
+  RouteTable routeTable() {
+    RouteTable.Builder builder = RouteTable.builder();
+    for (Instance.Handle<Routes> handle : routes.handles()) {
+      builder.addAnnotated(handle.get(), handle.getBean().getBeanClass());
+    }
+    RouteTable table = builder.build();
+    logger.info("Built route table with {} routes", table.size());
+    return table;
+  }
+}
@@ -0,0 +1,7 @@
+package com.example.xray.route;
+
+/**
+ * Marker for CDI beans that declare {@link Route} methods. The route table is built once at startup
+ * from every bean implementing this interface.
+ */
+public interface Routes {}
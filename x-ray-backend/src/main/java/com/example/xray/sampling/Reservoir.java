@@ -0,0 +1,54 @@
+package com.example.xray.sampling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that hands out a fixed number of samples per second. The current second
+ * and the tokens taken in it share one {@link AtomicLong}, so taking a token is a single
+ * compare-and-set and the bucket refills by moving to a new second.
+ */
+final class Reservoir {
+
+  private static final int TAKEN_BITS = 24;
+  private static final long TAKEN_MASK = (1L << TAKEN_BITS) - 1;
+
+  private final long perSecond;
+  private final AtomicLong state = new AtomicLong();
+
+  /**
+   * Creates the reservoir.
+   *
+   * @param perSecond Samples handed out per second, capped at 2^24 - 1
+   */
+  Reservoir(int perSecond) {
+    this.perSecond = Math.min(Math.max(perSecond, 0), TAKEN_MASK);
+  }
+
+  /**
+   * Take a token for the given second if any are left.
+   *
+   * @param epochSecond The current time in whole seconds
+   * @return Whether a token was taken
+   */
+  boolean tryTake(long epochSecond) {
+    if (perSecond == 0) {
+      return false;
+    }
+    while (true) {
+      long current = state.get();
+      long second = current >>> TAKEN_BITS;
+      long next;
+      if (second < epochSecond) {
+        next = (epochSecond << TAKEN_BITS) | 1;
+      } else if ((current & TAKEN_MASK) < perSecond) {
+        // Same second, or a thread with a slightly older clock: count against the newest second
+        next = current + 1;
+      } else {
+        return false;
+      }
+      if (state.compareAndSet(current, next)) {
+        return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.xray.sampling;
+
+import java.io.IOException;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.quarkus.arc.Unremovable;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CDI producer for the trace {@link Sampler}. Quarkus uses a {@link Sampler} bean in place of
+ * {@code quarkus.otel.traces.sampler}, so this decides sampling for every span: the local rules at
+ * {@code xray.sampling.rules}, or always on when that is set to {@code none}.
+ */
+@ApplicationScoped
+public class SamplerProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(SamplerProducer.class);
+
+  private static final String NONE = "none";
+
+  @ConfigProperty(name = "xray.sampling.rules", defaultValue = "classpath:sampling-rules.json")
+  String rulesLocation;
+
+  @ConfigProperty(name = "quarkus.application.name", defaultValue = "x-ray-backend")
+  String serviceName;
+
+  @Produces
+  @Singleton
+  @Unremovable
+  Sampler sampler() throws IOException {
+    if (NONE.equalsIgnoreCase(rulesLocation.trim())) {
+      logger.info("Sampling rules disabled, sampling every request");
+      return Sampler.alwaysOn();
+    }
+    SamplingRules rules = SamplingRules.load(rulesLocation.trim());
+    logger.info(
+        "Sampling with {} rules from {}, default {}",
+        rules.getRules().size(),
+        rulesLocation,
+        rules.getDefaultRule());
+    return new XRayRuleSampler(rules, serviceName);
+  }
+}
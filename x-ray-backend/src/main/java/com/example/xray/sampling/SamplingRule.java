@@ -0,0 +1,158 @@
+package com.example.xray.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One X-Ray sampling rule: requests matching the service name, HTTP method and URL path patterns
+ * are sampled up to {@code fixedTarget} per second from the rule's reservoir, and at {@code rate}
+ * beyond that. Patterns use X-Ray wildcards: {@code *} matches any run of characters and {@code ?}
+ * a single character.
+ */
+public final class SamplingRule {
+
+  private final String description;
+  private final String serviceName;
+  private final String httpMethod;
+  private final String urlPath;
+  private final int fixedTarget;
+  private final double rate;
+  private final Reservoir reservoir;
+
+  /**
+   * Creates a rule.
+   *
+   * @param description Human readable name for logs
+   * @param serviceName Service name pattern
+   * @param httpMethod HTTP method pattern, matched ignoring case
+   * @param urlPath URL path pattern
+   * @param fixedTarget Requests sampled per second before the rate applies
+   * @param rate Fraction of the remaining requests to sample, 0 to 1
+   * @throws IllegalArgumentException if the target is negative or the rate outside 0 to 1
+   */
+  public SamplingRule(
+      String description,
+      String serviceName,
+      String httpMethod,
+      String urlPath,
+      int fixedTarget,
+      double rate) {
+    if (fixedTarget < 0) {
+      throw new IllegalArgumentException("fixed_target must not be negative: " + fixedTarget);
+    }
+    if (!(rate >= 0 && rate <= 1)) {
+      throw new IllegalArgumentException("rate must be between 0 and 1: " + rate);
+    }
+    this.description = description;
+    this.serviceName = serviceName;
+    this.httpMethod = httpMethod;
+    this.urlPath = urlPath;
+    this.fixedTarget = fixedTarget;
+    this.rate = rate;
+    this.reservoir = new Reservoir(fixedTarget);
+  }
+
+  /**
+   * Check whether a request falls under this rule. Missing request values only match {@code *}.
+   *
+   * @param service The service name
+   * @param method The HTTP method, or null
+   * @param path The URL path, or null
+   * @return Whether the rule applies
+   */
+  boolean matches(String service, String method, String path) {
+    return wildcardMatch(serviceName, service, false)
+        && wildcardMatch(httpMethod, method, true)
+        && wildcardMatch(urlPath, path, false);
+  }
+
+  /**
+   * Decide whether to sample one request under this rule.
+   *
+   * @param epochSecond The current time in whole seconds
+   * @return Whether to sample
+   */
+  boolean sample(long epochSecond) {
+    if (reservoir.tryTake(epochSecond)) {
+      return true;
+    }
+    return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  /**
+   * Gets the rule description.
+   *
+   * @return The description
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Gets the reservoir size.
+   *
+   * @return Requests sampled per second before the rate applies
+   */
+  public int getFixedTarget() {
+    return fixedTarget;
+  }
+
+  /**
+   * Gets the sampling rate.
+   *
+   * @return Fraction of requests beyond the reservoir that are sampled
+   */
+  public double getRate() {
+    return rate;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s(service=%s, method=%s, path=%s, fixed_target=%d, rate=%s)",
+        description, serviceName, httpMethod, urlPath, fixedTarget, rate);
+  }
+
+  /**
+   * Match a value against an X-Ray wildcard pattern without building a regex.
+   *
+   * @param pattern The pattern
+   * @param value The value, or null
+   * @param ignoreCase Whether to compare characters ignoring case
+   * @return Whether the value matches
+   */
+  static boolean wildcardMatch(String pattern, String value, boolean ignoreCase) {
+    if ("*".equals(pattern)) {
+      return true;
+    }
+    if (value == null) {
+      return false;
+    }
+    int p = 0;
+    int v = 0;
+    int starP = -1;
+    int starV = 0;
+    while (v < value.length()) {
+      if (p < pattern.length()
+          && (pattern.charAt(p) == '?' || same(pattern.charAt(p), value.charAt(v), ignoreCase))) {
+        p++;
+        v++;
+      } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+        starP = p++;
+        starV = v;
+      } else if (starP >= 0) {
+        p = starP + 1;
+        v = ++starV;
+      } else {
+        return false;
+      }
+    }
+    while (p < pattern.length() && pattern.charAt(p) == '*') {
+      p++;
+    }
+    return p == pattern.length();
+  }
+
+  private static boolean same(char a, char b, boolean ignoreCase) {
+    return a == b || (ignoreCase && Character.toUpperCase(a) == Character.toUpperCase(b));
+  }
+}
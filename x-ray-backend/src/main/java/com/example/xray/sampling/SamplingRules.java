@@ -0,0 +1,143 @@
+package com.example.xray.sampling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Ordered sampling rules plus the default rule, read from a local file in the X-Ray local sampling
+ * rule format:
+ *
+ * <pre>{@code
+ * {
+ *   "version": 2,
+ *   "rules": [
+ *     {"description": "...", "service_name": "*", "http_method": "GET", "url_path": "/api/*",
+ *      "fixed_target": 1, "rate": 0.05}
+ *   ],
+ *   "default": {"fixed_target": 1, "rate": 0.1}
+ * }
+ * }</pre>
+ *
+ * <p>The first matching rule wins; omitted patterns default to {@code *}.
+ */
+public final class SamplingRules {
+
+  private static final String CLASSPATH_PREFIX = "classpath:";
+
+  private final List<SamplingRule> rules;
+  private final SamplingRule defaultRule;
+
+  /**
+   * Creates the rule set.
+   *
+   * @param rules Rules in priority order
+   * @param defaultRule Rule for requests no other rule matches
+   */
+  public SamplingRules(List<SamplingRule> rules, SamplingRule defaultRule) {
+    this.rules = List.copyOf(rules);
+    this.defaultRule = defaultRule;
+  }
+
+  /**
+   * Load rules from a file path or a {@code classpath:} resource.
+   *
+   * @param location Where the rules are
+   * @return The rules
+   * @throws IOException if the rules cannot be read
+   * @throws IllegalArgumentException if the rules are malformed
+   */
+  public static SamplingRules load(String location) throws IOException {
+    if (location.startsWith(CLASSPATH_PREFIX)) {
+      String resource = location.substring(CLASSPATH_PREFIX.length());
+      try (InputStream in =
+          Thread.currentThread().getContextClassLoader().getResourceAsStream(resource)) {
+        if (in == null) {
+          throw new IOException("Sampling rules not found on the classpath: " + resource);
+        }
+        return parse(in);
+      }
+    }
+    try (InputStream in = Files.newInputStream(Path.of(location))) {
+      return parse(in);
+    }
+  }
+
+  /**
+   * Parse rules from JSON.
+   *
+   * @param json The rules document
+   * @return The rules
+   * @throws IOException if the document is not valid JSON
+   * @throws IllegalArgumentException if the document has no default rule or a rule is invalid
+   */
+  public static SamplingRules parse(InputStream json) throws IOException {
+    JsonNode root = new ObjectMapper().readTree(json);
+    JsonNode defaults = root.get("default");
+    if (defaults == null || !defaults.isObject()) {
+      throw new IllegalArgumentException("Sampling rules must have a default rule");
+    }
+    List<SamplingRule> rules = new ArrayList<>();
+    JsonNode ruleNodes = root.path("rules");
+    for (JsonNode node : ruleNodes) {
+      rules.add(rule(node, node.path("description").asText("rule " + (rules.size() + 1))));
+    }
+    return new SamplingRules(rules, rule(defaults, "default"));
+  }
+
+  private static SamplingRule rule(JsonNode node, String description) {
+    if (!node.has("fixed_target") || !node.has("rate")) {
+      throw new IllegalArgumentException(
+          "Sampling rule '" + description + "' needs fixed_target and rate");
+    }
+    return new SamplingRule(
+        description,
+        node.path("service_name").asText("*"),
+        node.path("http_method").asText("*"),
+        node.path("url_path").asText("*"),
+        node.get("fixed_target").asInt(),
+        node.get("rate").asDouble());
+  }
+
+  /**
+   * Find the rule for a request.
+   *
+   * @param service The service name
+   * @param method The HTTP method, or null
+   * @param path The URL path, or null
+   * @return The first matching rule, or the default rule
+   */
+  SamplingRule match(String service, String method, String path) {
+    for (int i = 0; i < rules.size(); i++) {
+      SamplingRule rule = rules.get(i);
+      if (rule.matches(service, method, path)) {
+        return rule;
+      }
+    }
+    return defaultRule;
+  }
+
+  /**
+   * Gets the rules in priority order, without the default rule.
+   *
+   * @return The rules
+   */
+  public List<SamplingRule> getRules() {
+    return rules;
+  }
+
+  /**
+   * Gets the default rule.
+   *
+   * @return The default rule
+   */
+  public SamplingRule getDefaultRule() {
+    return defaultRule;
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.xray.sampling;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import com.example.xray.trace.SpanAttributes;
+
+/**
+ * Sampler that applies X-Ray style {@link SamplingRules} locally. Spans with a parent follow its
+ * sampled flag, so a request arriving with {@code X-Amzn-Trace-Id: ...;Sampled=0} or {@code
+ * Sampled=1} keeps the upstream decision and child spans follow the request span. Root spans are
+ * matched against the rules on {@code http.method} and {@code http.target}, which the handler sets
+ * on the span builder, and sampled from the rule's reservoir and rate.
+ */
+public final class XRayRuleSampler implements Sampler {
+
+  private final SamplingRules rules;
+  private final String serviceName;
+  private final LongSupplier epochMillis;
+
+  /**
+   * Creates the sampler.
+   *
+   * @param rules The sampling rules
+   * @param serviceName The service name rules are matched against
+   */
+  public XRayRuleSampler(SamplingRules rules, String serviceName) {
+    this(rules, serviceName, System::currentTimeMillis);
+  }
+
+  /**
+   * Creates the sampler with a clock for the per-second reservoirs.
+   *
+   * @param rules The sampling rules
+   * @param serviceName The service name rules are matched against
+   * @param epochMillis The clock
+   */
+  XRayRuleSampler(SamplingRules rules, String serviceName, LongSupplier epochMillis) {
+    this.rules = rules;
+    this.serviceName = serviceName;
+    this.epochMillis = epochMillis;
+  }
+
+  @Override
+  public SamplingResult shouldSample(
+      Context parentContext,
+      String traceId,
+      String name,
+      SpanKind spanKind,
+      Attributes attributes,
+      List<LinkData> parentLinks) {
+    SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+    if (parent.isValid()) {
+      return parent.isSampled() ? SamplingResult.recordAndSample() : SamplingResult.drop();
+    }
+    SamplingRule rule =
+        rules.match(
+            serviceName,
+            attributes.get(SpanAttributes.HTTP_METHOD),
+            attributes.get(SpanAttributes.HTTP_TARGET));
+    long epochSecond = TimeUnit.MILLISECONDS.toSeconds(epochMillis.getAsLong());
+    return rule.sample(epochSecond) ? SamplingResult.recordAndSample() : SamplingResult.drop();
+  }
+
+  @Override
+  public String getDescription() {
+    return "XRayRuleSampler{rules="
+        + rules.getRules().size()
+        + ", default="
+        + rules.getDefaultRule()
+        + "}";
+  }
+}
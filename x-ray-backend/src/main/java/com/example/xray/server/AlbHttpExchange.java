@@ -0,0 +1,138 @@
+package com.example.xray.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Converts between an HTTP exchange and the ALB Lambda event types, the way ALB does for a Lambda
+ * target: header names are lower-cased, the path and query string are passed through undecoded,
+ * the last value of a repeated header or query parameter wins, and bodies that are not text are
+ * base64 encoded.
+ */
+final class AlbHttpExchange {
+
+  private AlbHttpExchange() {
+    // Utility class
+  }
+
+  /**
+   * Build the ALB request event for an exchange, reading the request body.
+   *
+   * @param exchange The exchange
+   * @return The event
+   * @throws IOException if the body cannot be read
+   */
+  static ApplicationLoadBalancerRequestEvent toEvent(HttpExchange exchange) throws IOException {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod(exchange.getRequestMethod());
+    event.setPath(exchange.getRequestURI().getRawPath());
+    event.setQueryStringParameters(queryParameters(exchange.getRequestURI().getRawQuery()));
+
+    Headers requestHeaders = exchange.getRequestHeaders();
+    Map<String, String> headers = new HashMap<>(requestHeaders.size() * 2);
+    for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+      List<String> values = header.getValue();
+      if (!values.isEmpty()) {
+        headers.put(header.getKey().toLowerCase(Locale.ROOT), values.get(values.size() - 1));
+      }
+    }
+    event.setHeaders(headers);
+
+    byte[] body;
+    try (InputStream in = exchange.getRequestBody()) {
+      body = in.readAllBytes();
+    }
+    if (body.length == 0 || isText(headers.get("content-type"))) {
+      event.setBody(new String(body, StandardCharsets.UTF_8));
+      event.setIsBase64Encoded(false);
+    } else {
+      event.setBody(Base64.getEncoder().encodeToString(body));
+      event.setIsBase64Encoded(true);
+    }
+    return event;
+  }
+
+  /**
+   * Send an ALB response event as the exchange's response.
+   *
+   * @param exchange The exchange
+   * @param response The response
+   * @throws IOException if the response cannot be written
+   */
+  static void send(HttpExchange exchange, ApplicationLoadBalancerResponseEvent response)
+      throws IOException {
+    Headers responseHeaders = exchange.getResponseHeaders();
+    if (response.getMultiValueHeaders() != null) {
+      response.getMultiValueHeaders().forEach(responseHeaders::put);
+    } else if (response.getHeaders() != null) {
+      response.getHeaders().forEach(responseHeaders::set);
+    }
+
+    byte[] body = body(response);
+    boolean noBody = body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+    exchange.sendResponseHeaders(response.getStatusCode(), noBody ? -1 : body.length);
+    if (!noBody) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  private static byte[] body(ApplicationLoadBalancerResponseEvent response) {
+    String body = response.getBody();
+    if (body == null || body.isEmpty()) {
+      return new byte[0];
+    }
+    return response.getIsBase64Encoded()
+        ? Base64.getDecoder().decode(body)
+        : body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Map<String, String> queryParameters(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return parameters;
+    }
+    int start = 0;
+    while (start <= rawQuery.length()) {
+      int end = rawQuery.indexOf('&', start);
+      if (end < 0) {
+        end = rawQuery.length();
+      }
+      if (end > start) {
+        int equals = rawQuery.indexOf('=', start);
+        if (equals < 0 || equals > end) {
+          parameters.put(rawQuery.substring(start, end), "");
+        } else {
+          parameters.put(rawQuery.substring(start, equals), rawQuery.substring(equals + 1, end));
+        }
+      }
+      start = end + 1;
+    }
+    return parameters;
+  }
+
+  private static boolean isText(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/")
+        || type.contains("json")
+        || type.contains("xml")
+        || type.contains("x-www-form-urlencoded")
+        || type.contains("javascript");
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.xray.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.AlbLambdaHandler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server for running behind an ALB as a long-lived container instead of a Lambda
+ * function. Each request is read, handled and answered on its own virtual thread, as an ALB event
+ * passed to {@link AlbLambdaHandler}, so trace extraction, spans, MDC and routing are the same as
+ * in Lambda. Requests share no mutable state beyond what the handler itself shares; span export is
+ * left to the batch processor (run with {@code xray.flush.mode=batch}).
+ */
+public final class AlbHttpServer implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AlbHttpServer.class);
+
+  /** Pending connection queue; 0 would leave it to the platform default of 50. */
+  private static final int BACKLOG = 1024;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private AlbHttpServer(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Start serving.
+   *
+   * @param handler The handler every request is passed to
+   * @param address Address to listen on; port 0 picks a free port
+   * @param functionName Function name reported in the request context
+   * @return The running server
+   * @throws IOException if the address cannot be bound
+   */
+  public static AlbHttpServer start(
+      AlbLambdaHandler handler, InetSocketAddress address, String functionName)
+      throws IOException {
+    HttpServer server = HttpServer.create(address, BACKLOG);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/", new AlbExchangeHandler(handler, functionName));
+    server.start();
+    return new AlbHttpServer(server, executor);
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return The bound port
+   */
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stop accepting connections and wait up to the grace period for running requests.
+   *
+   * @param grace How long running requests may take to finish
+   */
+  public void stop(Duration grace) {
+    server.stop((int) Math.max(0, grace.toSeconds()));
+    executor.close();
+  }
+
+  @Override
+  public void close() {
+    stop(Duration.ZERO);
+  }
+
+  /** Runs one exchange through the Lambda handler. */
+  private static final class AlbExchangeHandler implements HttpHandler {
+    private final AlbLambdaHandler handler;
+    private final String functionName;
+
+    AlbExchangeHandler(AlbLambdaHandler handler, String functionName) {
+      this.handler = handler;
+      this.functionName = functionName;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        ApplicationLoadBalancerResponseEvent response =
+            handler.handleRequest(
+                AlbHttpExchange.toEvent(exchange), new ServerRequestContext(functionName));
+        AlbHttpExchange.send(exchange, response);
+      } catch (IOException | RuntimeException e) {
+        // The handler answers its own failures with a 500, so this is the connection failing
+        logger.warn(
+            "Failed to serve {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        throw e;
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.xray.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.AlbLambdaHandler;
+
+/**
+ * Starts the {@link AlbHttpServer} when {@code xray.server.enabled} is set, which the {@code
+ * container} profile does, and stops it on shutdown.
+ */
+@ApplicationScoped
+public class AlbHttpServerLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(AlbHttpServerLifecycle.class);
+
+  @Inject AlbLambdaHandler handler;
+
+  @ConfigProperty(name = "xray.server.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.server.host", defaultValue = "0.0.0.0")
+  String host;
+
+  @ConfigProperty(name = "xray.server.port", defaultValue = "8080")
+  int port;
+
+  @ConfigProperty(name = "xray.server.shutdown-grace", defaultValue = "10s")
+  Duration shutdownGrace;
+
+  @ConfigProperty(name = "quarkus.application.name", defaultValue = "x-ray-backend")
+  String applicationName;
+
+  private AlbHttpServer server;
+
+  void onStart(@Observes StartupEvent event) {
+    if (!enabled) {
+      return;
+    }
+    try {
+      server = AlbHttpServer.start(handler, new InetSocketAddress(host, port), applicationName);
+      logger.info("Serving HTTP on {}:{} with a virtual thread per request", host, server.port());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot listen on " + host + ":" + port, e);
+    }
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    if (server != null) {
+      server.stop(shutdownGrace);
+      logger.info("HTTP server stopped");
+    }
+  }
+}
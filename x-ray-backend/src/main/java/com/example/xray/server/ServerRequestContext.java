@@ -0,0 +1,85 @@
+package com.example.xray.server;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/**
+ * Lambda {@link Context} for a request served by {@link AlbHttpServer}. The request ID is a random
+ * UUID drawn from the thread's own generator, because {@link UUID#randomUUID()} shares one secure
+ * random source between all request threads.
+ */
+final class ServerRequestContext implements Context {
+
+  private final String requestId;
+  private final String functionName;
+
+  ServerRequestContext(String functionName) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // Version 4, IETF variant
+    long high = (random.nextLong() & ~0xF000L) | 0x4000L;
+    long low = (random.nextLong() & ~(0xCL << 60)) | (0x8L << 60);
+    this.requestId = new UUID(high, low).toString();
+    this.functionName = functionName;
+  }
+
+  @Override
+  public String getAwsRequestId() {
+    return requestId;
+  }
+
+  @Override
+  public String getLogGroupName() {
+    return null;
+  }
+
+  @Override
+  public String getLogStreamName() {
+    return null;
+  }
+
+  @Override
+  public String getFunctionName() {
+    return functionName;
+  }
+
+  @Override
+  public String getFunctionVersion() {
+    return null;
+  }
+
+  @Override
+  public String getInvokedFunctionArn() {
+    return null;
+  }
+
+  @Override
+  public CognitoIdentity getIdentity() {
+    return null;
+  }
+
+  @Override
+  public ClientContext getClientContext() {
+    return null;
+  }
+
+  /** A long-running server has no invocation deadline. */
+  @Override
+  public int getRemainingTimeInMillis() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  public int getMemoryLimitInMB() {
+    return (int) (Runtime.getRuntime().maxMemory() / (1024 * 1024));
+  }
+
+  @Override
+  public LambdaLogger getLogger() {
+    return null;
+  }
+}
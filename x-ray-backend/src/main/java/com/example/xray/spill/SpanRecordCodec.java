@@ -0,0 +1,302 @@
+package com.example.xray.spill;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+/**
+ * Binary form of a span for the spill store. IDs are stored as raw bytes and enums as ordinals, so
+ * a typical request span takes a few hundred bytes. Trace state and links are not kept; X-Ray does
+ * not use either.
+ */
+final class SpanRecordCodec {
+
+  private static final int VERSION = 1;
+
+  private static final int PARENT_VALID = 1;
+  private static final int PARENT_REMOTE = 2;
+
+  private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+  private static final SpanKind[] SPAN_KINDS = SpanKind.values();
+  private static final StatusCode[] STATUS_CODES = StatusCode.values();
+
+  private SpanRecordCodec() {
+    // Utility class
+  }
+
+  /**
+   * Encode a span.
+   *
+   * @param span The span
+   * @return The record bytes
+   */
+  static byte[] encode(SpanData span) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      SpanContext context = span.getSpanContext();
+      out.write(context.getTraceIdBytes());
+      out.write(context.getSpanIdBytes());
+      out.writeByte(context.getTraceFlags().asByte());
+
+      SpanContext parent = span.getParentSpanContext();
+      int parentFlags =
+          (parent.isValid() ? PARENT_VALID : 0) | (parent.isRemote() ? PARENT_REMOTE : 0);
+      out.writeByte(parentFlags);
+      if (parent.isValid()) {
+        out.write(parent.getSpanIdBytes());
+        out.writeByte(parent.getTraceFlags().asByte());
+      }
+
+      out.writeByte(span.getKind().ordinal());
+      writeString(out, span.getName());
+      out.writeLong(span.getStartEpochNanos());
+      out.writeLong(span.getEndEpochNanos());
+      out.writeByte(span.getStatus().getStatusCode().ordinal());
+      writeString(out, span.getStatus().getDescription());
+
+      InstrumentationScopeInfo scope = span.getInstrumentationScopeInfo();
+      writeString(out, scope.getName());
+      writeString(out, scope.getVersion());
+      writeAttributes(out, span.getResource().getAttributes());
+      writeString(out, span.getResource().getSchemaUrl());
+
+      writeAttributes(out, span.getAttributes());
+      out.writeInt(span.getTotalAttributeCount());
+      List<EventData> events = span.getEvents();
+      out.writeInt(events.size());
+      for (EventData event : events) {
+        writeString(out, event.getName());
+        out.writeLong(event.getEpochNanos());
+        writeAttributes(out, event.getAttributes());
+      }
+      out.writeInt(span.getTotalRecordedEvents());
+      out.writeInt(span.getTotalRecordedLinks());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decode a span written by {@link #encode}.
+   *
+   * @param record The record bytes
+   * @return The span
+   * @throws IOException if the record is truncated or from another format version
+   */
+  static SpanData decode(byte[] record) throws IOException {
+    try {
+      return read(new DataInputStream(new ByteArrayInputStream(record)));
+    } catch (RuntimeException e) {
+      throw new IOException("Corrupt span record", e);
+    }
+  }
+
+  private static SpanData read(DataInputStream in) throws IOException {
+    int version = in.readUnsignedByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported span record version " + version);
+    }
+    String traceId = TraceId.fromBytes(readBytes(in, TraceId.getLength() / 2));
+    String spanId = SpanId.fromBytes(readBytes(in, SpanId.getLength() / 2));
+    SpanContext context =
+        SpanContext.create(
+            traceId, spanId, TraceFlags.fromByte(in.readByte()), TraceState.getDefault());
+
+    int parentFlags = in.readUnsignedByte();
+    SpanContext parent = SpanContext.getInvalid();
+    if ((parentFlags & PARENT_VALID) != 0) {
+      String parentId = SpanId.fromBytes(readBytes(in, SpanId.getLength() / 2));
+      TraceFlags flags = TraceFlags.fromByte(in.readByte());
+      parent =
+          (parentFlags & PARENT_REMOTE) != 0
+              ? SpanContext.createFromRemoteParent(
+                  traceId, parentId, flags, TraceState.getDefault())
+              : SpanContext.create(traceId, parentId, flags, TraceState.getDefault());
+    }
+
+    SpanKind kind = SPAN_KINDS[in.readUnsignedByte()];
+    String name = readString(in);
+    long startEpochNanos = in.readLong();
+    long endEpochNanos = in.readLong();
+    StatusData status = StatusData.create(STATUS_CODES[in.readUnsignedByte()], readString(in));
+
+    String scopeName = readString(in);
+    String scopeVersion = readString(in);
+    InstrumentationScopeInfo scope =
+        scopeVersion == null
+            ? InstrumentationScopeInfo.create(scopeName)
+            : InstrumentationScopeInfo.builder(scopeName).setVersion(scopeVersion).build();
+    Attributes resourceAttributes = readAttributes(in);
+    Resource resource = Resource.create(resourceAttributes, readString(in));
+
+    Attributes attributes = readAttributes(in);
+    int totalAttributeCount = in.readInt();
+    int eventCount = in.readInt();
+    List<EventData> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      String eventName = readString(in);
+      long epochNanos = in.readLong();
+      events.add(EventData.create(epochNanos, eventName, readAttributes(in)));
+    }
+    int totalRecordedEvents = in.readInt();
+    int totalRecordedLinks = in.readInt();
+
+    return new SpilledSpanData(
+        context,
+        parent,
+        kind,
+        name,
+        startEpochNanos,
+        endEpochNanos,
+        status,
+        scope,
+        resource,
+        attributes,
+        totalAttributeCount,
+        events,
+        totalRecordedEvents,
+        totalRecordedLinks);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(readBytes(in, length), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+    if (length > in.available()) {
+      throw new IOException("Truncated span record");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeAttributes(DataOutputStream out, Attributes attributes)
+      throws IOException {
+    Map<AttributeKey<?>, Object> map = attributes.asMap();
+    out.writeInt(map.size());
+    for (Map.Entry<AttributeKey<?>, Object> entry : map.entrySet()) {
+      AttributeKey<?> key = entry.getKey();
+      Object value = entry.getValue();
+      switch (key.getType()) {
+        case STRING, BOOLEAN, LONG, DOUBLE -> {
+          out.writeByte(key.getType().ordinal());
+          writeString(out, key.getKey());
+          writeScalar(out, key.getType(), value);
+        }
+        case STRING_ARRAY, BOOLEAN_ARRAY, LONG_ARRAY, DOUBLE_ARRAY -> {
+          out.writeByte(key.getType().ordinal());
+          writeString(out, key.getKey());
+          List<?> values = (List<?>) value;
+          out.writeInt(values.size());
+          for (Object element : values) {
+            writeScalar(out, key.getType(), element);
+          }
+        }
+        default -> {
+          // Attribute types added after this format keep their text form
+          out.writeByte(AttributeType.STRING.ordinal());
+          writeString(out, key.getKey());
+          writeString(out, String.valueOf(value));
+        }
+      }
+    }
+  }
+
+  private static void writeScalar(DataOutputStream out, AttributeType type, Object value)
+      throws IOException {
+    switch (type) {
+      case STRING, STRING_ARRAY -> writeString(out, (String) value);
+      case BOOLEAN, BOOLEAN_ARRAY -> out.writeBoolean((Boolean) value);
+      case LONG, LONG_ARRAY -> out.writeLong((Long) value);
+      default -> out.writeDouble((Double) value);
+    }
+  }
+
+  private static Attributes readAttributes(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size == 0) {
+      return Attributes.empty();
+    }
+    AttributesBuilder builder = Attributes.builder();
+    for (int i = 0; i < size; i++) {
+      AttributeType type = ATTRIBUTE_TYPES[in.readUnsignedByte()];
+      String key = readString(in);
+      switch (type) {
+        case STRING -> builder.put(AttributeKey.stringKey(key), readString(in));
+        case BOOLEAN -> builder.put(AttributeKey.booleanKey(key), in.readBoolean());
+        case LONG -> builder.put(AttributeKey.longKey(key), in.readLong());
+        case DOUBLE -> builder.put(AttributeKey.doubleKey(key), in.readDouble());
+        case STRING_ARRAY -> {
+          List<String> values = new ArrayList<>();
+          for (int n = in.readInt(); n > 0; n--) {
+            values.add(readString(in));
+          }
+          builder.put(AttributeKey.stringArrayKey(key), values);
+        }
+        case BOOLEAN_ARRAY -> {
+          List<Boolean> values = new ArrayList<>();
+          for (int n = in.readInt(); n > 0; n--) {
+            values.add(in.readBoolean());
+          }
+          builder.put(AttributeKey.booleanArrayKey(key), values);
+        }
+        case LONG_ARRAY -> {
+          List<Long> values = new ArrayList<>();
+          for (int n = in.readInt(); n > 0; n--) {
+            values.add(in.readLong());
+          }
+          builder.put(AttributeKey.longArrayKey(key), values);
+        }
+        default -> {
+          List<Double> values = new ArrayList<>();
+          for (int n = in.readInt(); n > 0; n--) {
+            values.add(in.readDouble());
+          }
+          builder.put(AttributeKey.doubleArrayKey(key), values);
+        }
+      }
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.xray.spill;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Entry point to the span spill store. Exporters are wrapped with {@link #wrap} when the span
+ * processor is built, and the flush strategies call {@link #spillInFlight()} when a flush misses
+ * its deadline. A disabled spill returns exporters unwrapped and ignores missed deadlines.
+ */
+public final class SpanSpill implements AutoCloseable {
+
+  private static final SpanSpill DISABLED = new SpanSpill(null, 0, Duration.ZERO);
+
+  private final SpillStore store;
+  private final int drainBatchSize;
+  private final Duration drainTimeout;
+  private final ExecutorService drainExecutor;
+  private final Set<SpillingSpanExporter> exporters = ConcurrentHashMap.newKeySet();
+
+  private SpanSpill(SpillStore store, int drainBatchSize, Duration drainTimeout) {
+    this.store = store;
+    this.drainBatchSize = drainBatchSize;
+    this.drainTimeout = drainTimeout;
+    this.drainExecutor =
+        store == null
+            ? null
+            : Executors.newSingleThreadExecutor(
+                runnable -> {
+                  Thread thread = new Thread(runnable, "span-spill-drain");
+                  thread.setDaemon(true);
+                  return thread;
+                });
+  }
+
+  /**
+   * Gets a spill that does nothing.
+   *
+   * @return The disabled spill
+   */
+  public static SpanSpill disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Create a spill backed by the given store.
+   *
+   * @param store The spill store, owned by the spill from now on
+   * @param drainBatchSize The most spilled spans to re-export at once
+   * @param drainTimeout Longest time to wait for one re-export
+   * @return The spill
+   */
+  public static SpanSpill create(SpillStore store, int drainBatchSize, Duration drainTimeout) {
+    return new SpanSpill(store, drainBatchSize, drainTimeout);
+  }
+
+  /**
+   * Check whether spans are spilled at all.
+   *
+   * @return Whether the spill has a store
+   */
+  public boolean enabled() {
+    return store != null;
+  }
+
+  /**
+   * Wrap an exporter so that spans it fails to export are spilled and re-exported later.
+   *
+   * @param delegate The exporter
+   * @return The wrapped exporter, or the exporter itself if the spill is disabled
+   */
+  public SpanExporter wrap(SpanExporter delegate) {
+    if (store == null) {
+      return delegate;
+    }
+    SpillingSpanExporter exporter =
+        new SpillingSpanExporter(
+            delegate, store, drainExecutor, drainBatchSize, drainTimeout.toNanos());
+    exporters.add(exporter);
+    return exporter;
+  }
+
+  /** Spill every export still in flight. Called when a flush misses its deadline. */
+  public void spillInFlight() {
+    for (SpillingSpanExporter exporter : exporters) {
+      exporter.spillInFlight();
+    }
+  }
+
+  /**
+   * Gets the spill counters.
+   *
+   * @return The spill metrics, or null if the spill is disabled
+   */
+  public SpillMetrics metrics() {
+    return store == null ? null : store.metrics();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (store != null) {
+      drainExecutor.shutdownNow();
+      store.close();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.xray.spill;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** CDI producer for the {@link SpanSpill} configured by {@code xray.spill.*}. */
+@ApplicationScoped
+public class SpanSpillProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpanSpillProducer.class);
+
+  @ConfigProperty(name = "xray.spill.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.spill.path", defaultValue = "/tmp/xray-spans.spill")
+  Path path;
+
+  @ConfigProperty(name = "xray.spill.max-size", defaultValue = "4M")
+  MemorySize maxSize;
+
+  @ConfigProperty(name = "xray.spill.drain-batch-size", defaultValue = "256")
+  int drainBatchSize;
+
+  @ConfigProperty(name = "xray.spill.drain-timeout", defaultValue = "5s")
+  Duration drainTimeout;
+
+  @Produces
+  @Singleton
+  SpanSpill spanSpill() {
+    if (!enabled) {
+      return SpanSpill.disabled();
+    }
+    try {
+      SpillStore store = SpillStore.open(path, maxSize.asLongValue());
+      logger.info(
+          "Spilling unexported spans to {} ({} bytes, {} pending from earlier invocations)",
+          path,
+          maxSize.asLongValue(),
+          store.size());
+      return SpanSpill.create(store, drainBatchSize, drainTimeout);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not open span spill store at {}, spans will not be spilled", path, e);
+      return SpanSpill.disabled();
+    }
+  }
+
+  void close(@Disposes SpanSpill spill) throws IOException {
+    spill.close();
+  }
+}
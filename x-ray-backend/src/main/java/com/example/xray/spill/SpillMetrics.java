@@ -0,0 +1,59 @@
+package com.example.xray.spill;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the span spill store. Like {@link com.example.xray.flush.FlushMetrics} they are
+ * exposed through getters and logged rather than exported.
+ */
+public final class SpillMetrics {
+
+  private final LongAdder spilled = new LongAdder();
+  private final LongAdder recovered = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  void recordSpilled() {
+    spilled.increment();
+  }
+
+  void recordRecovered(long spans) {
+    recovered.add(spans);
+  }
+
+  void recordDropped(long spans) {
+    dropped.add(spans);
+  }
+
+  /**
+   * Gets the number of spans written to the spill store.
+   *
+   * @return The spilled span count
+   */
+  public long getSpilled() {
+    return spilled.sum();
+  }
+
+  /**
+   * Gets the number of spilled spans exported on a later attempt.
+   *
+   * @return The recovered span count
+   */
+  public long getRecovered() {
+    return recovered.sum();
+  }
+
+  /**
+   * Gets the number of spans lost: evicted to make room, too large for the store, or unreadable.
+   *
+   * @return The dropped span count
+   */
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "spilled=%d, recovered=%d, dropped=%d", getSpilled(), getRecovered(), getDropped());
+  }
+}
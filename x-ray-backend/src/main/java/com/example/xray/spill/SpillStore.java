@@ -0,0 +1,292 @@
+package com.example.xray.spill;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size ring of length-prefixed records in a memory-mapped file. Writes land in the page
+ * cache, so records outlive a frozen or restarted execution environment as long as the file does
+ * ({@code /tmp} persists across invocations of one Lambda environment). When a record does not fit,
+ * the oldest records are evicted to make room.
+ *
+ * <p>Positions are logical byte offsets that only grow; the physical offset is the position modulo
+ * the data capacity. Readers take a {@link Batch} without removing it and {@link #commit} it once
+ * the records have been handled, so records are not lost if handling fails.
+ */
+public final class SpillStore implements AutoCloseable {
+
+  private static final int MAGIC = 0x58525350;
+  private static final int VERSION = 1;
+
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int CAPACITY_OFFSET = 8;
+  private static final int HEAD_OFFSET = 16;
+  private static final int TAIL_OFFSET = 24;
+  private static final int HEADER_BYTES = 32;
+
+  private static final int LENGTH_BYTES = Integer.BYTES;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer map;
+  private final int capacity;
+  private final byte[] lengthScratch = new byte[LENGTH_BYTES];
+  private final SpillMetrics metrics = new SpillMetrics();
+  private long head;
+  private long tail;
+  private int records;
+
+  private SpillStore(FileChannel channel, MappedByteBuffer map, int capacity) {
+    this.channel = channel;
+    this.map = map;
+    this.capacity = capacity;
+    recover();
+  }
+
+  /**
+   * Open the store at the given path, picking up records left by an earlier process if the file
+   * has the same size, and starting empty otherwise.
+   *
+   * @param path The ring file
+   * @param maxBytes Size of the file, header included
+   * @return The open store
+   * @throws IOException if the file cannot be created or mapped
+   * @throws IllegalArgumentException if the size is too small or larger than 2 GB
+   */
+  public static SpillStore open(Path path, long maxBytes) throws IOException {
+    if (maxBytes <= HEADER_BYTES + LENGTH_BYTES || maxBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Spill store size out of range: " + maxBytes);
+    }
+    FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      if (channel.size() > maxBytes) {
+        channel.truncate(maxBytes);
+      }
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxBytes);
+      return new SpillStore(channel, map, (int) maxBytes - HEADER_BYTES);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the counters for this store.
+   *
+   * @return The spill metrics
+   */
+  public SpillMetrics metrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets the number of records waiting in the store.
+   *
+   * @return The record count
+   */
+  public synchronized int size() {
+    return records;
+  }
+
+  /**
+   * Check whether the store holds no records.
+   *
+   * @return Whether the store is empty
+   */
+  public synchronized boolean isEmpty() {
+    return records == 0;
+  }
+
+  /**
+   * Append a record, evicting the oldest records if there is not enough room.
+   *
+   * @param record The record bytes
+   * @return false if the record is larger than the whole store and was dropped
+   */
+  public synchronized boolean append(byte[] record) {
+    long needed = (long) LENGTH_BYTES + record.length;
+    if (needed > capacity) {
+      metrics.recordDropped(1);
+      return false;
+    }
+    while (tail - head + needed > capacity) {
+      head += LENGTH_BYTES + readLength(head);
+      records--;
+      metrics.recordDropped(1);
+    }
+    writeLength(tail, record.length);
+    put(tail + LENGTH_BYTES, record);
+    tail += needed;
+    records++;
+    writeHeader();
+    metrics.recordSpilled();
+    return true;
+  }
+
+  /**
+   * Read up to the given number of the oldest records without removing them.
+   *
+   * @param maxRecords The most records to read
+   * @return The records, possibly empty
+   */
+  public synchronized Batch read(int maxRecords) {
+    List<byte[]> batch = new ArrayList<>(Math.min(maxRecords, records));
+    long[] ends = new long[Math.min(maxRecords, records)];
+    long position = head;
+    while (batch.size() < ends.length && position < tail) {
+      byte[] record = new byte[readLength(position)];
+      get(position + LENGTH_BYTES, record);
+      position += LENGTH_BYTES + record.length;
+      ends[batch.size()] = position;
+      batch.add(record);
+    }
+    return new Batch(batch, ends);
+  }
+
+  /**
+   * Remove the records of a batch that have been handled. Records evicted since the batch was read
+   * are already gone and are not counted again.
+   *
+   * @param batch A batch returned by {@link #read}
+   * @param unreadable Records in the batch that could not be decoded and count as dropped
+   */
+  public synchronized void commit(Batch batch, int unreadable) {
+    int removed = 0;
+    for (long end : batch.ends) {
+      if (end > head) {
+        removed++;
+      }
+    }
+    if (removed == 0) {
+      return;
+    }
+    head = batch.ends[batch.ends.length - 1];
+    records -= removed;
+    writeHeader();
+    int dropped = Math.min(unreadable, removed);
+    metrics.recordDropped(dropped);
+    metrics.recordRecovered(removed - dropped);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  /** Load head and tail from a valid header, or reset the header to an empty ring. */
+  private void recover() {
+    head = map.getLong(HEAD_OFFSET);
+    tail = map.getLong(TAIL_OFFSET);
+    if (map.getInt(MAGIC_OFFSET) == MAGIC
+        && map.getInt(VERSION_OFFSET) == VERSION
+        && map.getLong(CAPACITY_OFFSET) == capacity
+        && head >= 0
+        && head <= tail
+        && tail - head <= capacity
+        && countRecords()) {
+      return;
+    }
+    records = 0;
+    map.putInt(MAGIC_OFFSET, MAGIC);
+    map.putInt(VERSION_OFFSET, VERSION);
+    map.putLong(CAPACITY_OFFSET, capacity);
+    head = 0;
+    tail = 0;
+    writeHeader();
+  }
+
+  /** Walk the records between head and tail, returning false if the chain is inconsistent. */
+  private boolean countRecords() {
+    long position = head;
+    while (position < tail) {
+      int length = readLength(position);
+      if (length < 0 || length > capacity - LENGTH_BYTES) {
+        return false;
+      }
+      position += LENGTH_BYTES + length;
+      records++;
+    }
+    return position == tail;
+  }
+
+  private void writeHeader() {
+    map.putLong(HEAD_OFFSET, head);
+    map.putLong(TAIL_OFFSET, tail);
+  }
+
+  private int readLength(long position) {
+    get(position, lengthScratch);
+    return (lengthScratch[0] & 0xFF) << 24
+        | (lengthScratch[1] & 0xFF) << 16
+        | (lengthScratch[2] & 0xFF) << 8
+        | (lengthScratch[3] & 0xFF);
+  }
+
+  private void writeLength(long position, int length) {
+    lengthScratch[0] = (byte) (length >>> 24);
+    lengthScratch[1] = (byte) (length >>> 16);
+    lengthScratch[2] = (byte) (length >>> 8);
+    lengthScratch[3] = (byte) length;
+    put(position, lengthScratch);
+  }
+
+  /** Copy bytes into the ring at a logical position, wrapping at the end of the data area. */
+  private void put(long position, byte[] source) {
+    int offset = (int) (position % capacity);
+    int first = Math.min(source.length, capacity - offset);
+    map.put(HEADER_BYTES + offset, source, 0, first);
+    if (first < source.length) {
+      map.put(HEADER_BYTES, source, first, source.length - first);
+    }
+  }
+
+  /** Copy bytes out of the ring at a logical position, wrapping at the end of the data area. */
+  private void get(long position, byte[] target) {
+    int offset = (int) (position % capacity);
+    int first = Math.min(target.length, capacity - offset);
+    map.get(HEADER_BYTES + offset, target, 0, first);
+    if (first < target.length) {
+      map.get(HEADER_BYTES, target, first, target.length - first);
+    }
+  }
+
+  /** Records read from the store, in the order they were appended. */
+  public static final class Batch {
+    private final List<byte[]> records;
+    private final long[] ends;
+
+    private Batch(List<byte[]> records, long[] ends) {
+      this.records = records;
+      this.ends = records.size() == ends.length ? ends : Arrays.copyOf(ends, records.size());
+    }
+
+    /**
+     * Gets the record bytes.
+     *
+     * @return The records
+     */
+    public List<byte[]> records() {
+      return records;
+    }
+
+    /**
+     * Check whether the batch holds no records.
+     *
+     * @return Whether the batch is empty
+     */
+    public boolean isEmpty() {
+      return records.isEmpty();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.example.xray.spill;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+/** Immutable span read back from the spill store by {@link SpanRecordCodec}. */
+final class SpilledSpanData implements SpanData {
+
+  private final SpanContext spanContext;
+  private final SpanContext parentSpanContext;
+  private final SpanKind kind;
+  private final String name;
+  private final long startEpochNanos;
+  private final long endEpochNanos;
+  private final StatusData status;
+  private final InstrumentationScopeInfo scope;
+  private final Resource resource;
+  private final Attributes attributes;
+  private final int totalAttributeCount;
+  private final List<EventData> events;
+  private final int totalRecordedEvents;
+  private final int totalRecordedLinks;
+
+  SpilledSpanData(
+      SpanContext spanContext,
+      SpanContext parentSpanContext,
+      SpanKind kind,
+      String name,
+      long startEpochNanos,
+      long endEpochNanos,
+      StatusData status,
+      InstrumentationScopeInfo scope,
+      Resource resource,
+      Attributes attributes,
+      int totalAttributeCount,
+      List<EventData> events,
+      int totalRecordedEvents,
+      int totalRecordedLinks) {
+    this.spanContext = spanContext;
+    this.parentSpanContext = parentSpanContext;
+    this.kind = kind;
+    this.name = name;
+    this.startEpochNanos = startEpochNanos;
+    this.endEpochNanos = endEpochNanos;
+    this.status = status;
+    this.scope = scope;
+    this.resource = resource;
+    this.attributes = attributes;
+    this.totalAttributeCount = totalAttributeCount;
+    this.events = List.copyOf(events);
+    this.totalRecordedEvents = totalRecordedEvents;
+    this.totalRecordedLinks = totalRecordedLinks;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public SpanKind getKind() {
+    return kind;
+  }
+
+  @Override
+  public SpanContext getSpanContext() {
+    return spanContext;
+  }
+
+  @Override
+  public SpanContext getParentSpanContext() {
+    return parentSpanContext;
+  }
+
+  @Override
+  public StatusData getStatus() {
+    return status;
+  }
+
+  @Override
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  @Override
+  public Attributes getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public List<EventData> getEvents() {
+    return events;
+  }
+
+  @Override
+  public List<LinkData> getLinks() {
+    return List.of();
+  }
+
+  @Override
+  public long getEndEpochNanos() {
+    return endEpochNanos;
+  }
+
+  @Override
+  public boolean hasEnded() {
+    return true;
+  }
+
+  @Override
+  public int getTotalRecordedEvents() {
+    return totalRecordedEvents;
+  }
+
+  @Override
+  public int getTotalRecordedLinks() {
+    return totalRecordedLinks;
+  }
+
+  @Override
+  public int getTotalAttributeCount() {
+    return totalAttributeCount;
+  }
+
+  @Override
+  @Deprecated
+  public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+    return InstrumentationLibraryInfo.create(scope.getName(), scope.getVersion());
+  }
+
+  @Override
+  public InstrumentationScopeInfo getInstrumentationScopeInfo() {
+    return scope;
+  }
+
+  @Override
+  public Resource getResource() {
+    return resource;
+  }
+}
@@ -0,0 +1,171 @@
+package com.example.xray.spill;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exporter decorator that writes spans to a {@link SpillStore} instead of losing them. A batch is
+ * spilled when its export fails, or when {@link #spillInFlight()} is called because a flush missed
+ * its deadline. After an export succeeds, spilled spans are re-exported in the background, oldest
+ * first, and only removed from the store once that export succeeds too.
+ *
+ * <p>A batch spilled on a missed deadline may still be delivered by the original export, so the
+ * backend can see a span twice; X-Ray keeps one document per segment ID.
+ */
+public final class SpillingSpanExporter implements SpanExporter {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpillingSpanExporter.class);
+
+  private final SpanExporter delegate;
+  private final SpillStore store;
+  private final Executor drainExecutor;
+  private final int drainBatchSize;
+  private final long drainTimeoutNanos;
+  private final Set<InFlightExport> inFlight = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  /**
+   * Creates the exporter.
+   *
+   * @param delegate The exporter that sends spans to the backend
+   * @param store Where spans that could not be exported are kept
+   * @param drainExecutor Runs background re-exports of spilled spans
+   * @param drainBatchSize The most spilled spans to re-export at once
+   * @param drainTimeoutNanos Longest time to wait for one re-export
+   */
+  SpillingSpanExporter(
+      SpanExporter delegate,
+      SpillStore store,
+      Executor drainExecutor,
+      int drainBatchSize,
+      long drainTimeoutNanos) {
+    this.delegate = delegate;
+    this.store = store;
+    this.drainExecutor = drainExecutor;
+    this.drainBatchSize = drainBatchSize;
+    this.drainTimeoutNanos = drainTimeoutNanos;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    InFlightExport export = new InFlightExport(spans);
+    inFlight.add(export);
+    CompletableResultCode result;
+    try {
+      result = delegate.export(spans);
+    } catch (RuntimeException e) {
+      logger.error("Span export failed, spilling {} spans", spans.size(), e);
+      inFlight.remove(export);
+      export.spill();
+      return CompletableResultCode.ofFailure();
+    }
+    result.whenComplete(
+        () -> {
+          inFlight.remove(export);
+          if (result.isSuccess()) {
+            drainInBackground();
+          } else {
+            export.spill();
+          }
+        });
+    return result;
+  }
+
+  /** Spill every batch whose export is still running. Called when a flush misses its deadline. */
+  public void spillInFlight() {
+    for (InFlightExport export : inFlight) {
+      inFlight.remove(export);
+      export.spill();
+    }
+  }
+
+  /** Start re-exporting spilled spans unless the store is empty or a drain is already running. */
+  void drainInBackground() {
+    if (store.isEmpty() || !draining.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      drainExecutor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      draining.set(false);
+    }
+  }
+
+  private void drain() {
+    try {
+      while (true) {
+        SpillStore.Batch batch = store.read(drainBatchSize);
+        if (batch.isEmpty()) {
+          return;
+        }
+        List<SpanData> spans = new ArrayList<>(batch.records().size());
+        int unreadable = 0;
+        for (byte[] record : batch.records()) {
+          try {
+            spans.add(SpanRecordCodec.decode(record));
+          } catch (IOException e) {
+            unreadable++;
+            logger.warn("Discarding unreadable spilled span", e);
+          }
+        }
+        if (!spans.isEmpty()) {
+          CompletableResultCode result =
+              delegate.export(spans).join(drainTimeoutNanos, TimeUnit.NANOSECONDS);
+          if (!result.isSuccess()) {
+            logger.debug("Re-export of {} spilled spans failed, will retry", spans.size());
+            return;
+          }
+        }
+        store.commit(batch, unreadable);
+        logger.debug("Recovered {} spilled spans: {}", spans.size(), store.metrics());
+      }
+    } finally {
+      draining.set(false);
+    }
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+
+  /** A batch handed to the delegate that has not been confirmed yet. */
+  private final class InFlightExport {
+    private final Collection<SpanData> spans;
+    private final AtomicBoolean spilled = new AtomicBoolean();
+
+    private InFlightExport(Collection<SpanData> spans) {
+      this.spans = spans;
+    }
+
+    private void spill() {
+      if (!spilled.compareAndSet(false, true)) {
+        return;
+      }
+      for (SpanData span : spans) {
+        store.append(SpanRecordCodec.encode(span));
+      }
+      logger.warn("Spilled {} spans that could not be exported: {}", spans.size(), store.metrics());
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.example.xray.startup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.example.xray.AlbLambdaHandler;
+import com.example.xray.metrics.PhaseMetrics;
+import com.example.xray.stream.AlbStreamHandler;
+
+/**
+ * CRaC resource that primes the request path before a checkpoint, so a SnapStart or CRaC restore
+ * starts with classes loaded and the JIT warmed on the code real requests run. Synthetic ALB events
+ * go through {@link AlbLambdaHandler} and {@link AlbStreamHandler}: the X-Ray and W3C propagators,
+ * span building, routing, JSON response writing, both header representations, 404 and 405. Every
+ * event carries an unsampled trace header, so the sampler drops the priming spans and nothing is
+ * exported. Phase metrics recorded while priming are discarded and the startup timeline ignores the
+ * priming invocations.
+ *
+ * <p>After restore the startup timeline starts again and {@link CheckpointRestored} is fired so the
+ * span exporters reopen their sockets. On a JVM without CRaC the resource is registered but never
+ * called.
+ */
+@ApplicationScoped
+public class CheckpointPriming implements Resource {
+
+  private static final Logger logger = LoggerFactory.getLogger(CheckpointPriming.class);
+
+  private static final String TRACE_ID = "5759e988bd862e3fe1be46a994272793";
+  private static final String PARENT_ID = "53995c3f42cd8ad8";
+  private static final String XRAY_HEADER =
+      "Root=1-5759e988-bd862e3fe1be46a994272793;Parent=" + PARENT_ID + ";Sampled=0";
+  private static final String TRACEPARENT = "00-" + TRACE_ID + "-" + PARENT_ID + "-00";
+
+  private static final byte[] STREAM_EVENT =
+      ("{\"requestContext\":{\"elb\":{\"targetGroupArn\":"
+              + "\"arn:aws:elasticloadbalancing:us-east-1:000000000000:targetgroup/priming/0\"}},"
+              + "\"httpMethod\":\"GET\",\"path\":\"/api/hello\",\"queryStringParameters\":{},"
+              + "\"headers\":{\"accept\":\"application/json\",\"x-amzn-trace-id\":\""
+              + XRAY_HEADER
+              + "\"},\"body\":\"\",\"isBase64Encoded\":false}")
+          .getBytes(StandardCharsets.UTF_8);
+
+  @Inject AlbLambdaHandler handler;
+
+  @Inject AlbStreamHandler streamHandler;
+
+  @Inject StartupTimeline timeline;
+
+  @Inject PhaseMetrics phaseMetrics;
+
+  @Inject Event<CheckpointRestored> restored;
+
+  @ConfigProperty(name = "xray.startup.priming.iterations", defaultValue = "100")
+  int iterations;
+
+  /** Register with the global CRaC context, which keeps only a weak reference to this bean. */
+  void register() {
+    Core.getGlobalContext().register(this);
+    logger.debug("Registered checkpoint priming with {} iterations", iterations);
+  }
+
+  @Override
+  public void beforeCheckpoint(Context<? extends Resource> context) {
+    try {
+      prime(iterations);
+    } catch (IOException | RuntimeException e) {
+      // A checkpoint without priming is still better than no checkpoint
+      logger.warn("Checkpoint priming failed, checkpointing unprimed", e);
+    }
+  }
+
+  @Override
+  public void afterRestore(Context<? extends Resource> context) {
+    timeline.restored();
+    restored.fire(new CheckpointRestored());
+    logger.info("Restored from checkpoint");
+  }
+
+  /**
+   * Run the synthetic events through the handlers.
+   *
+   * @param iterations Number of times to run the full set of events
+   * @throws IOException if the streaming handler fails to read or write an event
+   */
+  public void prime(int iterations) throws IOException {
+    List<ApplicationLoadBalancerRequestEvent> events =
+        List.of(
+            event("GET", "/api/hello", Map.of("x-amzn-trace-id", XRAY_HEADER), false),
+            event("GET", "/api/hello", Map.of("traceparent", TRACEPARENT), true),
+            event("GET", "/api/missing", Map.of("x-amzn-trace-id", XRAY_HEADER), false),
+            event("POST", "/api/hello", Map.of("x-amzn-trace-id", XRAY_HEADER), true));
+    long start = System.nanoTime();
+    timeline.priming(true);
+    try {
+      for (int i = 0; i < iterations; i++) {
+        for (ApplicationLoadBalancerRequestEvent event : events) {
+          handler.handleRequest(event, PrimingContext.INSTANCE);
+        }
+        streamHandler.handleRequest(
+            new ByteArrayInputStream(STREAM_EVENT),
+            OutputStream.nullOutputStream(),
+            PrimingContext.INSTANCE);
+      }
+    } finally {
+      phaseMetrics.discard();
+      timeline.priming(false);
+    }
+    logger.info(
+        "Primed {} invocations before checkpoint in {} ms",
+        iterations * (events.size() + 1),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private static ApplicationLoadBalancerRequestEvent event(
+      String method, String path, Map<String, String> traceHeaders, boolean multiValue) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod(method);
+    event.setPath(path);
+    event.setBody("");
+    event.setIsBase64Encoded(false);
+    if (multiValue) {
+      Map<String, List<String>> headers = new HashMap<>();
+      headers.put("accept", List.of("application/json"));
+      traceHeaders.forEach((name, value) -> headers.put(name, List.of(value)));
+      event.setMultiValueHeaders(headers);
+      event.setMultiValueQueryStringParameters(Map.of());
+    } else {
+      Map<String, String> headers = new HashMap<>(traceHeaders);
+      headers.put("accept", "application/json");
+      event.setHeaders(headers);
+      event.setQueryStringParameters(Map.of());
+    }
+    return event;
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.xray.startup;
+
+/**
+ * CDI event fired after the JVM is restored from a CRaC or SnapStart checkpoint. Beans holding
+ * sockets or connections opened before the checkpoint observe it to open them again.
+ */
+public final class CheckpointRestored {
+
+  CheckpointRestored() {}
+}
@@ -0,0 +1,69 @@
+package com.example.xray.startup;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/** Lambda {@link Context} for the synthetic invocations run while priming. */
+final class PrimingContext implements Context {
+
+  static final PrimingContext INSTANCE = new PrimingContext();
+
+  private PrimingContext() {}
+
+  @Override
+  public String getAwsRequestId() {
+    return "checkpoint-priming";
+  }
+
+  @Override
+  public String getLogGroupName() {
+    return "/aws/lambda/x-ray-backend";
+  }
+
+  @Override
+  public String getLogStreamName() {
+    return "checkpoint-priming";
+  }
+
+  @Override
+  public String getFunctionName() {
+    return "x-ray-backend";
+  }
+
+  @Override
+  public String getFunctionVersion() {
+    return "$LATEST";
+  }
+
+  @Override
+  public String getInvokedFunctionArn() {
+    return "arn:aws:lambda:us-east-1:000000000000:function:x-ray-backend";
+  }
+
+  @Override
+  public CognitoIdentity getIdentity() {
+    return null;
+  }
+
+  @Override
+  public ClientContext getClientContext() {
+    return null;
+  }
+
+  @Override
+  public int getRemainingTimeInMillis() {
+    return 30000;
+  }
+
+  @Override
+  public int getMemoryLimitInMB() {
+    return 1024;
+  }
+
+  @Override
+  public LambdaLogger getLogger() {
+    return null;
+  }
+}
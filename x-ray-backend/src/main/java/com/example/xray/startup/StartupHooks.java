@@ -0,0 +1,51 @@
+package com.example.xray.startup;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Tracer;
+import io.quarkus.runtime.StartupEvent;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs when Quarkus has started, during the Lambda init phase: marks the end of the bootstrap,
+ * creates the OpenTelemetry SDK and its exporters so their cost is measured here instead of landing
+ * in the first request, and registers {@link CheckpointPriming} with CRaC.
+ */
+@ApplicationScoped
+public class StartupHooks {
+
+  private static final Logger logger = LoggerFactory.getLogger(StartupHooks.class);
+
+  @Inject StartupTimeline timeline;
+
+  @Inject Instance<OpenTelemetry> openTelemetry;
+
+  @Inject Instance<Tracer> tracer;
+
+  @Inject CheckpointPriming priming;
+
+  @ConfigProperty(name = "xray.startup.priming.enabled", defaultValue = "true")
+  boolean primingEnabled;
+
+  void onStart(@Observes StartupEvent event) {
+    timeline.bootstrapped();
+
+    long start = System.nanoTime();
+    openTelemetry.get().getTracerProvider();
+    tracer.get();
+    timeline.telemetryInitialized(start, System.nanoTime());
+
+    if (primingEnabled) {
+      priming.register();
+    } else {
+      logger.debug("Checkpoint priming disabled");
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.example.xray.startup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.json.JsonBuffer;
+
+/**
+ * Init timeline of one Lambda environment, reported once the first real invocation has ended: as a
+ * {@code startup} span with a child span per phase, and as one CloudWatch Embedded Metric Format
+ * line with the phase durations in milliseconds.
+ *
+ * <p>On a cold start the phases are JVM start to the Quarkus {@code StartupEvent} ({@code
+ * bootstrap}, covering class loading and ArC), OpenTelemetry SDK and exporter creation ({@code
+ * otel.init}) and the first {@code handleRequest} ({@code first_request}). After a CRaC or
+ * SnapStart restore the timeline starts again at the restore, with {@code restore} running from the
+ * restore to the first invocation. Invocations made while priming before a checkpoint are ignored.
+ */
+public final class StartupTimeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+  private final boolean enabled;
+  private final Supplier<Tracer> tracer;
+  private final String namespace;
+  private final String initType;
+  private final Consumer<String> sink;
+  private final AtomicBoolean reported = new AtomicBoolean();
+
+  private volatile long epochAnchorNanos;
+  private volatile long nanoTimeAnchor;
+  private volatile long processStartEpochNanos;
+  private volatile long bootstrappedEpochNanos;
+  private volatile long telemetryStartEpochNanos;
+  private volatile long telemetryEndEpochNanos;
+  private volatile long restoredEpochNanos;
+  private volatile boolean priming;
+
+  StartupTimeline(
+      boolean enabled,
+      Supplier<Tracer> tracer,
+      String namespace,
+      String initType,
+      long processStartEpochNanos,
+      Consumer<String> sink) {
+    this.enabled = enabled;
+    this.tracer = tracer;
+    this.namespace = namespace;
+    this.initType = initType;
+    this.processStartEpochNanos = processStartEpochNanos;
+    this.sink = sink;
+    anchor();
+  }
+
+  /**
+   * Create a timeline that records nothing.
+   *
+   * @return A disabled timeline
+   */
+  public static StartupTimeline disabled() {
+    return new StartupTimeline(false, () -> null, "", "", 0, line -> {});
+  }
+
+  /**
+   * Create a timeline that starts at the process start time and writes its EMF line to standard
+   * output.
+   *
+   * @param tracer Supplies the tracer when the timeline is reported, so creating the timeline does
+   *     not initialize OpenTelemetry
+   * @param namespace CloudWatch metric namespace
+   * @return The timeline
+   */
+  public static StartupTimeline create(Supplier<Tracer> tracer, String namespace) {
+    String initType = System.getenv("AWS_LAMBDA_INITIALIZATION_TYPE");
+    long processStart =
+        ProcessHandle.current()
+            .info()
+            .startInstant()
+            .map(StartupTimeline::toEpochNanos)
+            .orElse(0L);
+    return new StartupTimeline(
+        true,
+        tracer,
+        namespace,
+        initType != null ? initType : "on-demand",
+        processStart,
+        System.out::println);
+  }
+
+  /** Mark the end of the Quarkus bootstrap. */
+  public void bootstrapped() {
+    bootstrappedEpochNanos = epochNanos(System.nanoTime());
+  }
+
+  /**
+   * Record OpenTelemetry SDK and exporter initialization.
+   *
+   * @param startNanoTime {@link System#nanoTime()} before initialization
+   * @param endNanoTime {@link System#nanoTime()} after initialization
+   */
+  public void telemetryInitialized(long startNanoTime, long endNanoTime) {
+    telemetryStartEpochNanos = epochNanos(startNanoTime);
+    telemetryEndEpochNanos = epochNanos(endNanoTime);
+  }
+
+  /**
+   * Set whether invocations are priming runs that must not count as the first invocation.
+   *
+   * @param priming True while priming
+   */
+  public void priming(boolean priming) {
+    this.priming = priming;
+  }
+
+  /**
+   * Start the timeline again after a checkpoint restore. The wall clock moved while the snapshot
+   * was stored, so the clock anchor is taken again too.
+   */
+  public void restored() {
+    anchor();
+    restoredEpochNanos = epochNanos(System.nanoTime());
+    reported.set(false);
+  }
+
+  /**
+   * Report the timeline if this was the first invocation since start or restore. Costs one volatile
+   * read on every later invocation.
+   *
+   * @param startNanoTime {@link System#nanoTime()} at the start of the invocation
+   * @return True if startup spans were ended and need flushing with this invocation's spans
+   */
+  public boolean invocationEnded(long startNanoTime) {
+    if (!enabled || priming || reported.get() || !reported.compareAndSet(false, true)) {
+      return false;
+    }
+    try {
+      report(epochNanos(startNanoTime), epochNanos(System.nanoTime()));
+      return true;
+    } catch (RuntimeException e) {
+      logger.warn("Failed to report the startup timeline", e);
+      return false;
+    }
+  }
+
+  private void report(long firstRequestStart, long firstRequestEnd) {
+    boolean restore = restoredEpochNanos != 0;
+    long start = restore ? restoredEpochNanos : initStart();
+    Span root =
+        tracer
+            .get()
+            .spanBuilder("startup")
+            .setNoParent()
+            .setSpanKind(SpanKind.INTERNAL)
+            .setStartTimestamp(start, TimeUnit.NANOSECONDS)
+            .setAttribute("faas.coldstart", true)
+            .setAttribute("aws.lambda.initialization_type", initType)
+            .setAttribute("startup.restored", restore)
+            .startSpan();
+    Context parent = Context.root().with(root);
+
+    StringBuilder summary = new StringBuilder();
+    JsonBuffer line = JsonBuffer.create();
+    JsonBuffer values = JsonBuffer.create();
+    line.raw("{\"_aws\":{\"Timestamp\":").number(TimeUnit.NANOSECONDS.toMillis(firstRequestEnd));
+    line.raw(",\"CloudWatchMetrics\":[{\"Namespace\":").string(namespace);
+    line.raw(",\"Dimensions\":[[\"InitType\"]],\"Metrics\":[");
+
+    if (restore) {
+      phase(parent, "restore", restoredEpochNanos, firstRequestStart, line, values, summary);
+    } else {
+      if (processStartEpochNanos != 0 && bootstrappedEpochNanos != 0) {
+        phase(
+            parent,
+            "bootstrap",
+            processStartEpochNanos,
+            bootstrappedEpochNanos,
+            line,
+            values,
+            summary);
+      }
+      if (telemetryEndEpochNanos != 0) {
+        phase(
+            parent,
+            "otel.init",
+            telemetryStartEpochNanos,
+            telemetryEndEpochNanos,
+            line,
+            values,
+            summary);
+      }
+    }
+    phase(parent, "first_request", firstRequestStart, firstRequestEnd, line, values, summary);
+    phase(null, "total", start, firstRequestEnd, line, values, summary);
+    root.end(firstRequestEnd, TimeUnit.NANOSECONDS);
+
+    line.raw("]}]},\"InitType\":").string(initType).raw(values.chars().toString()).raw('}');
+    sink.accept(line.chars().toString());
+    logger.info("Startup timeline ({}): {}", initType, summary);
+  }
+
+  /** End a child span for the phase and add its duration to the EMF line and the log summary. */
+  private void phase(
+      Context parent,
+      String name,
+      long startEpochNanos,
+      long endEpochNanos,
+      JsonBuffer line,
+      JsonBuffer values,
+      StringBuilder summary) {
+    if (parent != null) {
+      tracer
+          .get()
+          .spanBuilder(name)
+          .setParent(parent)
+          .setSpanKind(SpanKind.INTERNAL)
+          .setStartTimestamp(startEpochNanos, TimeUnit.NANOSECONDS)
+          .startSpan()
+          .end(endEpochNanos, TimeUnit.NANOSECONDS);
+    }
+    double millis = (endEpochNanos - startEpochNanos) / 1_000_000.0;
+    String metric = "startup." + name;
+    if (values.length() > 0) {
+      line.raw(',');
+      summary.append(", ");
+    }
+    line.raw("{\"Name\":").string(metric).raw(",\"Unit\":\"Milliseconds\"}");
+    values.raw(',').string(metric).raw(':').number(millis);
+    summary.append(name).append('=').append(String.format("%.1fms", millis));
+  }
+
+  private long initStart() {
+    if (processStartEpochNanos != 0) {
+      return processStartEpochNanos;
+    }
+    return bootstrappedEpochNanos != 0 ? bootstrappedEpochNanos : telemetryStartEpochNanos;
+  }
+
+  private void anchor() {
+    nanoTimeAnchor = System.nanoTime();
+    epochAnchorNanos = toEpochNanos(Instant.now());
+  }
+
+  private long epochNanos(long nanoTime) {
+    return epochAnchorNanos + (nanoTime - nanoTimeAnchor);
+  }
+
+  private static long toEpochNanos(Instant instant) {
+    return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+  }
+}
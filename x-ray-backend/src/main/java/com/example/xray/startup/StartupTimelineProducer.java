@@ -0,0 +1,31 @@
+package com.example.xray.startup;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.api.trace.Tracer;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/** CDI producer for the {@link StartupTimeline} configured by {@code xray.startup.timeline}. */
+@ApplicationScoped
+public class StartupTimelineProducer {
+
+  // Resolved only when the timeline is reported, so OpenTelemetry init is timed on its own
+  @Inject Instance<Tracer> tracer;
+
+  @ConfigProperty(name = "xray.startup.timeline.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.metrics.namespace", defaultValue = "x-ray-backend")
+  String namespace;
+
+  @Produces
+  @Singleton
+  StartupTimeline startupTimeline() {
+    return enabled ? StartupTimeline.create(tracer::get, namespace) : StartupTimeline.disabled();
+  }
+}
@@ -0,0 +1,173 @@
+package com.example.xray.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Reads an ALB event with a streaming parser. The method, path, headers and base64 flag are read in
+ * one pass; the body, the query parameters and the request context are only located, and parsed
+ * from the retained bytes the first time they are read.
+ */
+public final class AlbEventReader {
+
+  static final JsonFactory JSON = JsonFactory.builder().build();
+
+  private AlbEventReader() {}
+
+  /**
+   * Read an event from a Lambda input stream.
+   *
+   * @param in The input stream; read to the end but not closed
+   * @return The event
+   * @throws IOException if the stream cannot be read or is not an ALB event
+   */
+  public static LazyAlbRequestEvent read(InputStream in) throws IOException {
+    return read(in.readAllBytes());
+  }
+
+  /**
+   * Read an event from its JSON bytes. The array is retained by the event and must not change.
+   *
+   * @param json The event JSON
+   * @return The event
+   * @throws IOException if the bytes are not an ALB event
+   */
+  public static LazyAlbRequestEvent read(byte[] json) throws IOException {
+    LazyAlbRequestEvent event = new LazyAlbRequestEvent(json);
+    try (JsonParser parser = JSON.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "ALB event must be a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        int offset = (int) parser.currentTokenLocation().getByteOffset();
+        switch (name) {
+          case "httpMethod" -> event.setHttpMethod(parser.getText());
+          case "path" -> event.setPath(parser.getText());
+          case "headers" -> event.setHeaders(readStringMap(parser));
+          case "multiValueHeaders" -> event.setMultiValueHeaders(readListMap(parser));
+          case "isBase64Encoded" -> event.setIsBase64Encoded(parser.getValueAsBoolean());
+          case "body" -> event.deferBody(offset);
+          case "queryStringParameters" -> {
+            event.deferQueryStringParameters(offset);
+            parser.skipChildren();
+          }
+          case "multiValueQueryStringParameters" -> {
+            event.deferMultiValueQueryStringParameters(offset);
+            parser.skipChildren();
+          }
+          case "requestContext" -> {
+            event.deferRequestContext(offset);
+            parser.skipChildren();
+          }
+          default -> parser.skipChildren();
+        }
+      }
+    }
+    return event;
+  }
+
+  static String readString(byte[] json, int offset) {
+    try (JsonParser parser = parserAt(json, offset)) {
+      return parser.getValueAsString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static Map<String, String> readStringMap(byte[] json, int offset) {
+    try (JsonParser parser = parserAt(json, offset)) {
+      return readStringMap(parser);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static Map<String, List<String>> readListMap(byte[] json, int offset) {
+    try (JsonParser parser = parserAt(json, offset)) {
+      return readListMap(parser);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static ApplicationLoadBalancerRequestEvent.RequestContext readRequestContext(
+      byte[] json, int offset) {
+    ApplicationLoadBalancerRequestEvent.RequestContext context =
+        new ApplicationLoadBalancerRequestEvent.RequestContext();
+    try (JsonParser parser = parserAt(json, offset)) {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("elb".equals(name) && value == JsonToken.START_OBJECT) {
+          ApplicationLoadBalancerRequestEvent.Elb elb =
+              new ApplicationLoadBalancerRequestEvent.Elb();
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("targetGroupArn".equals(field)) {
+              elb.setTargetGroupArn(parser.getValueAsString());
+            } else {
+              parser.skipChildren();
+            }
+          }
+          context.setElb(elb);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return context;
+  }
+
+  /** Create a parser positioned on the value that starts at {@code offset}. */
+  private static JsonParser parserAt(byte[] json, int offset) throws IOException {
+    JsonParser parser = JSON.createParser(json, offset, json.length - offset);
+    parser.nextToken();
+    return parser;
+  }
+
+  private static Map<String, String> readStringMap(JsonParser parser) throws IOException {
+    Map<String, String> map = new HashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      parser.nextToken();
+      map.put(name, parser.getValueAsString());
+    }
+    return map;
+  }
+
+  private static Map<String, List<String>> readListMap(JsonParser parser) throws IOException {
+    Map<String, List<String>> map = new HashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        parser.skipChildren();
+        continue;
+      }
+      List<String> values = new ArrayList<>(1);
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        values.add(parser.getValueAsString());
+      }
+      map.put(name, values);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.xray.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes an ALB response straight to the Lambda output stream with a streaming generator. Null
+ * properties are left out, as the Lambda {@code ObjectMapper} does, so only the header
+ * representation the response carries is written.
+ */
+public final class AlbResponseWriter {
+
+  private AlbResponseWriter() {}
+
+  /**
+   * Write a response.
+   *
+   * @param response The response
+   * @param out The output stream; flushed but not closed
+   * @throws IOException if the stream cannot be written
+   */
+  public static void write(ApplicationLoadBalancerResponseEvent response, OutputStream out)
+      throws IOException {
+    try (JsonGenerator generator = AlbEventReader.JSON.createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartObject();
+      generator.writeNumberField("statusCode", response.getStatusCode());
+      if (response.getStatusDescription() != null) {
+        generator.writeStringField("statusDescription", response.getStatusDescription());
+      }
+      if (response.getHeaders() != null) {
+        generator.writeObjectFieldStart("headers");
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+          generator.writeStringField(header.getKey(), header.getValue());
+        }
+        generator.writeEndObject();
+      }
+      if (response.getMultiValueHeaders() != null) {
+        generator.writeObjectFieldStart("multiValueHeaders");
+        for (Map.Entry<String, List<String>> header : response.getMultiValueHeaders().entrySet()) {
+          generator.writeArrayFieldStart(header.getKey());
+          for (String value : header.getValue()) {
+            generator.writeString(value);
+          }
+          generator.writeEndArray();
+        }
+        generator.writeEndObject();
+      }
+      if (response.getBody() != null) {
+        generator.writeStringField("body", response.getBody());
+      }
+      generator.writeBooleanField("isBase64Encoded", response.getIsBase64Encoded());
+      generator.writeEndObject();
+    }
+    out.flush();
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.xray.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.example.xray.AlbLambdaHandler;
+
+/**
+ * Streaming entry point, selected with {@code quarkus.lambda.handler=alb-stream}. Reads the ALB
+ * event with {@link AlbEventReader} instead of Jackson databind, runs it through {@link
+ * AlbLambdaHandler} (tracing, routing and flushing are unchanged), and writes the response with
+ * {@link AlbResponseWriter}.
+ */
+@Named("alb-stream")
+@ApplicationScoped
+public class AlbStreamHandler implements RequestStreamHandler {
+
+  @Inject AlbLambdaHandler handler;
+
+  @Override
+  public void handleRequest(InputStream input, OutputStream output, Context context)
+      throws IOException {
+    LazyAlbRequestEvent event = AlbEventReader.read(input);
+    AlbResponseWriter.write(handler.handleRequest(event, context), output);
+  }
+}
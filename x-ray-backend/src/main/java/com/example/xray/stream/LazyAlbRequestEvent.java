@@ -0,0 +1,114 @@
+package com.example.xray.stream;
+
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+
+/**
+ * ALB request event read by {@link AlbEventReader}. The body, the query parameters and the request
+ * context stay as offsets into the raw event bytes until a getter asks for them; setting a field
+ * discards its deferred value. Like the event it extends, it is not thread-safe.
+ */
+public final class LazyAlbRequestEvent extends ApplicationLoadBalancerRequestEvent {
+
+  private static final int RESOLVED = -1;
+
+  private final transient byte[] source;
+  private int bodyOffset = RESOLVED;
+  private int queryStringParametersOffset = RESOLVED;
+  private int multiValueQueryStringParametersOffset = RESOLVED;
+  private int requestContextOffset = RESOLVED;
+
+  LazyAlbRequestEvent(byte[] source) {
+    this.source = source;
+  }
+
+  void deferBody(int offset) {
+    bodyOffset = offset;
+  }
+
+  void deferQueryStringParameters(int offset) {
+    queryStringParametersOffset = offset;
+  }
+
+  void deferMultiValueQueryStringParameters(int offset) {
+    multiValueQueryStringParametersOffset = offset;
+  }
+
+  void deferRequestContext(int offset) {
+    requestContextOffset = offset;
+  }
+
+  /**
+   * Gets the size of the raw event.
+   *
+   * @return The event size in bytes
+   */
+  public int sizeInBytes() {
+    return source.length;
+  }
+
+  @Override
+  public String getBody() {
+    if (bodyOffset != RESOLVED) {
+      super.setBody(AlbEventReader.readString(source, bodyOffset));
+      bodyOffset = RESOLVED;
+    }
+    return super.getBody();
+  }
+
+  @Override
+  public void setBody(String body) {
+    bodyOffset = RESOLVED;
+    super.setBody(body);
+  }
+
+  @Override
+  public Map<String, String> getQueryStringParameters() {
+    if (queryStringParametersOffset != RESOLVED) {
+      super.setQueryStringParameters(
+          AlbEventReader.readStringMap(source, queryStringParametersOffset));
+      queryStringParametersOffset = RESOLVED;
+    }
+    return super.getQueryStringParameters();
+  }
+
+  @Override
+  public void setQueryStringParameters(Map<String, String> queryStringParameters) {
+    queryStringParametersOffset = RESOLVED;
+    super.setQueryStringParameters(queryStringParameters);
+  }
+
+  @Override
+  public Map<String, List<String>> getMultiValueQueryStringParameters() {
+    if (multiValueQueryStringParametersOffset != RESOLVED) {
+      super.setMultiValueQueryStringParameters(
+          AlbEventReader.readListMap(source, multiValueQueryStringParametersOffset));
+      multiValueQueryStringParametersOffset = RESOLVED;
+    }
+    return super.getMultiValueQueryStringParameters();
+  }
+
+  @Override
+  public void setMultiValueQueryStringParameters(
+      Map<String, List<String>> multiValueQueryStringParameters) {
+    multiValueQueryStringParametersOffset = RESOLVED;
+    super.setMultiValueQueryStringParameters(multiValueQueryStringParameters);
+  }
+
+  @Override
+  public RequestContext getRequestContext() {
+    if (requestContextOffset != RESOLVED) {
+      super.setRequestContext(AlbEventReader.readRequestContext(source, requestContextOffset));
+      requestContextOffset = RESOLVED;
+    }
+    return super.getRequestContext();
+  }
+
+  @Override
+  public void setRequestContext(RequestContext requestContext) {
+    requestContextOffset = RESOLVED;
+    super.setRequestContext(requestContext);
+  }
+}
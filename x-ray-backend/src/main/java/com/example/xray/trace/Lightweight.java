@@ -0,0 +1,18 @@
+package com.example.xray.trace;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a static {@link SpanTemplate} field of a {@code Routes} bean whose operations are cheap
+ * enough to record as an event on their parent span instead of a child span of their own. The
+ * {@link SpanCoalescer} does so while coalescing is on ({@code xray.trace.coalesce.enabled}),
+ * and still records a child span for an operation that runs past the promotion threshold.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Lightweight {}
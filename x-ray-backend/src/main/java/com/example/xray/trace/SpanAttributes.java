@@ -0,0 +1,48 @@
+package com.example.xray.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+
+/**
+ * Typed keys for the attributes the handler and routes record on every request. Setting an
+ * attribute by name creates its {@link AttributeKey} on each call; these are created once.
+ */
+public final class SpanAttributes {
+
+  /** Request method, also matched by the sampling rules. */
+  public static final AttributeKey<String> HTTP_METHOD = AttributeKey.stringKey("http.method");
+
+  /** Request path, also matched by the sampling rules. */
+  public static final AttributeKey<String> HTTP_TARGET = AttributeKey.stringKey("http.target");
+
+  /** Request path, as read by the X-Ray segment's {@code http} block. */
+  public static final AttributeKey<String> HTTP_URL = AttributeKey.stringKey("http.url");
+
+  /** Response status code. */
+  public static final AttributeKey<Long> HTTP_STATUS_CODE =
+      AttributeKey.longKey("http.status_code");
+
+  /** Lambda request ID of the invocation. */
+  public static final AttributeKey<String> AWS_LAMBDA_REQUEST_ID =
+      AttributeKey.stringKey("aws.lambda.request_id");
+
+  /** Name of the Lambda function. */
+  public static final AttributeKey<String> AWS_LAMBDA_FUNCTION_NAME =
+      AttributeKey.stringKey("aws.lambda.function_name");
+
+  /** The incoming {@code X-Amzn-Trace-Id} header. */
+  public static final AttributeKey<String> XRAY_TRACE_ID = AttributeKey.stringKey("xray.trace_id");
+
+  /** Operation a route's child span performs. */
+  public static final AttributeKey<String> SERVICE_OPERATION =
+      AttributeKey.stringKey("service.operation");
+
+  /** How long a coalesced operation ran, on the event recorded in its place. */
+  public static final AttributeKey<Long> OPERATION_DURATION_NS =
+      AttributeKey.longKey("xray.operation.duration_ns");
+
+  /** Marks a lightweight operation's span recorded because it ran past the promotion threshold. */
+  public static final AttributeKey<Boolean> OPERATION_PROMOTED =
+      AttributeKey.booleanKey("xray.operation.promoted");
+
+  private SpanAttributes() {}
+}
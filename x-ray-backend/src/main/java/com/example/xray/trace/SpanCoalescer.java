@@ -0,0 +1,234 @@
+package com.example.xray.trace;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import com.example.xray.XRayLoggingContext;
+
+/**
+ * Records internal operations either as child spans or, for lightweight ones, as events on their
+ * parent span. A sub-millisecond operation as a child span doubles the spans, export payload and
+ * X-Ray subsegments of its request; as an event it costs one timestamped entry on a span that is
+ * exported anyway.
+ *
+ * <p>A lightweight operation's event is named after its {@link SpanTemplate}, starts when the
+ * operation started, and carries the template's attributes plus {@link
+ * SpanAttributes#OPERATION_DURATION_NS}; the parent also gets an {@code
+ * xray.operation.<name>.duration_ns} attribute. One that runs for the promotion threshold or
+ * longer is recorded as the child span it would otherwise have been, with its real start and end
+ * times and {@link SpanAttributes#OPERATION_PROMOTED}, so slow operations still show in the trace.
+ *
+ * <p>Lines logged during a lightweight operation carry the parent span's IDs, since no span of its
+ * own exists while it runs; other operations push their span's IDs with {@link
+ * XRayLoggingContext#push(io.opentelemetry.api.trace.SpanContext)} as a child span always has.
+ */
+public final class SpanCoalescer {
+
+  private final Tracer tracer;
+  private final Map<String, AttributeKey<Long>> lightweight;
+  private final long promoteAfterNanos;
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong promoted = new AtomicLong();
+
+  private SpanCoalescer(Tracer tracer, Collection<String> lightweightNames, Duration promoteAfter) {
+    this.tracer = tracer;
+    Map<String, AttributeKey<Long>> keys = new HashMap<>();
+    for (String name : lightweightNames) {
+      keys.put(name, AttributeKey.longKey("xray.operation." + name + ".duration_ns"));
+    }
+    this.lightweight = Map.copyOf(keys);
+    this.promoteAfterNanos = promoteAfter.toNanos();
+  }
+
+  /**
+   * Create a coalescer that records every operation as a child span.
+   *
+   * @param tracer The tracer
+   * @return A disabled coalescer
+   */
+  public static SpanCoalescer disabled(Tracer tracer) {
+    return new SpanCoalescer(tracer, Set.of(), Duration.ZERO);
+  }
+
+  /**
+   * Create a coalescer.
+   *
+   * @param tracer The tracer
+   * @param lightweightNames Names of the span templates whose operations are lightweight
+   * @param promoteAfter Shortest run of a lightweight operation that is recorded as a child span
+   * @return The coalescer
+   */
+  public static SpanCoalescer create(
+      Tracer tracer, Collection<String> lightweightNames, Duration promoteAfter) {
+    return new SpanCoalescer(tracer, lightweightNames, promoteAfter);
+  }
+
+  /**
+   * Find the span templates a class marks {@link Lightweight}.
+   *
+   * @param type The class, such as a {@code Routes} bean class
+   * @return The names of its static {@link SpanTemplate} fields marked lightweight
+   * @throws IllegalArgumentException if a marked field is not a static span template
+   */
+  public static Set<String> lightweightNames(Class<?> type) {
+    Set<String> names = new LinkedHashSet<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (!field.isAnnotationPresent(Lightweight.class)) {
+        continue;
+      }
+      if (!Modifier.isStatic(field.getModifiers()) || field.getType() != SpanTemplate.class) {
+        throw new IllegalArgumentException(
+            "@Lightweight field must be a static SpanTemplate: " + field);
+      }
+      try {
+        field.setAccessible(true);
+        names.add(((SpanTemplate) field.get(null)).name());
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Cannot access @Lightweight field " + field, e);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Whether operations started from a template are recorded as events.
+   *
+   * @param template The span template
+   * @return True if the template's operations are lightweight
+   */
+  public boolean lightweight(SpanTemplate template) {
+    return lightweight.containsKey(template.name());
+  }
+
+  /**
+   * Start an operation under the current context. Close it, in try-with-resources, when the
+   * operation ends.
+   *
+   * @param template The span template describing the operation
+   * @return The running operation
+   */
+  public Operation start(SpanTemplate template) {
+    AttributeKey<Long> durationKey = lightweight.get(template.name());
+    if (durationKey == null) {
+      Span span = template.start(tracer);
+      return new Operation(template, span, null, null, 0);
+    }
+    return new Operation(template, null, Context.current(), durationKey, System.nanoTime());
+  }
+
+  /**
+   * Gets the number of operations recorded as events on their parent span.
+   *
+   * @return The coalesced count
+   */
+  public long coalesced() {
+    return coalesced.get();
+  }
+
+  /**
+   * Gets the number of lightweight operations recorded as child spans for running slow.
+   *
+   * @return The promoted count
+   */
+  public long promoted() {
+    return promoted.get();
+  }
+
+  /**
+   * An operation started by {@link #start}: a current child span, or a lightweight operation
+   * timed until {@link #close()}.
+   */
+  public final class Operation implements AutoCloseable {
+
+    private final SpanTemplate template;
+    private final Span span;
+    private final Scope scope;
+    private final XRayLoggingContext.MdcScope mdcScope;
+    private final Context parent;
+    private final AttributeKey<Long> durationKey;
+    private final long startNanos;
+
+    private Operation(
+        SpanTemplate template,
+        Span span,
+        Context parent,
+        AttributeKey<Long> durationKey,
+        long startNanos) {
+      this.template = template;
+      this.span = span;
+      this.parent = parent;
+      this.durationKey = durationKey;
+      this.startNanos = startNanos;
+      if (span != null) {
+        // Log under the child span, then restore the parent span's MDC values when it ends
+        this.scope = span.makeCurrent();
+        this.mdcScope = XRayLoggingContext.push(span.getSpanContext());
+      } else {
+        this.scope = null;
+        this.mdcScope = null;
+      }
+    }
+
+    /**
+     * Whether the operation is being recorded as an event rather than a span of its own.
+     *
+     * @return True for a lightweight operation
+     */
+    public boolean coalesced() {
+      return span == null;
+    }
+
+    /** End the operation, recording its span, or its event or promoted span. */
+    @Override
+    public void close() {
+      if (span != null) {
+        mdcScope.close();
+        scope.close();
+        span.end();
+        return;
+      }
+      long durationNanos = System.nanoTime() - startNanos;
+      Span parentSpan = Span.fromContext(parent);
+      if (!parentSpan.isRecording()) {
+        // An unsampled parent would not record the event or export a promoted span either
+        return;
+      }
+      Instant now = Instant.now();
+      long endEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+      long startEpochNanos = endEpochNanos - durationNanos;
+      if (durationNanos >= promoteAfterNanos) {
+        promoted.incrementAndGet();
+        template
+            .spanBuilder(tracer)
+            .setParent(parent)
+            .setStartTimestamp(startEpochNanos, TimeUnit.NANOSECONDS)
+            .setAttribute(SpanAttributes.OPERATION_PROMOTED, true)
+            .startSpan()
+            .end(endEpochNanos, TimeUnit.NANOSECONDS);
+        return;
+      }
+      coalesced.incrementAndGet();
+      AttributesBuilder attributes = template.attributes().toBuilder();
+      attributes.put(SpanAttributes.OPERATION_DURATION_NS, durationNanos);
+      parentSpan.addEvent(
+          template.name(), attributes.build(), startEpochNanos, TimeUnit.NANOSECONDS);
+      parentSpan.setAttribute(durationKey, durationNanos);
+    }
+  }
+}
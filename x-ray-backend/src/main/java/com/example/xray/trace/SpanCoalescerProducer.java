@@ -0,0 +1,62 @@
+package com.example.xray.trace;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import io.opentelemetry.api.trace.Tracer;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.route.Routes;
+
+/**
+ * CDI producer for the {@link SpanCoalescer} configured by {@code xray.trace.coalesce.*}. The
+ * lightweight operations are the span names listed in {@code span-names} plus the {@link
+ * Lightweight} templates of every {@link Routes} bean.
+ */
+@ApplicationScoped
+public class SpanCoalescerProducer {
+
+  private static final Logger logger = LoggerFactory.getLogger(SpanCoalescerProducer.class);
+
+  @Inject Tracer tracer;
+
+  @Inject @Any Instance<Routes> routes;
+
+  @ConfigProperty(name = "xray.trace.coalesce.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "xray.trace.coalesce.span-names")
+  Optional<List<String>> spanNames;
+
+  @ConfigProperty(name = "xray.trace.coalesce.promote-after", defaultValue = "1ms")
+  Duration promoteAfter;
+
+  @Produces
+  @Singleton
+  SpanCoalescer spanCoalescer() {
+    if (!enabled) {
+      return SpanCoalescer.disabled(tracer);
+    }
+    Set<String> names = new LinkedHashSet<>(spanNames.orElse(List.of()));
+    for (Instance.Handle<Routes> handle : routes.handles()) {
+      // Only the bean class is read, so the route beans are not created here
+      names.addAll(SpanCoalescer.lightweightNames(handle.getBean().getBeanClass()));
+    }
+    logger.info(
+        "Recording {} as span events, as child spans from {} ms", names, promoteAfter.toMillis());
+    return SpanCoalescer.create(tracer, names, promoteAfter);
+  }
+}
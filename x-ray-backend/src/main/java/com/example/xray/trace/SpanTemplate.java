@@ -0,0 +1,97 @@
+package com.example.xray.trace;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * The parts of a span that are the same every time: its name, kind and constant attributes, built
+ * once when the route table or the declaring class is set up. Spans started from a template get
+ * the constant attributes in one {@link SpanBuilder#setAllAttributes} call; per-request values are
+ * added with the typed keys in {@link SpanAttributes}.
+ */
+public final class SpanTemplate {
+
+  private final String name;
+  private final SpanKind kind;
+  private final Attributes attributes;
+
+  private SpanTemplate(String name, SpanKind kind, Attributes attributes) {
+    this.name = name;
+    this.kind = kind;
+    this.attributes = attributes;
+  }
+
+  /**
+   * Create a template.
+   *
+   * @param name Span name
+   * @param kind Span kind
+   * @param attributes Attributes every span from the template carries
+   * @return The template
+   */
+  public static SpanTemplate of(String name, SpanKind kind, Attributes attributes) {
+    return new SpanTemplate(name, kind, attributes);
+  }
+
+  /**
+   * Create a template for an internal span.
+   *
+   * @param name Span name
+   * @param attributes Attributes every span from the template carries
+   * @return The template
+   */
+  public static SpanTemplate internal(String name, Attributes attributes) {
+    return new SpanTemplate(name, SpanKind.INTERNAL, attributes);
+  }
+
+  /**
+   * Gets the span name.
+   *
+   * @return The name
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Gets the span kind.
+   *
+   * @return The kind
+   */
+  public SpanKind kind() {
+    return kind;
+  }
+
+  /**
+   * Gets the constant attributes.
+   *
+   * @return The attributes
+   */
+  public Attributes attributes() {
+    return attributes;
+  }
+
+  /**
+   * Create a span builder with the template's name, kind and attributes set. Add the parent and
+   * any attributes the sampler needs before starting it.
+   *
+   * @param tracer The tracer
+   * @return The span builder
+   */
+  public SpanBuilder spanBuilder(Tracer tracer) {
+    return tracer.spanBuilder(name).setSpanKind(kind).setAllAttributes(attributes);
+  }
+
+  /**
+   * Start a span under the current context.
+   *
+   * @param tracer The tracer
+   * @return The started span
+   */
+  public Span start(Tracer tracer) {
+    return spanBuilder(tracer).startSpan();
+  }
+}
@@ -159,8 +159,9 @@ public class AlbLambdaHandlerTest {
   }
 
   @Test
-  @DisplayName("handleRequest - response headers - should include Content-Type application/json")
-  void handleRequest_responseHeaders_includesContentType() {
+  @DisplayName(
+      "handleRequest - single-value request headers - should return only single-value headers")
+  void handleRequest_singleValueMode_returnsOnlyHeaders() {
     // Arrange
     ApplicationLoadBalancerRequestEvent event = createEvent("GET", "/api/hello");
     com.amazonaws.services.lambda.runtime.Context context = createMockContext();
@@ -171,7 +172,27 @@ public class AlbLambdaHandlerTest {
     // Assert
     assertThat(response.getHeaders()).isNotNull();
     assertThat(response.getHeaders().get("Content-Type")).isEqualTo("application/json");
-    assertThat(response.getMultiValueHeaders()).isNotNull();
+    assertThat(response.getMultiValueHeaders()).isNull();
+  }
+
+  @Test
+  @DisplayName(
+      "handleRequest - multi-value request headers - should return only multi-value headers")
+  void handleRequest_multiValueMode_returnsOnlyMultiValueHeaders() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("GET", "/api/hello");
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("content-type", Collections.singletonList("application/json"));
+    event.setHeaders(null);
+    event.setMultiValueHeaders(multiHeaders);
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.getHeaders()).isNull();
     assertThat(response.getMultiValueHeaders().get("Content-Type"))
         .isEqualTo(Collections.singletonList("application/json"));
   }
@@ -230,4 +251,126 @@ public class AlbLambdaHandlerTest {
     // Assert
     assertThat(response404.getStatusDescription()).isEqualTo("404 Not Found");
   }
+
+  @Test
+  @DisplayName("handleRequest - GET /api/hello - should carry a strong ETag and Cache-Control")
+  void handleRequest_getHello_carriesCacheHeaders() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("GET", "/api/hello");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getHeaders().get("ETag")).matches("\"[0-9a-f]{32}\"");
+    assertThat(response.getHeaders().get("Cache-Control")).startsWith("public, max-age=");
+  }
+
+  @Test
+  @DisplayName("handleRequest - GET /api/hello with If-None-Match - should return 304")
+  void handleRequest_conditionalGet_returnsNotModified() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("GET", "/api/hello");
+    event.getHeaders().put("If-None-Match", "*");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(304);
+    assertThat(response.getBody()).isEmpty();
+    assertThat(response.getHeaders()).containsKey("ETag");
+  }
+
+  @Test
+  @DisplayName("handleRequest - POST /api/hello - should not be cached")
+  void handleRequest_postHello_notCached() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("POST", "/api/hello");
+    event.getHeaders().put("If-None-Match", "*");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.getHeaders()).doesNotContainKey("ETag");
+  }
+
+  @Test
+  @DisplayName("handleRequest - POST /api/hello/batch - should greet every item in order")
+  void handleRequest_helloBatch_greetsEveryItem() throws Exception {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("POST", "/api/hello/batch");
+    event.setBody("[{\"name\":\"Ada\"},{\"name\":\"Linus\"}]");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    JsonNode body = objectMapper.readTree(response.getBody());
+    assertThat(body.size()).isEqualTo(2);
+    assertThat(body.get(0).get("message").asText()).isEqualTo("Hello Ada");
+    assertThat(body.get(1).get("message").asText()).isEqualTo("Hello Linus");
+    assertThat(body.get(1).has("timestamp")).isTrue();
+  }
+
+  @Test
+  @DisplayName("handleRequest - POST /api/hello/batch with a bad item - should return 207")
+  void handleRequest_helloBatchPartialFailure_returns207() throws Exception {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("POST", "/api/hello/batch");
+    event.setBody("[{\"name\":\"Ada\"},{\"nom\":\"Linus\"}]");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(207);
+    assertThat(response.getStatusDescription()).isEqualTo("207 Multi-Status");
+    JsonNode body = objectMapper.readTree(response.getBody());
+    assertThat(body.get(0).get("message").asText()).isEqualTo("Hello Ada");
+    assertThat(body.get(1).get("error").asText()).contains("name");
+  }
+
+  @Test
+  @DisplayName("handleRequest - POST /api/hello/batch over the item cap - should return 413")
+  void handleRequest_helloBatchOverCap_returns413() throws Exception {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = createEvent("POST", "/api/hello/batch");
+    event.setBody("[" + String.join(",", Collections.nCopies(101, "{\"name\":\"Ada\"}")) + "]");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(413);
+    JsonNode body = objectMapper.readTree(response.getBody());
+    assertThat(body.get("message").asText()).isEqualTo("A batch holds at most 100 items");
+  }
+
+  @Test
+  @DisplayName("handleRequest - little Lambda time left - should shed with 503 and Retry-After")
+  void handleRequest_budgetUnderFloor_returns503() throws Exception {
+    // Arrange: 300 ms left less the 250 ms reserve is under the 500 ms floor
+    ApplicationLoadBalancerRequestEvent event = createEvent("GET", "/api/hello");
+    com.amazonaws.services.lambda.runtime.Context context = createMockContext();
+    when(context.getRemainingTimeInMillis()).thenReturn(300);
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response = handler.handleRequest(event, context);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(503);
+    assertThat(response.getHeaders().get("Retry-After")).isEqualTo("1");
+    JsonNode body = objectMapper.readTree(response.getBody());
+    assertThat(body.get("message").asText()).isEqualTo("Service Unavailable");
+  }
 }
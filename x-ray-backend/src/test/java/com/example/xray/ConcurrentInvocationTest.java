@@ -0,0 +1,166 @@
+package com.example.xray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import jakarta.inject.Inject;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import org.jboss.logmanager.MDC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/**
+ * Stress test running hundreds of invocations through {@link AlbLambdaHandler} at once, each under
+ * its own X-Ray trace, and checking every log line they write carries its own invocation's IDs.
+ */
+@QuarkusTest
+public class ConcurrentInvocationTest {
+
+  private static final int INVOCATIONS = 400;
+  private static final String TRACE_PREFIX = "6a1c2f0e0123456789abcdef";
+
+  @Inject AlbLambdaHandler handler;
+
+  private final ConcurrentLinkedQueue<Line> lines = new ConcurrentLinkedQueue<>();
+  private final Logger logger = Logger.getLogger("com.example.xray");
+  private final Handler capture =
+      new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+          // Runs on the logging thread, so the MDC is the one the line is written with
+          lines.add(
+              new Line(
+                  record.getMessage(),
+                  MDC.get(XRayLoggingContext.REQUEST_ID_KEY),
+                  MDC.get(XRayLoggingContext.TRACE_ID_KEY),
+                  MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY)));
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+      };
+
+  /** One captured log line with the MDC values it was written under. */
+  private record Line(String message, String requestId, String traceId, String xrayTraceId) {}
+
+  @BeforeEach
+  void setUp() {
+    logger.addHandler(capture);
+  }
+
+  @AfterEach
+  void tearDown() {
+    logger.removeHandler(capture);
+  }
+
+  private static String traceId(int invocation) {
+    return TRACE_PREFIX + String.format("%08x", invocation);
+  }
+
+  private static ApplicationLoadBalancerRequestEvent event(int invocation) {
+    String traceId = traceId(invocation);
+    Map<String, String> headers = new HashMap<>();
+    headers.put("accept", "application/json");
+    headers.put(
+        "x-amzn-trace-id",
+        "Root=1-"
+            + traceId.substring(0, 8)
+            + "-"
+            + traceId.substring(8)
+            + ";Parent=53995c3f42cd8ad8;Sampled=1");
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    // POST, so every invocation runs the hello route instead of hitting the response cache
+    event.setHttpMethod("POST");
+    event.setPath("/api/hello");
+    event.setHeaders(headers);
+    return event;
+  }
+
+  private static Context context(int invocation) {
+    Context context = mock(Context.class);
+    when(context.getAwsRequestId()).thenReturn("stress-" + invocation);
+    when(context.getFunctionName()).thenReturn("x-ray-backend");
+    when(context.getRemainingTimeInMillis()).thenReturn(30000);
+    return context;
+  }
+
+  @Test
+  @DisplayName("handleRequest - concurrent invocations - should log each under its own trace")
+  void handleRequest_concurrentInvocations_logUnderOwnTrace() throws Exception {
+    // Arrange
+    List<ApplicationLoadBalancerRequestEvent> events = new ArrayList<>();
+    List<Context> contexts = new ArrayList<>();
+    for (int i = 0; i < INVOCATIONS; i++) {
+      events.add(event(i));
+      contexts.add(context(i));
+    }
+    CountDownLatch go = new CountDownLatch(1);
+    List<Future<ApplicationLoadBalancerResponseEvent>> responses = new ArrayList<>();
+
+    // Act
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < INVOCATIONS; i++) {
+        ApplicationLoadBalancerRequestEvent event = events.get(i);
+        Context context = contexts.get(i);
+        responses.add(
+            executor.submit(
+                () -> {
+                  go.await();
+                  return handler.handleRequest(event, context);
+                }));
+      }
+      go.countDown();
+    }
+
+    // Assert
+    for (Future<ApplicationLoadBalancerResponseEvent> response : responses) {
+      assertThat(response.get().getStatusCode()).isEqualTo(200);
+    }
+    Map<String, Integer> helloLines = new HashMap<>();
+    for (Line line : lines) {
+      if (line.requestId() == null || !line.requestId().startsWith("stress-")) {
+        // Nothing logged outside an invocation may carry one of the invocations' traces
+        if (line.traceId() != null) {
+          assertThat(line.traceId()).as("trace_id of %s", line).doesNotStartWith(TRACE_PREFIX);
+        }
+        continue;
+      }
+      int invocation = Integer.parseInt(line.requestId().substring("stress-".length()));
+      String traceId = traceId(invocation);
+      assertThat(line.traceId()).as("trace_id of %s", line).isEqualTo(traceId);
+      assertThat(line.xrayTraceId())
+          .as("xray_trace_id of %s", line)
+          .isEqualTo("1-" + traceId.substring(0, 8) + "-" + traceId.substring(8));
+      if ("Processing hello request".equals(line.message())) {
+        helloLines.merge(line.requestId(), 1, Integer::sum);
+      }
+    }
+    assertThat(helloLines).hasSize(INVOCATIONS);
+    assertThat(helloLines.values()).containsOnly(1);
+  }
+}
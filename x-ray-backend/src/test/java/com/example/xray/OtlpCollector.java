@@ -0,0 +1,306 @@
+package com.example.xray;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+
+import com.example.xray.metrics.LatencyHistogram;
+
+/**
+ * In-process OTLP trace collector for tests and load runs. One port takes both OTLP/gRPC (HTTP/2
+ * cleartext, as the Quarkus exporter sends it) and OTLP/HTTP protobuf exports. It counts export
+ * requests and the spans it acknowledges, records how long each span took to arrive after it
+ * ended, and can be told to answer slowly or to fail a share of exports, so a test or a load run
+ * shows what a slow or degraded ADOT collector costs the handler.
+ */
+public final class OtlpCollector implements AutoCloseable {
+
+  private static final String GRPC_CONTENT_TYPE = "application/grpc";
+
+  /** An empty ExportTraceServiceResponse in a gRPC frame: not compressed, zero length. */
+  private static final Buffer GRPC_EMPTY_RESPONSE = Buffer.buffer(new byte[5]);
+
+  private final Vertx vertx;
+  private final HttpServer server;
+  private final AtomicLong exports = new AtomicLong();
+  private final AtomicLong failedExports = new AtomicLong();
+  private final AtomicLong spans = new AtomicLong();
+  private final LatencyHistogram delivery = new LatencyHistogram();
+  private volatile long delayMillis;
+  private volatile double failureRate;
+
+  private OtlpCollector(Vertx vertx, HttpServer server) {
+    this.vertx = vertx;
+    this.server = server;
+  }
+
+  /**
+   * Start a collector on an ephemeral localhost port.
+   *
+   * @return The running collector
+   */
+  public static OtlpCollector start() {
+    Vertx vertx = Vertx.vertx();
+    HttpServer server =
+        vertx.createHttpServer(
+            new HttpServerOptions().setHost("127.0.0.1").setPort(0).setHttp2ClearTextEnabled(true));
+    OtlpCollector collector = new OtlpCollector(vertx, server);
+    server.requestHandler(collector::handle);
+    try {
+      server.listen().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      vertx.close();
+      throw new IllegalStateException("OTLP collector did not start", e);
+    }
+    return collector;
+  }
+
+  /**
+   * Gets the base endpoint for an OTLP exporter of either protocol.
+   *
+   * @return The endpoint URL
+   */
+  public String endpoint() {
+    return "http://127.0.0.1:" + server.actualPort();
+  }
+
+  /**
+   * Delay every response by the given time.
+   *
+   * @param delayMillis The delay in milliseconds
+   */
+  public void setDelayMillis(long delayMillis) {
+    this.delayMillis = delayMillis;
+  }
+
+  /**
+   * Fail the given share of exports: HTTP 503, or gRPC status UNAVAILABLE. Failed exports count no
+   * spans, the way a collector that dropped them would.
+   *
+   * @param failureRate The share of exports to fail, 0 to 1
+   */
+  public void setFailureRate(double failureRate) {
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * Gets the number of export requests received.
+   *
+   * @return The export count
+   */
+  public long exportCount() {
+    return exports.get();
+  }
+
+  /**
+   * Gets the number of export requests answered with a failure.
+   *
+   * @return The failed export count
+   */
+  public long failedExportCount() {
+    return failedExports.get();
+  }
+
+  /**
+   * Gets the number of spans acknowledged with a successful response. Spans in a delayed export
+   * count once the response is sent.
+   *
+   * @return The span count
+   */
+  public long spanCount() {
+    return spans.get();
+  }
+
+  /**
+   * Move the span delivery latencies, span end to arrival, recorded since the last drain into a
+   * snapshot.
+   *
+   * @param into Snapshot to overwrite
+   */
+  public void drainDeliveryLatency(LatencyHistogram.Snapshot into) {
+    delivery.drain(into);
+  }
+
+  /** Forget everything counted so far, such as after a warm-up. */
+  public void reset() {
+    exports.set(0);
+    failedExports.set(0);
+    spans.set(0);
+    delivery.drain(new LatencyHistogram.Snapshot());
+  }
+
+  @Override
+  public void close() {
+    vertx.close().toCompletionStage().toCompletableFuture().join();
+  }
+
+  private void handle(HttpServerRequest request) {
+    request.body().onComplete(result -> received(request, result.result(), result.failed()));
+  }
+
+  private void received(HttpServerRequest request, Buffer body, boolean failed) {
+    if (failed) {
+      request.response().setStatusCode(400).end();
+      return;
+    }
+    long arrivedNanos = epochNanos();
+    String contentType = request.getHeader("content-type");
+    boolean grpc = contentType != null && contentType.startsWith(GRPC_CONTENT_TYPE);
+    exports.incrementAndGet();
+    boolean fail = failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    byte[] payload = fail ? null : payload(request, body, grpc);
+    long delay = delayMillis;
+    if (delay > 0) {
+      vertx.setTimer(delay, id -> respond(request, grpc, payload, arrivedNanos));
+    } else {
+      respond(request, grpc, payload, arrivedNanos);
+    }
+  }
+
+  /** Answer an export, acknowledging its spans unless it is failed ({@code payload} null). */
+  private void respond(HttpServerRequest request, boolean grpc, byte[] payload, long arrivedNanos) {
+    boolean fail = payload == null;
+    if (fail) {
+      failedExports.incrementAndGet();
+    } else {
+      record(payload, arrivedNanos);
+    }
+    if (grpc) {
+      request
+          .response()
+          .putHeader("content-type", GRPC_CONTENT_TYPE)
+          .putTrailer("grpc-status", fail ? "14" : "0")
+          .end(GRPC_EMPTY_RESPONSE);
+    } else {
+      request
+          .response()
+          .setStatusCode(fail ? 503 : 200)
+          .putHeader("content-type", "application/x-protobuf")
+          .end();
+    }
+  }
+
+  /** Strip the gRPC frame and undo gzip, leaving an ExportTraceServiceRequest. */
+  private static byte[] payload(HttpServerRequest request, Buffer body, boolean grpc) {
+    byte[] bytes = body.getBytes();
+    boolean gzip;
+    if (grpc) {
+      gzip = bytes.length > 0 && bytes[0] == 1;
+      bytes = bytes.length < 5 ? new byte[0] : body.getBytes(5, bytes.length);
+    } else {
+      gzip = "gzip".equalsIgnoreCase(request.getHeader("content-encoding"));
+    }
+    if (!gzip) {
+      return bytes;
+    }
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Count the spans in an ExportTraceServiceRequest, resource_spans (1) → scope_spans (2) →
+   * spans (2), and record each one's end_time_unix_nano (8) against the arrival time.
+   */
+  private void record(byte[] request, long arrivedNanos) {
+    ProtoReader export = new ProtoReader(request, 0, request.length);
+    while (export.next(1)) {
+      ProtoReader resource = export.nested();
+      while (resource.next(2)) {
+        ProtoReader scope = resource.nested();
+        while (scope.next(2)) {
+          ProtoReader span = scope.nested();
+          while (span.next(8)) {
+            delivery.record(arrivedNanos - span.fixed64());
+          }
+          spans.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  private static long epochNanos() {
+    Instant now = Instant.now();
+    return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+  }
+
+  /** Walks the fields of one protobuf message, stopping at those with a given number. */
+  private static final class ProtoReader {
+
+    private final byte[] buf;
+    private final int end;
+    private int pos;
+    private int valueStart;
+    private int valueEnd;
+
+    ProtoReader(byte[] buf, int start, int end) {
+      this.buf = buf;
+      this.pos = start;
+      this.end = end;
+    }
+
+    /** Advance to the next field with the given number, or return false at the end. */
+    boolean next(int fieldNumber) {
+      while (pos < end) {
+        long tag = varint();
+        int wireType = (int) (tag & 7);
+        valueStart = pos;
+        switch (wireType) {
+          case 0 -> varint();
+          case 1 -> pos += 8;
+          case 5 -> pos += 4;
+          case 2 -> {
+            int length = (int) varint();
+            valueStart = pos;
+            pos += length;
+          }
+          default -> throw new IllegalArgumentException("Unsupported wire type " + wireType);
+        }
+        valueEnd = pos;
+        if ((tag >>> 3) == fieldNumber) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Read the current length-delimited field as a message. */
+    ProtoReader nested() {
+      return new ProtoReader(buf, valueStart, valueEnd);
+    }
+
+    /** Read the current fixed64 field. */
+    long fixed64() {
+      long value = 0;
+      for (int i = 7; i >= 0; i--) {
+        value = (value << 8) | (buf[valueStart + i] & 0xFF);
+      }
+      return value;
+    }
+
+    private long varint() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buf[pos++];
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.xray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.metrics.LatencyHistogram;
+
+/** Tests for {@link OtlpCollector} with the OpenTelemetry OTLP exporters of both protocols. */
+public class OtlpCollectorTest {
+
+  private OtlpCollector collector;
+
+  @BeforeEach
+  void setUp() {
+    collector = OtlpCollector.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    collector.close();
+  }
+
+  /** Export the given number of spans one at a time. */
+  private static void export(SpanExporter exporter, int spans) {
+    try (SdkTracerProvider tracerProvider =
+        SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+            .build()) {
+      for (int i = 0; i < spans; i++) {
+        tracerProvider.get("collector-test").spanBuilder("span-" + i).startSpan().end();
+      }
+      tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  @DisplayName("OTLP/HTTP export - should count spans and record their delivery latency")
+  void httpExport_countsSpans() {
+    // Arrange
+    SpanExporter exporter =
+        OtlpHttpSpanExporter.builder().setEndpoint(collector.endpoint() + "/v1/traces").build();
+
+    // Act
+    export(exporter, 3);
+
+    // Assert
+    assertThat(collector.exportCount()).isEqualTo(3);
+    assertThat(collector.spanCount()).isEqualTo(3);
+    LatencyHistogram.Snapshot delivery = new LatencyHistogram.Snapshot();
+    collector.drainDeliveryLatency(delivery);
+    assertThat(delivery.count()).isEqualTo(3);
+    assertThat(delivery.max()).isLessThan(TimeUnit.SECONDS.toNanos(10));
+  }
+
+  @Test
+  @DisplayName("OTLP/gRPC export - should count spans")
+  void grpcExport_countsSpans() {
+    // Arrange
+    SpanExporter exporter =
+        OtlpGrpcSpanExporter.builder().setEndpoint(collector.endpoint()).build();
+
+    // Act
+    export(exporter, 2);
+
+    // Assert
+    assertThat(collector.spanCount()).isEqualTo(2);
+    assertThat(collector.failedExportCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("failure rate - every export failing - should count failures and no spans")
+  void failureRate_all_failsExports() {
+    // Arrange
+    collector.setFailureRate(1);
+    SpanExporter exporter =
+        OtlpHttpSpanExporter.builder()
+            .setEndpoint(collector.endpoint() + "/v1/traces")
+            .setRetryPolicy(null)
+            .build();
+
+    // Act
+    export(exporter, 2);
+
+    // Assert
+    assertThat(collector.failedExportCount()).isEqualTo(collector.exportCount()).isPositive();
+    assertThat(collector.spanCount()).isZero();
+  }
+}
@@ -0,0 +1,185 @@
+package com.example.xray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import org.jboss.logmanager.MDC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link XRayLoggingContext}. */
+public class XRayLoggingContextTest {
+
+  private static final String TRACE_ID = "67890abc12345678901234567890abcd";
+  private static final String OTHER_TRACE_ID = "5f1b62cf0123456789abcdef01234567";
+
+  private static SpanContext spanContext(String traceId, String spanId) {
+    return SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault());
+  }
+
+  private static Context invocation(String traceId, String spanId, String requestId) {
+    return Context.root()
+        .with(Span.wrap(spanContext(traceId, spanId)))
+        .with(new InvocationContext(requestId));
+  }
+
+  @AfterEach
+  void tearDown() {
+    XRayLoggingContext.clearTraceContextFromMDC();
+    MDC.remove(XRayLoggingContext.REQUEST_ID_KEY);
+  }
+
+  @Test
+  @DisplayName("addTraceContextToMDC - valid span - should put OTel and X-Ray IDs in MDC")
+  void addTraceContextToMDC_validSpan_putsIds() {
+    // Act
+    XRayLoggingContext.addTraceContextToMDC(spanContext(TRACE_ID, "1234567890abcdef"));
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(TRACE_ID);
+    assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo("1234567890abcdef");
+    assertThat(MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY))
+        .isEqualTo("1-67890abc-12345678901234567890abcd");
+  }
+
+  @Test
+  @DisplayName("addTraceContextToMDC - invalid span - should leave MDC untouched")
+  void addTraceContextToMDC_invalidSpan_leavesMdcUntouched() {
+    // Act
+    XRayLoggingContext.addTraceContextToMDC(SpanContext.getInvalid());
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isNull();
+    assertThat(MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY)).isNull();
+  }
+
+  @Test
+  @DisplayName("toXRayTraceId - same trace - should reuse the cached string")
+  void toXRayTraceId_sameTrace_reusesCachedString() {
+    // Act
+    String first = XRayLoggingContext.toXRayTraceId(TRACE_ID);
+    String second = XRayLoggingContext.toXRayTraceId(new String(TRACE_ID));
+    String other = XRayLoggingContext.toXRayTraceId(OTHER_TRACE_ID);
+
+    // Assert
+    assertThat(second).isSameAs(first);
+    assertThat(other).isEqualTo("1-5f1b62cf-0123456789abcdef01234567");
+  }
+
+  @Test
+  @DisplayName("push - child span ends - should restore the parent span's MDC values")
+  void push_childScopeClosed_restoresParentValues() {
+    // Arrange
+    XRayLoggingContext.addTraceContextToMDC(spanContext(TRACE_ID, "aaaaaaaaaaaaaaaa"));
+
+    // Act
+    try (XRayLoggingContext.MdcScope child =
+        XRayLoggingContext.push(spanContext(TRACE_ID, "bbbbbbbbbbbbbbbb"))) {
+      assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo("bbbbbbbbbbbbbbbb");
+      try (XRayLoggingContext.MdcScope other =
+          XRayLoggingContext.push(spanContext(OTHER_TRACE_ID, "cccccccccccccccc"))) {
+        assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(OTHER_TRACE_ID);
+      }
+      assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(TRACE_ID);
+      assertThat(MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY))
+          .isEqualTo("1-67890abc-12345678901234567890abcd");
+    }
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo("aaaaaaaaaaaaaaaa");
+  }
+
+  @Test
+  @DisplayName("push - no parent span - should remove the keys when closed")
+  void push_noParent_removesKeysWhenClosed() {
+    // Act
+    try (XRayLoggingContext.MdcScope scope =
+        XRayLoggingContext.push(spanContext(TRACE_ID, "bbbbbbbbbbbbbbbb"))) {
+      assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo("bbbbbbbbbbbbbbbb");
+    }
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isNull();
+    assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isNull();
+    assertThat(MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY)).isNull();
+  }
+
+  @Test
+  @DisplayName("push - invocation context - should put the request ID and restore the outer one")
+  void push_invocationContext_putsRequestIdAndRestores() {
+    // Arrange
+    XRayLoggingContext.push(invocation(TRACE_ID, "aaaaaaaaaaaaaaaa", "outer-request"));
+
+    // Act
+    try (XRayLoggingContext.MdcScope scope =
+        XRayLoggingContext.push(invocation(OTHER_TRACE_ID, "bbbbbbbbbbbbbbbb", "inner-request"))) {
+      assertThat(MDC.get(XRayLoggingContext.REQUEST_ID_KEY)).isEqualTo("inner-request");
+      assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(OTHER_TRACE_ID);
+    }
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.REQUEST_ID_KEY)).isEqualTo("outer-request");
+    assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(TRACE_ID);
+    assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo("aaaaaaaaaaaaaaaa");
+  }
+
+  @Test
+  @DisplayName("push - invocation without a valid span - should not log under the outer trace")
+  void push_invocationWithoutSpan_removesOuterTrace() {
+    // Arrange
+    XRayLoggingContext.addTraceContextToMDC(spanContext(TRACE_ID, "aaaaaaaaaaaaaaaa"));
+
+    // Act
+    try (XRayLoggingContext.MdcScope scope =
+        XRayLoggingContext.push(Context.root().with(new InvocationContext("request")))) {
+      assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isNull();
+      assertThat(MDC.get(XRayLoggingContext.XRAY_TRACE_ID_KEY)).isNull();
+    }
+
+    // Assert
+    assertThat(MDC.get(XRayLoggingContext.TRACE_ID_KEY)).isEqualTo(TRACE_ID);
+  }
+
+  @Test
+  @DisplayName("wrap - task on another thread - should run with the caller's context and MDC")
+  void wrap_otherThread_carriesContextAndMdc() throws Exception {
+    // Arrange
+    AtomicReference<String> requestId = new AtomicReference<>();
+    AtomicReference<String> traceId = new AtomicReference<>();
+    AtomicReference<String> contextRequestId = new AtomicReference<>();
+    AtomicReference<String> leftOver = new AtomicReference<>("unset");
+    Runnable task;
+    try (Scope scope = invocation(TRACE_ID, "aaaaaaaaaaaaaaaa", "request").makeCurrent()) {
+      task =
+          XRayLoggingContext.wrap(
+              () -> {
+                requestId.set(MDC.get(XRayLoggingContext.REQUEST_ID_KEY));
+                traceId.set(MDC.get(XRayLoggingContext.TRACE_ID_KEY));
+                contextRequestId.set(InvocationContext.current().requestId());
+              });
+    }
+
+    // Act
+    try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+      executor.submit(task).get();
+      executor.submit(() -> leftOver.set(MDC.get(XRayLoggingContext.TRACE_ID_KEY))).get();
+    }
+
+    // Assert: the values were there for the task and gone from the thread afterwards
+    assertThat(requestId.get()).isEqualTo("request");
+    assertThat(traceId.get()).isEqualTo(TRACE_ID);
+    assertThat(contextRequestId.get()).isEqualTo("request");
+    assertThat(leftOver.get()).isNull();
+  }
+}
@@ -0,0 +1,191 @@
+package com.example.xray.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.example.xray.trace.SpanTemplate;
+import com.fasterxml.jackson.core.JsonParser;
+
+/** Tests for {@link BatchProcessor} and {@link BatchRequestReader}. */
+public class BatchProcessorTest {
+
+  private static final SpanTemplate CHUNK = SpanTemplate.internal("chunk", Attributes.empty());
+
+  private final Queue<SpanData> spans = new ConcurrentLinkedQueue<>();
+  private SdkTracerProvider tracerProvider;
+  private BatchProcessor processor;
+
+  @BeforeEach
+  void setUp() {
+    tracerProvider = SdkTracerProvider.builder().addSpanProcessor(new Collector()).build();
+    processor = new BatchProcessor(tracerProvider.get("batch-test"), 10, 4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    processor.close();
+    tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  private static ApplicationLoadBalancerRequestEvent event(String body, boolean base64) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod("POST");
+    event.setPath("/api/hello/batch");
+    event.setBody(
+        base64
+            ? Base64.getEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8))
+            : body);
+    event.setIsBase64Encoded(base64);
+    return event;
+  }
+
+  private static String text(JsonParser parser) throws IOException {
+    return parser.getValueAsString();
+  }
+
+  @Test
+  @DisplayName("process - more items than a chunk - should keep order with one span per chunk")
+  void process_severalChunks_keepsOrderWithSpanPerChunk() {
+    // Arrange
+    List<Integer> items = IntStream.range(0, 10).boxed().toList();
+    Span parent = tracerProvider.get("batch-test").spanBuilder("request").startSpan();
+
+    // Act
+    List<BatchResult<Integer>> results;
+    try (Scope scope = parent.makeCurrent()) {
+      results = processor.process(CHUNK, items, item -> item * 2);
+    } finally {
+      parent.end();
+    }
+
+    // Assert
+    List<Integer> values = new ArrayList<>();
+    results.forEach(result -> values.add(result.value()));
+    assertThat(values).containsExactly(0, 2, 4, 6, 8, 10, 12, 14, 16, 18);
+    List<SpanData> chunks = spans.stream().filter(s -> s.getName().equals("chunk")).toList();
+    assertThat(chunks).hasSize(3);
+    assertThat(chunks)
+        .extracting(SpanData::getParentSpanId)
+        .containsOnly(parent.getSpanContext().getSpanId());
+    assertThat(chunks)
+        .extracting(span -> span.getAttributes().get(BatchProcessor.CHUNK_SIZE))
+        .containsExactlyInAnyOrder(4L, 4L, 2L);
+  }
+
+  @Test
+  @DisplayName("process - failing items - should report each failure and keep the rest")
+  void process_failingItems_reportsPartialFailure() {
+    // Arrange
+    List<String> items = List.of("ok", "bad", "boom", "ok");
+
+    // Act
+    List<BatchResult<String>> results =
+        processor.process(
+            CHUNK,
+            items,
+            item -> {
+              if (item.equals("bad")) {
+                throw new IllegalArgumentException("bad item");
+              }
+              if (item.equals("boom")) {
+                throw new IllegalStateException("internal detail");
+              }
+              return item.toUpperCase();
+            });
+
+    // Assert
+    assertThat(results.get(0).value()).isEqualTo("OK");
+    assertThat(results.get(1).succeeded()).isFalse();
+    assertThat(results.get(1).error()).isEqualTo("bad item");
+    assertThat(results.get(2).error()).isEqualTo("Item could not be processed");
+    assertThat(results.get(3).value()).isEqualTo("OK");
+    assertThat(spans.peek().getAttributes().get(BatchProcessor.CHUNK_FAILED)).isEqualTo(2L);
+  }
+
+  @Test
+  @DisplayName("read - base64 body - should decode and read every item")
+  void read_base64Body_readsItems() throws Exception {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = event("[\"a\", \"b\", \"c\"]", true);
+
+    // Act
+    List<String> items = BatchRequestReader.read(event, 10, BatchProcessorTest::text);
+
+    // Assert
+    assertThat(items).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  @DisplayName("read - more items than the cap - should reject with 413")
+  void read_overCap_rejectsWith413() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent event = event("[1, 2, 3, 4]", false);
+
+    // Act & Assert
+    assertThatThrownBy(() -> BatchRequestReader.read(event, 3, BatchProcessorTest::text))
+        .isInstanceOfSatisfying(
+            BatchRequestException.class, e -> assertThat(e.statusCode()).isEqualTo(413));
+  }
+
+  @Test
+  @DisplayName("read - not a JSON array - should reject with 400")
+  void read_notArray_rejectsWith400() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent object = event("{\"name\":\"a\"}", false);
+    ApplicationLoadBalancerRequestEvent truncated = event("[\"a\", ", false);
+
+    // Act & Assert
+    assertThatThrownBy(() -> BatchRequestReader.read(object, 10, BatchProcessorTest::text))
+        .isInstanceOfSatisfying(
+            BatchRequestException.class, e -> assertThat(e.statusCode()).isEqualTo(400));
+    assertThatThrownBy(() -> BatchRequestReader.read(truncated, 10, BatchProcessorTest::text))
+        .isInstanceOfSatisfying(
+            BatchRequestException.class, e -> assertThat(e.statusCode()).isEqualTo(400));
+  }
+
+  private final class Collector implements SpanProcessor {
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+      return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+      spans.add(span.toSpanData());
+    }
+
+    @Override
+    public boolean isEndRequired() {
+      return true;
+    }
+  }
+}
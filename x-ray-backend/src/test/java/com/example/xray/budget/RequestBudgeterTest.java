@@ -0,0 +1,108 @@
+package com.example.xray.budget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.context.Scope;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/** Unit tests for {@link RequestBudgeter} and {@link RequestBudget} with mocked Lambda contexts. */
+public class RequestBudgeterTest {
+
+  private final RequestBudgeter budgeter =
+      RequestBudgeter.create(Duration.ofMillis(200), Duration.ofMillis(500));
+
+  private static Context lambdaContext(int remainingMillis) {
+    Context context = mock(Context.class);
+    when(context.getRemainingTimeInMillis()).thenReturn(remainingMillis);
+    return context;
+  }
+
+  @Test
+  @DisplayName("begin - remaining time - should budget it less the reserve")
+  void begin_remainingTime_budgetsLessReserve() {
+    // Act
+    RequestBudget budget = budgeter.begin(lambdaContext(3000), System.nanoTime());
+
+    // Assert
+    assertThat(budget.bounded()).isTrue();
+    assertThat(budget.remainingMillis()).isBetween(2500L, 2800L);
+    assertThat(budgeter.admit(budget)).isTrue();
+    assertThat(budgeter.shed()).isZero();
+  }
+
+  @Test
+  @DisplayName("admit - budget under the floor - should shed and count it")
+  void admit_underFloor_sheds() {
+    // Arrange
+    RequestBudget budget = budgeter.begin(lambdaContext(600), System.nanoTime());
+
+    // Act
+    boolean admitted = budgeter.admit(budget);
+
+    // Assert: 600 ms less the 200 ms reserve is under the 500 ms floor
+    assertThat(admitted).isFalse();
+    assertThat(budgeter.shed()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("begin - no deadline or disabled - should give the unbounded budget")
+  void begin_noDeadline_unbounded() {
+    // Act
+    RequestBudget container = budgeter.begin(lambdaContext(Integer.MAX_VALUE), System.nanoTime());
+    RequestBudget disabled =
+        RequestBudgeter.disabled().begin(lambdaContext(100), System.nanoTime());
+
+    // Assert
+    assertThat(container.bounded()).isFalse();
+    assertThat(disabled.bounded()).isFalse();
+    assertThat(container.limit(TimeUnit.SECONDS.toNanos(10)))
+        .isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    assertThat(RequestBudgeter.disabled().admit(disabled)).isTrue();
+  }
+
+  @Test
+  @DisplayName("limit - wait longer than the budget - should shrink it and count it")
+  void limit_longerThanBudget_shrinksWait() {
+    // Arrange
+    RequestBudget budget = budgeter.begin(lambdaContext(1200), System.nanoTime());
+
+    // Act
+    long shortWait = budget.limit(TimeUnit.MILLISECONDS.toNanos(100));
+    long longWait = budget.limit(TimeUnit.SECONDS.toNanos(10));
+
+    // Assert
+    assertThat(shortWait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(longWait).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertThat(budgeter.waitsShortened()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("current - budget stored in the context - should be found and end exhausted")
+  void current_storedInContext_foundAndExhausted() {
+    // Arrange: the reserve is larger than the remaining time, so the deadline has passed
+    RequestBudget budget = budgeter.begin(lambdaContext(100), System.nanoTime());
+
+    // Act
+    RequestBudget current;
+    try (Scope scope = io.opentelemetry.context.Context.root().with(budget).makeCurrent()) {
+      current = RequestBudget.current();
+    }
+    budgeter.invocationEnded(budget);
+
+    // Assert
+    assertThat(current).isSameAs(budget);
+    assertThat(RequestBudget.current().bounded()).isFalse();
+    assertThat(budget.exhausted()).isTrue();
+    assertThat(budget.limit(TimeUnit.SECONDS.toNanos(1))).isZero();
+    assertThat(budgeter.exhausted()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,218 @@
+package com.example.xray.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.Attributes;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.compression.ContentEncoding;
+import com.example.xray.compression.ResponseCompressor;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.AlbResponses;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.route.HttpMethod;
+import com.example.xray.route.RouteBinding;
+import com.example.xray.route.RouteTable;
+
+/** Unit tests for {@link ResponseCache}. */
+public class ResponseCacheTest {
+
+  /** 2026-10-16T10:00:02Z, two seconds into a five second window. */
+  private static final long NOW = 1_792_144_802_000L;
+
+  private static final String BODY = "{\"message\":\"Hello World\"}";
+
+  private final ResponseCache cache = ResponseCache.create(Duration.ofSeconds(5), 16);
+
+  private static RouteBinding binding(List<String> vary) {
+    RouteTable table =
+        RouteTable.builder()
+            .add(List.of(), "/api/hello", null, Attributes.empty(), vary, request -> null)
+            .build();
+    return table.match("GET", "/api/hello").binding();
+  }
+
+  private static AlbRequestHeaders headers(String... namesAndValues) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod("GET");
+    event.setPath("/api/hello");
+    Map<String, String> headers = new HashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      headers.put(namesAndValues[i], namesAndValues[i + 1]);
+    }
+    event.setHeaders(headers);
+    return AlbRequestHeaders.of(event);
+  }
+
+  @Test
+  @DisplayName("lookup - within the window - should hit until the window ends")
+  void lookup_withinWindow_hitsUntilWindowEnds() {
+    // Arrange
+    RouteBinding binding = binding(List.of());
+    assertThat(cache.lookup(binding, headers(), NOW)).isNull();
+    cache.store(binding, headers(), AlbResponses.json(200, BODY), NOW);
+
+    // Act
+    ResponseCache.Entry hit = cache.lookup(binding, headers(), NOW + 2_999);
+    ResponseCache.Entry expired = cache.lookup(binding, headers(), NOW + 3_000);
+
+    // Assert
+    assertThat(hit).isNotNull();
+    assertThat(hit.body()).isEqualTo(BODY);
+    assertThat(hit.expiresMillis()).isEqualTo(NOW + 3_000);
+    assertThat(expired).isNull();
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(cache.misses()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("respond - fresh entry - should add a strong ETag and the remaining max-age")
+  void respond_freshEntry_addsEtagAndMaxAge() {
+    // Arrange
+    RouteBinding binding = binding(List.of());
+    ResponseCache.Entry entry = cache.store(binding, headers(), AlbResponses.json(200, BODY), NOW);
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response =
+        cache.respond(entry, headers(), HeaderMode.SINGLE, NOW + 1_500);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(200);
+    assertThat(response.getBody()).isEqualTo(BODY);
+    assertThat(response.getHeaders())
+        .containsEntry("Content-Type", "application/json")
+        .containsEntry("ETag", ResponseCache.etag(BODY))
+        .containsEntry("Cache-Control", "public, max-age=1");
+    assertThat(entry.etag()).matches("\"[0-9a-f]{32}\"");
+    assertThat(response.getMultiValueHeaders()).isNull();
+  }
+
+  @Test
+  @DisplayName("respond - If-None-Match with the ETag - should return 304 without a body")
+  void respond_matchingIfNoneMatch_returnsNotModified() {
+    // Arrange
+    RouteBinding binding = binding(List.of());
+    ResponseCache.Entry entry = cache.store(binding, headers(), AlbResponses.json(200, BODY), NOW);
+    AlbRequestHeaders conditional = headers("if-none-match", "\"other\", W/" + entry.etag());
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response =
+        cache.respond(entry, conditional, HeaderMode.BOTH, NOW);
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(304);
+    assertThat(response.getStatusDescription()).isEqualTo("304 Not Modified");
+    assertThat(response.getBody()).isEmpty();
+    assertThat(response.getHeaders())
+        .containsEntry("ETag", entry.etag())
+        .containsEntry("Cache-Control", "public, max-age=3");
+    assertThat(cache.notModified()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("lookup - vary header - should keep one entry per header value")
+  void lookup_varyHeader_keysOnHeaderValue() {
+    // Arrange
+    RouteBinding binding = binding(List.of("Accept-Language"));
+    cache.store(
+        binding, headers("accept-language", "en"), AlbResponses.json(200, "{\"m\":\"en\"}"), NOW);
+
+    // Act
+    ResponseCache.Entry english = cache.lookup(binding, headers("accept-language", "en"), NOW);
+    ResponseCache.Entry german = cache.lookup(binding, headers("accept-language", "de"), NOW);
+
+    // Assert
+    assertThat(english.body()).isEqualTo("{\"m\":\"en\"}");
+    assertThat(german).isNull();
+    assertThat(cache.respond(english, headers(), HeaderMode.SINGLE, NOW).getHeaders())
+        .containsEntry("Vary", "Accept-Language");
+  }
+
+  @Test
+  @DisplayName("cacheable - methods and routes - should only cache GET and HEAD on cached routes")
+  void cacheable_methodsAndRoutes_onlyGetAndHead() {
+    // Arrange
+    RouteBinding cached = binding(List.of());
+    RouteBinding uncached =
+        RouteTable.builder()
+            .add(HttpMethod.GET, "/api/items", request -> null)
+            .build()
+            .match("GET", "/api/items")
+            .binding();
+
+    // Act / Assert
+    assertThat(cache.cacheable(cached, "GET")).isTrue();
+    assertThat(cache.cacheable(cached, "HEAD")).isTrue();
+    assertThat(cache.cacheable(cached, "POST")).isFalse();
+    assertThat(cache.cacheable(uncached, "GET")).isFalse();
+    assertThat(ResponseCache.disabled().cacheable(cached, "GET")).isFalse();
+  }
+
+  @Test
+  @DisplayName("store - error response - should not cache it")
+  void store_errorResponse_notCached() {
+    // Arrange
+    RouteBinding binding = binding(List.of());
+
+    // Act
+    ResponseCache.Entry entry = cache.store(binding, headers(), AlbResponses.json(500, "{}"), NOW);
+
+    // Assert
+    assertThat(entry).isNull();
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("truncate - enabled and disabled - should round down to the window start")
+  void truncate_roundsDownToWindowStart() {
+    // Arrange
+    Instant now = Instant.ofEpochMilli(NOW + 123);
+
+    // Act / Assert
+    assertThat(cache.truncate(now)).isEqualTo(Instant.parse("2026-10-16T10:00:00Z"));
+    assertThat(ResponseCache.disabled().truncate(now)).isEqualTo(now);
+  }
+
+  @Test
+  @DisplayName("respond - gzip accepted - should compress once and keep a variant ETag")
+  void respond_gzipAccepted_keepsCompressedVariant() {
+    // Arrange
+    ResponseCompressor compressor =
+        ResponseCompressor.create(EnumSet.of(ContentEncoding.GZIP), 64, 6, 1);
+    ResponseCache compressing = ResponseCache.create(Duration.ofSeconds(5), 16, compressor);
+    RouteBinding binding = binding(List.of());
+    String body = "{\"items\":[" + "\"item\",".repeat(40) + "\"last\"]}";
+    ResponseCache.Entry entry =
+        compressing.store(binding, headers(), AlbResponses.json(200, body), NOW);
+
+    // Act
+    ApplicationLoadBalancerResponseEvent first =
+        compressing.respond(entry, headers("accept-encoding", "gzip"), HeaderMode.SINGLE, NOW);
+    ApplicationLoadBalancerResponseEvent second =
+        compressing.respond(entry, headers("accept-encoding", "gzip"), HeaderMode.SINGLE, NOW);
+    ApplicationLoadBalancerResponseEvent plain =
+        compressing.respond(entry, headers(), HeaderMode.SINGLE, NOW);
+
+    // Assert
+    assertThat(first.getIsBase64Encoded()).isTrue();
+    assertThat(first.getHeaders())
+        .containsEntry("Content-Encoding", "gzip")
+        .containsEntry("Vary", "Accept-Encoding");
+    assertThat(first.getHeaders().get("ETag")).endsWith("-gzip\"").isNotEqualTo(entry.etag());
+    assertThat(second.getBody()).isSameAs(first.getBody());
+    assertThat(compressor.compressed()).isEqualTo(1);
+    assertThat(plain.getBody()).isEqualTo(body);
+    assertThat(plain.getHeaders()).containsEntry("ETag", entry.etag());
+  }
+}
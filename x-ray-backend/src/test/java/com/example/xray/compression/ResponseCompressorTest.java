@@ -0,0 +1,158 @@
+package com.example.xray.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbRequestHeaders;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+
+/** Unit tests for {@link ResponseCompressor} and {@link ContentEncoding} negotiation. */
+public class ResponseCompressorTest {
+
+  private static final EnumSet<ContentEncoding> BOTH =
+      EnumSet.of(ContentEncoding.GZIP, ContentEncoding.DEFLATE);
+
+  private final ResponseCompressor compressor = ResponseCompressor.create(BOTH, 1024, 6, 2);
+
+  private static String body(int items) {
+    StringBuilder body = new StringBuilder("[");
+    for (int i = 0; i < items; i++) {
+      body.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"item\"}");
+    }
+    return body.append(']').toString();
+  }
+
+  private static AlbRequestHeaders headers(String acceptEncoding) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHttpMethod("GET");
+    event.setPath("/api/items");
+    event.setHeaders(acceptEncoding == null ? Map.of() : Map.of("accept-encoding", acceptEncoding));
+    return AlbRequestHeaders.of(event);
+  }
+
+  private static String decode(ApplicationLoadBalancerResponseEvent response, boolean gzip)
+      throws IOException {
+    byte[] bytes = Base64.getDecoder().decode(response.getBody());
+    try (InputStream in =
+        gzip
+            ? new GZIPInputStream(new ByteArrayInputStream(bytes))
+            : new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  @DisplayName("negotiate - Accept-Encoding values - should pick the best offered coding")
+  void negotiate_acceptEncoding_picksBestOffered() {
+    // Act / Assert
+    assertThat(ContentEncoding.negotiate("gzip, deflate, br", BOTH))
+        .isEqualTo(ContentEncoding.GZIP);
+    assertThat(ContentEncoding.negotiate("gzip;q=0.5, deflate", BOTH))
+        .isEqualTo(ContentEncoding.DEFLATE);
+    assertThat(ContentEncoding.negotiate("br", BOTH)).isEqualTo(ContentEncoding.IDENTITY);
+    assertThat(ContentEncoding.negotiate("*;q=0.1, gzip;q=0", BOTH))
+        .isEqualTo(ContentEncoding.DEFLATE);
+    assertThat(ContentEncoding.negotiate("gzip;q=0.2, identity;q=0.8", BOTH))
+        .isEqualTo(ContentEncoding.IDENTITY);
+    assertThat(ContentEncoding.negotiate("GZIP", EnumSet.of(ContentEncoding.DEFLATE)))
+        .isEqualTo(ContentEncoding.IDENTITY);
+    assertThat(ContentEncoding.negotiate(null, BOTH)).isEqualTo(ContentEncoding.IDENTITY);
+  }
+
+  @Test
+  @DisplayName("compress - gzip accepted - should return a base64 gzip body with headers")
+  void compress_gzipAccepted_returnsBase64Gzip() throws Exception {
+    // Arrange
+    String body = body(200);
+    ApplicationLoadBalancerResponseEvent response =
+        ResponseTemplate.json(200).create(body, HeaderMode.BOTH);
+
+    // Act
+    compressor.compress(response, headers("gzip, deflate"));
+
+    // Assert
+    assertThat(response.getIsBase64Encoded()).isTrue();
+    assertThat(decode(response, true)).isEqualTo(body);
+    assertThat(response.getHeaders())
+        .containsEntry("Content-Type", "application/json")
+        .containsEntry("Content-Encoding", "gzip")
+        .containsEntry("Vary", "Accept-Encoding");
+    assertThat(response.getMultiValueHeaders().get("Content-Encoding")).containsExactly("gzip");
+    assertThat(compressor.compressed()).isEqualTo(1);
+    assertThat(compressor.bytesOut()).isLessThan(compressor.bytesIn());
+  }
+
+  @Test
+  @DisplayName("compress - deflate accepted - should return a zlib body, reusing the deflater")
+  void compress_deflateAccepted_returnsZlib() throws Exception {
+    // Arrange
+    String body = body(300);
+
+    // Act: the second response reuses the pooled, reset deflater
+    ApplicationLoadBalancerResponseEvent first =
+        compressor.compress(
+            ResponseTemplate.json(200).create(body, HeaderMode.SINGLE), headers("deflate"));
+    ApplicationLoadBalancerResponseEvent second =
+        compressor.compress(
+            ResponseTemplate.json(200).create(body, HeaderMode.SINGLE), headers("deflate"));
+
+    // Assert
+    assertThat(decode(first, false)).isEqualTo(body);
+    assertThat(second.getBody()).isEqualTo(first.getBody());
+    assertThat(second.getMultiValueHeaders()).isNull();
+  }
+
+  @Test
+  @DisplayName("compress - small body or no Accept-Encoding - should leave the body as it is")
+  void compress_smallOrNotAccepted_leavesBody() {
+    // Arrange
+    String large = body(200);
+    ApplicationLoadBalancerResponseEvent small =
+        ResponseTemplate.json(200).create("{\"message\":\"Hello World\"}", HeaderMode.SINGLE);
+    ApplicationLoadBalancerResponseEvent notAccepted =
+        ResponseTemplate.json(200).create(large, HeaderMode.SINGLE);
+
+    // Act
+    compressor.compress(small, headers("gzip"));
+    compressor.compress(notAccepted, headers(null));
+
+    // Assert: a body that could have been compressed still varies on Accept-Encoding
+    assertThat(small.getIsBase64Encoded()).isFalse();
+    assertThat(small.getHeaders()).doesNotContainKey("Vary");
+    assertThat(notAccepted.getBody()).isEqualTo(large);
+    assertThat(notAccepted.getHeaders())
+        .doesNotContainKey("Content-Encoding")
+        .containsEntry("Vary", "Accept-Encoding");
+  }
+
+  @Test
+  @DisplayName("compress - disabled - should leave every response as it is")
+  void compress_disabled_leavesResponse() {
+    // Arrange
+    ApplicationLoadBalancerResponseEvent response =
+        ResponseTemplate.json(200).create(body(200), HeaderMode.SINGLE);
+    Map<String, String> headers = response.getHeaders();
+
+    // Act
+    ResponseCompressor.disabled().compress(response, headers("gzip"));
+
+    // Assert
+    assertThat(response.getIsBase64Encoded()).isFalse();
+    assertThat(response.getHeaders()).isSameAs(headers);
+  }
+}
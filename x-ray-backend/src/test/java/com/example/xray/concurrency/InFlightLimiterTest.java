@@ -0,0 +1,49 @@
+package com.example.xray.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link InFlightLimiter}. */
+public class InFlightLimiterTest {
+
+  @Test
+  @DisplayName("tryAcquire - at the limit - should reject until an invocation is released")
+  void tryAcquire_atLimit_rejectsUntilReleased() {
+    // Arrange
+    InFlightLimiter limiter = InFlightLimiter.of(2);
+
+    // Act
+    boolean first = limiter.tryAcquire();
+    boolean second = limiter.tryAcquire();
+    boolean third = limiter.tryAcquire();
+    limiter.release();
+    boolean afterRelease = limiter.tryAcquire();
+
+    // Assert
+    assertThat(first).isTrue();
+    assertThat(second).isTrue();
+    assertThat(third).isFalse();
+    assertThat(afterRelease).isTrue();
+    assertThat(limiter.rejected()).isEqualTo(1);
+    assertThat(limiter.peak()).isEqualTo(2);
+    assertThat(limiter.inFlight()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("unlimited - should admit every invocation")
+  void unlimited_admitsEverything() {
+    // Arrange
+    InFlightLimiter limiter = InFlightLimiter.of(0);
+
+    // Act
+    for (int i = 0; i < 1000; i++) {
+      assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    // Assert
+    assertThat(limiter.maxInFlight()).isZero();
+    assertThat(limiter.rejected()).isZero();
+  }
+}
@@ -0,0 +1,261 @@
+package com.example.xray.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.XRayLoggingContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for {@link XRayUdpSpanExporter}. Spans are exported through a batch processor to a local
+ * UDP socket standing in for the X-Ray daemon, and each datagram's segment JSON is checked.
+ */
+public class XRayUdpSpanExporterTest {
+
+  private static final String HEADER = "{\"format\":\"json\",\"version\":1}\n";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<Integer> datagramSizes = new ArrayList<>();
+
+  private DatagramSocket daemon;
+  private XRayUdpSpanExporter exporter;
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    daemon = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+    daemon.setSoTimeout(200);
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    daemon.close();
+  }
+
+  private void startExporter(int maxDatagramBytes) throws Exception {
+    exporter =
+        new XRayUdpSpanExporter(
+            new InetSocketAddress(daemon.getLocalAddress(), daemon.getLocalPort()),
+            maxDatagramBytes);
+    tracerProvider =
+        SdkTracerProvider.builder()
+            .setResource(
+                Resource.create(
+                    Attributes.of(AttributeKey.stringKey("service.name"), "x-ray-backend")))
+            .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+            .build();
+    tracer = tracerProvider.get("exporter-test");
+  }
+
+  /** Read every datagram sent until the socket has been quiet for its timeout. */
+  private List<JsonNode> receiveDocuments() throws Exception {
+    List<JsonNode> documents = new ArrayList<>();
+    byte[] buffer = new byte[XRayUdpSpanExporter.DEFAULT_MAX_DATAGRAM_BYTES];
+    while (true) {
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        daemon.receive(packet);
+      } catch (SocketTimeoutException e) {
+        return documents;
+      }
+      datagramSizes.add(packet.getLength());
+      String text = new String(packet.getData(), 0, packet.getLength(), StandardCharsets.UTF_8);
+      assertThat(text).startsWith(HEADER);
+      documents.add(objectMapper.readTree(text.substring(HEADER.length())));
+    }
+  }
+
+  private void flush() {
+    tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  @DisplayName("export - server span with child - should send one segment with a subsegment")
+  void export_serverSpanWithChild_nestsSubsegment() throws Exception {
+    // Arrange
+    startExporter(XRayUdpSpanExporter.DEFAULT_MAX_DATAGRAM_BYTES);
+    Span server =
+        tracer
+            .spanBuilder("GET /api/hello")
+            .setSpanKind(SpanKind.SERVER)
+            .setAttribute("http.method", "GET")
+            .setAttribute("http.url", "/api/hello")
+            .setAttribute("aws.lambda.request_id", "req-1")
+            .startSpan();
+    Span child =
+        tracer
+            .spanBuilder("build-response")
+            .setParent(Context.root().with(server))
+            .setAttribute("cache.hit", true)
+            .startSpan();
+
+    // Act
+    child.end();
+    server.setAttribute("http.status_code", 200L);
+    server.end();
+    flush();
+    List<JsonNode> documents = receiveDocuments();
+
+    // Assert
+    assertThat(documents).hasSize(1);
+    JsonNode segment = documents.get(0);
+    assertThat(segment.get("name").asText()).isEqualTo("x-ray-backend");
+    assertThat(segment.get("id").asText()).isEqualTo(server.getSpanContext().getSpanId());
+    assertThat(segment.get("trace_id").asText())
+        .isEqualTo(XRayLoggingContext.toXRayTraceId(server.getSpanContext().getTraceId()));
+    assertThat(segment.has("parent_id")).isFalse();
+    assertThat(segment.has("type")).isFalse();
+    assertThat(segment.get("end_time").asDouble())
+        .isGreaterThanOrEqualTo(segment.get("start_time").asDouble());
+    assertThat(segment.at("/http/request/method").asText()).isEqualTo("GET");
+    assertThat(segment.at("/http/request/url").asText()).isEqualTo("/api/hello");
+    assertThat(segment.at("/http/response/status").asInt()).isEqualTo(200);
+    assertThat(segment.has("fault")).isFalse();
+    assertThat(segment.at("/metadata/default/aws.lambda.request_id").asText()).isEqualTo("req-1");
+
+    JsonNode subsegment = segment.get("subsegments").get(0);
+    assertThat(subsegment.get("name").asText()).isEqualTo("build-response");
+    assertThat(subsegment.get("id").asText()).isEqualTo(child.getSpanContext().getSpanId());
+    assertThat(subsegment.at("/metadata/default/cache.hit").asBoolean()).isTrue();
+  }
+
+  @Test
+  @DisplayName("export - error status - should mark 5xx as fault and 4xx as error")
+  void export_errorStatus_setsFaultFlags() throws Exception {
+    // Arrange
+    startExporter(XRayUdpSpanExporter.DEFAULT_MAX_DATAGRAM_BYTES);
+
+    // Act
+    Span failed = tracer.spanBuilder("failed").setSpanKind(SpanKind.SERVER).startSpan();
+    failed.setAttribute("http.status_code", 500L);
+    failed.setStatus(StatusCode.ERROR);
+    failed.end();
+    Span notFound = tracer.spanBuilder("not-found").setSpanKind(SpanKind.SERVER).startSpan();
+    notFound.setAttribute("http.status_code", 404L);
+    notFound.end();
+    flush();
+    List<JsonNode> documents = receiveDocuments();
+
+    // Assert
+    assertThat(documents).hasSize(2);
+    assertThat(documents.get(0).get("fault").asBoolean()).isTrue();
+    assertThat(documents.get(1).get("error").asBoolean()).isTrue();
+    assertThat(documents.get(1).has("fault")).isFalse();
+  }
+
+  @Test
+  @DisplayName("export - parent exported earlier - should send an independent subsegment")
+  void export_parentInEarlierBatch_sendsIndependentSubsegment() throws Exception {
+    // Arrange
+    startExporter(XRayUdpSpanExporter.DEFAULT_MAX_DATAGRAM_BYTES);
+    Span server = tracer.spanBuilder("server").setSpanKind(SpanKind.SERVER).startSpan();
+    Span child =
+        tracer.spanBuilder("late-child").setParent(Context.root().with(server)).startSpan();
+    server.end();
+    flush();
+    receiveDocuments();
+
+    // Act
+    child.end();
+    flush();
+    List<JsonNode> documents = receiveDocuments();
+
+    // Assert
+    assertThat(documents).hasSize(1);
+    JsonNode subsegment = documents.get(0);
+    assertThat(subsegment.get("type").asText()).isEqualTo("subsegment");
+    assertThat(subsegment.get("name").asText()).isEqualTo("late-child");
+    assertThat(subsegment.get("parent_id").asText())
+        .isEqualTo(server.getSpanContext().getSpanId());
+    assertThat(subsegment.get("trace_id").asText())
+        .isEqualTo(XRayLoggingContext.toXRayTraceId(server.getSpanContext().getTraceId()));
+  }
+
+  @Test
+  @DisplayName("export - subtree larger than a datagram - should split under the limit")
+  void export_largeSubtree_splitsUnderLimit() throws Exception {
+    // Arrange
+    int maxDatagramBytes = 2048;
+    startExporter(maxDatagramBytes);
+    Span server = tracer.spanBuilder("server").setSpanKind(SpanKind.SERVER).startSpan();
+    Set<String> expectedIds = new HashSet<>();
+    expectedIds.add(server.getSpanContext().getSpanId());
+    String payload = "x".repeat(400);
+    for (int i = 0; i < 20; i++) {
+      Span child =
+          tracer
+              .spanBuilder("child-" + i)
+              .setParent(Context.root().with(server))
+              .setAttribute("payload", payload)
+              .startSpan();
+      child.end();
+      expectedIds.add(child.getSpanContext().getSpanId());
+    }
+
+    // Act
+    server.end();
+    flush();
+    List<JsonNode> documents = receiveDocuments();
+
+    // Assert
+    Set<String> receivedIds = new HashSet<>();
+    assertThat(datagramSizes)
+        .allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(maxDatagramBytes));
+    for (JsonNode document : documents) {
+      receivedIds.add(document.get("id").asText());
+      if (document.has("subsegments")) {
+        document.get("subsegments").forEach(nested -> receivedIds.add(nested.get("id").asText()));
+      }
+      if (!document.get("id").asText().equals(server.getSpanContext().getSpanId())) {
+        assertThat(document.get("type").asText()).isEqualTo("subsegment");
+        assertThat(document.get("parent_id").asText())
+            .isEqualTo(server.getSpanContext().getSpanId());
+      }
+    }
+    assertThat(documents.size()).isGreaterThan(1);
+    assertThat(receivedIds).isEqualTo(expectedIds);
+    assertThat(exporter.getSpansDropped()).isZero();
+  }
+
+  @Test
+  @DisplayName("parseAddress - SDK daemon address form - should use the UDP address")
+  void parseAddress_sdkForm_usesUdpAddress() {
+    // Act
+    InetSocketAddress address =
+        XRayUdpSpanExporter.parseAddress("tcp:127.0.0.1:2001 udp:127.0.0.1:2002");
+
+    // Assert
+    assertThat(address.getHostString()).isEqualTo("127.0.0.1");
+    assertThat(address.getPort()).isEqualTo(2002);
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.xray.flush;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link FlushCoordinator}, with flushes the test completes by hand. */
+public class FlushCoordinatorTest {
+
+  private final List<CompletableResultCode> flushes = new ArrayList<>();
+  private FlushCoordinator coordinator;
+
+  @BeforeEach
+  void setUp() {
+    coordinator =
+        new FlushCoordinator(
+            () -> {
+              CompletableResultCode flush = new CompletableResultCode();
+              flushes.add(flush);
+              return flush;
+            });
+  }
+
+  @Test
+  @DisplayName("get - requests while a flush runs - should share one following flush")
+  void get_requestsWhileRunning_shareFollowingFlush() {
+    // Arrange
+    CompletableResultCode first = coordinator.get();
+    List<CompletableResultCode> waiting = new ArrayList<>();
+
+    // Act
+    for (int i = 0; i < 10; i++) {
+      waiting.add(coordinator.get());
+    }
+    flushes.get(0).succeed();
+
+    // Assert: the waiting requests are not covered by the flush that was already running
+    assertThat(first.isSuccess()).isTrue();
+    assertThat(flushes).hasSize(2);
+    assertThat(waiting).allSatisfy(result -> assertThat(result.isDone()).isFalse());
+
+    flushes.get(1).succeed();
+    assertThat(waiting).allSatisfy(result -> assertThat(result.isSuccess()).isTrue());
+    assertThat(coordinator.requested()).isEqualTo(11);
+    assertThat(coordinator.started()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("get - after the flush completed - should start a new flush")
+  void get_afterCompletion_startsNewFlush() {
+    // Arrange
+    coordinator.get();
+    flushes.get(0).succeed();
+
+    // Act
+    CompletableResultCode second = coordinator.get();
+
+    // Assert
+    assertThat(flushes).hasSize(2);
+    assertThat(second.isDone()).isFalse();
+  }
+
+  @Test
+  @DisplayName("get - flush fails - should fail the requests sharing it")
+  void get_flushFails_failsSharedRequests() {
+    // Arrange
+    coordinator.get();
+    CompletableResultCode waiting = coordinator.get();
+    flushes.get(0).succeed();
+
+    // Act
+    flushes.get(1).fail();
+
+    // Assert
+    assertThat(waiting.isDone()).isTrue();
+    assertThat(waiting.isSuccess()).isFalse();
+  }
+
+  @Test
+  @DisplayName("get - flusher completes synchronously - should not hold back later requests")
+  void get_synchronousFlusher_runsEveryRequest() {
+    // Arrange
+    FlushCoordinator synchronous = new FlushCoordinator(CompletableResultCode::ofSuccess);
+
+    // Act
+    CompletableResultCode first = synchronous.get();
+    CompletableResultCode second = synchronous.get();
+
+    // Assert
+    assertThat(first.isSuccess()).isTrue();
+    assertThat(second.isSuccess()).isTrue();
+    assertThat(synchronous.started()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,202 @@
+package com.example.xray.flush;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.OtlpCollector;
+import com.example.xray.budget.RequestBudget;
+import com.example.xray.budget.RequestBudgeter;
+
+/**
+ * Tests for the span flush strategies. Spans are exported through a real batch processor and OTLP
+ * exporter to an in-process {@link OtlpCollector}, with the batch schedule delay set high enough
+ * that only forced flushes reach it.
+ */
+public class SpanFlushStrategyTest {
+
+  private static final Duration NEVER = Duration.ofHours(1);
+
+  private OtlpCollector collector;
+  private PendingSpanTracker tracker;
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    collector = OtlpCollector.start();
+    tracker = new PendingSpanTracker();
+    OtlpHttpSpanExporter exporter =
+        OtlpHttpSpanExporter.builder()
+            .setEndpoint(collector.endpoint() + "/v1/traces")
+            .setTimeout(Duration.ofSeconds(5))
+            .build();
+    tracerProvider =
+        SdkTracerProvider.builder()
+            .addSpanProcessor(tracker)
+            .addSpanProcessor(BatchSpanProcessor.builder(exporter).setScheduleDelay(NEVER).build())
+            .build();
+    tracer = tracerProvider.get("flush-test");
+  }
+
+  @AfterEach
+  void tearDown() {
+    collector.setDelayMillis(0);
+    tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    collector.close();
+  }
+
+  private SpanFlushStrategy strategy(FlushMode mode, Duration timeout, long maxPending) {
+    return SpanFlushStrategyProducer.create(
+        mode, tracerProvider::forceFlush, tracker, timeout, maxPending, NEVER);
+  }
+
+  /** Simulate one handler invocation that records a single span. */
+  private void invoke(SpanFlushStrategy strategy) {
+    strategy.beforeInvocation();
+    tracer.spanBuilder("alb-request-handler").startSpan().end();
+    strategy.afterInvocation();
+  }
+
+  @Test
+  @DisplayName("sync - should export the span before the invocation returns")
+  void sync_exportsBeforeReturning() {
+    // Arrange
+    SpanFlushStrategy strategy = strategy(FlushMode.SYNC, Duration.ofSeconds(5), 512);
+
+    // Act
+    invoke(strategy);
+
+    // Assert
+    assertThat(collector.spanCount()).isEqualTo(1);
+    assertThat(strategy.metrics().getFlushes()).isEqualTo(1);
+    assertThat(strategy.metrics().getSpansDropped()).isZero();
+  }
+
+  @Test
+  @DisplayName("sync - slow collector - should give up at the timeout and count dropped spans")
+  void sync_slowCollector_countsDroppedSpans() {
+    // Arrange
+    collector.setDelayMillis(2000);
+    SpanFlushStrategy strategy = strategy(FlushMode.SYNC, Duration.ofMillis(100), 512);
+
+    // Act
+    long start = System.nanoTime();
+    invoke(strategy);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // Assert
+    assertThat(elapsedMillis).isLessThan(1000);
+    assertThat(strategy.metrics().getFailedFlushes()).isEqualTo(1);
+    assertThat(strategy.metrics().getSpansDropped()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("sync - slow collector, short request budget - should stop waiting at the budget")
+  void sync_slowCollectorShortBudget_stopsAtBudget() {
+    // Arrange: 750 ms left less a 500 ms reserve leaves about 250 ms of the 5 s flush timeout
+    collector.setDelayMillis(3000);
+    SpanFlushStrategy strategy = strategy(FlushMode.SYNC, Duration.ofSeconds(5), 512);
+    RequestBudgeter budgeter = RequestBudgeter.create(Duration.ofMillis(500), Duration.ZERO);
+    com.amazonaws.services.lambda.runtime.Context lambdaContext =
+        mock(com.amazonaws.services.lambda.runtime.Context.class);
+    when(lambdaContext.getRemainingTimeInMillis()).thenReturn(750);
+    RequestBudget budget = budgeter.begin(lambdaContext, System.nanoTime());
+
+    // Act
+    long start = System.nanoTime();
+    try (Scope scope = Context.root().with(budget).makeCurrent()) {
+      invoke(strategy);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // Assert
+    assertThat(elapsedMillis).isLessThan(1000);
+    assertThat(budgeter.waitsShortened()).isEqualTo(1);
+    assertThat(strategy.metrics().getSpansDropped()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("after-response - should return before the export and settle it on the next call")
+  void afterResponse_returnsBeforeExport_settlesOnNextInvocation() {
+    // Arrange
+    collector.setDelayMillis(500);
+    SpanFlushStrategy strategy = strategy(FlushMode.AFTER_RESPONSE, Duration.ofSeconds(5), 512);
+
+    // Act
+    long start = System.nanoTime();
+    invoke(strategy);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    long exportedOnReturn = collector.spanCount();
+    strategy.beforeInvocation();
+
+    // Assert
+    assertThat(elapsedMillis).isLessThan(500);
+    assertThat(exportedOnReturn).isZero();
+    assertThat(collector.spanCount()).isEqualTo(1);
+    assertThat(strategy.metrics().getFlushes()).isEqualTo(1);
+    assertThat(strategy.metrics().getLastLatencyMillis()).isGreaterThanOrEqualTo(400);
+    assertThat(strategy.metrics().getSpansDropped()).isZero();
+  }
+
+  @Test
+  @DisplayName("bounded-staleness - should only flush once the pending span threshold is reached")
+  void boundedStaleness_flushesAtSizeThreshold() {
+    // Arrange
+    SpanFlushStrategy strategy = strategy(FlushMode.BOUNDED_STALENESS, Duration.ofSeconds(5), 3);
+
+    // Act
+    invoke(strategy);
+    invoke(strategy);
+    strategy.beforeInvocation();
+    long exportedBelowThreshold = collector.spanCount();
+    invoke(strategy);
+    strategy.beforeInvocation();
+
+    // Assert
+    assertThat(exportedBelowThreshold).isZero();
+    assertThat(collector.spanCount()).isEqualTo(3);
+    assertThat(strategy.metrics().getFlushes()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("bounded-staleness - should flush stale spans when the next invocation starts")
+  void boundedStaleness_flushesStaleSpansOnNextInvocation() throws Exception {
+    // Arrange
+    SpanFlushStrategy strategy =
+        SpanFlushStrategyProducer.create(
+            FlushMode.BOUNDED_STALENESS,
+            tracerProvider::forceFlush,
+            tracker,
+            Duration.ofSeconds(5),
+            512,
+            Duration.ofMillis(50));
+
+    // Act
+    invoke(strategy);
+    long exportedAfterFirst = collector.spanCount();
+    Thread.sleep(100);
+    strategy.beforeInvocation();
+    strategy.beforeInvocation();
+
+    // Assert
+    assertThat(exportedAfterFirst).isZero();
+    assertThat(collector.spanCount()).isEqualTo(1);
+    assertThat(tracker.pending()).isZero();
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.xray.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.contrib.awsxray.propagator.AwsXrayPropagator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+
+/** Unit tests for {@link AlbRequestHeaders}. */
+public class AlbRequestHeadersTest {
+
+  private static final String TRACE_HEADER =
+      "Root=1-67890abc-12345678901234567890abcd;Parent=1234567890abcdef;Sampled=1";
+
+  private ApplicationLoadBalancerRequestEvent event(
+      Map<String, String> headers, Map<String, List<String>> multiHeaders) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHeaders(headers);
+    event.setMultiValueHeaders(multiHeaders);
+    return event;
+  }
+
+  @Test
+  @DisplayName("get - mixed-case names - should match case-insensitively")
+  void get_mixedCaseNames_matchesCaseInsensitively() {
+    // Arrange
+    Map<String, String> headers = new HashMap<>();
+    headers.put("X-Amzn-Trace-Id", TRACE_HEADER);
+    AlbRequestHeaders view = AlbRequestHeaders.of(event(headers, null));
+
+    // Act & Assert
+    assertThat(view.get("x-amzn-trace-id")).isEqualTo(TRACE_HEADER);
+    assertThat(view.get("X-AMZN-TRACE-ID")).isEqualTo(TRACE_HEADER);
+    assertThat(view.names()).containsExactly("x-amzn-trace-id");
+  }
+
+  @Test
+  @DisplayName("get - multi-value mode - should return the first value")
+  void get_multiValueMode_returnsFirstValue() {
+    // Arrange
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("Accept", List.of("application/json", "text/plain"));
+    AlbRequestHeaders view = AlbRequestHeaders.of(event(null, multiHeaders));
+
+    // Act & Assert
+    assertThat(view.get("accept")).isEqualTo("application/json");
+    assertThat(view.getAll("ACCEPT")).containsExactly("application/json", "text/plain");
+  }
+
+  @Test
+  @DisplayName("get - name in both modes - should prefer the single-value header")
+  void get_nameInBothModes_prefersSingleValue() {
+    // Arrange
+    Map<String, String> headers = new HashMap<>();
+    headers.put("content-type", "application/json");
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("Content-Type", List.of("text/plain"));
+    multiHeaders.put("X-Forwarded-For", List.of("10.0.0.1"));
+    AlbRequestHeaders view = AlbRequestHeaders.of(event(headers, multiHeaders));
+
+    // Act & Assert
+    assertThat(view.get("Content-Type")).isEqualTo("application/json");
+    assertThat(view.get("x-forwarded-for")).isEqualTo("10.0.0.1");
+    assertThat(view.getAll("content-type")).containsExactly("text/plain");
+  }
+
+  @Test
+  @DisplayName("get - no headers - should return null and empty lists")
+  void get_noHeaders_returnsNothing() {
+    // Arrange
+    AlbRequestHeaders view = AlbRequestHeaders.of(event(null, null));
+
+    // Act & Assert
+    assertThat(view.get("x-amzn-trace-id")).isNull();
+    assertThat(view.getAll("x-amzn-trace-id")).isEmpty();
+    assertThat(view.names()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("GETTER - X-Ray propagator - should extract the parent span context")
+  void getter_xrayPropagator_extractsParent() {
+    // Arrange
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("X-Amzn-Trace-Id", List.of(TRACE_HEADER));
+    AlbRequestHeaders view = AlbRequestHeaders.of(event(null, multiHeaders));
+
+    // Act
+    Context context =
+        AwsXrayPropagator.getInstance().extract(Context.root(), view, AlbRequestHeaders.GETTER);
+
+    // Assert
+    SpanContext spanContext = Span.fromContext(context).getSpanContext();
+    assertThat(spanContext.isValid()).isTrue();
+    assertThat(spanContext.getTraceId()).isEqualTo("67890abc12345678901234567890abcd");
+    assertThat(spanContext.getSpanId()).isEqualTo("1234567890abcdef");
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.xray.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Unit tests for {@link HeaderMode}. */
+public class HeaderModeTest {
+
+  private ApplicationLoadBalancerRequestEvent event(
+      Map<String, String> headers, Map<String, List<String>> multiHeaders) {
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    event.setHeaders(headers);
+    event.setMultiValueHeaders(multiHeaders);
+    return event;
+  }
+
+  @Test
+  @DisplayName("resolve - auto - should follow the request's header representation")
+  void resolve_auto_followsRequest() {
+    // Arrange
+    Map<String, String> headers = Map.of("accept", "*/*");
+    Map<String, List<String>> multiHeaders = Map.of("accept", List.of("*/*"));
+
+    // Act & Assert
+    assertThat(HeaderMode.AUTO.resolve(event(headers, null))).isEqualTo(HeaderMode.SINGLE);
+    assertThat(HeaderMode.AUTO.resolve(event(null, multiHeaders))).isEqualTo(HeaderMode.MULTI);
+    assertThat(HeaderMode.AUTO.resolve(event(headers, multiHeaders))).isEqualTo(HeaderMode.BOTH);
+    assertThat(HeaderMode.AUTO.resolve(event(null, null))).isEqualTo(HeaderMode.BOTH);
+  }
+
+  @Test
+  @DisplayName("resolve - configured mode - should override detection")
+  void resolve_configuredMode_overridesDetection() {
+    // Arrange
+    ApplicationLoadBalancerRequestEvent multiEvent = event(null, Map.of("a", List.of("1")));
+
+    // Act & Assert
+    assertThat(HeaderMode.SINGLE.resolve(multiEvent)).isEqualTo(HeaderMode.SINGLE);
+    assertThat(HeaderMode.BOTH.resolve(multiEvent)).isEqualTo(HeaderMode.BOTH);
+  }
+
+  @Test
+  @DisplayName("create - single and multi modes - should set only the matching header map")
+  void create_singleAndMultiModes_setOnlyMatchingMap() {
+    // Act
+    ApplicationLoadBalancerResponseEvent single =
+        ResponseTemplate.json(200).create("{}", HeaderMode.SINGLE);
+    ApplicationLoadBalancerResponseEvent multi = AlbResponses.NOT_FOUND.create(HeaderMode.MULTI);
+
+    // Assert
+    assertThat(single.getHeaders()).containsEntry("Content-Type", "application/json");
+    assertThat(single.getMultiValueHeaders()).isNull();
+    assertThat(multi.getHeaders()).isNull();
+    assertThat(multi.getMultiValueHeaders())
+        .containsEntry("Content-Type", List.of("application/json"));
+  }
+
+  @Test
+  @DisplayName("apply - route filled the other representation - should convert it")
+  void apply_otherRepresentation_converts() {
+    // Arrange
+    ApplicationLoadBalancerResponseEvent response = new ApplicationLoadBalancerResponseEvent();
+    Map<String, List<String>> multiHeaders = new HashMap<>();
+    multiHeaders.put("Vary", List.of("Accept", "Accept-Encoding"));
+    response.setMultiValueHeaders(multiHeaders);
+
+    // Act
+    HeaderMode.SINGLE.apply(response);
+
+    // Assert
+    assertThat(response.getHeaders()).containsExactlyEntriesOf(Map.of("Vary", "Accept-Encoding"));
+    assertThat(response.getMultiValueHeaders()).isNull();
+  }
+
+  @Test
+  @DisplayName("serialization - single mode - should omit multiValueHeaders from the payload")
+  void serialization_singleMode_omitsMultiValueHeaders() throws Exception {
+    // Arrange
+    ObjectMapper objectMapper = new LambdaObjectMapperProducer().objectMapper();
+    ApplicationLoadBalancerResponseEvent response =
+        ResponseTemplate.json(200).create("{}", HeaderMode.SINGLE);
+
+    // Act
+    String json = objectMapper.writeValueAsString(response);
+
+    // Assert
+    assertThat(json).contains("\"headers\"").doesNotContain("multiValueHeaders");
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.xray.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+
+/** Unit tests for {@link ResponseTemplate} and {@link ConstantResponse}. */
+public class ResponseTemplateTest {
+
+  @Test
+  @DisplayName("json - common status - should share one template and its header maps")
+  void json_commonStatus_sharesTemplate() {
+    // Act
+    ApplicationLoadBalancerResponseEvent first = AlbResponses.json(200, "{\"a\":1}");
+    ApplicationLoadBalancerResponseEvent second = AlbResponses.json(200, "{\"a\":2}");
+
+    // Assert
+    assertThat(ResponseTemplate.json(200)).isSameAs(ResponseTemplate.json(200));
+    assertThat(first.getHeaders()).isSameAs(second.getHeaders());
+    assertThat(first.getStatusDescription()).isEqualTo("200 OK");
+    assertThat(first.getHeaders()).containsEntry("Content-Type", "application/json");
+    assertThat(first.getMultiValueHeaders())
+        .containsEntry("Content-Type", List.of("application/json"));
+    assertThat(first.getIsBase64Encoded()).isFalse();
+  }
+
+  @Test
+  @DisplayName("headers - shared maps - should be immutable")
+  void headers_sharedMaps_areImmutable() {
+    // Arrange
+    ApplicationLoadBalancerResponseEvent response = AlbResponses.NOT_FOUND.create();
+
+    // Act & Assert
+    assertThatThrownBy(() -> response.getHeaders().put("X-Test", "1"))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> response.getMultiValueHeaders().remove("Content-Type"))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  @DisplayName("withHeader - extra header - should leave the original template unchanged")
+  void withHeader_extraHeader_copiesTemplate() {
+    // Arrange
+    ResponseTemplate base = ResponseTemplate.json(405);
+
+    // Act
+    ApplicationLoadBalancerResponseEvent response =
+        base.withHeader("Allow", "GET").withBody("{}").create();
+
+    // Assert
+    assertThat(response.getStatusCode()).isEqualTo(405);
+    assertThat(response.getStatusDescription()).isEqualTo("405 Method Not Allowed");
+    assertThat(response.getHeaders()).containsEntry("Allow", "GET");
+    assertThat(base.headers()).doesNotContainKey("Allow");
+  }
+
+  @Test
+  @DisplayName("constant responses - create - should return a new event with the fixed body")
+  void constantResponses_create_returnsFixedBody() {
+    // Act
+    ApplicationLoadBalancerResponseEvent first = AlbResponses.INTERNAL_SERVER_ERROR.create();
+    ApplicationLoadBalancerResponseEvent second = AlbResponses.INTERNAL_SERVER_ERROR.create();
+
+    // Assert
+    assertThat(first).isNotSameAs(second);
+    assertThat(first.getStatusCode()).isEqualTo(500);
+    assertThat(first.getStatusDescription()).isEqualTo("500 Internal Server Error");
+    assertThat(first.getBody()).isEqualTo("{\"message\":\"Internal Server Error\"}");
+  }
+}
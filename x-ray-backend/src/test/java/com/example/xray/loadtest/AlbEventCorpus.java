@@ -0,0 +1,236 @@
+package com.example.xray.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A corpus of ALB request events as the Lambda receives them, one JSON document per line. A corpus
+ * is either recorded, as captured events saved one per line, or synthesized with a fixed seed from
+ * the traffic mix behind our load balancer:
+ *
+ * <ul>
+ *   <li>85% {@code GET /api/hello}, 5% {@code POST /api/hello/batch} with 1 to 20 names, 10%
+ *       requests for paths with no route
+ *   <li>50% X-Ray headers with a sampled parent, 25% with an unsampled parent, 15% with a sampled
+ *       parent plus W3C traceparent, tracestate and baggage from browsers, and 10% with only the
+ *       root the ALB adds to requests that arrive without a trace
+ *   <li>one in four in the multi-value header representation, and 0 to 20 custom headers on top
+ *       of the standard ones
+ * </ul>
+ */
+public final class AlbEventCorpus {
+
+  private static final String TARGET_GROUP_ARN =
+      "arn:aws:elasticloadbalancing:us-east-1:123456789012:targetgroup/x-ray-backend/0123abcd";
+
+  /** Trace IDs start on 2026-01-01, so a seed always gives the same corpus. */
+  private static final long EPOCH_SECONDS = 1_767_225_600L;
+
+  /** Configured like the Lambda runtime's mapper, so events look as they do on the wire. */
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+  private static final String[] USER_AGENTS = {
+    "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0",
+    "Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) AppleWebKit/605.1.15 Mobile/15E148",
+    "okhttp/4.12.0",
+    "aws-sdk-java/2.25.0 Linux/6.1 OpenJDK_64-Bit_Server_VM/21.0.3",
+  };
+
+  private static final String[] NAMES = {"World", "alice", "Bob", "Zoë", "ops-dashboard", ""};
+
+  private final List<byte[]> events;
+
+  private AlbEventCorpus(List<byte[]> events) {
+    if (events.isEmpty()) {
+      throw new IllegalArgumentException("An event corpus needs at least one event");
+    }
+    this.events = events;
+  }
+
+  /**
+   * Synthesize a corpus from the traffic mix.
+   *
+   * @param size Number of events
+   * @param seed Random seed; the same seed gives the same corpus
+   * @return The corpus
+   */
+  public static AlbEventCorpus synthesize(int size, long seed) {
+    Random random = new Random(seed);
+    List<byte[]> events = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      try {
+        events.add(MAPPER.writeValueAsBytes(event(random)));
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Cannot write synthesized event", e);
+      }
+    }
+    return new AlbEventCorpus(events);
+  }
+
+  /**
+   * Read a corpus of one event per line. Blank lines are skipped; events are replayed as they are
+   * stored, without parsing them here.
+   *
+   * @param path The corpus file
+   * @return The corpus
+   * @throws IOException if the file cannot be read
+   */
+  public static AlbEventCorpus read(Path path) throws IOException {
+    List<byte[]> events = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isBlank()) {
+          events.add(line.getBytes(StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return new AlbEventCorpus(events);
+  }
+
+  /**
+   * Write the corpus one event per line, to replay the same traffic later.
+   *
+   * @param path The corpus file
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Path path) throws IOException {
+    try (OutputStream out = Files.newOutputStream(path)) {
+      for (byte[] event : events) {
+        out.write(event);
+        out.write('\n');
+      }
+    }
+  }
+
+  /**
+   * Gets the number of distinct events.
+   *
+   * @return The corpus size
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Gets an event, cycling through the corpus for indexes past its end.
+   *
+   * @param index The request number
+   * @return The event JSON
+   */
+  public byte[] event(long index) {
+    return events.get((int) (index % events.size()));
+  }
+
+  private static ApplicationLoadBalancerRequestEvent event(Random random) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("accept", "application/json");
+    headers.put("host", "api.example.com");
+    headers.put("user-agent", USER_AGENTS[random.nextInt(USER_AGENTS.length)]);
+    headers.put("x-forwarded-for", "203.0.113." + random.nextInt(256) + ", 10.0.1.15");
+    headers.put("x-forwarded-port", "443");
+    headers.put("x-forwarded-proto", "https");
+    if (random.nextInt(10) < 7) {
+      headers.put("accept-encoding", "gzip, deflate, br");
+    }
+    traceHeaders(random, headers);
+    int custom = random.nextInt(21);
+    for (int i = 0; i < custom; i++) {
+      headers.put("x-custom-header-" + i, "value-" + random.nextInt(1_000_000));
+    }
+
+    ApplicationLoadBalancerRequestEvent event = new ApplicationLoadBalancerRequestEvent();
+    int route = random.nextInt(100);
+    if (route < 85) {
+      event.setHttpMethod("GET");
+      event.setPath("/api/hello");
+    } else if (route < 90) {
+      event.setHttpMethod("POST");
+      event.setPath("/api/hello/batch");
+      headers.put("content-type", "application/json");
+      event.setBody(batchBody(random));
+    } else {
+      event.setHttpMethod("GET");
+      event.setPath("/api/missing/" + random.nextInt(100));
+    }
+    event.setIsBase64Encoded(false);
+    ApplicationLoadBalancerRequestEvent.Elb elb = new ApplicationLoadBalancerRequestEvent.Elb();
+    elb.setTargetGroupArn(TARGET_GROUP_ARN);
+    ApplicationLoadBalancerRequestEvent.RequestContext requestContext =
+        new ApplicationLoadBalancerRequestEvent.RequestContext();
+    requestContext.setElb(elb);
+    event.setRequestContext(requestContext);
+
+    if (random.nextInt(4) == 0) {
+      Map<String, List<String>> multiValueHeaders = new HashMap<>();
+      headers.forEach((name, value) -> multiValueHeaders.put(name, List.of(value)));
+      event.setMultiValueHeaders(multiValueHeaders);
+      event.setMultiValueQueryStringParameters(Map.of());
+    } else {
+      event.setHeaders(headers);
+      event.setQueryStringParameters(Map.of());
+    }
+    return event;
+  }
+
+  private static void traceHeaders(Random random, Map<String, String> headers) {
+    HexFormat hex = HexFormat.of();
+    String epoch = Long.toHexString(EPOCH_SECONDS + random.nextInt(86_400));
+    String random96 = hex.formatHex(bytes(random, 12));
+    String parent = hex.formatHex(bytes(random, 8));
+    String root = "Root=1-" + epoch + "-" + random96;
+    int mix = random.nextInt(100);
+    if (mix < 10) {
+      headers.put("x-amzn-trace-id", root);
+      return;
+    }
+    boolean sampled = mix >= 35;
+    headers.put(
+        "x-amzn-trace-id", root + ";Parent=" + parent + ";Sampled=" + (sampled ? "1" : "0"));
+    if (mix >= 85) {
+      headers.put("traceparent", "00-" + epoch + random96 + "-" + parent + "-01");
+      headers.put("tracestate", "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE");
+      headers.put(
+          "baggage",
+          "userId=user-"
+              + random.nextInt(10_000)
+              + ",sessionId="
+              + hex.formatHex(bytes(random, 16))
+              + ",tenant=acme;region=us-east-1");
+    }
+  }
+
+  private static String batchBody(Random random) {
+    int count = 1 + random.nextInt(20);
+    StringBuilder body = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+      body.append("{\"name\":\"").append(NAMES[random.nextInt(NAMES.length)]).append("\"}");
+    }
+    return body.append(']').toString();
+  }
+
+  private static byte[] bytes(Random random, int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.xray.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.xray.stream.AlbEventReader;
+import com.example.xray.stream.LazyAlbRequestEvent;
+
+/** Tests for {@link AlbEventCorpus} and the response scan in {@link LoadReplayer}. */
+public class AlbEventCorpusTest {
+
+  @Test
+  @DisplayName("synthesize - should give events the stream entry point reads, all traced")
+  void synthesize_eventsReadByStreamEntryPoint() throws Exception {
+    // Act
+    AlbEventCorpus corpus = AlbEventCorpus.synthesize(200, 7);
+
+    // Assert: ALB adds X-Amzn-Trace-Id to every request
+    for (int i = 0; i < corpus.size(); i++) {
+      LazyAlbRequestEvent event = AlbEventReader.read(corpus.event(i));
+      assertThat(event.getHttpMethod()).isIn("GET", "POST");
+      assertThat(event.getPath()).startsWith("/api/");
+      String traceHeader =
+          event.getHeaders() != null
+              ? event.getHeaders().get("x-amzn-trace-id")
+              : event.getMultiValueHeaders().get("x-amzn-trace-id").get(0);
+      assertThat(traceHeader).startsWith("Root=1-");
+    }
+  }
+
+  @Test
+  @DisplayName("write and read - should replay the same events in the same order")
+  void writeAndRead_roundTrips(@TempDir Path dir) throws Exception {
+    // Arrange
+    AlbEventCorpus corpus = AlbEventCorpus.synthesize(50, 42);
+    Path file = dir.resolve("corpus.jsonl");
+
+    // Act
+    corpus.write(file);
+    AlbEventCorpus read = AlbEventCorpus.read(file);
+
+    // Assert
+    assertThat(read.size()).isEqualTo(50);
+    for (int i = 0; i < 60; i++) {
+      assertThat(read.event(i)).isEqualTo(corpus.event(i));
+    }
+    assertThat(AlbEventCorpus.synthesize(50, 42).event(3)).isEqualTo(corpus.event(3));
+  }
+
+  @Test
+  @DisplayName("statusCode - serialized response - should find the status without parsing")
+  void statusCode_serializedResponse_found() {
+    // Arrange
+    byte[] response = "{\"statusCode\":207,\"statusDescription\":\"207 Multi-Status\"}".getBytes();
+
+    // Act / Assert
+    assertThat(LoadReplayer.statusCode(response, response.length)).isEqualTo(207);
+    assertThat(LoadReplayer.statusCode(new byte[] {'{', '}'}, 2)).isEqualTo(-1);
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.xray.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Watches garbage collection and allocation while a load run is measured. Stop-the-world pauses
+ * are taken from the collectors' notifications; the concurrent phases some collectors also report
+ * are left out, since requests keep running through them. Allocation is the JVM's running total
+ * over all threads, virtual threads included through their carriers.
+ */
+final class GcMonitor implements AutoCloseable {
+
+  private final List<NotificationEmitter> emitters = new ArrayList<>();
+  private final NotificationListener listener = this::onNotification;
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final long allocatedAtStart;
+  private final AtomicLong pauses = new AtomicLong();
+  private final AtomicLong pauseMillis = new AtomicLong();
+  private final AtomicLong maxPauseMillis = new AtomicLong();
+
+  /** Start watching. */
+  GcMonitor() {
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof NotificationEmitter emitter) {
+        emitter.addNotificationListener(listener, null, null);
+        emitters.add(emitter);
+      }
+    }
+    allocatedAtStart = threads.getTotalThreadAllocatedBytes();
+  }
+
+  /**
+   * Gets the number of pauses so far.
+   *
+   * @return The pause count
+   */
+  long pauses() {
+    return pauses.get();
+  }
+
+  /**
+   * Gets the time spent in pauses so far.
+   *
+   * @return The total pause time in milliseconds
+   */
+  long pauseMillis() {
+    return pauseMillis.get();
+  }
+
+  /**
+   * Gets the longest pause so far.
+   *
+   * @return The longest pause in milliseconds
+   */
+  long maxPauseMillis() {
+    return maxPauseMillis.get();
+  }
+
+  /**
+   * Gets the bytes allocated since watching started.
+   *
+   * @return The allocated bytes, or -1 if the JVM does not track them
+   */
+  long allocatedBytes() {
+    long allocated = threads.getTotalThreadAllocatedBytes();
+    return allocated < 0 || allocatedAtStart < 0 ? -1 : allocated - allocatedAtStart;
+  }
+
+  @Override
+  public void close() {
+    for (NotificationEmitter emitter : emitters) {
+      try {
+        emitter.removeNotificationListener(listener);
+      } catch (ListenerNotFoundException e) {
+        // Already gone
+      }
+    }
+  }
+
+  private void onNotification(Notification notification, Object handback) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+        notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    String action = info.getGcAction().toLowerCase(Locale.ROOT);
+    String name = info.getGcName().toLowerCase(Locale.ROOT);
+    // G1 and Shenandoah report concurrent cycles, ZGC whole cycles next to its pauses
+    if (action.contains("concurrent") || name.contains("concurrent") || name.contains("cycles")) {
+      return;
+    }
+    long duration = info.getGcInfo().getDuration();
+    pauses.incrementAndGet();
+    pauseMillis.addAndGet(duration);
+    maxPauseMillis.accumulateAndGet(duration, Math::max);
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.xray.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jakarta.inject.Inject;
+
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.xray.OtlpCollector;
+import com.example.xray.stream.AlbStreamHandler;
+
+/**
+ * Load harness for release gating, run with {@code ./gradlew loadTest} rather than with the unit
+ * tests. It replays an ALB event corpus through {@link AlbStreamHandler} in the booted application,
+ * with the real span flush and OTLP export going to an in-process {@link OtlpCollector}, writes a
+ * {@link LoadReport} per run to {@code build/reports/loadtest}, and fails when a run misses a gate.
+ * Every {@code loadtest.*} setting comes from a system property; the Gradle task passes on
+ * {@code -Ploadtest.*} project properties.
+ */
+@QuarkusTest
+@Tag("loadtest")
+@WithTestResource(OtlpCollectorResource.class)
+public class LoadHarnessTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadHarnessTest.class);
+
+  private static LoadReplayer replayer;
+
+  @Inject AlbStreamHandler streamHandler;
+
+  private static long longProperty(String name, long defaultValue) {
+    return Long.getLong("loadtest." + name, defaultValue);
+  }
+
+  private static double doubleProperty(String name, double defaultValue) {
+    String value = System.getProperty("loadtest." + name);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+
+  private static Path reportDir() {
+    return Path.of(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+  }
+
+  @BeforeEach
+  void setUp() throws Exception {
+    if (replayer != null) {
+      return;
+    }
+    String corpusPath = System.getProperty("loadtest.corpus");
+    AlbEventCorpus corpus;
+    if (corpusPath != null) {
+      corpus = AlbEventCorpus.read(Path.of(corpusPath));
+    } else {
+      corpus =
+          AlbEventCorpus.synthesize(
+              (int) longProperty("corpus-size", 2000), longProperty("seed", 42));
+      // Kept with the reports so a failing run can be replayed exactly
+      Files.createDirectories(reportDir());
+      corpus.write(reportDir().resolve("corpus.jsonl"));
+    }
+    replayer =
+        new LoadReplayer(
+            streamHandler,
+            corpus,
+            OtlpCollectorResource.collector(),
+            longProperty("timeout-ms", 30000));
+    replayer.warmUp((int) longProperty("concurrency", 16), longProperty("warmup-requests", 2000));
+  }
+
+  private static void gate(LoadReport report) throws IOException {
+    Path file = report.write(reportDir());
+    logger.info("{} (report: {})", report.summary(), file);
+
+    assertThat(report.failures()).as("invocations that threw").isZero();
+    assertThat(report.errorRate())
+        .as("error rate")
+        .isLessThanOrEqualTo(doubleProperty("gate.max-error-rate", 0.001));
+    assertThat(report.latency().p99())
+        .as("p99 latency in ms")
+        .isLessThanOrEqualTo(doubleProperty("gate.max-p99-ms", 50));
+    double minThroughput = doubleProperty("gate.min-throughput", 0);
+    if (minThroughput > 0) {
+      assertThat(report.throughput()).as("requests per second").isGreaterThan(minThroughput);
+    }
+    long maxBytes = longProperty("gate.max-bytes-per-request", 0);
+    if (maxBytes > 0) {
+      assertThat(report.allocatedBytesPerRequest())
+          .as("bytes allocated per request")
+          .isLessThanOrEqualTo(maxBytes);
+    }
+  }
+
+  @Test
+  @DisplayName("closed loop - fixed concurrency - should meet the release gates")
+  void closedLoop_meetsGates() throws Exception {
+    // Act
+    LoadReport report =
+        replayer.closedLoop(
+            "closed-loop", (int) longProperty("concurrency", 16), longProperty("requests", 10000));
+
+    // Assert
+    gate(report);
+  }
+
+  @Test
+  @DisplayName("open loop - fixed arrival rate - should meet the release gates")
+  void openLoop_meetsGates() throws Exception {
+    // Act
+    LoadReport report =
+        replayer.openLoop(
+            "open-loop",
+            doubleProperty("rate", 500),
+            longProperty("requests", 10000),
+            longProperty("seed", 42));
+
+    // Assert
+    gate(report);
+  }
+}
@@ -0,0 +1,286 @@
+package com.example.xray.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.example.xray.OtlpCollector;
+import com.example.xray.metrics.LatencyHistogram;
+
+/**
+ * Replays an {@link AlbEventCorpus} through a Lambda stream entry point, as the runtime would hand
+ * it the raw event bytes, and measures each invocation. Two arrival modes:
+ *
+ * <ul>
+ *   <li>closed loop: a fixed number of workers, each sending its next request as soon as the last
+ *       one returns, which finds the throughput the handler sustains at that concurrency
+ *   <li>open loop: requests arrive at a fixed average rate with exponential gaps, each on its own
+ *       virtual thread whether or not earlier ones have finished, and latency counts from when a
+ *       request was due, which shows queueing a closed loop would hide
+ * </ul>
+ */
+public final class LoadReplayer {
+
+  private static final byte[] STATUS_CODE = "\"statusCode\":".getBytes(StandardCharsets.US_ASCII);
+
+  private final RequestStreamHandler handler;
+  private final AlbEventCorpus corpus;
+  private final OtlpCollector collector;
+  private final long timeoutMillis;
+  private final AtomicLong invocations = new AtomicLong();
+
+  /**
+   * Creates a replayer.
+   *
+   * @param handler The stream entry point
+   * @param corpus Events to replay, cycled through in order
+   * @param collector The collector the handler exports to
+   * @param timeoutMillis Function timeout each invocation's Lambda context counts down from
+   */
+  public LoadReplayer(
+      RequestStreamHandler handler,
+      AlbEventCorpus corpus,
+      OtlpCollector collector,
+      long timeoutMillis) {
+    this.handler = handler;
+    this.corpus = corpus;
+    this.collector = collector;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Run requests through a fixed number of workers without measuring them, so the JIT and the
+   * caches settle before a measured run.
+   *
+   * @param concurrency Workers
+   * @param requests Requests to run
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public void warmUp(int concurrency, long requests) throws InterruptedException {
+    closedLoop("warm-up", concurrency, requests, false);
+    collector.reset();
+  }
+
+  /**
+   * Measure a closed-loop run.
+   *
+   * @param name Run name
+   * @param concurrency Workers
+   * @param requests Requests to run
+   * @return The report
+   * @throws InterruptedException if interrupted while waiting for the workers
+   */
+  public LoadReport closedLoop(String name, int concurrency, long requests)
+      throws InterruptedException {
+    return closedLoop(name, concurrency, requests, true);
+  }
+
+  /**
+   * Measure an open-loop run.
+   *
+   * @param name Run name
+   * @param ratePerSecond Average arrivals per second
+   * @param requests Requests to send
+   * @param seed Seed for the arrival gaps
+   * @return The report
+   * @throws InterruptedException if interrupted while waiting for requests to finish
+   */
+  public LoadReport openLoop(String name, double ratePerSecond, long requests, long seed)
+      throws InterruptedException {
+    Run run = new Run();
+    Random random = new Random(seed);
+    double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+    List<Future<?>> pending = new ArrayList<>();
+    try (GcMonitor gc = new GcMonitor();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      long start = System.nanoTime();
+      double due = start;
+      for (long i = 0; i < requests; i++) {
+        long dueNanos = (long) due;
+        long wait = dueNanos - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        pending.add(executor.submit(() -> run.invoke(dueNanos)));
+        due += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+      }
+      await(pending);
+      return run.report(name, "open-loop", 0, ratePerSecond, start, gc);
+    }
+  }
+
+  private LoadReport closedLoop(String name, int concurrency, long requests, boolean measured)
+      throws InterruptedException {
+    Run run = new Run();
+    AtomicLong remaining = new AtomicLong(requests);
+    List<Future<?>> workers = new ArrayList<>();
+    try (GcMonitor gc = new GcMonitor();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      long start = System.nanoTime();
+      for (int i = 0; i < concurrency; i++) {
+        workers.add(
+            executor.submit(
+                () -> {
+                  while (remaining.getAndDecrement() > 0) {
+                    run.invoke(System.nanoTime());
+                  }
+                }));
+      }
+      await(workers);
+      return measured ? run.report(name, "closed-loop", concurrency, 0, start, gc) : null;
+    }
+  }
+
+  private static void await(List<Future<?>> futures) throws InterruptedException {
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Replay worker failed", e.getCause());
+      }
+    }
+  }
+
+  /** Find the status code in a serialized ALB response without parsing it. */
+  static int statusCode(byte[] response, int length) {
+    outer:
+    for (int i = 0; i + STATUS_CODE.length < length; i++) {
+      for (int j = 0; j < STATUS_CODE.length; j++) {
+        if (response[i + j] != STATUS_CODE[j]) {
+          continue outer;
+        }
+      }
+      int status = 0;
+      for (int k = i + STATUS_CODE.length; k < length; k++) {
+        byte b = response[k];
+        if (b >= '0' && b <= '9') {
+          status = status * 10 + (b - '0');
+        } else if (b != ' ' || status != 0) {
+          break;
+        }
+      }
+      return status;
+    }
+    return -1;
+  }
+
+  /** Counts and latencies of one run. */
+  private final class Run {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong status2xx = new AtomicLong();
+    private final AtomicLong status4xx = new AtomicLong();
+    private final AtomicLong status5xx = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    void invoke(long dueNanos) {
+      long invocation = invocations.getAndIncrement();
+      ExposedOutputStream out = new ExposedOutputStream();
+      int status;
+      try {
+        handler.handleRequest(
+            new ByteArrayInputStream(corpus.event(invocation)),
+            out,
+            new ReplayLambdaContext(invocation, timeoutMillis));
+        status = statusCode(out.buffer(), out.size());
+      } catch (Exception e) {
+        status = -1;
+      }
+      latency.record(System.nanoTime() - dueNanos);
+      completed.incrementAndGet();
+      if (status < 0) {
+        failures.incrementAndGet();
+      } else if (status >= 500) {
+        status5xx.incrementAndGet();
+      } else if (status >= 400) {
+        status4xx.incrementAndGet();
+      } else {
+        status2xx.incrementAndGet();
+      }
+    }
+
+    LoadReport report(
+        String name, String mode, int concurrency, double rate, long start, GcMonitor gc)
+        throws InterruptedException {
+      double seconds = (System.nanoTime() - start) / 1e9;
+      long requests = completed.get();
+      long allocated = gc.allocatedBytes();
+      LatencyHistogram.Snapshot requestLatency = new LatencyHistogram.Snapshot();
+      latency.drain(requestLatency);
+      return new LoadReport(
+          name,
+          mode,
+          concurrency,
+          rate,
+          requests,
+          seconds,
+          requests / seconds,
+          latency(requestLatency),
+          status2xx.get(),
+          status4xx.get(),
+          status5xx.get(),
+          failures.get(),
+          gc.pauses(),
+          gc.pauseMillis(),
+          gc.maxPauseMillis(),
+          allocated < 0 || requests == 0 ? -1 : allocated / requests,
+          collected(requests));
+    }
+  }
+
+  /** Wait for spans still on their way, then take what the collector received. */
+  private LoadReport.Collector collected(long requests) throws InterruptedException {
+    long spans = -1;
+    for (int i = 0; i < 50 && spans != collector.spanCount(); i++) {
+      spans = collector.spanCount();
+      Thread.sleep(100);
+    }
+    LatencyHistogram.Snapshot delivery = new LatencyHistogram.Snapshot();
+    collector.drainDeliveryLatency(delivery);
+    LoadReport.Collector collected =
+        new LoadReport.Collector(
+            collector.exportCount(),
+            collector.failedExportCount(),
+            collector.spanCount(),
+            requests == 0 ? 0 : (double) collector.spanCount() / requests,
+            latency(delivery));
+    collector.reset();
+    return collected;
+  }
+
+  private static LoadReport.Latency latency(LatencyHistogram.Snapshot snapshot) {
+    return new LoadReport.Latency(
+        millis(snapshot.percentile(50)),
+        millis(snapshot.percentile(99)),
+        millis(snapshot.percentile(99.9)),
+        millis(snapshot.max()));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  /** Lets the response be scanned without copying it. */
+  private static final class ExposedOutputStream extends ByteArrayOutputStream {
+
+    ExposedOutputStream() {
+      super(512);
+    }
+
+    byte[] buffer() {
+      return buf;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.example.xray.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Results of one measured load run, written as JSON for release gating and trend tracking.
+ * Latencies are in milliseconds; request latency in open-loop runs counts from when the request
+ * was due, so time spent queued behind a slow handler is not hidden.
+ *
+ * @param name Run name, also the report file name
+ * @param mode {@code closed-loop} or {@code open-loop}
+ * @param concurrency Workers for a closed-loop run, or 0
+ * @param targetRate Arrivals per second for an open-loop run, or 0
+ * @param requests Requests measured
+ * @param durationSeconds Wall time of the measured run
+ * @param throughput Completed requests per second
+ * @param latency Request latency
+ * @param status2xx Responses with a 2xx status
+ * @param status4xx Responses with a 4xx status
+ * @param status5xx Responses with a 5xx status
+ * @param failures Invocations that threw instead of answering
+ * @param gcPauses Stop-the-world collections
+ * @param gcPauseMillis Time spent in them
+ * @param gcMaxPauseMillis Longest of them
+ * @param allocatedBytesPerRequest Bytes allocated per request by the whole JVM, or -1 if unknown
+ * @param collector What the OTLP collector received during the run
+ */
+public record LoadReport(
+    String name,
+    String mode,
+    int concurrency,
+    double targetRate,
+    long requests,
+    double durationSeconds,
+    double throughput,
+    Latency latency,
+    long status2xx,
+    long status4xx,
+    long status5xx,
+    long failures,
+    long gcPauses,
+    long gcPauseMillis,
+    long gcMaxPauseMillis,
+    long allocatedBytesPerRequest,
+    Collector collector) {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  /**
+   * Latency percentiles.
+   *
+   * @param p50 Median
+   * @param p99 99th percentile
+   * @param p999 99.9th percentile
+   * @param max Largest
+   */
+  public record Latency(double p50, double p99, double p999, double max) {}
+
+  /**
+   * What the collector received.
+   *
+   * @param exports Export requests
+   * @param failedExports Export requests answered with a failure
+   * @param spans Spans accepted
+   * @param spansPerRequest Spans accepted per measured request
+   * @param delivery Time from a span ending to its arrival at the collector
+   */
+  public record Collector(
+      long exports, long failedExports, long spans, double spansPerRequest, Latency delivery) {}
+
+  /**
+   * Gets the share of requests answered 5xx or failed.
+   *
+   * @return The error rate, 0 to 1
+   */
+  @JsonProperty
+  public double errorRate() {
+    return requests == 0 ? 0 : (double) (status5xx + failures) / requests;
+  }
+
+  /**
+   * Write the report as {@code <name>.json} in a directory.
+   *
+   * @param directory The report directory, created if missing
+   * @return The report file
+   * @throws IOException if the report cannot be written
+   */
+  public Path write(Path directory) throws IOException {
+    Files.createDirectories(directory);
+    Path file = directory.resolve(name + ".json");
+    MAPPER.writeValue(file.toFile(), this);
+    return file;
+  }
+
+  /**
+   * Summarize the report on one line for the build log.
+   *
+   * @return The summary
+   */
+  public String summary() {
+    return String.format(
+        Locale.ROOT,
+        "%s: %d requests in %.1f s, %.0f req/s, p50=%.2f ms p99=%.2f ms p999=%.2f ms max=%.2f ms,"
+            + " errors=%.3f%%, gc pauses=%d (%d ms, max %d ms), %d B/request, spans=%d (%.2f per"
+            + " request), delivery p99=%.1f ms",
+        name,
+        requests,
+        durationSeconds,
+        throughput,
+        latency.p50(),
+        latency.p99(),
+        latency.p999(),
+        latency.max(),
+        errorRate() * 100,
+        gcPauses,
+        gcPauseMillis,
+        gcMaxPauseMillis,
+        allocatedBytesPerRequest,
+        collector.spans(),
+        collector.spansPerRequest(),
+        collector.delivery().p99());
+  }
+}
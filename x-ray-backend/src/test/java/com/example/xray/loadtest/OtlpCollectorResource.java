@@ -0,0 +1,46 @@
+package com.example.xray.loadtest;
+
+import java.util.Map;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+import com.example.xray.OtlpCollector;
+
+/**
+ * Starts an {@link OtlpCollector} before Quarkus and points the application's OTLP exporter at it.
+ * {@code loadtest.collector.protocol} picks {@code grpc}, as deployed, or {@code http/protobuf};
+ * {@code loadtest.collector.delay-ms} and {@code loadtest.collector.failure-rate} degrade it.
+ */
+public class OtlpCollectorResource implements QuarkusTestResourceLifecycleManager {
+
+  private static volatile OtlpCollector collector;
+
+  /**
+   * Gets the running collector.
+   *
+   * @return The collector
+   */
+  public static OtlpCollector collector() {
+    return collector;
+  }
+
+  @Override
+  public Map<String, String> start() {
+    collector = OtlpCollector.start();
+    collector.setDelayMillis(Long.getLong("loadtest.collector.delay-ms", 0));
+    collector.setFailureRate(
+        Double.parseDouble(System.getProperty("loadtest.collector.failure-rate", "0")));
+    return Map.of(
+        "quarkus.otel.exporter.otlp.endpoint", collector.endpoint(),
+        "quarkus.otel.exporter.otlp.protocol",
+            System.getProperty("loadtest.collector.protocol", "grpc"),
+        "xray.traces.exporter", "otlp");
+  }
+
+  @Override
+  public void stop() {
+    if (collector != null) {
+      collector.close();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.xray.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/**
+ * Lambda {@link Context} for one replayed invocation, with its own request ID and a deadline
+ * counted from when it was created, the way the runtime counts the function timeout.
+ */
+final class ReplayLambdaContext implements Context {
+
+  private final String requestId;
+  private final long deadlineNanos;
+
+  ReplayLambdaContext(long invocation, long timeoutMillis) {
+    this.requestId = String.format("00000000-0000-4000-8000-%012x", invocation);
+    this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+  }
+
+  @Override
+  public String getAwsRequestId() {
+    return requestId;
+  }
+
+  @Override
+  public String getLogGroupName() {
+    return "/aws/lambda/x-ray-backend";
+  }
+
+  @Override
+  public String getLogStreamName() {
+    return "2026/01/01/[$LATEST]0123456789abcdef";
+  }
+
+  @Override
+  public String getFunctionName() {
+    return "x-ray-backend";
+  }
+
+  @Override
+  public String getFunctionVersion() {
+    return "$LATEST";
+  }
+
+  @Override
+  public String getInvokedFunctionArn() {
+    return "arn:aws:lambda:us-east-1:123456789012:function:x-ray-backend";
+  }
+
+  @Override
+  public CognitoIdentity getIdentity() {
+    return null;
+  }
+
+  @Override
+  public ClientContext getClientContext() {
+    return null;
+  }
+
+  @Override
+  public int getRemainingTimeInMillis() {
+    long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    return (int) Math.max(0, remaining);
+  }
+
+  @Override
+  public int getMemoryLimitInMB() {
+    return 1024;
+  }
+
+  @Override
+  public LambdaLogger getLogger() {
+    return null;
+  }
+}
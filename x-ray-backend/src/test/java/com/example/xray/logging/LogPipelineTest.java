@@ -0,0 +1,193 @@
+package com.example.xray.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.jboss.logmanager.Level;
+import org.jboss.logmanager.MDC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for the log pipeline: {@link AsyncLogHandler} writing through its writer thread, and
+ * {@link InvocationLog} sampling. The handler is used directly rather than installed on the root
+ * logger.
+ */
+public class LogPipelineTest {
+
+  private final ConcurrentLinkedQueue<String> lines = new ConcurrentLinkedQueue<>();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private AsyncLogHandler handler;
+  private LogPipeline pipeline;
+
+  @BeforeEach
+  void setUp() {
+    handler = new AsyncLogHandler(64, new JsonLogFormatter("x-ray-backend", "1.0.0"), lines::add);
+    pipeline = LogPipeline.create(handler, true, 4, true, Duration.ofSeconds(5));
+  }
+
+  @AfterEach
+  void tearDown() {
+    handler.close();
+    MDC.remove("trace_id");
+  }
+
+  private static ExtLogRecord record(Level level, String message) {
+    ExtLogRecord record = new ExtLogRecord(level, message, LogPipelineTest.class.getName());
+    record.setLoggerName("com.example.xray.Test");
+    return record;
+  }
+
+  private void publish(InvocationLog log, Level level, String message) {
+    try (Scope scope = Context.root().with(log).makeCurrent()) {
+      handler.publish(record(level, message));
+    }
+  }
+
+  private List<String> messages() throws Exception {
+    assertThat(handler.drain(TimeUnit.SECONDS.toNanos(5))).isTrue();
+    List<String> messages = new ArrayList<>();
+    for (String line : lines) {
+      messages.add(objectMapper.readTree(line).path("message").asText());
+    }
+    return messages;
+  }
+
+  @Test
+  @DisplayName("publish - outside an invocation - should write a JSON line with MDC and service")
+  void publish_outsideInvocation_writesJsonLine() throws Exception {
+    // Arrange
+    MDC.put("trace_id", "67890abc12345678901234567890abcd");
+
+    // Act
+    handler.publish(record(Level.INFO, "Processing \"hello\" request"));
+    MDC.remove("trace_id");
+
+    // Assert: the MDC was copied on the logging thread, before the record changed threads
+    assertThat(handler.drain(TimeUnit.SECONDS.toNanos(5))).isTrue();
+    assertThat(lines).hasSize(1);
+    JsonNode line = objectMapper.readTree(lines.peek());
+    assertThat(line.path("message").asText()).isEqualTo("Processing \"hello\" request");
+    assertThat(line.path("level").asText()).isEqualTo("INFO");
+    assertThat(line.path("loggerName").asText()).isEqualTo("com.example.xray.Test");
+    assertThat(line.path("mdc").path("trace_id").asText())
+        .isEqualTo("67890abc12345678901234567890abcd");
+    assertThat(line.path("service.name").asText()).isEqualTo("x-ray-backend");
+    assertThat(line.path("service.version").asText()).isEqualTo("1.0.0");
+    assertThat(line.has("timestamp")).isTrue();
+  }
+
+  @Test
+  @DisplayName("sampling - unsampled invocation - should drop its lines for a summary")
+  void sampling_unsampledInvocation_dropsLines() throws Exception {
+    // Arrange
+    InvocationLog log = pipeline.begin();
+    publish(log, Level.INFO, "Received request");
+    log.sampled(false);
+    publish(log, Level.INFO, "Processing hello request");
+
+    // Act
+    int dropped = log.end(false);
+    publish(log, Level.INFO, "Request completed");
+
+    // Assert
+    assertThat(dropped).isEqualTo(2);
+    assertThat(messages()).containsExactly("Request completed");
+  }
+
+  @Test
+  @DisplayName("sampling - sampled invocation - should write held and later lines in order")
+  void sampling_sampledInvocation_writesAllInOrder() throws Exception {
+    // Arrange
+    InvocationLog log = pipeline.begin();
+    publish(log, Level.INFO, "Received request");
+
+    // Act
+    log.sampled(true);
+    publish(log, Level.INFO, "Processing hello request");
+    int dropped = log.end(false);
+
+    // Assert
+    assertThat(dropped).isEqualTo(-1);
+    assertThat(messages()).containsExactly("Received request", "Processing hello request");
+  }
+
+  @Test
+  @DisplayName("sampling - warning in unsampled invocation - should keep every line")
+  void sampling_warning_keepsInvocation() throws Exception {
+    // Arrange
+    InvocationLog log = pipeline.begin();
+    log.sampled(false);
+    publish(log, Level.INFO, "Received request");
+
+    // Act
+    publish(log, Level.ERROR, "Error processing request");
+    publish(log, Level.INFO, "Span ended");
+
+    // Assert
+    assertThat(log.end(false)).isEqualTo(-1);
+    assertThat(messages())
+        .containsExactly("Received request", "Error processing request", "Span ended");
+  }
+
+  @Test
+  @DisplayName("sampling - failed invocation past the buffer - should keep the latest lines")
+  void sampling_failedPastBuffer_keepsLatestLines() throws Exception {
+    // Arrange
+    InvocationLog log = pipeline.begin();
+    log.sampled(false);
+    for (int i = 0; i < 6; i++) {
+      publish(log, Level.INFO, "line " + i);
+    }
+
+    // Act
+    log.end(true);
+
+    // Assert: four lines are held at most
+    assertThat(messages()).containsExactly("line 2", "line 3", "line 4", "line 5");
+  }
+
+  @Test
+  @DisplayName("LogRingBuffer - full - should refuse records and hand them out in order")
+  void ringBuffer_full_refusesAndKeepsOrder() {
+    // Arrange
+    LogRingBuffer ring = new LogRingBuffer(3);
+    ExtLogRecord[] records = new ExtLogRecord[5];
+    for (int i = 0; i < records.length; i++) {
+      records[i] = record(Level.INFO, "record " + i);
+    }
+
+    // Act
+    int accepted = 0;
+    for (ExtLogRecord record : records) {
+      if (ring.offer(record)) {
+        accepted++;
+      }
+    }
+
+    // Assert
+    assertThat(ring.capacity()).isEqualTo(4);
+    assertThat(accepted).isEqualTo(4);
+    assertThat(ring.poll()).isSameAs(records[0]);
+    assertThat(ring.offer(records[4])).isTrue();
+    assertThat(ring.poll()).isSameAs(records[1]);
+    assertThat(ring.poll()).isSameAs(records[2]);
+    assertThat(ring.poll()).isSameAs(records[3]);
+    assertThat(ring.poll()).isSameAs(records[4]);
+    assertThat(ring.poll()).isNull();
+  }
+}
@@ -0,0 +1,197 @@
+package com.example.xray.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Tests for {@link LatencyHistogram} and the EMF lines written by {@link PhaseMetrics}. */
+public class PhaseMetricsTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final List<String> lines = new ArrayList<>();
+  private final AtomicLong clock = new AtomicLong();
+
+  private PhaseMetrics metrics(long emitEvery, Duration window) {
+    return new PhaseMetrics(true, "x-ray-backend", emitEvery, window, lines::add, clock::get);
+  }
+
+  private static void recordInvocation(PhaseMetrics metrics, String route, long nanos) {
+    PhaseMetrics.RouteLatency latency = metrics.route(route);
+    for (Phase phase : Phase.values()) {
+      latency.record(phase, nanos);
+    }
+    metrics.invocationCompleted();
+  }
+
+  @Test
+  @DisplayName("percentile - uniform values - should be within bucket precision")
+  void percentile_uniformValues_withinPrecision() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 10_000; micros++) {
+      histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+
+    // Act
+    histogram.drain(snapshot);
+
+    // Assert
+    assertThat(snapshot.count()).isEqualTo(10_000);
+    assertThat(snapshot.max()).isEqualTo(10_000_000);
+    assertThat((double) snapshot.percentile(50)).isCloseTo(5_000_000, within(5_000_000 / 64.0));
+    assertThat((double) snapshot.percentile(99)).isCloseTo(9_900_000, within(9_900_000 / 64.0));
+    assertThat(snapshot.percentile(100)).isEqualTo(10_000_000);
+  }
+
+  @Test
+  @DisplayName("drain - twice - should reset the histogram")
+  void drain_twice_resets() {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1_500);
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+
+    // Act
+    histogram.drain(snapshot);
+    histogram.drain(snapshot);
+
+    // Assert
+    assertThat(snapshot.count()).isZero();
+    assertThat(snapshot.max()).isZero();
+    assertThat(snapshot.percentile(99)).isZero();
+  }
+
+  @Test
+  @DisplayName("index - bucket boundaries - should be contiguous and cover each value")
+  void index_bucketBoundaries_contiguous() {
+    for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+      long lowest = LatencyHistogram.highestValue(i - 1) + 1;
+      assertThat(LatencyHistogram.index(lowest)).isEqualTo(i);
+      assertThat(LatencyHistogram.index(LatencyHistogram.highestValue(i))).isEqualTo(i);
+    }
+  }
+
+  @Test
+  @DisplayName("record - from many threads - should count every value")
+  void record_concurrent_countsEveryValue() throws Exception {
+    // Arrange
+    LatencyHistogram histogram = new LatencyHistogram();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+
+    // Act
+    for (int t = 0; t < 8; t++) {
+      long offset = t;
+      executor.submit(
+          () -> {
+            start.await();
+            for (int i = 0; i < 100_000; i++) {
+              histogram.record(i * 8 + offset);
+            }
+            return null;
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+    histogram.drain(snapshot);
+
+    // Assert
+    assertThat(snapshot.count()).isEqualTo(800_000);
+    assertThat(snapshot.max()).isEqualTo(799_999);
+  }
+
+  @Test
+  @DisplayName("invocationCompleted - every N invocations - should emit one EMF line per route")
+  void invocationCompleted_everyN_emitsEmfLinePerRoute() throws Exception {
+    // Arrange
+    PhaseMetrics metrics = metrics(4, Duration.ofHours(1));
+
+    // Act
+    recordInvocation(metrics, "GET /api/hello", 2_000);
+    recordInvocation(metrics, "GET /api/hello", 4_000);
+    recordInvocation(metrics, "GET", 1_000);
+    int linesBeforeFourth = lines.size();
+    recordInvocation(metrics, "GET /api/hello", 8_000);
+
+    // Assert
+    assertThat(linesBeforeFourth).isZero();
+    assertThat(lines).hasSize(2);
+    JsonNode hello =
+        lines.stream()
+            .map(this::parse)
+            .filter(line -> line.path("Route").asText().equals("GET /api/hello"))
+            .findFirst()
+            .orElseThrow();
+    JsonNode directive = hello.path("_aws").path("CloudWatchMetrics").get(0);
+    assertThat(hello.path("_aws").path("Timestamp").isNumber()).isTrue();
+    assertThat(directive.path("Namespace").asText()).isEqualTo("x-ray-backend");
+    assertThat(directive.path("Dimensions").get(0).get(0).asText()).isEqualTo("Route");
+    assertThat(directive.path("Metrics")).hasSize(1 + Phase.values().length * 4);
+    for (JsonNode metric : directive.path("Metrics")) {
+      assertThat(hello.has(metric.path("Name").asText())).isTrue();
+    }
+    assertThat(hello.path("invocations").asLong()).isEqualTo(3);
+    assertThat(hello.path("handler.max").asDouble()).isEqualTo(8.0);
+    assertThat(hello.path("total.p50").asDouble()).isCloseTo(4.0, within(4.0 / 64));
+  }
+
+  @Test
+  @DisplayName("invocationCompleted - window elapsed - should emit and skip idle routes")
+  void invocationCompleted_windowElapsed_emits() {
+    // Arrange
+    PhaseMetrics metrics = metrics(0, Duration.ofSeconds(60));
+    recordInvocation(metrics, "GET", 1_000);
+    clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    recordInvocation(metrics, "GET /api/hello", 1_000);
+
+    // Act
+    clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    recordInvocation(metrics, "GET /api/hello", 1_000);
+    clock.addAndGet(Duration.ofSeconds(60).toNanos());
+    recordInvocation(metrics, "GET /api/hello", 1_000);
+
+    // Assert
+    assertThat(lines).hasSize(3);
+    assertThat(parse(lines.get(2)).path("Route").asText()).isEqualTo("GET /api/hello");
+    assertThat(parse(lines.get(2)).path("invocations").asLong()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("disabled - recording - should emit nothing")
+  void disabled_recording_emitsNothing() {
+    // Arrange
+    PhaseMetrics metrics = PhaseMetrics.disabled();
+
+    // Act
+    recordInvocation(metrics, "GET /api/hello", 1_000);
+    metrics.emit();
+
+    // Assert
+    assertThat(metrics.enabled()).isFalse();
+  }
+
+  private JsonNode parse(String line) {
+    try {
+      return objectMapper.readTree(line);
+    } catch (Exception e) {
+      throw new AssertionError("Not JSON: " + line, e);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.xray.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.json.JsonBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Unit tests for {@link HelloResponseJsonWriter}. */
+public class HelloResponseJsonWriterTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  @DisplayName("write - hello response - should match Jackson serialization")
+  void write_helloResponse_matchesJackson() throws Exception {
+    // Arrange
+    HelloResponse hello = new HelloResponse("Hello World");
+
+    // Act
+    String json = JsonBuffer.write(hello, HelloResponseJsonWriter.INSTANCE);
+
+    // Assert
+    assertThat(json).isEqualTo(objectMapper.writeValueAsString(hello));
+  }
+
+  @Test
+  @DisplayName("write - special characters and null - should escape and write null")
+  void write_specialCharacters_escapes() throws Exception {
+    // Arrange
+    HelloResponse hello = new HelloResponse();
+    hello.setMessage("say \"hi\"\\\n\t\u0001 ok");
+
+    // Act
+    String json = JsonBuffer.write(hello, HelloResponseJsonWriter.INSTANCE);
+
+    // Assert
+    assertThat(json)
+        .isEqualTo("{\"message\":\"say \\\"hi\\\"\\\\\\n\\t\\u0001 ok\",\"timestamp\":null}");
+    HelloResponse parsed = objectMapper.readValue(json, HelloResponse.class);
+    assertThat(parsed.getMessage()).isEqualTo(hello.getMessage());
+    assertThat(parsed.getTimestamp()).isNull();
+  }
+
+  @Test
+  @DisplayName("write - consecutive calls - should not leak content between values")
+  void write_consecutiveCalls_resetsBuffer() {
+    // Arrange
+    HelloResponse first = new HelloResponse("first message that is longer");
+    HelloResponse second = new HelloResponse("second");
+
+    // Act
+    JsonBuffer.write(first, HelloResponseJsonWriter.INSTANCE);
+    String json = JsonBuffer.write(second, HelloResponseJsonWriter.INSTANCE);
+
+    // Assert
+    assertThat(json).startsWith("{\"message\":\"second\",").doesNotContain("longer");
+  }
+}
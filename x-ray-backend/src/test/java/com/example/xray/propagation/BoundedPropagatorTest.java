@@ -0,0 +1,180 @@
+package com.example.xray.propagation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.opentelemetry.contrib.awsxray.propagator.AwsXrayPropagator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link BoundedPropagator} around the propagators the application configures. */
+public class BoundedPropagatorTest {
+
+  private static final TextMapPropagator CONFIGURED =
+      TextMapPropagator.composite(
+          AwsXrayPropagator.getInstance(),
+          W3CTraceContextPropagator.getInstance(),
+          W3CBaggagePropagator.getInstance());
+
+  private static final TextMapGetter<Map<String, String>> GETTER =
+      new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+          return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+          return carrier == null ? null : carrier.get(key);
+        }
+      };
+
+  private static final TextMapSetter<Map<String, String>> SETTER = Map::put;
+
+  private static final String TRACEPARENT =
+      "00-67890abc12345678901234567890abcd-53995c3f42cd8ad8-01";
+
+  private static Map<String, String> headers(String baggage) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("traceparent", TRACEPARENT);
+    headers.put("baggage", baggage);
+    return headers;
+  }
+
+  @Test
+  @DisplayName("extract - baggage never read - should not parse it")
+  void extract_baggageNotRead_parsesOnFirstRead() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 64, 8192, 512);
+
+    // Act
+    Context context =
+        propagator.extract(
+            Context.root(), headers("userId=alice, name=J%C3%BCrgen;p=1"), GETTER);
+    long parsedBeforeRead = propagator.baggageParsed();
+    Baggage baggage = Baggage.fromContext(context);
+
+    // Assert
+    assertThat(Span.fromContext(context).getSpanContext().isValid()).isTrue();
+    assertThat(parsedBeforeRead).isZero();
+    assertThat(baggage.getEntryValue("userId")).isEqualTo("alice");
+    assertThat(baggage.getEntryValue("name")).isEqualTo("Jürgen");
+    assertThat(baggage.asMap().get("name").getMetadata().getValue()).isEqualTo("p=1");
+    assertThat(baggage.size()).isEqualTo(2);
+    assertThat(propagator.baggageParsed()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("extract - more entries than the limit - should keep the first and count the rest")
+  void extract_overEntryLimit_keepsFirstEntries() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 2, 8192, 512);
+
+    // Act
+    Baggage baggage =
+        Baggage.fromContext(
+            propagator.extract(Context.root(), headers("a=1,b=2,c=3,d=4"), GETTER));
+
+    // Assert
+    assertThat(baggage.asMap()).containsOnlyKeys("a", "b");
+    assertThat(propagator.baggageTruncated()).isEqualTo(1);
+    assertThat(propagator.baggageEntriesDropped()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("extract - entry past the byte limit - should drop it and every later entry")
+  void extract_overByteLimit_keepsWholeEntries() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 64, 10, 512);
+
+    // Act
+    Baggage baggage =
+        Baggage.fromContext(
+            propagator.extract(Context.root(), headers("a=1,bbbbbbbbbb=2,c=3"), GETTER));
+
+    // Assert: entries are kept as a prefix, so c=3 goes with the oversized entry before it
+    assertThat(baggage.asMap()).containsOnlyKeys("a");
+    assertThat(propagator.baggageEntriesDropped()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("extract - tracestate over the limit - should keep the list members that fit")
+  void extract_overTraceStateLimit_keepsWholeMembers() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 64, 8192, 25);
+    Map<String, String> headers = headers("a=1");
+    headers.put("tracestate", "rojo=00f067aa0ba902b7,congo=t61rcWkgMzE");
+
+    // Act
+    Context context = propagator.extract(Context.root(), headers, GETTER);
+
+    // Assert
+    TraceState traceState = Span.fromContext(context).getSpanContext().getTraceState();
+    assertThat(traceState.get("rojo")).isEqualTo("00f067aa0ba902b7");
+    assertThat(traceState.get("congo")).isNull();
+    assertThat(propagator.traceStateTruncated()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("inject - baggage unchanged since extract - should write the header as received")
+  void inject_unchangedBaggage_writesHeaderVerbatim() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 64, 8192, 512);
+    String header = "userId=alice, tenant=acme;region=us-east-1";
+    Context context = propagator.extract(Context.root(), headers(header), GETTER);
+    Map<String, String> outgoing = new HashMap<>();
+
+    // Act
+    propagator.inject(context, outgoing, SETTER);
+
+    // Assert
+    assertThat(outgoing.get("baggage")).isEqualTo(header);
+    assertThat(outgoing.get("traceparent")).startsWith("00-67890abc12345678901234567890abcd-");
+    assertThat(propagator.baggageReused()).isEqualTo(1);
+    assertThat(propagator.baggageParsed()).isZero();
+  }
+
+  @Test
+  @DisplayName("inject - baggage changed since extract - should serialize the new baggage")
+  void inject_changedBaggage_serializes() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.create(CONFIGURED, 64, 8192, 512);
+    Context extracted = propagator.extract(Context.root(), headers("userId=alice"), GETTER);
+    Baggage changed = Baggage.fromContext(extracted).toBuilder().put("tenant", "acme").build();
+    Map<String, String> outgoing = new HashMap<>();
+
+    // Act
+    propagator.inject(extracted.with(changed), outgoing, SETTER);
+
+    // Assert
+    assertThat(outgoing.get("baggage")).contains("userId=alice").contains("tenant=acme");
+    assertThat(propagator.baggageReused()).isZero();
+  }
+
+  @Test
+  @DisplayName("passThrough - oversized baggage - should leave it to the configured propagators")
+  void passThrough_oversizedBaggage_extractsAll() {
+    // Arrange
+    BoundedPropagator propagator = BoundedPropagator.passThrough(CONFIGURED);
+
+    // Act
+    Baggage baggage =
+        Baggage.fromContext(propagator.extract(Context.root(), headers("a=1,b=2,c=3"), GETTER));
+
+    // Assert
+    assertThat(baggage.size()).isEqualTo(3);
+    assertThat(propagator.baggageEntriesDropped()).isZero();
+  }
+}
@@ -0,0 +1,185 @@
+package com.example.xray.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.http.AlbResponses;
+import com.example.xray.http.HeaderMode;
+
+/** Unit tests for {@link RouteTable}. */
+public class RouteTableTest {
+
+  private static final RouteHandler NO_CONTENT = request -> null;
+
+  /** Route bean used to check annotation scanning. */
+  static class SampleRoutes implements Routes {
+
+    @Route(path = "/api/items/{id}", methods = HttpMethod.GET)
+    ApplicationLoadBalancerResponseEvent item(RouteRequest request) {
+      return AlbResponses.json(200, "{\"id\":\"" + request.pathParam("id") + "\"}");
+    }
+
+    @Route(path = "/api/status", spanName = "status-check")
+    ApplicationLoadBalancerResponseEvent status() {
+      return AlbResponses.json(200, "{}");
+    }
+  }
+
+  @Test
+  @DisplayName("match - static route - should return the shared match with span name and route")
+  void match_staticRoute_returnsSharedMatch() {
+    // Arrange
+    RouteTable table = RouteTable.builder().add(HttpMethod.GET, "/api/hello", NO_CONTENT).build();
+
+    // Act
+    RouteMatch first = table.match("GET", "/api/hello");
+    RouteMatch second = table.match("GET", "/api/hello/");
+
+    // Assert
+    assertThat(first.found()).isTrue();
+    assertThat(first.spanName()).isEqualTo("GET /api/hello");
+    assertThat(first.attributes().get(RouteTable.HTTP_ROUTE)).isEqualTo("/api/hello");
+    assertThat(first.spanTemplate().kind()).isEqualTo(SpanKind.SERVER);
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  @DisplayName("match - same route and method - should share one span template")
+  void match_sameRoute_sharesSpanTemplate() {
+    // Arrange
+    RouteTable table =
+        RouteTable.builder()
+            .add(List.of(), "/api/items/{id}", null, Attributes.empty(), NO_CONTENT)
+            .build();
+
+    // Act
+    RouteMatch first = table.match("GET", "/api/items/1");
+    RouteMatch second = table.match("GET", "/api/items/2");
+    RouteMatch post = table.match("POST", "/api/items/1");
+
+    // Assert: matches with parameters are new objects, but their span parts are built once
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.spanTemplate()).isSameAs(first.spanTemplate());
+    assertThat(post.spanTemplate().name()).isEqualTo("POST /api/items/{id}");
+    assertThat(first.spanTemplate().attributes().get(RouteTable.HTTP_ROUTE))
+        .isEqualTo("/api/items/{id}");
+  }
+
+  @Test
+  @DisplayName("match - path parameters - should extract values and prefer static segments")
+  void match_pathParameters_extractsValues() {
+    // Arrange
+    RouteHandler items = request -> null;
+    RouteHandler latest = request -> null;
+    RouteTable table =
+        RouteTable.builder()
+            .add(HttpMethod.GET, "/api/items/{id}/parts/{part}", items)
+            .add(HttpMethod.GET, "/api/items/latest/parts/{part}", latest)
+            .build();
+
+    // Act
+    RouteMatch match = table.match("GET", "/api/items/42/parts/7");
+    RouteMatch staticMatch = table.match("GET", "/api/items/latest/parts/7");
+
+    // Assert
+    assertThat(match.binding().handler()).isSameAs(items);
+    assertThat(match.pathParam("id")).isEqualTo("42");
+    assertThat(match.pathParam("part")).isEqualTo("7");
+    assertThat(match.pathParam("missing")).isNull();
+    assertThat(staticMatch.binding().handler()).isSameAs(latest);
+    assertThat(staticMatch.pathParam("part")).isEqualTo("7");
+  }
+
+  @Test
+  @DisplayName("match - known path with other method - should return 405 with Allow header")
+  void match_wrongMethod_returns405() {
+    // Arrange
+    RouteTable table =
+        RouteTable.builder()
+            .add(HttpMethod.GET, "/api/items", NO_CONTENT)
+            .add(HttpMethod.POST, "/api/items", NO_CONTENT)
+            .build();
+
+    // Act
+    RouteMatch match = table.match("DELETE", "/api/items");
+    ApplicationLoadBalancerResponseEvent response = match.errorResponse(HeaderMode.BOTH);
+
+    // Assert
+    assertThat(match.found()).isFalse();
+    assertThat(match.spanName()).isEqualTo("DELETE");
+    assertThat(response.getStatusCode()).isEqualTo(405);
+    assertThat(response.getStatusDescription()).isEqualTo("405 Method Not Allowed");
+    assertThat(response.getHeaders()).containsEntry("Allow", "GET, POST");
+    assertThat(response.getMultiValueHeaders()).containsEntry("Allow", List.of("GET, POST"));
+  }
+
+  @Test
+  @DisplayName("match - unknown path - should return the precomputed 404")
+  void match_unknownPath_returns404() {
+    // Arrange
+    RouteTable table =
+        RouteTable.builder().add(HttpMethod.GET, "/api/items/{id}", NO_CONTENT).build();
+
+    // Act
+    RouteMatch match = table.match("GET", "/api/items/42/extra");
+    ApplicationLoadBalancerResponseEvent response = match.errorResponse(HeaderMode.BOTH);
+
+    // Assert
+    assertThat(table.match("GET", "/other")).isSameAs(match);
+    assertThat(response.getStatusCode()).isEqualTo(404);
+    assertThat(response.getBody()).isEqualTo("{\"message\":\"Not Found\"}");
+    assertThat(response.getHeaders())
+        .containsEntry(AlbResponses.CONTENT_TYPE, AlbResponses.APPLICATION_JSON);
+  }
+
+  @Test
+  @DisplayName("addAnnotated - route bean - should bind methods with code attributes")
+  void addAnnotated_routeBean_bindsMethods() throws Exception {
+    // Arrange
+    RouteTable table =
+        RouteTable.builder().addAnnotated(new SampleRoutes(), SampleRoutes.class).build();
+
+    // Act
+    RouteMatch item = table.match("GET", "/api/items/42");
+    RouteMatch status = table.match("PUT", "/api/status");
+    ApplicationLoadBalancerResponseEvent response =
+        item.binding().handler().handle(new RouteRequest(null, null, null, item, HeaderMode.BOTH));
+
+    // Assert
+    assertThat(table.size()).isEqualTo(2);
+    assertThat(response.getBody()).isEqualTo("{\"id\":\"42\"}");
+    assertThat(item.attributes().get(RouteTable.CODE_FUNCTION)).isEqualTo("item");
+    assertThat(status.found()).isTrue();
+    assertThat(status.spanName()).isEqualTo("status-check");
+  }
+
+  @Test
+  @DisplayName("add - duplicate or conflicting route - should throw IllegalArgumentException")
+  void add_conflictingRoute_throws() {
+    // Arrange
+    RouteTable.Builder builder =
+        RouteTable.builder().add(HttpMethod.GET, "/api/items/{id}", NO_CONTENT);
+
+    // Act & Assert
+    assertThatThrownBy(() -> builder.add(HttpMethod.GET, "/api/items/{id}", NO_CONTENT))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () ->
+                builder.add(
+                    List.of(HttpMethod.GET),
+                    "/api/items/{name}/parts",
+                    null,
+                    Attributes.empty(),
+                    NO_CONTENT))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,235 @@
+package com.example.xray.sampling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.trace.SpanAttributes;
+
+/**
+ * Tests for {@link XRayRuleSampler}. Sampling rates are checked with many threads sampling
+ * concurrently against a controlled clock, so reservoir limits are exact and rates are statistical.
+ */
+public class XRayRuleSamplerTest {
+
+  private static final String TRACE_ID = "5759e988bd862e3fe1be46a994272793";
+  private static final int THREADS = 8;
+
+  private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static SamplingRules rules(String json) throws Exception {
+    return SamplingRules.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static SamplingRules defaultOnly(int fixedTarget, double rate) throws Exception {
+    return rules(
+        "{\"version\":2,\"rules\":[],\"default\":{\"fixed_target\":"
+            + fixedTarget
+            + ",\"rate\":"
+            + rate
+            + "}}");
+  }
+
+  private XRayRuleSampler sampler(SamplingRules rules) {
+    return new XRayRuleSampler(rules, "x-ray-backend", clock::get);
+  }
+
+  private static boolean sampled(
+      XRayRuleSampler sampler, Context parent, String method, String path) {
+    Attributes attributes =
+        Attributes.of(SpanAttributes.HTTP_METHOD, method, SpanAttributes.HTTP_TARGET, path);
+    return sampler
+            .shouldSample(parent, TRACE_ID, "request", SpanKind.SERVER, attributes, List.of())
+            .getDecision()
+        == SamplingDecision.RECORD_AND_SAMPLE;
+  }
+
+  private static Context remoteParent(TraceFlags flags) {
+    return Context.root()
+        .with(
+            Span.wrap(
+                SpanContext.createFromRemoteParent(
+                    TRACE_ID, "53995c3f42cd8ad8", flags, TraceState.getDefault())));
+  }
+
+  /** Sample from all threads at once, started together, and count the sampled requests. */
+  private long sampleConcurrently(XRayRuleSampler sampler, int requestsPerThread)
+      throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Long>> results = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Callable<Long> task =
+          () -> {
+            start.await();
+            long count = 0;
+            for (int i = 0; i < requestsPerThread; i++) {
+              if (sampled(sampler, Context.root(), "GET", "/api/hello")) {
+                count++;
+              }
+            }
+            return count;
+          };
+      results.add(executor.submit(task));
+    }
+    start.countDown();
+    long total = 0;
+    for (Future<Long> result : results) {
+      total += result.get();
+    }
+    return total;
+  }
+
+  @Test
+  @DisplayName("shouldSample - reservoir only under load - should sample exactly fixed_target")
+  void shouldSample_reservoirUnderLoad_samplesFixedTargetPerSecond() throws Exception {
+    // Arrange
+    XRayRuleSampler sampler = sampler(defaultOnly(10, 0.0));
+
+    // Act
+    long firstSecond = sampleConcurrently(sampler, 10_000);
+    clock.addAndGet(1_000);
+    long secondSecond = sampleConcurrently(sampler, 10_000);
+
+    // Assert
+    assertThat(firstSecond).isEqualTo(10);
+    assertThat(secondSecond).isEqualTo(10);
+  }
+
+  @Test
+  @DisplayName("shouldSample - fixed rate under load - should sample close to the rate")
+  void shouldSample_rateUnderLoad_samplesAtRate() throws Exception {
+    // Arrange
+    XRayRuleSampler sampler = sampler(defaultOnly(0, 0.25));
+    int requestsPerThread = 50_000;
+
+    // Act
+    long sampled = sampleConcurrently(sampler, requestsPerThread);
+
+    // Assert
+    double observed = sampled / (double) (THREADS * requestsPerThread);
+    assertThat(observed).isBetween(0.24, 0.26);
+  }
+
+  @Test
+  @DisplayName("shouldSample - reservoir plus rate - should add the rate on top of the reservoir")
+  void shouldSample_reservoirPlusRate_combines() throws Exception {
+    // Arrange
+    XRayRuleSampler sampler = sampler(defaultOnly(50, 0.1));
+    int requestsPerThread = 25_000;
+    int seconds = 4;
+
+    // Act
+    long sampled = 0;
+    for (int s = 0; s < seconds; s++) {
+      sampled += sampleConcurrently(sampler, requestsPerThread / seconds);
+      clock.addAndGet(1_000);
+    }
+
+    // Assert
+    long requests = (long) THREADS * (requestsPerThread / seconds) * seconds;
+    double expected = seconds * 50 + 0.1 * (requests - seconds * 50);
+    assertThat((double) sampled).isBetween(expected * 0.9, expected * 1.1);
+  }
+
+  @Test
+  @DisplayName("shouldSample - incoming Sampled flag - should follow the upstream decision")
+  void shouldSample_remoteParent_followsSampledFlag() throws Exception {
+    // Arrange
+    XRayRuleSampler sampler = sampler(defaultOnly(0, 1.0));
+    XRayRuleSampler neverSampler = sampler(defaultOnly(0, 0.0));
+    Context unsampledParent = remoteParent(TraceFlags.getDefault());
+    Context sampledParent = remoteParent(TraceFlags.getSampled());
+
+    // Act / Assert
+    assertThat(sampled(sampler, unsampledParent, "GET", "/api/hello")).isFalse();
+    assertThat(sampled(neverSampler, sampledParent, "GET", "/api/hello")).isTrue();
+  }
+
+  @Test
+  @DisplayName("shouldSample - matching rule - should use the first rule that matches")
+  void shouldSample_matchingRule_usesFirstMatch() throws Exception {
+    // Arrange
+    XRayRuleSampler sampler =
+        sampler(
+            rules(
+                """
+                {"version": 2, "rules": [
+                  {"description": "health", "http_method": "GET", "url_path": "/health*",
+                   "fixed_target": 0, "rate": 0.0},
+                  {"description": "api", "service_name": "x-ray-*", "http_method": "get",
+                   "url_path": "/api/?ello", "fixed_target": 0, "rate": 1.0},
+                  {"description": "other service", "service_name": "billing",
+                   "fixed_target": 0, "rate": 1.0}
+                ],
+                "default": {"fixed_target": 0, "rate": 0.0}}
+                """));
+
+    // Act / Assert
+    assertThat(sampled(sampler, Context.root(), "GET", "/health/live")).isFalse();
+    assertThat(sampled(sampler, Context.root(), "GET", "/api/hello")).isTrue();
+    assertThat(sampled(sampler, Context.root(), "POST", "/api/hello")).isFalse();
+    assertThat(sampled(sampler, Context.root(), "GET", "/api/goodbye")).isFalse();
+  }
+
+  @Test
+  @DisplayName("parse - rule without rate - should be rejected")
+  void parse_missingRate_rejected() {
+    // Arrange
+    String json =
+        "{\"rules\":[{\"fixed_target\":1}],\"default\":{\"fixed_target\":1,\"rate\":0.1}}";
+
+    // Act / Assert
+    assertThatThrownBy(() -> rules(json)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @DisplayName("load - bundled rules - should parse")
+  void load_bundledRules_parses() throws Exception {
+    // Act
+    SamplingRules rules = SamplingRules.load("classpath:sampling-rules.json");
+
+    // Assert
+    assertThat(rules.getRules()).isNotEmpty();
+    assertThat(rules.getDefaultRule().getFixedTarget()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("wildcardMatch - patterns - should match X-Ray wildcards")
+  void wildcardMatch_patterns() {
+    assertThat(SamplingRule.wildcardMatch("*", null, false)).isTrue();
+    assertThat(SamplingRule.wildcardMatch("/api/*", "/api/hello", false)).isTrue();
+    assertThat(SamplingRule.wildcardMatch("/api/*/items", "/api/a/b/items", false)).isTrue();
+    assertThat(SamplingRule.wildcardMatch("/api/?", "/api/ab", false)).isFalse();
+    assertThat(SamplingRule.wildcardMatch("GET", "get", true)).isTrue();
+    assertThat(SamplingRule.wildcardMatch("/api/hello", null, false)).isFalse();
+  }
+}
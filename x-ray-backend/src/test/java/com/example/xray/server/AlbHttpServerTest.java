@@ -0,0 +1,103 @@
+package com.example.xray.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jakarta.inject.Inject;
+
+import io.quarkus.test.junit.QuarkusTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.AlbLambdaHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Tests for {@link AlbHttpServer}, serving the application's handler on a free local port. */
+@QuarkusTest
+public class AlbHttpServerTest {
+
+  @Inject AlbLambdaHandler handler;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final HttpClient client = HttpClient.newHttpClient();
+  private AlbHttpServer server;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = AlbHttpServer.start(handler, new InetSocketAddress("127.0.0.1", 0), "x-ray-backend");
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.close();
+  }
+
+  private HttpResponse<String> get(String path, String traceHeader) throws Exception {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path));
+    if (traceHeader != null) {
+      request.header("X-Amzn-Trace-Id", traceHeader);
+    }
+    return client.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  @Test
+  @DisplayName("GET /api/hello - should answer through the Lambda handler")
+  void hello_returnsHandlerResponse() throws Exception {
+    // Act
+    HttpResponse<String> response =
+        get(
+            "/api/hello?name=x%20ray",
+            "Root=1-5759e988-bd862e3fe1be46a994272793;Parent=53995c3f42cd8ad8;Sampled=1");
+
+    // Assert
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue("application/json");
+    JsonNode body = objectMapper.readTree(response.body());
+    assertThat(body.path("message").asText()).isEqualTo("Hello World");
+  }
+
+  @Test
+  @DisplayName("GET unknown path - should return 404")
+  void unknownPath_returns404() throws Exception {
+    // Act
+    HttpResponse<String> response = get("/unknown/path", null);
+
+    // Assert
+    assertThat(response.statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  @DisplayName("concurrent requests - should all be served")
+  void concurrentRequests_allServed() throws Exception {
+    // Arrange
+    int requests = 200;
+    List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+
+    // Act
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < requests; i++) {
+        responses.add(executor.submit(() -> get("/api/hello", null)));
+      }
+    }
+
+    // Assert
+    for (Future<HttpResponse<String>> response : responses) {
+      assertThat(response.get().statusCode()).isEqualTo(200);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.example.xray.spill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for {@link SpillStore}. */
+public class SpillStoreTest {
+
+  /** 32 byte header plus room for exactly four 60 byte records with their length prefixes. */
+  private static final long FOUR_RECORDS = 32 + 4 * 64;
+
+  @TempDir Path tempDir;
+
+  private static byte[] record(int id) {
+    byte[] bytes = new byte[60];
+    byte[] label = ("record-" + id).getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(label, 0, bytes, 0, label.length);
+    return bytes;
+  }
+
+  private static String label(byte[] record) {
+    return new String(record, StandardCharsets.UTF_8).trim();
+  }
+
+  private static List<String> labels(SpillStore.Batch batch) {
+    return batch.records().stream().map(SpillStoreTest::label).toList();
+  }
+
+  @Test
+  @DisplayName("append and read - should return records oldest first without removing them")
+  void appendAndRead_returnsOldestFirst() throws Exception {
+    try (SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), FOUR_RECORDS)) {
+      // Arrange
+      store.append(record(1));
+      store.append(record(2));
+      store.append(record(3));
+
+      // Act
+      SpillStore.Batch batch = store.read(2);
+
+      // Assert
+      assertThat(labels(batch)).containsExactly("record-1", "record-2");
+      assertThat(store.size()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  @DisplayName("commit - should remove the batch and count it as recovered")
+  void commit_removesBatch() throws Exception {
+    try (SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), FOUR_RECORDS)) {
+      // Arrange
+      store.append(record(1));
+      store.append(record(2));
+      store.append(record(3));
+
+      // Act
+      store.commit(store.read(2), 0);
+
+      // Assert
+      assertThat(labels(store.read(10))).containsExactly("record-3");
+      assertThat(store.metrics().getRecovered()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  @DisplayName("append - store full - should evict the oldest records and wrap around")
+  void append_full_evictsOldest() throws Exception {
+    try (SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), FOUR_RECORDS)) {
+      // Act
+      for (int i = 1; i <= 7; i++) {
+        store.append(record(i));
+      }
+
+      // Assert
+      assertThat(labels(store.read(10)))
+          .containsExactly("record-4", "record-5", "record-6", "record-7");
+      assertThat(store.metrics().getSpilled()).isEqualTo(7);
+      assertThat(store.metrics().getDropped()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  @DisplayName("append - record larger than the store - should drop it")
+  void append_oversizedRecord_drops() throws Exception {
+    try (SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), FOUR_RECORDS)) {
+      // Act
+      boolean appended = store.append(new byte[(int) FOUR_RECORDS]);
+
+      // Assert
+      assertThat(appended).isFalse();
+      assertThat(store.isEmpty()).isTrue();
+      assertThat(store.metrics().getDropped()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @DisplayName("commit - records evicted while the batch was out - should not count them twice")
+  void commit_afterEviction_countsOnlyRemaining() throws Exception {
+    try (SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), FOUR_RECORDS)) {
+      // Arrange
+      for (int i = 1; i <= 4; i++) {
+        store.append(record(i));
+      }
+      SpillStore.Batch batch = store.read(2);
+      store.append(record(5));
+
+      // Act
+      store.commit(batch, 0);
+
+      // Assert
+      assertThat(labels(store.read(10))).containsExactly("record-3", "record-4", "record-5");
+      assertThat(store.metrics().getDropped()).isEqualTo(1);
+      assertThat(store.metrics().getRecovered()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @DisplayName("open - existing file - should pick up the records left behind")
+  void open_existingFile_recoversRecords() throws Exception {
+    // Arrange
+    Path path = tempDir.resolve("spans.spill");
+    try (SpillStore store = SpillStore.open(path, FOUR_RECORDS)) {
+      for (int i = 1; i <= 6; i++) {
+        store.append(record(i));
+      }
+      store.commit(store.read(1), 0);
+    }
+
+    // Act
+    try (SpillStore reopened = SpillStore.open(path, FOUR_RECORDS)) {
+
+      // Assert
+      assertThat(reopened.size()).isEqualTo(3);
+      assertThat(labels(reopened.read(10))).containsExactly("record-4", "record-5", "record-6");
+    }
+  }
+
+  @Test
+  @DisplayName("open - different size - should start empty")
+  void open_differentSize_startsEmpty() throws Exception {
+    // Arrange
+    Path path = tempDir.resolve("spans.spill");
+    try (SpillStore store = SpillStore.open(path, FOUR_RECORDS)) {
+      store.append(record(1));
+    }
+
+    // Act
+    try (SpillStore reopened = SpillStore.open(path, FOUR_RECORDS * 2)) {
+
+      // Assert
+      assertThat(reopened.isEmpty()).isTrue();
+    }
+  }
+}
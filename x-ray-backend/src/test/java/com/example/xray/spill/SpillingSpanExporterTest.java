@@ -0,0 +1,230 @@
+package com.example.xray.spill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.xray.OtlpCollector;
+import com.example.xray.flush.FlushMode;
+import com.example.xray.flush.PendingSpanTracker;
+import com.example.xray.flush.SpanFlushStrategy;
+import com.example.xray.flush.SpanFlushStrategyProducer;
+
+/**
+ * Tests for {@link SpillingSpanExporter}. Spans go through a batch processor and OTLP exporter to
+ * an in-process {@link OtlpCollector} that is made to fail or stall, so they end up in a real spill
+ * store and are recovered once the collector accepts exports again. The exporter does not retry,
+ * so a failed export goes straight to the spill.
+ */
+public class SpillingSpanExporterTest {
+
+  private static final Duration NEVER = Duration.ofHours(1);
+
+  @TempDir Path tempDir;
+
+  private OtlpCollector collector;
+  private PendingSpanTracker tracker;
+  private SpanSpill spill;
+  private SpillMetrics metrics;
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    collector = OtlpCollector.start();
+    tracker = new PendingSpanTracker();
+    SpillStore store = SpillStore.open(tempDir.resolve("spans.spill"), 64 * 1024);
+    metrics = store.metrics();
+    spill = SpanSpill.create(store, 256, Duration.ofSeconds(5));
+    OtlpHttpSpanExporter exporter =
+        OtlpHttpSpanExporter.builder()
+            .setEndpoint(collector.endpoint() + "/v1/traces")
+            .setTimeout(Duration.ofSeconds(5))
+            .setRetryPolicy(null)
+            .build();
+    tracerProvider =
+        SdkTracerProvider.builder()
+            .addSpanProcessor(tracker)
+            .addSpanProcessor(
+                BatchSpanProcessor.builder(spill.wrap(exporter)).setScheduleDelay(NEVER).build())
+            .build();
+    tracer = tracerProvider.get("spill-test");
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    collector.setDelayMillis(0);
+    collector.setFailureRate(0);
+    tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    spill.close();
+    collector.close();
+  }
+
+  private SpanFlushStrategy syncStrategy(Duration timeout) {
+    return SpanFlushStrategyProducer.create(
+        FlushMode.SYNC,
+        tracerProvider::forceFlush,
+        tracker,
+        timeout,
+        spill::spillInFlight,
+        512,
+        NEVER);
+  }
+
+  /** Simulate one handler invocation that records a single span. */
+  private void invoke(SpanFlushStrategy strategy) {
+    strategy.beforeInvocation();
+    tracer.spanBuilder("alb-request-handler").startSpan().end();
+    strategy.afterInvocation();
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+  @Test
+  @DisplayName("export - collector failing - should spill and recover once it accepts again")
+  void export_collectorFailing_spillsAndRecovers() throws Exception {
+    // Arrange
+    SpanFlushStrategy strategy = syncStrategy(Duration.ofSeconds(5));
+    collector.setFailureRate(1);
+
+    // Act
+    invoke(strategy);
+    invoke(strategy);
+    invoke(strategy);
+
+    // Assert
+    assertThat(collector.spanCount()).isZero();
+    assertThat(metrics.getSpilled()).isEqualTo(3);
+
+    // Act - the next successful export drains the spill in the background
+    collector.setFailureRate(0);
+    invoke(strategy);
+
+    // Assert
+    awaitCondition(() -> collector.spanCount() == 4);
+    awaitCondition(() -> metrics.getRecovered() == 3);
+    assertThat(metrics.getDropped()).isZero();
+  }
+
+  @Test
+  @DisplayName("export - flush misses its deadline - should spill the in-flight spans")
+  void export_deadlineMissed_spillsInFlight() throws Exception {
+    // Arrange
+    SpanFlushStrategy strategy = syncStrategy(Duration.ofMillis(100));
+    collector.setDelayMillis(1000);
+
+    // Act
+    invoke(strategy);
+
+    // Assert
+    assertThat(metrics.getSpilled()).isEqualTo(1);
+    assertThat(strategy.metrics().getSpansDropped()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("codec - round trip - should keep IDs, timing, status, attributes and events")
+  void codec_roundTrip_keepsSpan() throws Exception {
+    // Arrange
+    SpanContext remoteParent =
+        SpanContext.createFromRemoteParent(
+            "5759e988bd862e3fe1be46a994272793",
+            "53995c3f42cd8ad8",
+            TraceFlags.getSampled(),
+            TraceState.getDefault());
+    Span span =
+        tracer
+            .spanBuilder("GET /api/hello")
+            .setParent(Context.root().with(Span.wrap(remoteParent)))
+            .setSpanKind(SpanKind.SERVER)
+            .setAttribute("http.method", "GET")
+            .setAttribute("http.status_code", 500L)
+            .setAttribute("cache.hit", false)
+            .setAttribute("load", 0.5)
+            .setAttribute(AttributeKey.stringArrayKey("tags"), List.of("a", "b"))
+            .startSpan();
+    span.addEvent("retry", Attributes.of(AttributeKey.longKey("attempt"), 2L));
+    span.setStatus(StatusCode.ERROR, "boom");
+    span.end();
+    SpanData original = ((ReadableSpan) span).toSpanData();
+
+    // Act
+    SpanData decoded = SpanRecordCodec.decode(SpanRecordCodec.encode(original));
+
+    // Assert
+    assertThat(decoded.getSpanContext()).isEqualTo(original.getSpanContext());
+    assertThat(decoded.getParentSpanContext()).isEqualTo(original.getParentSpanContext());
+    assertThat(decoded.getParentSpanContext().isRemote()).isTrue();
+    assertThat(decoded.getKind()).isEqualTo(SpanKind.SERVER);
+    assertThat(decoded.getName()).isEqualTo("GET /api/hello");
+    assertThat(decoded.getStartEpochNanos()).isEqualTo(original.getStartEpochNanos());
+    assertThat(decoded.getEndEpochNanos()).isEqualTo(original.getEndEpochNanos());
+    assertThat(decoded.getStatus()).isEqualTo(original.getStatus());
+    assertThat(decoded.getAttributes()).isEqualTo(original.getAttributes());
+    assertThat(decoded.getEvents()).hasSize(1);
+    assertThat(decoded.getEvents().get(0).getName()).isEqualTo("retry");
+    assertThat(decoded.getEvents().get(0).getAttributes())
+        .isEqualTo(original.getEvents().get(0).getAttributes());
+    assertThat(decoded.getResource()).isEqualTo(original.getResource());
+    assertThat(decoded.getInstrumentationScopeInfo())
+        .isEqualTo(original.getInstrumentationScopeInfo());
+  }
+
+  @Test
+  @DisplayName("codec - truncated record - should fail with IOException")
+  void codec_truncatedRecord_fails() {
+    // Arrange
+    Span span = tracer.spanBuilder("truncated").startSpan();
+    span.end();
+    byte[] record = SpanRecordCodec.encode(((ReadableSpan) span).toSpanData());
+    byte[] truncated = Arrays.copyOf(record, record.length / 2);
+
+    // Act / Assert
+    assertThatThrownBy(() -> SpanRecordCodec.decode(truncated)).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  @DisplayName("wrap - disabled spill - should return the exporter unchanged")
+  void wrap_disabled_returnsDelegate() {
+    // Arrange
+    OtlpHttpSpanExporter exporter = OtlpHttpSpanExporter.builder().build();
+
+    // Act / Assert
+    assertThat(SpanSpill.disabled().wrap(exporter)).isSameAs(exporter);
+    exporter.shutdown();
+  }
+}
@@ -0,0 +1,170 @@
+package com.example.xray.startup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests for {@link StartupTimeline}, driven through a simulated cold start, priming and checkpoint
+ * restore instead of a CRaC-enabled JVM.
+ */
+public class StartupTimelineTest {
+
+  private final List<SpanData> spans = new ArrayList<>();
+  private final List<String> lines = new ArrayList<>();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private SdkTracerProvider tracerProvider;
+  private StartupTimeline timeline;
+
+  @BeforeEach
+  void setUp() {
+    tracerProvider = SdkTracerProvider.builder().addSpanProcessor(new Collector()).build();
+    long processStart = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - 500);
+    timeline =
+        new StartupTimeline(
+            true,
+            () -> tracerProvider.get("startup-test"),
+            "x-ray-backend",
+            "snap-start",
+            processStart,
+            lines::add);
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+  }
+
+  private List<String> spanNames() {
+    return spans.stream().map(SpanData::getName).collect(Collectors.toList());
+  }
+
+  private SpanData span(String name) {
+    return spans.stream().filter(s -> s.getName().equals(name)).findFirst().orElseThrow();
+  }
+
+  private void coldStart() {
+    timeline.bootstrapped();
+    long start = System.nanoTime();
+    timeline.telemetryInitialized(start, start + TimeUnit.MILLISECONDS.toNanos(40));
+  }
+
+  @Test
+  @DisplayName("invocationEnded - first invocation - should report phases as spans and EMF")
+  void invocationEnded_firstInvocation_reportsTimeline() throws Exception {
+    // Arrange
+    coldStart();
+
+    // Act
+    boolean reported = timeline.invocationEnded(System.nanoTime());
+    boolean reportedAgain = timeline.invocationEnded(System.nanoTime());
+
+    // Assert
+    assertThat(reported).isTrue();
+    assertThat(reportedAgain).isFalse();
+    assertThat(spanNames())
+        .containsExactlyInAnyOrder("bootstrap", "otel.init", "first_request", "startup");
+    SpanData root = span("startup");
+    for (String child : List.of("bootstrap", "otel.init", "first_request")) {
+      assertThat(span(child).getParentSpanId()).isEqualTo(root.getSpanId());
+      assertThat(span(child).getStartEpochNanos())
+          .isGreaterThanOrEqualTo(root.getStartEpochNanos());
+    }
+    assertThat(span("otel.init").getEndEpochNanos() - span("otel.init").getStartEpochNanos())
+        .isEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+    assertThat(lines).hasSize(1);
+    JsonNode line = objectMapper.readTree(lines.get(0));
+    assertThat(line.path("InitType").asText()).isEqualTo("snap-start");
+    assertThat(line.path("_aws").path("CloudWatchMetrics").get(0).path("Metrics")).hasSize(4);
+    assertThat(line.path("startup.otel.init").asDouble()).isEqualTo(40.0);
+    assertThat(line.path("startup.bootstrap").asDouble()).isGreaterThanOrEqualTo(400.0);
+    assertThat(line.path("startup.total").asDouble())
+        .isGreaterThanOrEqualTo(line.path("startup.bootstrap").asDouble());
+  }
+
+  @Test
+  @DisplayName("invocationEnded - while priming - should not count as the first invocation")
+  void invocationEnded_priming_ignored() {
+    // Arrange
+    coldStart();
+
+    // Act
+    timeline.priming(true);
+    boolean duringPriming = timeline.invocationEnded(System.nanoTime());
+    timeline.priming(false);
+    boolean afterPriming = timeline.invocationEnded(System.nanoTime());
+
+    // Assert
+    assertThat(duringPriming).isFalse();
+    assertThat(afterPriming).isTrue();
+  }
+
+  @Test
+  @DisplayName("restored - after checkpoint - should report a restore timeline once more")
+  void restored_afterCheckpoint_reportsRestoreTimeline() throws Exception {
+    // Arrange: the checkpoint was taken before any real invocation, after priming
+    coldStart();
+    timeline.priming(true);
+    timeline.invocationEnded(System.nanoTime());
+    timeline.priming(false);
+
+    // Act
+    timeline.restored();
+    boolean reported = timeline.invocationEnded(System.nanoTime());
+
+    // Assert
+    assertThat(reported).isTrue();
+    assertThat(spanNames()).containsExactlyInAnyOrder("restore", "first_request", "startup");
+    assertThat(span("startup").getAttributes().get(AttributeKey.booleanKey("startup.restored")))
+        .isTrue();
+    JsonNode line = objectMapper.readTree(lines.get(0));
+    assertThat(line.has("startup.restore")).isTrue();
+    assertThat(line.has("startup.bootstrap")).isFalse();
+  }
+
+  @Test
+  @DisplayName("disabled - should never report")
+  void disabled_neverReports() {
+    assertThat(StartupTimeline.disabled().invocationEnded(System.nanoTime())).isFalse();
+  }
+
+  /** Collects ended spans. */
+  private final class Collector implements SpanProcessor {
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+      return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+      spans.add(span.toSpanData());
+    }
+
+    @Override
+    public boolean isEndRequired() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.xray.stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.ApplicationLoadBalancerResponseEvent;
+import com.example.xray.AlbLambdaHandler;
+import com.example.xray.http.HeaderMode;
+import com.example.xray.http.ResponseTemplate;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit tests for {@link AlbStreamHandler}, {@link AlbEventReader} and {@link AlbResponseWriter}.
+ */
+public class AlbStreamHandlerTest {
+
+  private static final String EVENT =
+      """
+      {
+        "requestContext": {"elb": {"targetGroupArn": "arn:aws:elasticloadbalancing:tg/x"}},
+        "httpMethod": "GET",
+        "path": "/api/hello",
+        "queryStringParameters": {"lang": "en"},
+        "multiValueQueryStringParameters": null,
+        "headers": {"x-amzn-trace-id": "Root=1-67890abc-12345678901234567890abcd"},
+        "unknownField": {"nested": [1, 2, 3]},
+        "body": "{\\"text\\":\\"caf\\u00e9\\"}",
+        "isBase64Encoded": false
+      }
+      """;
+
+  /** Configured like the Lambda runtime's mapper. */
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+  @Test
+  @DisplayName("read - ALB event - should match Jackson databind field for field")
+  void read_albEvent_matchesDatabind() throws Exception {
+    // Arrange
+    byte[] json = EVENT.getBytes(StandardCharsets.UTF_8);
+    ApplicationLoadBalancerRequestEvent expected =
+        objectMapper.readValue(json, ApplicationLoadBalancerRequestEvent.class);
+
+    // Act
+    LazyAlbRequestEvent event = AlbEventReader.read(new ByteArrayInputStream(json));
+
+    // Assert
+    assertThat(event.getHttpMethod()).isEqualTo("GET");
+    assertThat(event.getPath()).isEqualTo("/api/hello");
+    assertThat(event.getHeaders()).isEqualTo(expected.getHeaders());
+    assertThat(event.getMultiValueHeaders()).isNull();
+    assertThat(event.getBody()).isEqualTo(expected.getBody()).isEqualTo("{\"text\":\"café\"}");
+    assertThat(event.getQueryStringParameters()).isEqualTo(Map.of("lang", "en"));
+    assertThat(event.getMultiValueQueryStringParameters()).isNull();
+    assertThat(event.getRequestContext().getElb().getTargetGroupArn())
+        .isEqualTo("arn:aws:elasticloadbalancing:tg/x");
+    assertThat(event.getIsBase64Encoded()).isFalse();
+  }
+
+  @Test
+  @DisplayName("setBody - before the body is read - should discard the deferred value")
+  void setBody_beforeRead_discardsDeferredValue() throws Exception {
+    // Arrange
+    LazyAlbRequestEvent event = AlbEventReader.read(EVENT.getBytes(StandardCharsets.UTF_8));
+
+    // Act
+    event.setBody("replaced");
+    event.setQueryStringParameters(null);
+
+    // Assert
+    assertThat(event.getBody()).isEqualTo("replaced");
+    assertThat(event.getQueryStringParameters()).isNull();
+  }
+
+  @Test
+  @DisplayName("write - response - should match the Lambda ObjectMapper serialization")
+  void write_response_matchesObjectMapper() throws Exception {
+    // Arrange
+    ApplicationLoadBalancerResponseEvent response =
+        ResponseTemplate.json(200)
+            .create("{\"message\":\"Hello \\\"World\\\"\"}", HeaderMode.MULTI);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    AlbResponseWriter.write(response, out);
+
+    // Assert
+    assertThat(objectMapper.readTree(out.toByteArray()))
+        .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(response)));
+    assertThat(out.toString(StandardCharsets.UTF_8)).doesNotContain("\"headers\"");
+  }
+
+  @Test
+  @DisplayName(
+      "handleRequest - stream - should pass the event to the ALB handler and write its response")
+  void handleRequest_stream_delegatesToAlbHandler() throws Exception {
+    // Arrange
+    AlbStreamHandler streamHandler = new AlbStreamHandler();
+    streamHandler.handler = mock(AlbLambdaHandler.class);
+    Context context = mock(Context.class);
+    when(streamHandler.handler.handleRequest(any(), any()))
+        .thenReturn(ResponseTemplate.json(200).create("{}", HeaderMode.SINGLE));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // Act
+    streamHandler.handleRequest(
+        new ByteArrayInputStream(EVENT.getBytes(StandardCharsets.UTF_8)), out, context);
+
+    // Assert
+    ArgumentCaptor<ApplicationLoadBalancerRequestEvent> event =
+        ArgumentCaptor.forClass(ApplicationLoadBalancerRequestEvent.class);
+    verify(streamHandler.handler).handleRequest(event.capture(), any());
+    assertThat(event.getValue().getPath()).isEqualTo("/api/hello");
+    ApplicationLoadBalancerResponseEvent written =
+        objectMapper.readValue(out.toByteArray(), ApplicationLoadBalancerResponseEvent.class);
+    assertThat(written.getStatusCode()).isEqualTo(200);
+    assertThat(written.getHeaders()).containsEntry("Content-Type", "application/json");
+    assertThat(written.getMultiValueHeaders()).isNull();
+    assertThat(written.getBody()).isEqualTo("{}");
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.xray.trace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+
+import org.jboss.logmanager.MDC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.xray.HelloRoutes;
+import com.example.xray.XRayLoggingContext;
+
+/** Tests for {@link SpanCoalescer}, reading what reaches an in-memory exporter. */
+public class SpanCoalescerTest {
+
+  private static final SpanTemplate OPERATION =
+      SpanTemplate.internal(
+          "hello-operation", Attributes.of(SpanAttributes.SERVICE_OPERATION, "hello"));
+
+  private static final long CLOCK_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+
+  @BeforeEach
+  void setUp() {
+    tracerProvider =
+        SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build();
+    tracer = tracerProvider.get("coalescer-test");
+  }
+
+  @AfterEach
+  void tearDown() {
+    tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+    MDC.remove(XRayLoggingContext.SPAN_ID_KEY);
+    MDC.remove(XRayLoggingContext.TRACE_ID_KEY);
+    MDC.remove(XRayLoggingContext.XRAY_TRACE_ID_KEY);
+  }
+
+  /** Run one operation under a request span, sleeping for the given time inside it. */
+  private void request(SpanCoalescer coalescer, long sleepMillis) throws InterruptedException {
+    Span request = tracer.spanBuilder("GET /api/hello").startSpan();
+    try (Scope scope = request.makeCurrent();
+        SpanCoalescer.Operation operation = coalescer.start(OPERATION)) {
+      if (sleepMillis > 0) {
+        Thread.sleep(sleepMillis);
+      }
+    }
+    request.end();
+  }
+
+  private SpanData span(String name) {
+    return exporter.getFinishedSpanItems().stream()
+        .filter(span -> span.getName().equals(name))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @Test
+  @DisplayName("start - lightweight operation - should record an event on the parent span")
+  void start_lightweight_recordsEvent() throws Exception {
+    // Arrange
+    SpanCoalescer coalescer =
+        SpanCoalescer.create(tracer, List.of("hello-operation"), Duration.ofSeconds(1));
+
+    // Act
+    request(coalescer, 0);
+
+    // Assert: one span exported, holding the operation's timing within the span's, give or take
+    // the system clock's resolution
+    assertThat(exporter.getFinishedSpanItems()).hasSize(1);
+    SpanData request = span("GET /api/hello");
+    assertThat(request.getEvents()).hasSize(1);
+    EventData event = request.getEvents().get(0);
+    assertThat(event.getName()).isEqualTo("hello-operation");
+    Long duration = event.getAttributes().get(SpanAttributes.OPERATION_DURATION_NS);
+    assertThat(duration).isNotNull().isPositive();
+    assertThat(event.getEpochNanos())
+        .isGreaterThanOrEqualTo(request.getStartEpochNanos() - CLOCK_RESOLUTION_NANOS);
+    assertThat(event.getEpochNanos() + duration)
+        .isLessThanOrEqualTo(request.getEndEpochNanos() + CLOCK_RESOLUTION_NANOS);
+    assertThat(event.getAttributes().get(SpanAttributes.SERVICE_OPERATION)).isEqualTo("hello");
+    assertThat(
+            request
+                .getAttributes()
+                .get(AttributeKey.longKey("xray.operation.hello-operation.duration_ns")))
+        .isEqualTo(duration);
+    assertThat(coalescer.coalesced()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("start - disabled - should record a child span")
+  void start_disabled_recordsChildSpan() throws Exception {
+    // Arrange
+    SpanCoalescer coalescer = SpanCoalescer.disabled(tracer);
+
+    // Act
+    request(coalescer, 0);
+
+    // Assert
+    assertThat(exporter.getFinishedSpanItems()).hasSize(2);
+    SpanData child = span("hello-operation");
+    assertThat(child.getParentSpanId()).isEqualTo(span("GET /api/hello").getSpanId());
+    assertThat(span("GET /api/hello").getEvents()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("start - lightweight operation past the threshold - should promote it to a span")
+  void start_slowLightweight_promotesToChildSpan() throws Exception {
+    // Arrange
+    SpanCoalescer coalescer =
+        SpanCoalescer.create(tracer, List.of("hello-operation"), Duration.ofMillis(5));
+
+    // Act
+    request(coalescer, 20);
+
+    // Assert: the promoted span keeps the operation's real start and end
+    assertThat(exporter.getFinishedSpanItems()).hasSize(2);
+    SpanData request = span("GET /api/hello");
+    SpanData child = span("hello-operation");
+    assertThat(child.getParentSpanId()).isEqualTo(request.getSpanId());
+    assertThat(child.getAttributes().get(SpanAttributes.OPERATION_PROMOTED)).isTrue();
+    assertThat(child.getAttributes().get(SpanAttributes.SERVICE_OPERATION)).isEqualTo("hello");
+    assertThat(child.getStartEpochNanos())
+        .isGreaterThanOrEqualTo(request.getStartEpochNanos() - CLOCK_RESOLUTION_NANOS);
+    assertThat(child.getEndEpochNanos() - child.getStartEpochNanos())
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(request.getEvents()).isEmpty();
+    assertThat(coalescer.promoted()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("start - MDC - should keep the parent's span ID only for lightweight operations")
+  void start_mdc_followsRecordedSpan() {
+    // Arrange
+    SpanCoalescer coalescing =
+        SpanCoalescer.create(tracer, List.of("hello-operation"), Duration.ofSeconds(1));
+    Span request = tracer.spanBuilder("GET /api/hello").startSpan();
+    String requestSpanId = request.getSpanContext().getSpanId();
+
+    try (Scope scope = request.makeCurrent();
+        XRayLoggingContext.MdcScope mdcScope = XRayLoggingContext.push(request.getSpanContext())) {
+      // Act
+      String coalescedSpanId;
+      try (SpanCoalescer.Operation operation = coalescing.start(OPERATION)) {
+        coalescedSpanId = MDC.get(XRayLoggingContext.SPAN_ID_KEY);
+      }
+      String childSpanId;
+      try (SpanCoalescer.Operation operation = SpanCoalescer.disabled(tracer).start(OPERATION)) {
+        childSpanId = MDC.get(XRayLoggingContext.SPAN_ID_KEY);
+      }
+
+      // Assert
+      assertThat(coalescedSpanId).isEqualTo(requestSpanId);
+      assertThat(childSpanId).isNotEqualTo(requestSpanId);
+      assertThat(MDC.get(XRayLoggingContext.SPAN_ID_KEY)).isEqualTo(requestSpanId);
+    } finally {
+      request.end();
+    }
+  }
+
+  @Test
+  @DisplayName("lightweightNames - annotated span templates - should find their names")
+  void lightweightNames_annotatedTemplates_found() {
+    // Act / Assert
+    assertThat(SpanCoalescer.lightweightNames(HelloRoutes.class))
+        .containsExactly("hello-operation");
+    assertThatThrownBy(() -> SpanCoalescer.lightweightNames(InstanceField.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("static SpanTemplate");
+  }
+
+  /** Marks a field the coalescer cannot read without an instance. */
+  static class InstanceField {
+    @Lightweight final SpanTemplate operation = OPERATION;
+  }
+}